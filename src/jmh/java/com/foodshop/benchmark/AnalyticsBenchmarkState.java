@@ -0,0 +1,143 @@
+package com.foodshop.benchmark;
+
+import com.foodshop.FoodShopApplication;
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodItemRepository;
+import com.foodshop.service.AnalyticsTrackingService;
+import com.foodshop.service.FoodAnalyticsService;
+import io.minio.MinioClient;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Application context and food items shared by all benchmark threads of one fork.
+ *
+ * <p>Boots the full application with the {@code test} profile against the PostgreSQL and Redis
+ * containers started by {@link BenchmarkRunner}, whose connection settings arrive as system
+ * properties. The first fork seeds {@value #ITEMS} food items with analytics rows; later forks reuse
+ * them.
+ */
+@State(Scope.Benchmark)
+public class AnalyticsBenchmarkState {
+
+  static final int ITEMS = 1_000;
+
+  /** Which food items the benchmark threads increment. */
+  public enum Distribution {
+    /** Every thread increments the same item, so all writers contend on one row. */
+    HOT_SPOT,
+    /** Each increment picks one of {@value AnalyticsBenchmarkState#ITEMS} items at random. */
+    UNIFORM
+  }
+
+  @Param({"HOT_SPOT", "UNIFORM"})
+  public Distribution distribution;
+
+  ConfigurableApplicationContext context;
+  AnalyticsTrackingService trackingService;
+  FoodAnalyticsService foodAnalyticsService;
+  TransactionTemplate transactionTemplate;
+
+  private long[] itemIds;
+
+  /** Starts the application and makes sure every item has an analytics row. */
+  @Setup(Level.Trial)
+  public void start() {
+    if (System.getProperty("spring.datasource.url") == null) {
+      throw new IllegalStateException(
+          "spring.datasource.url is not set; run the benchmarks through BenchmarkRunner");
+    }
+    context =
+        new SpringApplicationBuilder(FoodShopApplication.class, BenchmarkOverrides.class)
+            .profiles("test")
+            .properties(
+                "server.port=0",
+                "spring.main.allow-bean-definition-overriding=true",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.use_sql_comments=false",
+                "logging.level.root=WARN",
+                "logging.level.com.foodshop=WARN",
+                "logging.level.org.springframework.security=WARN")
+            .run();
+    trackingService = context.getBean(AnalyticsTrackingService.class);
+    foodAnalyticsService = context.getBean(FoodAnalyticsService.class);
+    transactionTemplate = context.getBean(TransactionTemplate.class);
+    itemIds = seedItems();
+  }
+
+  /** Shuts the application down. */
+  @TearDown(Level.Trial)
+  public void stop() {
+    if (context != null) {
+      context.close();
+    }
+  }
+
+  long nextItemId() {
+    return distribution == Distribution.HOT_SPOT
+        ? itemIds[0]
+        : itemIds[ThreadLocalRandom.current().nextInt(itemIds.length)];
+  }
+
+  private long[] seedItems() {
+    FoodItemRepository foodItemRepository = context.getBean(FoodItemRepository.class);
+    List<FoodItem> items = new ArrayList<>(foodItemRepository.findAll());
+    if (items.size() < ITEMS) {
+      Category category = new Category();
+      category.setName("Benchmark");
+      category.setActive(true);
+      category.setDisplayOrder(999);
+      category = context.getBean(CategoryRepository.class).save(category);
+
+      List<FoodItem> missing = new ArrayList<>();
+      for (int i = items.size(); i < ITEMS; i++) {
+        FoodItem item = new FoodItem();
+        item.setName("Benchmark item " + i);
+        item.setDescription("Seeded by AnalyticsBenchmarkState");
+        item.setPrice(new BigDecimal("9.99"));
+        item.setCategory(category);
+        item.setAvailable(true);
+        missing.add(item);
+      }
+      items.addAll(foodItemRepository.saveAll(missing));
+    }
+
+    // A zero-delta upsert creates the missing analytics rows, so save() always finds one
+    Map<Long, Long> noViews =
+        items.stream().collect(Collectors.toMap(FoodItem::getId, item -> 0L, Long::sum));
+    foodAnalyticsService.addViewCounts(noViews);
+    return items.stream().map(FoodItem::getId).mapToLong(Long::longValue).sorted().toArray();
+  }
+
+  /**
+   * Replaces the MinIO client, which would otherwise connect to MinIO on startup.
+   *
+   * <p>Registered after the application's own configuration, so its bean definition wins.
+   */
+  static class BenchmarkOverrides {
+
+    @Bean
+    MinioClient minioClient() {
+      return MinioClient.builder()
+          .endpoint("http://localhost:9000")
+          .credentials("benchmark", "benchmark")
+          .build();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.foodshop.benchmark;
+
+import com.foodshop.domain.FoodAnalytics;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+/**
+ * Contended analytics increments against a real PostgreSQL database.
+ *
+ * <p>Every benchmark commits one increment per invocation, like one tracked request. Throughput
+ * mode reports ops/s; sample mode records every invocation's latency so the p99 is available. The
+ * thread count is set per run by {@link BenchmarkRunner}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnalyticsTrackingBenchmark {
+
+  /**
+   * Atomic upsert of one view, the synchronous path of the view tracker.
+   *
+   * @param state shared application state
+   */
+  @Benchmark
+  public void incrementViewCount(AnalyticsBenchmarkState state) {
+    state.trackingService.incrementViewCount(state.nextItemId());
+  }
+
+  /**
+   * Atomic upsert of one ordered item.
+   *
+   * @param state shared application state
+   */
+  @Benchmark
+  public void incrementOrderCount(AnalyticsBenchmarkState state) {
+    state.trackingService.incrementOrderCount(state.nextItemId(), 1);
+  }
+
+  /**
+   * Load, increment and {@code FoodAnalyticsService.save} the entity, retrying on optimistic lock
+   * conflicts. The baseline the upserts replaced, kept to catch regressions in {@code save}.
+   *
+   * @param state shared application state
+   * @return number of attempts needed
+   */
+  @Benchmark
+  public int saveReadModifyWrite(AnalyticsBenchmarkState state) {
+    long foodItemId = state.nextItemId();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        state.transactionTemplate.executeWithoutResult(
+            status -> {
+              FoodAnalytics analytics =
+                  state.foodAnalyticsService.findByFoodItemId(foodItemId).orElseThrow();
+              analytics.setViewCount(analytics.getViewCount() + 1);
+              state.foodAnalyticsService.save(analytics);
+            });
+        return attempt;
+      } catch (ObjectOptimisticLockingFailureException e) {
+        // another thread won the race for this row; reload and try again
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.foodshop.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Entry point for the benchmarks ({@code mvn -Pbenchmarks integration-test}).
+ *
+ * <p>Starts one PostgreSQL and one Redis container for the whole run, unless {@code
+ * -Dspring.datasource.url} (plus username, password and optionally {@code spring.data.redis.*})
+ * points at an existing database. It then runs the selected benchmarks once per thread count in
+ * {@code -Dbenchmark.threads} (default {@code 1,4,16,64}). Command-line arguments are regular JMH
+ * options, e.g. {@code -f 2 -wi 5 CatalogSearchBenchmark}. Raw results are written to {@code
+ * target/jmh-<threads>t.json}; a summary table with ops/s and p99 latency per benchmark, parameters
+ * and thread count is printed at the end.
+ */
+public final class BenchmarkRunner {
+
+  private static final String DEFAULT_THREADS = "1,4,16,64";
+
+  private static final List<String> CONNECTION_PROPERTIES =
+      List.of(
+          "spring.datasource.url",
+          "spring.datasource.username",
+          "spring.datasource.password",
+          "spring.data.redis.host",
+          "spring.data.redis.port");
+
+  private BenchmarkRunner() {}
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args JMH command-line options
+   * @throws Exception if the containers cannot be started or a benchmark fails
+   */
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    int[] threadCounts =
+        commandLine.getThreads().hasValue()
+            ? new int[] {commandLine.getThreads().get()}
+            : Arrays.stream(System.getProperty("benchmark.threads", DEFAULT_THREADS).split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+    if (System.getProperty("spring.datasource.url") != null) {
+      run(commandLine, threadCounts);
+      return;
+    }
+    try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        GenericContainer<?> redis =
+            new GenericContainer<>("redis:7-alpine").withExposedPorts(6379)) {
+      postgres.start();
+      redis.start();
+      System.setProperty("spring.datasource.url", postgres.getJdbcUrl());
+      System.setProperty("spring.datasource.username", postgres.getUsername());
+      System.setProperty("spring.datasource.password", postgres.getPassword());
+      System.setProperty("spring.data.redis.host", redis.getHost());
+      System.setProperty("spring.data.redis.port", redis.getMappedPort(6379).toString());
+      run(commandLine, threadCounts);
+    }
+  }
+
+  private static void run(CommandLineOptions commandLine, int[] threadCounts) throws Exception {
+    // Forked benchmark JVMs receive the connection settings as system properties
+    List<String> jvmArgs = new ArrayList<>();
+    for (String property : CONNECTION_PROPERTIES) {
+      if (System.getProperty(property) != null) {
+        jvmArgs.add("-D" + property + "=" + System.getProperty(property));
+      }
+    }
+    int maxThreads = Arrays.stream(threadCounts).max().orElse(1);
+    jvmArgs.add("-Dspring.datasource.hikari.maximum-pool-size=" + maxThreads);
+
+    List<RunResult> results = new ArrayList<>();
+    for (int threads : threadCounts) {
+      // Without an include pattern on the command line, JMH runs every benchmark
+      Options options =
+          new OptionsBuilder()
+              .parent(commandLine)
+              .threads(threads)
+              .jvmArgsAppend(jvmArgs.toArray(String[]::new))
+              .resultFormat(ResultFormatType.JSON)
+              .result("target/jmh-" + threads + "t.json")
+              .build();
+      results.addAll(new Runner(options).run());
+    }
+    printSummary(results);
+  }
+
+  private static void printSummary(Collection<RunResult> results) {
+    System.out.printf(
+        Locale.ROOT, "%n%-22s %-28s %7s %14s %12s%n", "Benchmark", "Parameters", "Threads",
+        "ops/s", "p99 (ms)");
+    for (RunResult result : results) {
+      BenchmarkParams params = result.getParams();
+      if (params.getMode() != Mode.Throughput) {
+        continue;
+      }
+      double p99Millis =
+          results.stream()
+              .filter(sample -> sample.getParams().getMode() == Mode.SampleTime)
+              .filter(sample -> sameRun(sample.getParams(), params))
+              .mapToDouble(
+                  sample -> sample.getPrimaryResult().getStatistics().getPercentile(99) * 1_000)
+              .findFirst()
+              .orElse(Double.NaN);
+      String benchmark = params.getBenchmark();
+      System.out.printf(
+          Locale.ROOT, "%-22s %-28s %7d %14.1f %12.3f%n",
+          benchmark.substring(benchmark.lastIndexOf('.') + 1), describe(params),
+          params.getThreads(), result.getPrimaryResult().getScore(), p99Millis);
+    }
+  }
+
+  private static boolean sameRun(BenchmarkParams a, BenchmarkParams b) {
+    return a.getBenchmark().equals(b.getBenchmark())
+        && a.getThreads() == b.getThreads()
+        && a.getParamsKeys().stream()
+            .allMatch(key -> Objects.equals(a.getParam(key), b.getParam(key)));
+  }
+
+  private static String describe(BenchmarkParams params) {
+    return params.getParamsKeys().stream()
+        .map(key -> key + "=" + params.getParam(key))
+        .collect(Collectors.joining(","));
+  }
+}
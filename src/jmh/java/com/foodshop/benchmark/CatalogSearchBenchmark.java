@@ -0,0 +1,80 @@
+package com.foodshop.benchmark;
+
+import com.foodshop.repository.FoodItemRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Catalog search latency on {@value CatalogSearchState#ITEMS} food items: the former {@code LIKE}
+ * search next to the full-text search that replaced it.
+ *
+ * <p>Each invocation fetches the first page of 12 results like one search request: with the total
+ * count the offset-paginated catalog needed before, and with keyset pagination (no count) after.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CatalogSearchBenchmark {
+
+  private static final int PAGE_SIZE = 12;
+
+  // The SQL Hibernate generated for the previous JPQL query; the pattern defeats every index
+  private static final String LIKE_SQL =
+      "SELECT f.* FROM food_items f WHERE f.available = TRUE "
+          + "AND (lower(f.name) LIKE lower('%' || :searchTerm || '%') "
+          + "OR lower(f.description) LIKE lower('%' || :searchTerm || '%')) "
+          + "ORDER BY f.name LIMIT " + PAGE_SIZE;
+
+  private static final String LIKE_COUNT_SQL =
+      "SELECT count(*) FROM food_items f WHERE f.available = TRUE "
+          + "AND (lower(f.name) LIKE lower('%' || :searchTerm || '%') "
+          + "OR lower(f.description) LIKE lower('%' || :searchTerm || '%'))";
+
+  /**
+   * Substring search with {@code LOWER(...) LIKE '%term%'} (before).
+   *
+   * @param state database and search term
+   * @param blackhole consumes the results
+   */
+  @Benchmark
+  public void likeSearch(CatalogSearchState state, Blackhole blackhole) {
+    search(state, LIKE_SQL, LIKE_COUNT_SQL, blackhole);
+  }
+
+  // First page of the ranked matches, joined back to the rows the page displays
+  private static final String FULL_TEXT_SQL =
+      "SELECT f.* FROM (" + FoodItemRepository.SEARCH_SQL + " ORDER BY rank DESC, f.id DESC LIMIT "
+          + PAGE_SIZE + ") r JOIN food_items f ON f.id = r.id ORDER BY r.rank DESC, r.id DESC";
+
+  /**
+   * Ranked full-text search on the GIN-indexed {@code search_vector} column (after).
+   *
+   * @param state database and search term
+   * @param blackhole consumes the results
+   */
+  @Benchmark
+  public void fullTextSearch(CatalogSearchState state, Blackhole blackhole) {
+    search(state, FULL_TEXT_SQL, null, blackhole);
+  }
+
+  private static void search(
+      CatalogSearchState state, String pageSql, String countSql, Blackhole blackhole) {
+    Map<String, String> params = Map.of("searchTerm", state.term);
+    List<Map<String, Object>> page = state.jdbcTemplate.queryForList(pageSql, params);
+    blackhole.consume(page);
+    if (countSql != null) {
+      blackhole.consume(state.jdbcTemplate.queryForObject(countSql, params, Long.class));
+    }
+  }
+}
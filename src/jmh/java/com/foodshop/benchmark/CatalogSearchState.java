@@ -0,0 +1,76 @@
+package com.foodshop.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.Map;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Database with {@value #ITEMS} food items for the catalog search benchmarks.
+ *
+ * <p>Only needs PostgreSQL: the schema is migrated with Flyway and queried through plain JDBC, so
+ * the measurements contain the queries and nothing else. Items combine a few common dish words
+ * (each in roughly 5-15% of the rows) with a rare one ({@code truffle}, 0.1% of the rows).
+ */
+@State(Scope.Benchmark)
+public class CatalogSearchState {
+
+  static final int ITEMS = 100_000;
+
+  private static final String SEED_SQL =
+      "INSERT INTO food_items (name, description, price, category_id, available) "
+          + "SELECT w[1 + (i % 20)] || ' ' || w[1 + ((i / 20) % 20)] || ' ' || i, "
+          + "  'A ' || w[1 + ((i * 7) % 20)] || ' dish with ' || w[1 + ((i * 13) % 20)] "
+          + "    || CASE WHEN i % 1000 = 0 THEN ' and truffle' ELSE '' END || ', served fresh', "
+          + "  5 + (i % 20), (SELECT min(id) FROM categories), i % 10 <> 0 "
+          + "FROM generate_series((SELECT count(*) FROM food_items) + 1, :items) i, "
+          + "  (SELECT ARRAY['pizza','burger','pasta','salad','chicken','beef','spicy','vegan',"
+          + "    'cheese','tomato','garlic','mushroom','noodle','rice','curry','taco','sushi',"
+          + "    'soup','grilled','smoked'] AS w) words";
+
+  @Param({"pizza", "spicy chicken", "truffle"})
+  public String term;
+
+  HikariDataSource dataSource;
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  /** Migrates the database and tops it up to {@value #ITEMS} food items. */
+  @Setup(Level.Trial)
+  public void start() {
+    String url = System.getProperty("spring.datasource.url");
+    if (url == null) {
+      throw new IllegalStateException(
+          "spring.datasource.url is not set; run the benchmarks through BenchmarkRunner");
+    }
+    String username = System.getProperty("spring.datasource.username");
+    String password = System.getProperty("spring.datasource.password");
+    // Flyway gets its own connections; a pool sized for one benchmark thread would starve it
+    Flyway.configure().dataSource(url, username, password).baselineOnMigrate(true).load().migrate();
+
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(url);
+    config.setUsername(username);
+    config.setPassword(password);
+    config.setMaximumPoolSize(
+        Integer.getInteger("spring.datasource.hikari.maximum-pool-size", 10));
+    dataSource = new HikariDataSource(config);
+    jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    jdbcTemplate.update(SEED_SQL, Map.of("items", ITEMS));
+    jdbcTemplate.getJdbcTemplate().execute("ANALYZE food_items");
+  }
+
+  /** Closes the connection pool. */
+  @TearDown(Level.Trial)
+  public void stop() {
+    if (dataSource != null) {
+      dataSource.close();
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.foodshop.config;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the application clock.
+ *
+ * <p>The clock's zone ({@code app.time-zone}, JVM default if blank) decides which calendar day an
+ * analytics event is counted on and when a month has ended. Date-dependent code reads the date from
+ * this clock and passes it to the database, rather than mixing the JVM's date with the database
+ * server's {@code CURRENT_DATE}, so both always agree on the day.
+ */
+@Configuration
+public class ClockConfig {
+
+  /**
+   * Creates the system clock in the configured zone.
+   *
+   * @param zone the zone ID, or blank for the JVM default
+   * @return the application clock
+   */
+  @Bean
+  public Clock clock(@Value("${app.time-zone:}") String zone) {
+    return zone.isBlank() ? Clock.systemDefaultZone() : Clock.system(ZoneId.of(zone));
+  }
+}
@@ -1,10 +1,15 @@
 package com.foodshop.config;
 
+import com.foodshop.service.CategoryRegistry;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
 
 /**
- * Redis configuration for session management.
+ * Redis configuration for session management and cross-instance notifications.
  *
  * <p>Sessions are stored in Redis with a 30-minute timeout.
  */
@@ -12,4 +17,20 @@ import org.springframework.session.data.redis.config.annotation.web.http.EnableR
 @EnableRedisHttpSession(maxInactiveIntervalInSeconds = 1800)
 public class RedisConfig {
   // RedisConnectionFactory is auto-configured by Spring Boot
+
+  /**
+   * Subscribes to the pub/sub channels used to keep in-memory state in sync across instances.
+   *
+   * @param connectionFactory the Redis connection factory
+   * @param categoryRegistry reloads categories changed on another instance
+   * @return the listener container
+   */
+  @Bean
+  public RedisMessageListenerContainer redisMessageListenerContainer(
+      RedisConnectionFactory connectionFactory, CategoryRegistry categoryRegistry) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(categoryRegistry, new ChannelTopic(CategoryRegistry.CHANNEL));
+    return container;
+  }
 }
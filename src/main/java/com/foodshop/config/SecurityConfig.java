@@ -15,7 +15,8 @@ import org.springframework.security.web.SecurityFilterChain;
  * Security configuration for the application.
  *
  * <p>Configures OAuth2 login with Google and Facebook, form-based login for admin,
- * session management, and authorization rules.
+ * session management, and authorization rules. The cart is open to anonymous visitors, whose guest
+ * cart is merged on OAuth2 login by {@link CustomOAuth2UserService}.
  */
 @Configuration
 @EnableWebSecurity
@@ -53,8 +54,11 @@ public class SecurityConfig {
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
     http
         .authorizeHttpRequests(authorize -> authorize
-            .requestMatchers("/", "/catalog/**", "/food/**", "/css/**", "/js/**", "/images/**",
-                "/error", "/login", "/oauth2/**", "/favicon.ico")
+            .requestMatchers("/", "/catalog/**", "/api/v1/catalog/**", "/food/**", "/css/**",
+                "/js/**", "/images/**", "/error", "/login", "/oauth2/**", "/favicon.ico", "/csrf")
+            .permitAll()
+            // Anonymous visitors get a guest cart; checkout still requires login
+            .requestMatchers("/cart", "/cart/**")
             .permitAll()
             .requestMatchers("/admin/**")
             .hasRole("ADMIN")
@@ -1,8 +1,19 @@
 package com.foodshop.controller;
 
+import com.foodshop.dto.AnalyticsCursor;
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsSort;
+import com.foodshop.dto.AnalyticsTotalsDTO;
 import com.foodshop.dto.FoodAnalyticsDTO;
 import com.foodshop.service.AnalyticsDashboardService;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,13 +24,17 @@ import org.springframework.web.bind.annotation.RequestParam;
 /**
  * Controller for admin analytics dashboard.
  *
- * <p>Admin-only access to view food item analytics (view and order counts).
+ * <p>Admin-only access to view food item analytics (views, unique visitors and
+ * orders).
  */
 @Controller
 @RequestMapping("/admin/analytics")
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminAnalyticsController {
 
+  private static final String RANGE_ALL = "all";
+  private static final int MAX_LIMIT = 500;
+
   private final AnalyticsDashboardService dashboardService;
 
   public AdminAnalyticsController(AnalyticsDashboardService dashboardService) {
@@ -30,26 +45,113 @@ public class AdminAnalyticsController {
    * Displays the analytics dashboard with all food items and their metrics.
    *
    * @param sort optional sort parameter (views_asc, views_desc, orders_asc, orders_desc)
+   * @param range optional time window (all, 7d, month, custom); defaults to all time
+   * @param from first day of a custom range (inclusive)
+   * @param to last day of a custom range (inclusive)
+   * @param after keyset cursor of the previous page's last row (omit for the first page)
+   * @param limit page size (default 50, at most 500)
    * @param model the Spring MVC model
    * @return the analytics dashboard view
    */
   @GetMapping
   public String showDashboard(
-      @RequestParam(name = "sort", required = false) String sort, Model model) {
+      @RequestParam(name = "sort", required = false) String sort,
+      @RequestParam(name = "range", required = false) String range,
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate to,
+      @RequestParam(name = "after", required = false) String after,
+      @RequestParam(name = "limit", defaultValue = "50") int limit,
+      Model model) {
+
+    AnalyticsRange period = resolveRange(range, from, to, LocalDate.now());
+    AnalyticsCursor cursor = AnalyticsCursor.parse(after);
+    int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+    List<FoodAnalyticsDTO> analyticsList;
+    long totalItems;
+    Long totalViews;
+    Long totalOrders;
 
-    // Fetch analytics data with sorting
-    List<FoodAnalyticsDTO> analyticsList = dashboardService.getAllAnalytics(sort);
+    // One extra row tells whether there is a next page
+    if (period == null) {
+      // Page and totals from the in-memory leaderboard
+      analyticsList = dashboardService.getAnalyticsPage(sort, cursor, pageSize + 1);
+      totalItems = dashboardService.getTotalItems();
+      totalViews = dashboardService.getTotalViews();
+      totalOrders = dashboardService.getTotalOrders();
+    } else {
+      // Sum pre-aggregated buckets for the window
+      analyticsList =
+          dashboardService.getAnalyticsPageForRange(sort, period, cursor, pageSize + 1);
+      AnalyticsTotalsDTO totals = dashboardService.getTotalsForRange(period);
+      totalItems = totals.totalItems();
+      totalViews = totals.totalViews();
+      totalOrders = totals.totalOrders();
+    }
 
-    // Calculate totals
-    Long totalViews = dashboardService.getTotalViews();
-    Long totalOrders = dashboardService.getTotalOrders();
+    String nextCursor = null;
+    if (analyticsList.size() > pageSize) {
+      analyticsList = analyticsList.subList(0, pageSize);
+      AnalyticsSort order = AnalyticsSort.fromParam(sort);
+      FoodAnalyticsDTO lastRow = analyticsList.get(pageSize - 1);
+      nextCursor =
+          AnalyticsCursor.after(order != null ? order : AnalyticsSort.VIEWS_DESC, lastRow).token();
+    }
+    Map<Long, Long> uniqueVisitors = dashboardService.getUniqueVisitors(analyticsList);
 
     // Add to model
     model.addAttribute("analyticsList", analyticsList);
+    model.addAttribute("totalItems", totalItems);
     model.addAttribute("totalViews", totalViews);
     model.addAttribute("totalOrders", totalOrders);
+    model.addAttribute("uniqueVisitors", uniqueVisitors);
     model.addAttribute("currentSort", sort != null ? sort : "views_desc");
+    model.addAttribute("currentRange", period != null ? range : RANGE_ALL);
+    model.addAttribute("rangeFrom", period != null ? period.from() : null);
+    model.addAttribute("rangeTo", period != null ? period.lastDay() : null);
+    model.addAttribute("firstPage", cursor == null);
+    model.addAttribute("nextCursor", nextCursor);
+    model.addAttribute("pageSize", pageSize);
 
     return "admin/analytics";
   }
+
+  /**
+   * Exports the lifetime analytics of all food items as a CSV download.
+   *
+   * <p>Rows are streamed from the database to the response without being collected in memory.
+   *
+   * @param response the HTTP response to write the CSV to
+   * @throws IOException if the response cannot be written
+   */
+  @GetMapping(value = "/export.csv", produces = "text/csv")
+  public void exportCsv(HttpServletResponse response) throws IOException {
+    response.setContentType("text/csv;charset=UTF-8");
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"food-analytics.csv\"");
+    dashboardService.exportCsv(response.getWriter());
+  }
+
+  // Maps the range parameters to a date range; null means all time (also used for invalid input)
+  private static AnalyticsRange resolveRange(
+      String range, LocalDate from, LocalDate to, LocalDate today) {
+    if (range == null) {
+      return null;
+    }
+    switch (range) {
+      case "7d":
+        return AnalyticsRange.lastDays(7, today);
+      case "month":
+        return AnalyticsRange.ofMonth(YearMonth.from(today));
+      case "custom":
+        if (from == null || to == null || to.isBefore(from)) {
+          return null;
+        }
+        return AnalyticsRange.between(from, to);
+      default:
+        return null;
+    }
+  }
 }
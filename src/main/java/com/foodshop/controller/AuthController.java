@@ -1,10 +1,13 @@
 package com.foodshop.controller;
 
+import java.util.Map;
+import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 /**
- * Authentication controller handling login and logout.
+ * Authentication controller handling login and logout, and handing out CSRF tokens to scripts.
  */
 @Controller
 public class AuthController {
@@ -38,4 +41,20 @@ public class AuthController {
   public String loginFailure() {
     return "redirect:/login?error=true";
   }
+
+  /**
+   * Returns the CSRF token for scripts that send state-changing requests with fetch.
+   *
+   * <p>Catalog pages may be served from shared caches, so the session-bound token is never rendered
+   * into page markup; scripts fetch it from here instead. The response keeps Spring Security's
+   * {@code no-store} headers.
+   *
+   * @param csrfToken the current request's CSRF token
+   * @return the header name and the token to send in it
+   */
+  @GetMapping("/csrf")
+  @ResponseBody
+  public Map<String, String> csrf(CsrfToken csrfToken) {
+    return Map.of("headerName", csrfToken.getHeaderName(), "token", csrfToken.getToken());
+  }
 }
@@ -0,0 +1,60 @@
+package com.foodshop.controller;
+
+import com.foodshop.security.GuestCartCookie;
+import com.foodshop.security.UserPrincipal;
+import com.foodshop.service.CartService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.thymeleaf.context.LazyContextVariable;
+
+/**
+ * Adds the cart item count shown by the navbar badge to every page's model.
+ *
+ * <p>The count is a lazy variable, read only when a template renders the badge, so JSON endpoints,
+ * redirects and 304 responses pay nothing. Users' lines are counted with {@link
+ * CartService#getCartItemCount(Long)} and guests' with {@link
+ * CartService#getGuestCartItemCount(String)}; neither reads or prices the lines.
+ */
+@ControllerAdvice
+public class CartBadgeAdvice {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CartBadgeAdvice.class);
+
+  private final CartService cartService;
+  private final GuestCartCookie guestCartCookie;
+
+  public CartBadgeAdvice(CartService cartService, GuestCartCookie guestCartCookie) {
+    this.cartService = cartService;
+    this.guestCartCookie = guestCartCookie;
+  }
+
+  /**
+   * Provides the {@code cartItemCount} model attribute.
+   *
+   * @param principal the authenticated user, null for a guest
+   * @param request the request, carrying the guest cart cookie
+   * @return the number of lines in the visitor's cart, counted on first use; null if it could not
+   *     be counted, which hides the badge
+   */
+  @ModelAttribute("cartItemCount")
+  public LazyContextVariable<Integer> cartItemCount(
+      @AuthenticationPrincipal UserPrincipal principal, HttpServletRequest request) {
+    return new LazyContextVariable<>() {
+      @Override
+      protected Integer loadValue() {
+        try {
+          return principal != null
+              ? cartService.getCartItemCount(principal.getUser().getId())
+              : cartService.getGuestCartItemCount(guestCartCookie.read(request).orElse(null));
+        } catch (RuntimeException e) {
+          LOGGER.warn("Failed to count cart items for the navbar badge", e);
+          return null;
+        }
+      }
+    };
+  }
+}
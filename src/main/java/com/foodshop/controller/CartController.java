@@ -1,48 +1,79 @@
 package com.foodshop.controller;
 
-import com.foodshop.domain.Cart;
-import com.foodshop.domain.User;
+import com.foodshop.dto.CartMutationResult;
+import com.foodshop.dto.CartView;
+import com.foodshop.event.TrackingEvent;
+import com.foodshop.exception.ResourceNotFoundException;
+import com.foodshop.security.GuestCartCookie;
 import com.foodshop.security.UserPrincipal;
+import com.foodshop.service.AnalyticsIngestionQueue;
 import com.foodshop.service.CartService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.util.HashMap;
 import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 /**
  * Controller for shopping cart operations.
+ *
+ * <p>Anonymous visitors use a guest cart identified by the {@link GuestCartCookie}, set by their
+ * first mutation; reading the cart page never creates one. Rejected changes are answered with a
+ * JSON {@code {"success": false, "message": ...}} body and a 4xx status.
  */
 @Controller
 @RequestMapping("/cart")
 public class CartController {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(CartController.class);
+
   private final CartService cartService;
+  private final AnalyticsIngestionQueue analyticsIngestionQueue;
+  private final GuestCartCookie guestCartCookie;
 
-  public CartController(CartService cartService) {
+  public CartController(
+      CartService cartService,
+      AnalyticsIngestionQueue analyticsIngestionQueue,
+      GuestCartCookie guestCartCookie) {
     this.cartService = cartService;
+    this.analyticsIngestionQueue = analyticsIngestionQueue;
+    this.guestCartCookie = guestCartCookie;
   }
 
   /**
    * Displays the shopping cart.
    *
-   * @param principal the authenticated user
+   * @param principal the authenticated user, null for a guest
+   * @param request the request, carrying the guest cart cookie
    * @param model the model
    * @return the cart view
    */
   @GetMapping
-  public String viewCart(@AuthenticationPrincipal UserPrincipal principal, Model model) {
-    User user = principal.getUser();
-    Cart cart = cartService.getCartWithItems(user.getId());
+  public String viewCart(
+      @AuthenticationPrincipal UserPrincipal principal, HttpServletRequest request, Model model) {
+    CartView cart = principal != null
+        ? cartService.getCart(principal.getUser().getId())
+        : cartService.getGuestCart(guestCartCookie.read(request).orElse(null));
 
     model.addAttribute("cart", cart);
     model.addAttribute("title", "Shopping Cart");
@@ -53,79 +84,184 @@ public class CartController {
   /**
    * Adds an item to the cart (AJAX endpoint).
    *
-   * @param principal the authenticated user
+   * @param principal the authenticated user, null for a guest
    * @param foodItemId the food item ID
    * @param quantity the quantity
-   * @return JSON response
+   * @param request the request, carrying the guest cart cookie
+   * @param response the response, setting the guest cart cookie
+   * @return JSON response with the new line quantity, item count and subtotal
    */
   @PostMapping("/add")
   @ResponseBody
   public ResponseEntity<Map<String, Object>> addItem(
       @AuthenticationPrincipal UserPrincipal principal,
       @RequestParam Long foodItemId,
-      @RequestParam(defaultValue = "1") Integer quantity) {
-
-    User user = principal.getUser();
-    cartService.addItem(user, foodItemId, quantity);
-
-    int itemCount = cartService.getCartItemCount(user.getId());
+      @RequestParam Integer quantity,
+      HttpServletRequest request,
+      HttpServletResponse response) {
 
-    Map<String, Object> response = new HashMap<>();
-    response.put("success", true);
-    response.put("message", "Item added to cart");
-    response.put("cartItemCount", itemCount);
+    CartMutationResult result = principal != null
+        ? cartService.addItem(principal.getUser(), foodItemId, quantity)
+        : cartService.addGuestItem(
+            guestCartCookie.readOrCreate(request, response), foodItemId, quantity);
+    analyticsIngestionQueue.offer(TrackingEvent.cartAdd(foodItemId, quantity));
 
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok(response("Item added to cart", result));
   }
 
   /**
    * Updates item quantity in the cart (AJAX endpoint).
    *
-   * @param principal the authenticated user
-   * @param itemId the cart item ID
+   * @param principal the authenticated user, null for a guest
+   * @param foodItemId the food item ID of the cart line
    * @param quantity the new quantity
-   * @return JSON response
+   * @param request the request, carrying the guest cart cookie
+   * @param response the response, refreshing the guest cart cookie
+   * @return JSON response with the new line quantity, item count and subtotal
    */
-  @PutMapping("/items/{itemId}")
+  @PutMapping("/items/{foodItemId}")
   @ResponseBody
   public ResponseEntity<Map<String, Object>> updateItem(
       @AuthenticationPrincipal UserPrincipal principal,
-      @PathVariable Long itemId,
-      @RequestParam Integer quantity) {
+      @PathVariable Long foodItemId,
+      @RequestParam Integer quantity,
+      HttpServletRequest request,
+      HttpServletResponse response) {
 
-    User user = principal.getUser();
-    cartService.updateItemQuantity(user.getId(), itemId, quantity);
+    CartMutationResult result = principal != null
+        ? cartService.updateItemQuantity(principal.getUser().getId(), foodItemId, quantity)
+        : cartService.updateGuestItemQuantity(
+            guestCartCookie.readOrCreate(request, response), foodItemId, quantity);
 
-    Map<String, Object> response = new HashMap<>();
-    response.put("success", true);
-    response.put("message", "Cart updated");
+    return ResponseEntity.ok(response("Cart updated", result));
+  }
+
+  /**
+   * Updates the quantities of several cart lines in one transaction (AJAX endpoint).
+   *
+   * <p>The body maps food item IDs to their new quantities, e.g. {@code {"12": 3, "15": 0}}; a
+   * quantity of zero removes the line. The cart page batches quantity clicks into this call and
+   * updates itself from the response instead of reloading.
+   *
+   * @param principal the authenticated user, null for a guest
+   * @param quantities the new quantities keyed by food item ID
+   * @param request the request, carrying the guest cart cookie
+   * @param response the response, refreshing the guest cart cookie
+   * @return JSON response with the remaining lines, item count and subtotal
+   */
+  @PatchMapping
+  @ResponseBody
+  public ResponseEntity<Map<String, Object>> updateItems(
+      @AuthenticationPrincipal UserPrincipal principal,
+      @RequestBody Map<Long, Integer> quantities,
+      HttpServletRequest request,
+      HttpServletResponse response) {
 
-    return ResponseEntity.ok(response);
+    CartView cart = principal != null
+        ? cartService.updateItemQuantities(principal.getUser().getId(), quantities)
+        : cartService.updateGuestItemQuantities(
+            guestCartCookie.readOrCreate(request, response), quantities);
+
+    Map<String, Object> body = new HashMap<>();
+    body.put("success", true);
+    body.put("message", "Cart updated");
+    body.put("cartItemCount", cart.itemCount());
+    body.put("subtotal", cart.subtotal());
+    body.put("lines", cart.lines().stream()
+        .map(line -> Map.of(
+            "foodItemId", line.foodItemId(),
+            "quantity", line.quantity(),
+            "lineTotal", line.lineTotal()))
+        .toList());
+
+    return ResponseEntity.ok(body);
   }
 
   /**
    * Removes an item from the cart (AJAX endpoint).
    *
-   * @param principal the authenticated user
-   * @param itemId the cart item ID
-   * @return JSON response
+   * @param principal the authenticated user, null for a guest
+   * @param foodItemId the food item ID of the cart line
+   * @param request the request, carrying the guest cart cookie
+   * @param response the response, refreshing the guest cart cookie
+   * @return JSON response with the item count and subtotal
    */
-  @DeleteMapping("/items/{itemId}")
+  @DeleteMapping("/items/{foodItemId}")
   @ResponseBody
   public ResponseEntity<Map<String, Object>> removeItem(
       @AuthenticationPrincipal UserPrincipal principal,
-      @PathVariable Long itemId) {
+      @PathVariable Long foodItemId,
+      HttpServletRequest request,
+      HttpServletResponse response) {
+
+    CartMutationResult result = principal != null
+        ? cartService.removeItem(principal.getUser().getId(), foodItemId)
+        : cartService.removeGuestItem(guestCartCookie.readOrCreate(request, response), foodItemId);
+
+    return ResponseEntity.ok(response("Item removed from cart", result));
+  }
 
-    User user = principal.getUser();
-    cartService.removeItem(user.getId(), itemId);
+  /**
+   * Reports a malformed or invalid cart change (e.g. an empty or oversized batch) as a JSON 400,
+   * which the cart page shows instead of an error page.
+   *
+   * @param ex the exception
+   * @return JSON response with the reason
+   */
+  @ExceptionHandler({
+      IllegalArgumentException.class,
+      ServletRequestBindingException.class,
+      TypeMismatchException.class,
+      HttpMessageNotReadableException.class
+  })
+  @ResponseBody
+  public ResponseEntity<Map<String, Object>> handleInvalidRequest(Exception ex) {
+    String message = ex instanceof IllegalArgumentException
+        ? ex.getMessage()
+        : "Invalid cart request";
+    return error(HttpStatus.BAD_REQUEST, message);
+  }
+
+  /**
+   * Reports a change to an item missing from the catalog or the cart as a JSON 404.
+   *
+   * @param ex the exception
+   * @return JSON response with the reason
+   */
+  @ExceptionHandler(ResourceNotFoundException.class)
+  @ResponseBody
+  public ResponseEntity<Map<String, Object>> handleNotFound(ResourceNotFoundException ex) {
+    return error(HttpStatus.NOT_FOUND, ex.getMessage());
+  }
+
+  /**
+   * Reports a change the cart cannot take right now (unavailable item, full guest cart) as a JSON
+   * 409.
+   *
+   * @param ex the exception
+   * @return JSON response with the reason
+   */
+  @ExceptionHandler(IllegalStateException.class)
+  @ResponseBody
+  public ResponseEntity<Map<String, Object>> handleConflict(IllegalStateException ex) {
+    return error(HttpStatus.CONFLICT, ex.getMessage());
+  }
 
-    int itemCount = cartService.getCartItemCount(user.getId());
+  private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+    LOGGER.warn("Cart request rejected ({}): {}", status.value(), message);
+    Map<String, Object> response = new HashMap<>();
+    response.put("success", false);
+    response.put("message", message);
+    return ResponseEntity.status(status).body(response);
+  }
 
+  private static Map<String, Object> response(String message, CartMutationResult result) {
     Map<String, Object> response = new HashMap<>();
     response.put("success", true);
-    response.put("message", "Item removed from cart");
-    response.put("cartItemCount", itemCount);
-
-    return ResponseEntity.ok(response);
+    response.put("message", message);
+    response.put("lineQuantity", result.lineQuantity());
+    response.put("cartItemCount", result.itemCount());
+    response.put("subtotal", result.subtotal());
+    return response;
   }
 }
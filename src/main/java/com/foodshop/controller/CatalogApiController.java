@@ -0,0 +1,189 @@
+package com.foodshop.controller;
+
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.CategoryDTO;
+import com.foodshop.exception.ResourceNotFoundException;
+import com.foodshop.service.CatalogJsonWriter;
+import com.foodshop.service.CategoryService;
+import com.foodshop.service.FoodItemService;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+/**
+ * Read-only JSON API of the catalog, version 1.
+ *
+ * <p>Item endpoints accept a sparse fieldset ({@code fields=id,name,price}) and are written by
+ * {@link CatalogJsonWriter} straight to the response. Listings use the same keyset cursors and
+ * page cache as the HTML catalog. Responses are validated against the catalog version like the
+ * catalog pages (see {@link CatalogConditionalGet}).
+ */
+@RestController
+@RequestMapping("/api/v1/catalog")
+public class CatalogApiController {
+
+  private final FoodItemService foodItemService;
+  private final CategoryService categoryService;
+  private final CatalogJsonWriter jsonWriter;
+  private final CatalogConditionalGet conditionalGet;
+
+  public CatalogApiController(
+      FoodItemService foodItemService,
+      CategoryService categoryService,
+      CatalogJsonWriter jsonWriter,
+      CatalogConditionalGet conditionalGet) {
+    this.foodItemService = foodItemService;
+    this.categoryService = categoryService;
+    this.jsonWriter = jsonWriter;
+    this.conditionalGet = conditionalGet;
+  }
+
+  /**
+   * Lists the active categories.
+   *
+   * @param webRequest the current request
+   * @return the active categories in display order, or null if answered with 304 Not Modified
+   */
+  @GetMapping("/categories")
+  public List<CategoryDTO> categories(ServletWebRequest webRequest) {
+    if (conditionalGet.isListingNotModified(webRequest)) {
+      return null;
+    }
+    return categoryService.findAllActive().stream()
+        .map(c -> new CategoryDTO(c.getId(), c.getName(), c.getDescription(), c.getImageUrl()))
+        .toList();
+  }
+
+  /**
+   * Writes a page of available items, ordered by name.
+   *
+   * @param categoryId optional category filter
+   * @param cursor opaque position of the page, from a previous response (omit for the first page)
+   * @param size page size (at most {@value FoodItemController#MAX_PAGE_SIZE})
+   * @param fields optional comma-separated item fields
+   * @param webRequest the current request
+   * @param response the HTTP response to write the page to
+   * @throws IOException if the response cannot be written
+   */
+  @GetMapping("/items")
+  public void items(
+      @RequestParam(required = false) Long categoryId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "12") int size,
+      @RequestParam(required = false) String fields,
+      ServletWebRequest webRequest,
+      HttpServletResponse response)
+      throws IOException {
+    List<String> selected = jsonWriter.selectFields(fields);
+    if (conditionalGet.isListingNotModified(webRequest)) {
+      return;
+    }
+    CatalogCursor position = CatalogCursor.parse(cursor);
+    CatalogPage page =
+        categoryId != null
+            ? foodItemService.findByCategoryId(categoryId, position, pageSize(size))
+            : foodItemService.findAllAvailable(position, pageSize(size));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    jsonWriter.writePage(page, selected, response.getOutputStream());
+  }
+
+  /**
+   * Writes a page of available items matching a search, best matches first.
+   *
+   * @param q the search term, in web search syntax
+   * @param cursor opaque position of the page, from a previous response (omit for the first page)
+   * @param size page size (at most {@value FoodItemController#MAX_PAGE_SIZE})
+   * @param fields optional comma-separated item fields
+   * @param webRequest the current request
+   * @param response the HTTP response to write the page to
+   * @throws IOException if the response cannot be written
+   */
+  @GetMapping("/search")
+  public void search(
+      @RequestParam(defaultValue = "") String q,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "12") int size,
+      @RequestParam(required = false) String fields,
+      ServletWebRequest webRequest,
+      HttpServletResponse response)
+      throws IOException {
+    if (q.isBlank()) {
+      throw new IllegalArgumentException("The search term must not be blank");
+    }
+    List<String> selected = jsonWriter.selectFields(fields);
+    if (conditionalGet.isListingNotModified(webRequest)) {
+      return;
+    }
+    CatalogPage page = foodItemService.search(q, CatalogCursor.parse(cursor), pageSize(size));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    jsonWriter.writePage(page, selected, response.getOutputStream());
+  }
+
+  /**
+   * Writes every available item of a category as one JSON array, ordered by name.
+   *
+   * <p>Items are streamed from a database cursor to the response, so large categories are served
+   * in constant memory and without pagination round trips.
+   *
+   * @param id the category ID
+   * @param fields optional comma-separated item fields
+   * @param webRequest the current request
+   * @param response the HTTP response to write the items to
+   * @throws IOException if the response cannot be written
+   */
+  @GetMapping("/categories/{id}/items")
+  public void categoryItems(
+      @PathVariable Long id,
+      @RequestParam(required = false) String fields,
+      ServletWebRequest webRequest,
+      HttpServletResponse response)
+      throws IOException {
+    List<String> selected = jsonWriter.selectFields(fields);
+    // Served from the category registry; fails with 404 before the response is committed
+    categoryService.findNameById(id);
+    if (conditionalGet.isListingNotModified(webRequest)) {
+      return;
+    }
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    jsonWriter.writeCategoryItems(id, selected, response.getOutputStream());
+  }
+
+  /**
+   * Answers unknown categories with a JSON problem instead of the error page.
+   *
+   * @param ex the exception
+   * @return the problem detail
+   */
+  @ExceptionHandler(ResourceNotFoundException.class)
+  public ProblemDetail handleNotFound(ResourceNotFoundException ex) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+  }
+
+  /**
+   * Answers invalid parameters, such as unknown fields or a non-numeric size, with a JSON problem.
+   *
+   * @param ex the exception
+   * @return the problem detail
+   */
+  @ExceptionHandler({IllegalArgumentException.class, MethodArgumentTypeMismatchException.class})
+  public ProblemDetail handleBadRequest(Exception ex) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+  }
+
+  // Same bounds as the HTML catalog, so both share the page cache entries
+  private static int pageSize(int size) {
+    return Math.max(1, Math.min(size, FoodItemController.MAX_PAGE_SIZE));
+  }
+}
@@ -0,0 +1,85 @@
+package com.foodshop.controller;
+
+import com.foodshop.security.GuestCartCookie;
+import com.foodshop.service.CatalogVersion;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Conditional GET for the anonymous catalog pages (home, listing, detail).
+ *
+ * <p>For visitors without a cart these pages only depend on the catalog, so the {@link
+ * CatalogVersion} stamp validates them: it becomes a strong {@code ETag} and the {@code
+ * Last-Modified} date, and a matching {@code If-None-Match} or {@code If-Modified-Since} is answered
+ * with 304 before any query runs or any template renders. Pages for signed-in users carry the
+ * user's name and cart, and pages for guests with a {@link GuestCartCookie} carry the guest cart's
+ * navbar badge, so neither is validated or shared: they keep Spring Security's {@code no-store}
+ * headers and are always rendered.
+ */
+@Component
+class CatalogConditionalGet {
+
+  private final CatalogVersion catalogVersion;
+  private final GuestCartCookie guestCartCookie;
+  private final CacheControl listingCacheControl;
+  private final CacheControl detailCacheControl;
+
+  CatalogConditionalGet(
+      CatalogVersion catalogVersion,
+      GuestCartCookie guestCartCookie,
+      @Value("${app.catalog.http.shared-max-age:PT1M}") Duration sharedMaxAge) {
+    this.catalogVersion = catalogVersion;
+    this.guestCartCookie = guestCartCookie;
+    // Browsers revalidate every time; a CDN may serve listings for sharedMaxAge without asking
+    this.listingCacheControl =
+        CacheControl.maxAge(Duration.ZERO)
+            .cachePublic()
+            .sMaxAge(sharedMaxAge)
+            .staleWhileRevalidate(sharedMaxAge);
+    // Detail pages are revalidated by the CDN too, so every view still reaches view tracking
+    this.detailCacheControl = CacheControl.noCache().cachePublic();
+  }
+
+  /**
+   * Sets the validators and caching headers of a listing page and checks the request against them.
+   *
+   * @param request the current request
+   * @return true if the response has been set to 304 Not Modified and the handler must return null
+   */
+  boolean isListingNotModified(ServletWebRequest request) {
+    return isNotModified(request, listingCacheControl);
+  }
+
+  /**
+   * Sets the validators and caching headers of a food item page and checks the request against
+   * them.
+   *
+   * @param request the current request
+   * @return true if the response has been set to 304 Not Modified and the handler must return null
+   */
+  boolean isDetailNotModified(ServletWebRequest request) {
+    return isNotModified(request, detailCacheControl);
+  }
+
+  private boolean isNotModified(ServletWebRequest request, CacheControl cacheControl) {
+    if (request.getUserPrincipal() != null
+        || guestCartCookie.read(request.getRequest()).isPresent()) {
+      return false;
+    }
+    Optional<CatalogVersion.Stamp> stamp = catalogVersion.current();
+    if (stamp.isEmpty()) {
+      return false;
+    }
+    if (request.getResponse() != null) {
+      request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+      // Signed-in users and guests with a cart send cookies; keep shared caches from mixing them up
+      request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.COOKIE);
+    }
+    return request.checkNotModified(stamp.get().etag(), stamp.get().version());
+  }
+}
@@ -1,20 +1,27 @@
 package com.foodshop.controller;
 
-import com.foodshop.domain.FoodItem;
-import com.foodshop.service.AnalyticsTrackingService;
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.FoodItemDetails;
+import com.foodshop.dto.SuggestionsDTO;
+import com.foodshop.event.TrackingEvent;
+import com.foodshop.service.AnalyticsIngestionQueue;
+import com.foodshop.service.CatalogSuggestService;
 import com.foodshop.service.CategoryService;
 import com.foodshop.service.FoodItemService;
+import com.foodshop.service.ViewDedupService;
 import jakarta.servlet.http.HttpSession;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  * Controller for browsing food items.
@@ -23,54 +30,73 @@ import org.springframework.web.bind.annotation.RequestParam;
 @RequestMapping("/catalog")
 public class FoodItemController {
 
-  private static final String VIEWED_ITEMS_SESSION_KEY = "viewedFoodItems";
+  /** Upper bound for the catalog page size. */
+  public static final int MAX_PAGE_SIZE = 48;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FoodItemController.class);
 
   private final FoodItemService foodItemService;
   private final CategoryService categoryService;
-  private final AnalyticsTrackingService analyticsTrackingService;
+  private final AnalyticsIngestionQueue analyticsIngestionQueue;
+  private final CatalogSuggestService catalogSuggestService;
+  private final CatalogConditionalGet conditionalGet;
 
   public FoodItemController(
       FoodItemService foodItemService,
       CategoryService categoryService,
-      AnalyticsTrackingService analyticsTrackingService) {
+      AnalyticsIngestionQueue analyticsIngestionQueue,
+      CatalogSuggestService catalogSuggestService,
+      CatalogConditionalGet conditionalGet) {
     this.foodItemService = foodItemService;
     this.categoryService = categoryService;
-    this.analyticsTrackingService = analyticsTrackingService;
+    this.analyticsIngestionQueue = analyticsIngestionQueue;
+    this.catalogSuggestService = catalogSuggestService;
+    this.conditionalGet = conditionalGet;
   }
 
   /**
-   * Displays the food catalog with filtering and pagination.
+   * Displays the food catalog with filtering and keyset pagination.
+   *
+   * <p>Anonymous requests are validated against the catalog version (see {@link
+   * CatalogConditionalGet}).
    *
    * @param categoryId optional category filter
    * @param search optional search term
-   * @param page page number (0-indexed)
-   * @param size page size
+   * @param cursor opaque position of the page, from a previous or next link (omit for the first page)
+   * @param size page size (at most {@value #MAX_PAGE_SIZE})
    * @param model the model
-   * @return the catalog view
+   * @param webRequest the current request
+   * @return the catalog view, or null if answered with 304 Not Modified
    */
   @GetMapping
   public String browse(
       @RequestParam(required = false) Long categoryId,
       @RequestParam(required = false) String search,
-      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(required = false) String cursor,
       @RequestParam(defaultValue = "12") int size,
-      Model model) {
+      Model model,
+      ServletWebRequest webRequest) {
+    if (conditionalGet.isListingNotModified(webRequest)) {
+      return null;
+    }
 
-    Pageable pageable = PageRequest.of(page, size, Sort.by("name").ascending());
-    Page<FoodItem> foodItems;
+    CatalogCursor position = CatalogCursor.parse(cursor);
+    int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    CatalogPage foodItems;
 
     if (search != null && !search.trim().isEmpty()) {
-      foodItems = foodItemService.search(search, pageable);
+      foodItems = foodItemService.search(search, position, pageSize);
       model.addAttribute("search", search);
     } else if (categoryId != null) {
-      foodItems = foodItemService.findByCategoryId(categoryId, pageable);
+      foodItems = foodItemService.findByCategoryId(categoryId, position, pageSize);
       model.addAttribute("categoryId", categoryId);
-      model.addAttribute("categoryName", categoryService.findById(categoryId).getName());
+      model.addAttribute("categoryName", categoryService.findNameById(categoryId));
     } else {
-      foodItems = foodItemService.findAllAvailable(pageable);
+      foodItems = foodItemService.findAllAvailable(position, pageSize);
     }
 
     model.addAttribute("foodItems", foodItems);
+    model.addAttribute("pageSize", pageSize);
     model.addAttribute("categories", categoryService.findAllActive());
     model.addAttribute("title", "Food Catalog");
 
@@ -78,56 +104,69 @@ public class FoodItemController {
   }
 
   /**
-   * Displays food item details.
+   * Autocomplete for the search box, served from memory without touching the database.
    *
-   * <p>Tracks view count using session-based deduplication to prevent counting multiple views from
-   * the same session.
+   * @param q what the user has typed so far
+   * @param limit maximum suggestions per section
+   * @return matching categories and the most popular matching food items
+   */
+  @GetMapping(value = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public SuggestionsDTO suggest(
+      @RequestParam(defaultValue = "") String q, @RequestParam(defaultValue = "8") int limit) {
+    return catalogSuggestService.suggest(q, limit);
+  }
+
+  /**
+   * Displays food item details: the item, its category, rating distribution and latest reviews.
+   *
+   * <p>The page is rendered from a cached read model (see {@link FoodItemService#findDetails}), so
+   * rendering never touches lazy associations. Tracks view count using session-based deduplication
+   * to prevent counting multiple views from the same session. Anonymous requests are validated
+   * against the catalog version (see {@link CatalogConditionalGet}); a 304 answer still counts as a
+   * view if the item's details are cached. The catalog version does not depend on the ID, so a 304
+   * alone does not prove the item exists, and the 304 path runs no query to find out.
    *
    * @param id the food item ID
    * @param model the model
    * @param session the HTTP session
-   * @return the detail view
+   * @param webRequest the current request
+   * @return the detail view, or null if answered with 304 Not Modified
    */
   @GetMapping("/{id}")
-  public String detail(@PathVariable Long id, Model model, HttpSession session) {
-    FoodItem foodItem = foodItemService.findById(id);
+  public String detail(
+      @PathVariable Long id, Model model, HttpSession session, ServletWebRequest webRequest) {
+    if (conditionalGet.isDetailNotModified(webRequest)) {
+      if (foodItemService.isDetailCached(id)) {
+        trackView(id, session);
+      }
+      return null;
+    }
+    FoodItemDetails details = foodItemService.findDetails(id);
 
-    // Track view with session-based deduplication
-    trackViewIfNotAlreadyViewed(id, session);
+    // Track view; deduplication per session and persistence happen off the request thread
+    trackView(id, session);
 
-    model.addAttribute("foodItem", foodItem);
-    model.addAttribute("title", foodItem.getName());
+    model.addAttribute("foodItem", details.item());
+    model.addAttribute("reviews", details.latestReviews());
+    model.addAttribute("title", details.item().name());
 
     return "food/detail";
   }
 
   /**
-   * Tracks a view for a food item if it hasn't been viewed in this session.
+   * Queues a view of a food item for the analytics ingestion stage.
    *
-   * <p>Uses a Set stored in the session to prevent duplicate view counts within the same session.
+   * <p>Returns immediately: the view is deduplicated per session in Redis (see {@link
+   * ViewDedupService}) and persisted by the ingestion consumer, so analytics latency and failures
+   * never reach the page request. Views are dropped if the ingestion queue is full.
    *
    * @param foodItemId the food item ID
    * @param session the HTTP session
    */
-  @SuppressWarnings("unchecked")
-  private void trackViewIfNotAlreadyViewed(Long foodItemId, HttpSession session) {
-    java.util.Set<Long> viewedItems =
-        (java.util.Set<Long>) session.getAttribute(VIEWED_ITEMS_SESSION_KEY);
-
-    if (viewedItems == null) {
-      viewedItems = new java.util.HashSet<>();
-      session.setAttribute(VIEWED_ITEMS_SESSION_KEY, viewedItems);
-    }
-
-    // Only track if not already viewed in this session
-    if (!viewedItems.contains(foodItemId)) {
-      try {
-        analyticsTrackingService.incrementViewCount(foodItemId);
-        viewedItems.add(foodItemId);
-      } catch (Exception e) {
-        // Log but don't fail the request if analytics tracking fails
-        // (logger would be injected in production)
-      }
+  private void trackView(Long foodItemId, HttpSession session) {
+    if (!analyticsIngestionQueue.offer(TrackingEvent.view(session.getId(), foodItemId))) {
+      LOGGER.debug("Analytics ingestion queue full, dropped view of food item {}", foodItemId);
     }
   }
 }
@@ -1,15 +1,11 @@
 package com.foodshop.controller;
 
-import com.foodshop.domain.FoodItem;
 import com.foodshop.service.CategoryService;
-import com.foodshop.service.FoodItemService;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import com.foodshop.service.FeaturedItemsSnapshot;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  * Controller for the home page.
@@ -17,27 +13,38 @@ import org.springframework.web.bind.annotation.GetMapping;
 @Controller
 public class HomeController {
 
-  private final FoodItemService foodItemService;
+  private final FeaturedItemsSnapshot featuredItemsSnapshot;
   private final CategoryService categoryService;
+  private final CatalogConditionalGet conditionalGet;
 
-  public HomeController(FoodItemService foodItemService, CategoryService categoryService) {
-    this.foodItemService = foodItemService;
+  public HomeController(
+      FeaturedItemsSnapshot featuredItemsSnapshot,
+      CategoryService categoryService,
+      CatalogConditionalGet conditionalGet) {
+    this.featuredItemsSnapshot = featuredItemsSnapshot;
     this.categoryService = categoryService;
+    this.conditionalGet = conditionalGet;
   }
 
   /**
    * Displays the home page with featured items.
    *
+   * <p>Featured items and categories both come from in-memory snapshots, so the page runs no
+   * queries. Anonymous requests are validated against the catalog version (see {@link
+   * CatalogConditionalGet}).
+   *
    * @param model the model
-   * @return the home view
+   * @param webRequest the current request
+   * @return the home view, or null if answered with 304 Not Modified
    */
   @GetMapping("/")
-  public String index(Model model) {
-    // Get featured items (top rated with at least 5 ratings)
-    Pageable pageable = PageRequest.of(0, 8, Sort.by("avgRating").descending());
-    Page<FoodItem> featuredItems = foodItemService.findTopRated(5, pageable);
+  public String index(Model model, ServletWebRequest webRequest) {
+    if (conditionalGet.isListingNotModified(webRequest)) {
+      return null;
+    }
 
-    model.addAttribute("featuredItems", featuredItems.getContent());
+    // Featured items: top rated with at least 5 ratings
+    model.addAttribute("featuredItems", featuredItemsSnapshot.items());
     model.addAttribute("categories", categoryService.findAllActive());
     model.addAttribute("title", "Welcome");
 
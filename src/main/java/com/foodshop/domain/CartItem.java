@@ -10,6 +10,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -25,6 +26,9 @@ import java.util.Objects;
 @Table(name = "cart_items")
 public class CartItem implements Serializable {
 
+  /** Largest quantity of a line, so repeated adds cannot overflow it. */
+  public static final int MAX_QUANTITY = 99;
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
@@ -41,6 +45,7 @@ public class CartItem implements Serializable {
 
   @NotNull
   @Min(1)
+  @Max(MAX_QUANTITY)
   @Column(nullable = false)
   private Integer quantity = 1;
 
@@ -1,7 +1,9 @@
 package com.foodshop.domain;
 
+import com.foodshop.event.CatalogChangeListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -19,6 +21,7 @@ import java.util.Objects;
  * <p>Categories are displayed in order based on displayOrder field.
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "categories")
 public class Category implements Serializable {
 
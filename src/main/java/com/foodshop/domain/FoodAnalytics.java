@@ -6,8 +6,9 @@ import java.time.LocalDateTime;
 
 /**
  * Entity representing analytics tracking data for a food item.
- * Tracks cumulative view counts and order counts with optimistic locking
- * for safe concurrent updates.
+ * Tracks cumulative view counts and order counts. Counters are incremented
+ * with atomic SQL upserts (see FoodAnalyticsRepository), which also bump the
+ * version so entity-based writers still get optimistic locking.
  */
 @Entity
 @Table(
@@ -40,6 +41,10 @@ public class FoodAnalytics {
     @Column(name = "order_count", nullable = false)
     private Long orderCount = 0L;
     
+    @NotNull
+    @Column(name = "cart_add_count", nullable = false)
+    private Long cartAddCount = 0L;
+    
     @Version
     @Column(name = "version")
     private Long version;
@@ -69,6 +74,7 @@ public class FoodAnalytics {
         this.foodItemId = foodItemId;
         this.viewCount = 0L;
         this.orderCount = 0L;
+        this.cartAddCount = 0L;
     }
     
     // Getters and Setters
@@ -112,6 +118,14 @@ public class FoodAnalytics {
         this.orderCount = orderCount;
     }
     
+    public Long getCartAddCount() {
+        return cartAddCount;
+    }
+    
+    public void setCartAddCount(Long cartAddCount) {
+        this.cartAddCount = cartAddCount;
+    }
+    
     public Long getVersion() {
         return version;
     }
@@ -160,6 +174,7 @@ public class FoodAnalytics {
             ", foodItemId=" + foodItemId +
             ", viewCount=" + viewCount +
             ", orderCount=" + orderCount +
+            ", cartAddCount=" + cartAddCount +
             ", version=" + version +
             '}';
     }
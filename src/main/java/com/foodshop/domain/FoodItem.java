@@ -1,7 +1,9 @@
 package com.foodshop.domain;
 
+import com.foodshop.event.CatalogChangeListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -28,6 +30,7 @@ import java.util.Objects;
  * <p>Contains pricing, images, category association, and cached rating data.
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "food_items")
 public class FoodItem implements Serializable {
 
@@ -1,7 +1,9 @@
 package com.foodshop.domain;
 
+import com.foodshop.event.CatalogChangeListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -23,6 +25,7 @@ import java.util.Objects;
  * <p>Each user can rate a food item only once. Rating is from 1 to 5 stars.
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 @Table(name = "ratings")
 public class Rating implements Serializable {
 
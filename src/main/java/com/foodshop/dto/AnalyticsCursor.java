@@ -0,0 +1,67 @@
+package com.foodshop.dto;
+
+/**
+ * Keyset pagination cursor for the analytics dashboard: the position of the last row of a page.
+ *
+ * @param metric the ranked view or order count of the last row
+ * @param foodItemId the food item ID of the last row (tie breaker)
+ */
+public record AnalyticsCursor(
+    long metric,
+    long foodItemId
+) {
+    /**
+     * Create the cursor pointing after a row.
+     *
+     * @param sort the sort order the row was ranked by
+     * @param row the last row of a page
+     * @return the cursor
+     */
+    public static AnalyticsCursor after(AnalyticsSort sort, FoodAnalyticsDTO row) {
+        return new AnalyticsCursor(sort.metricOf(row), row.foodItemId());
+    }
+
+    /**
+     * Create a placeholder row positioned exactly at this cursor, to compare rows against it.
+     *
+     * @param sort the sort order the cursor belongs to
+     * @return a row with the cursor's food item ID and ranked metric, other fields empty
+     */
+    public FoodAnalyticsDTO toRow(AnalyticsSort sort) {
+        return sort.byOrders()
+            ? new FoodAnalyticsDTO(foodItemId, null, null, 0L, metric)
+            : new FoodAnalyticsDTO(foodItemId, null, null, metric, 0L);
+    }
+
+    /**
+     * Encode as a URL-safe request parameter.
+     *
+     * @return the token, e.g. 120_42
+     */
+    public String token() {
+        return metric + "_" + foodItemId;
+    }
+
+    /**
+     * Parse a request parameter produced by {@link #token()}.
+     *
+     * @param token the token (can be null)
+     * @return the cursor, or null if the token is missing or malformed
+     */
+    public static AnalyticsCursor parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        int separator = token.indexOf('_');
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return new AnalyticsCursor(
+                Long.parseLong(token.substring(0, separator)),
+                Long.parseLong(token.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
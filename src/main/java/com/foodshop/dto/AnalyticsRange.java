@@ -0,0 +1,65 @@
+package com.foodshop.dto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Half-open date range [from, to) for time-windowed analytics queries.
+ *
+ * @param from first day of the range (inclusive)
+ * @param to day after the last day of the range (exclusive)
+ */
+public record AnalyticsRange(
+    LocalDate from,
+    LocalDate to
+) {
+    /**
+     * Compact constructor for validation.
+     */
+    public AnalyticsRange {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Invalid analytics range: " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Range covering the last {@code days} days, including today.
+     *
+     * @param days number of days
+     * @param today the current date
+     * @return the range
+     */
+    public static AnalyticsRange lastDays(int days, LocalDate today) {
+        return new AnalyticsRange(today.minusDays(days - 1L), today.plusDays(1));
+    }
+
+    /**
+     * Range covering a whole calendar month.
+     *
+     * @param month the month
+     * @return the range
+     */
+    public static AnalyticsRange ofMonth(YearMonth month) {
+        return new AnalyticsRange(month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    /**
+     * Range between two days, both inclusive.
+     *
+     * @param firstDay first day of the range
+     * @param lastDay last day of the range
+     * @return the range
+     */
+    public static AnalyticsRange between(LocalDate firstDay, LocalDate lastDay) {
+        return new AnalyticsRange(firstDay, lastDay.plusDays(1));
+    }
+
+    /**
+     * Get the last day included in the range.
+     *
+     * @return the last day (inclusive)
+     */
+    public LocalDate lastDay() {
+        return to.minusDays(1);
+    }
+}
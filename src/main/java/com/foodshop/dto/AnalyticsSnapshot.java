@@ -0,0 +1,33 @@
+package com.foodshop.dto;
+
+import java.util.List;
+
+/**
+ * DTO holding the analytics of every food item together with their totals, as read by one query.
+ *
+ * @param items one row per food item, sorted by view count descending
+ * @param totalViews sum of the items' view counts
+ * @param totalOrders sum of the items' order counts
+ */
+public record AnalyticsSnapshot(
+    List<FoodAnalyticsDTO> items,
+    long totalViews,
+    long totalOrders
+) {
+
+    /**
+     * Compact constructor making the snapshot immutable, so it can be shared between requests.
+     */
+    public AnalyticsSnapshot {
+        items = List.copyOf(items);
+    }
+
+    /**
+     * Returns the number of food items in the snapshot.
+     *
+     * @return item count
+     */
+    public int totalItems() {
+        return items.size();
+    }
+}
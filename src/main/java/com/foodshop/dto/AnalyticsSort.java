@@ -0,0 +1,78 @@
+package com.foodshop.dto;
+
+/**
+ * Sort orders supported by the analytics dashboard.
+ * Every order breaks ties by food item ID in the same direction, which makes it usable for keyset
+ * pagination.
+ */
+public enum AnalyticsSort {
+    VIEWS_DESC("views_desc", false, true),
+    VIEWS_ASC("views_asc", false, false),
+    ORDERS_DESC("orders_desc", true, true),
+    ORDERS_ASC("orders_asc", true, false);
+
+    private final String param;
+    private final boolean byOrders;
+    private final boolean descending;
+
+    AnalyticsSort(String param, boolean byOrders, boolean descending) {
+        this.param = param;
+        this.byOrders = byOrders;
+        this.descending = descending;
+    }
+
+    /**
+     * Get the request parameter value for this sort order.
+     *
+     * @return the parameter value, e.g. views_desc
+     */
+    public String param() {
+        return param;
+    }
+
+    /**
+     * Whether this order ranks by order count rather than view count.
+     *
+     * @return true for order count
+     */
+    public boolean byOrders() {
+        return byOrders;
+    }
+
+    /**
+     * Whether this order ranks highest first.
+     *
+     * @return true for descending order
+     */
+    public boolean descending() {
+        return descending;
+    }
+
+    /**
+     * Get the ranked metric of an analytics row.
+     *
+     * @param row the analytics row
+     * @return its view or order count
+     */
+    public long metricOf(FoodAnalyticsDTO row) {
+        return byOrders ? row.orderCount() : row.viewCount();
+    }
+
+    /**
+     * Resolve a sort request parameter.
+     *
+     * @param param the parameter value (can be null)
+     * @return the sort order, VIEWS_DESC if empty, or null if not recognised
+     */
+    public static AnalyticsSort fromParam(String param) {
+        if (param == null || param.isEmpty()) {
+            return VIEWS_DESC;
+        }
+        for (AnalyticsSort sort : values()) {
+            if (sort.param.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.foodshop.dto;
+
+/**
+ * DTO for dashboard summary figures over a set of food items.
+ *
+ * @param totalItems number of food items
+ * @param totalViews sum of their view counts
+ * @param totalOrders sum of their order counts
+ */
+public record AnalyticsTotalsDTO(
+    long totalItems,
+    long totalViews,
+    long totalOrders
+) {
+}
@@ -0,0 +1,29 @@
+package com.foodshop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a cart as shown on the cart page.
+ *
+ * @param foodItemId the food item ID, which also identifies the line within its cart
+ * @param name the food item name
+ * @param thumbnailUrl the thumbnail URL (can be null)
+ * @param price the current unit price
+ * @param quantity the quantity in the cart
+ */
+public record CartLineView(
+    Long foodItemId,
+    String name,
+    String thumbnailUrl,
+    BigDecimal price,
+    int quantity
+) {
+    /**
+     * Returns the price of the whole line.
+     *
+     * @return unit price times quantity
+     */
+    public BigDecimal lineTotal() {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+}
@@ -0,0 +1,29 @@
+package com.foodshop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * State of a cart right after one of its lines changed, enough to update the page without
+ * reloading the cart.
+ *
+ * @param lineQuantity the new quantity of the changed line (0 if it was removed)
+ * @param itemCount the number of distinct food items in the cart
+ * @param subtotal the cart subtotal at current prices
+ */
+public record CartMutationResult(
+    int lineQuantity,
+    int itemCount,
+    BigDecimal subtotal
+) {
+    /**
+     * Creates a result from the cart totals.
+     *
+     * @param lineQuantity the new quantity of the changed line
+     * @param totals the cart totals after the change
+     * @return the result
+     */
+    public static CartMutationResult of(int lineQuantity, CartTotals totals) {
+        return new CartMutationResult(
+            lineQuantity, Math.toIntExact(totals.itemCount()), totals.subtotal());
+    }
+}
@@ -0,0 +1,15 @@
+package com.foodshop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregates of a cart, read with a JPQL constructor expression.
+ *
+ * @param itemCount the number of distinct food items
+ * @param subtotal the sum of unit price times quantity over all lines
+ */
+public record CartTotals(
+    long itemCount,
+    BigDecimal subtotal
+) {
+}
@@ -0,0 +1,46 @@
+package com.foodshop.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Read model of a cart: its lines with current catalog prices, ordered by name.
+ *
+ * @param lines the cart lines
+ * @param subtotal the sum of the line totals
+ */
+public record CartView(
+    List<CartLineView> lines,
+    BigDecimal subtotal
+) {
+    /**
+     * Creates a cart view, computing its subtotal.
+     *
+     * @param lines the cart lines
+     * @return the cart view
+     */
+    public static CartView of(List<CartLineView> lines) {
+        BigDecimal subtotal = lines.stream()
+            .map(CartLineView::lineTotal)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new CartView(List.copyOf(lines), subtotal);
+    }
+
+    /**
+     * Whether the cart has no lines.
+     *
+     * @return true if the cart is empty
+     */
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /**
+     * Returns the number of distinct food items in the cart.
+     *
+     * @return the number of lines
+     */
+    public int itemCount() {
+        return lines.size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.foodshop.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset pagination cursor for the catalog: a position in (sort key, food item ID) order and the
+ * direction to read from it.
+ *
+ * <p>The sort key is the food item name when browsing and the relevance rank when searching.
+ *
+ * @param before true to read the rows before the position (previous page), false for the rows after
+ * @param sortKey the sort key of the row at the position
+ * @param foodItemId the food item ID of the row at the position (tie breaker)
+ */
+public record CatalogCursor(
+    boolean before,
+    String sortKey,
+    long foodItemId
+) {
+    /**
+     * Create the cursor pointing after a row, for the next page.
+     *
+     * @param sortKey the sort key of the last row of a page
+     * @param foodItemId the food item ID of the last row of a page
+     * @return the cursor
+     */
+    public static CatalogCursor after(String sortKey, long foodItemId) {
+        return new CatalogCursor(false, sortKey, foodItemId);
+    }
+
+    /**
+     * Create the cursor pointing before a row, for the previous page.
+     *
+     * @param sortKey the sort key of the first row of a page
+     * @param foodItemId the food item ID of the first row of a page
+     * @return the cursor
+     */
+    public static CatalogCursor before(String sortKey, long foodItemId) {
+        return new CatalogCursor(true, sortKey, foodItemId);
+    }
+
+    /**
+     * Encode as an opaque, URL-safe request parameter.
+     *
+     * @return the token
+     */
+    public String token() {
+        String plain = (before ? "b" : "a") + foodItemId + ":" + sortKey;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a request parameter produced by {@link #token()}.
+     *
+     * @param token the token (can be null)
+     * @return the cursor, or null if the token is missing or malformed
+     */
+    public static CatalogCursor parse(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = plain.indexOf(':');
+            char direction = plain.charAt(0);
+            if (separator <= 1 || (direction != 'a' && direction != 'b')) {
+                return null;
+            }
+            return new CatalogCursor(
+                direction == 'b',
+                plain.substring(separator + 1),
+                Long.parseLong(plain.substring(1, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
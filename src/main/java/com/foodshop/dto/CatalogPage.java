@@ -0,0 +1,30 @@
+package com.foodshop.dto;
+
+import java.util.List;
+
+/**
+ * One page of catalog items read with keyset pagination.
+ *
+ * <p>There is no total count or page number: the cursors only lead to the neighbouring pages.
+ *
+ * @param content the food item cards of the page, in display order
+ * @param previousCursor token of the previous page, or null on the first page
+ * @param nextCursor token of the next page, or null on the last page
+ */
+public record CatalogPage(
+    List<FoodItemCardView> content,
+    String previousCursor,
+    String nextCursor
+) {
+    /** A page without items. */
+    public static final CatalogPage EMPTY = new CatalogPage(List.of(), null, null);
+
+    /**
+     * Check whether the page has no items.
+     *
+     * @return true if the page is empty
+     */
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+}
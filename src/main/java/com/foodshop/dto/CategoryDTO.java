@@ -0,0 +1,17 @@
+package com.foodshop.dto;
+
+/**
+ * A category as exposed by the catalog API.
+ *
+ * @param id the category ID
+ * @param name the category name
+ * @param description the description (can be null)
+ * @param imageUrl the image URL (can be null)
+ */
+public record CategoryDTO(
+    Long id,
+    String name,
+    String description,
+    String imageUrl
+) {
+}
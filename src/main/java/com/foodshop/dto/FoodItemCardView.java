@@ -0,0 +1,39 @@
+package com.foodshop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields of a food item shown on a catalog card, read with a JPQL constructor expression
+ * instead of loading managed {@code FoodItem} entities.
+ *
+ * @param id the food item ID
+ * @param name the food item name
+ * @param summary the start of the description, at most {@value #SUMMARY_LENGTH} characters
+ * @param price the price
+ * @param thumbnailUrl the thumbnail URL (can be null)
+ * @param avgRating the average rating
+ * @param ratingCount the number of ratings
+ * @param categoryName the name of the food item's category
+ */
+public record FoodItemCardView(
+    Long id,
+    String name,
+    String summary,
+    BigDecimal price,
+    String thumbnailUrl,
+    BigDecimal avgRating,
+    Integer ratingCount,
+    String categoryName
+) {
+    /**
+     * Length of the description excerpt: one more than the longest excerpt a card shows, so the
+     * template can still tell whether to add an ellipsis.
+     */
+    public static final int SUMMARY_LENGTH = 101;
+
+    /** JPQL select clause for the card of {@code FoodItem f} joined with its category {@code c}. */
+    public static final String JPQL_SELECT =
+        "SELECT new com.foodshop.dto.FoodItemCardView(f.id, f.name, "
+            + "SUBSTRING(f.description, 1, " + SUMMARY_LENGTH + "), f.price, f.thumbnailUrl, "
+            + "f.avgRating, f.ratingCount, c.name) ";
+}
@@ -0,0 +1,80 @@
+package com.foodshop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields of a food item shown on its detail page, with its category and rating distribution,
+ * read by a single JPQL constructor expression.
+ *
+ * @param id the food item ID
+ * @param name the food item name
+ * @param description the full description (can be null)
+ * @param price the price
+ * @param imageUrl the image URL (can be null)
+ * @param available whether the item can be ordered
+ * @param avgRating the average rating
+ * @param ratingCount the number of ratings
+ * @param categoryId the category ID
+ * @param categoryName the category name
+ * @param fiveStars the number of 5-star ratings
+ * @param fourStars the number of 4-star ratings
+ * @param threeStars the number of 3-star ratings
+ * @param twoStars the number of 2-star ratings
+ * @param oneStar the number of 1-star ratings
+ */
+public record FoodItemDetailView(
+    Long id,
+    String name,
+    String description,
+    BigDecimal price,
+    String imageUrl,
+    Boolean available,
+    BigDecimal avgRating,
+    Integer ratingCount,
+    Long categoryId,
+    String categoryName,
+    Long fiveStars,
+    Long fourStars,
+    Long threeStars,
+    Long twoStars,
+    Long oneStar
+) {
+    /**
+     * JPQL select clause for {@code FoodItem f} joined with its category {@code c} and left joined
+     * with its ratings {@code r}; the query must group by {@code f.id, c.id}.
+     */
+    public static final String JPQL_SELECT =
+        "SELECT new com.foodshop.dto.FoodItemDetailView(f.id, f.name, f.description, f.price, "
+            + "f.imageUrl, f.available, f.avgRating, f.ratingCount, c.id, c.name, "
+            + "COUNT(r) FILTER (WHERE r.stars = 5), COUNT(r) FILTER (WHERE r.stars = 4), "
+            + "COUNT(r) FILTER (WHERE r.stars = 3), COUNT(r) FILTER (WHERE r.stars = 2), "
+            + "COUNT(r) FILTER (WHERE r.stars = 1)) ";
+
+    /**
+     * Get the number of ratings with a number of stars.
+     *
+     * @param stars the number of stars, 1 to 5
+     * @return the number of ratings
+     */
+    public long starCount(int stars) {
+        return switch (stars) {
+            case 5 -> fiveStars;
+            case 4 -> fourStars;
+            case 3 -> threeStars;
+            case 2 -> twoStars;
+            case 1 -> oneStar;
+            default -> 0L;
+        };
+    }
+
+    /**
+     * Get the share of ratings with a number of stars, for the distribution bars.
+     *
+     * @param stars the number of stars, 1 to 5
+     * @return the percentage of all counted ratings, 0 to 100
+     */
+    public int starPercent(int stars) {
+        long total = fiveStars + fourStars + threeStars + twoStars + oneStar;
+        return total == 0 ? 0 : (int) Math.round(starCount(stars) * 100.0 / total);
+    }
+}
@@ -0,0 +1,16 @@
+package com.foodshop.dto;
+
+import java.util.List;
+
+/**
+ * Read model of a food item's detail page: the item with its category and rating distribution, and
+ * its latest reviews.
+ *
+ * @param item the item, category and rating distribution
+ * @param latestReviews the newest reviews with text, newest first
+ */
+public record FoodItemDetails(
+    FoodItemDetailView item,
+    List<ReviewView> latestReviews
+) {
+}
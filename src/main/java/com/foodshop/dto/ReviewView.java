@@ -0,0 +1,23 @@
+package com.foodshop.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A review shown on a food item's detail page, read with a JPQL constructor expression.
+ *
+ * @param id the rating ID
+ * @param stars the number of stars, 1 to 5
+ * @param reviewText the review text
+ * @param reviewerName the name of the user who wrote the review
+ * @param verifiedPurchase whether the reviewer has ordered the item
+ * @param createdAt when the review was written
+ */
+public record ReviewView(
+    Long id,
+    Integer stars,
+    String reviewText,
+    String reviewerName,
+    Boolean verifiedPurchase,
+    LocalDateTime createdAt
+) {
+}
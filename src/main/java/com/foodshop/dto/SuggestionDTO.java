@@ -0,0 +1,13 @@
+package com.foodshop.dto;
+
+/**
+ * One autocomplete suggestion: a food item or a category.
+ *
+ * @param id the food item or category ID
+ * @param name the display name
+ */
+public record SuggestionDTO(
+    Long id,
+    String name
+) {
+}
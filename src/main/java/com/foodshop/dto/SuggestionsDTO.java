@@ -0,0 +1,18 @@
+package com.foodshop.dto;
+
+import java.util.List;
+
+/**
+ * Autocomplete response of the catalog search box.
+ *
+ * @param categories matching active categories, in display order
+ * @param items matching available food items, most popular first
+ */
+public record SuggestionsDTO(
+    List<SuggestionDTO> categories,
+    List<SuggestionDTO> items
+) {
+
+    /** Response for a query without matches. */
+    public static final SuggestionsDTO EMPTY = new SuggestionsDTO(List.of(), List.of());
+}
@@ -1,8 +1,10 @@
 package com.foodshop.event;
 
 import com.foodshop.domain.Order;
-import com.foodshop.domain.OrderItem;
+import com.foodshop.service.AnalyticsIngestionQueue;
 import com.foodshop.service.AnalyticsTrackingService;
+import java.util.HashMap;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
@@ -20,15 +22,21 @@ public class AnalyticsEventListener {
   private static final Logger logger = LoggerFactory.getLogger(AnalyticsEventListener.class);
 
   private final AnalyticsTrackingService trackingService;
+  private final AnalyticsIngestionQueue ingestionQueue;
 
-  public AnalyticsEventListener(AnalyticsTrackingService trackingService) {
+  public AnalyticsEventListener(
+      AnalyticsTrackingService trackingService, AnalyticsIngestionQueue ingestionQueue) {
     this.trackingService = trackingService;
+    this.ingestionQueue = ingestionQueue;
   }
 
   /**
    * Handles order completed events by incrementing order counts for all items in the order.
    *
-   * <p>Executes asynchronously to avoid blocking the order completion flow.
+   * <p>Executes asynchronously to avoid blocking the order completion flow. Quantities are
+   * aggregated per food item and handed to the {@link AnalyticsIngestionQueue}, which writes them
+   * together with other tracked events in one multi-row upsert. Order counts must not be lost, so
+   * quantities the queue refuses (because it is full) are written directly instead.
    *
    * @param event the order completed event
    */
@@ -39,13 +47,19 @@ public class AnalyticsEventListener {
     logger.info("Processing order completed event for order ID: {}", order.getId());
 
     try {
-      for (OrderItem item : order.getItems()) {
-        Long foodItemId = item.getFoodItem().getId();
-        int quantity = item.getQuantity();
-        trackingService.incrementOrderCount(foodItemId, quantity);
-        logger.debug(
-            "Incremented order count for food item {} by {}", foodItemId, quantity);
+      Map<Long, Long> quantities = event.getQuantitiesByFoodItem();
+      Map<Long, Long> refused = new HashMap<>();
+      quantities.forEach(
+          (foodItemId, quantity) -> {
+            if (!ingestionQueue.offer(TrackingEvent.order(foodItemId, quantity))) {
+              refused.put(foodItemId, quantity);
+            }
+          });
+      if (!refused.isEmpty()) {
+        trackingService.incrementOrderCounts(refused);
       }
+      logger.debug(
+          "Queued order counts for {} food items: {}", quantities.size(), quantities);
       logger.info("Successfully processed analytics for order ID: {}", order.getId());
     } catch (Exception e) {
       logger.error("Failed to update analytics for order ID: {}", order.getId(), e);
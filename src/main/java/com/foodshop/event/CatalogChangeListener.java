@@ -0,0 +1,44 @@
+package com.foodshop.event;
+
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.domain.Rating;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns every {@link FoodItem}, {@link Category} and {@link Rating} write
+ * into a {@link CatalogChangedEvent}.
+ *
+ * <p>Hibernate obtains the listener from the Spring context, so the publisher is injected.
+ */
+public class CatalogChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CatalogChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Publish a change for a written food item, category or rating.
+     *
+     * @param entity the persisted, updated or removed entity
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onCatalogWrite(Object entity) {
+        if (entity instanceof FoodItem foodItem) {
+            Long categoryId = foodItem.getCategory() != null ? foodItem.getCategory().getId() : null;
+            eventPublisher.publishEvent(CatalogChangedEvent.foodItem(categoryId, foodItem.getId()));
+        } else if (entity instanceof Category category) {
+            eventPublisher.publishEvent(CatalogChangedEvent.category(category.getId()));
+        } else if (entity instanceof Rating rating && rating.getFoodItem() != null) {
+            // Reading the ID does not initialize the lazy food item during the flush
+            eventPublisher.publishEvent(CatalogChangedEvent.rating(rating.getFoodItem().getId()));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.foodshop.event;
+
+/**
+ * Published when a food item, category or rating is created, updated or deleted.
+ *
+ * @param categoryId the category the change belongs to, or null if unknown (rating changes)
+ * @param foodItemId the changed or rated food item ID, or null if the category itself changed
+ */
+public record CatalogChangedEvent(
+    Long categoryId,
+    Long foodItemId
+) {
+
+    /**
+     * Create a change of a food item.
+     *
+     * @param categoryId the item's category ID
+     * @param foodItemId the food item ID
+     * @return the event
+     */
+    public static CatalogChangedEvent foodItem(Long categoryId, Long foodItemId) {
+        return new CatalogChangedEvent(categoryId, foodItemId);
+    }
+
+    /**
+     * Create a change of a category.
+     *
+     * @param categoryId the category ID
+     * @return the event
+     */
+    public static CatalogChangedEvent category(Long categoryId) {
+        return new CatalogChangedEvent(categoryId, null);
+    }
+
+    /**
+     * Create a change of a food item's ratings.
+     *
+     * <p>The category is not resolved, so listeners treat the change as possibly affecting every
+     * category.
+     *
+     * @param foodItemId the rated food item ID
+     * @return the event
+     */
+    public static CatalogChangedEvent rating(Long foodItemId) {
+        return new CatalogChangedEvent(null, foodItemId);
+    }
+}
@@ -1,6 +1,10 @@
 package com.foodshop.event;
 
 import com.foodshop.domain.Order;
+import com.foodshop.domain.OrderItem;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.context.ApplicationEvent;
 
 /**
@@ -10,16 +14,22 @@ import org.springframework.context.ApplicationEvent;
 public class OrderCompletedEvent extends ApplicationEvent {
     
     private final Order order;
+
+    private final Map<Long, Long> quantitiesByFoodItem;
     
     /**
      * Create a new OrderCompletedEvent.
      *
+     * <p>Ordered quantities are aggregated per food item here, while the publisher still has the
+     * order's items loaded, because listeners run asynchronously outside its persistence context.
+     *
      * @param source the component that published the event
      * @param order the completed order
      */
     public OrderCompletedEvent(Object source, Order order) {
         super(source);
         this.order = order;
+        this.quantitiesByFoodItem = aggregateQuantities(order);
     }
     
     /**
@@ -30,4 +40,21 @@ public class OrderCompletedEvent extends ApplicationEvent {
     public Order getOrder() {
         return order;
     }
+
+    /**
+     * Get the total ordered quantity of each food item in the order.
+     *
+     * @return unmodifiable map of quantities keyed by food item ID
+     */
+    public Map<Long, Long> getQuantitiesByFoodItem() {
+        return quantitiesByFoodItem;
+    }
+
+    private static Map<Long, Long> aggregateQuantities(Order order) {
+        Map<Long, Long> quantities = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getFoodItem().getId(), (long) item.getQuantity(), Long::sum);
+        }
+        return Collections.unmodifiableMap(quantities);
+    }
 }
@@ -0,0 +1,59 @@
+package com.foodshop.event;
+
+/**
+ * Analytics tracking event handed from request threads to the ingestion queue.
+ *
+ * @param type what happened
+ * @param foodItemId the food item ID
+ * @param quantity number of units (always 1 for views)
+ * @param sessionId the HTTP session ID, used to deduplicate views; null for other types
+ */
+public record TrackingEvent(
+    Type type,
+    long foodItemId,
+    long quantity,
+    String sessionId
+) {
+
+    /**
+     * Kinds of tracked activity.
+     */
+    public enum Type {
+        VIEW,
+        ORDER,
+        CART_ADD
+    }
+
+    /**
+     * Create a view of a food item detail page.
+     *
+     * @param sessionId the HTTP session ID
+     * @param foodItemId the food item ID
+     * @return the event
+     */
+    public static TrackingEvent view(String sessionId, long foodItemId) {
+        return new TrackingEvent(Type.VIEW, foodItemId, 1, sessionId);
+    }
+
+    /**
+     * Create an ordered quantity of a food item.
+     *
+     * @param foodItemId the food item ID
+     * @param quantity the quantity ordered
+     * @return the event
+     */
+    public static TrackingEvent order(long foodItemId, long quantity) {
+        return new TrackingEvent(Type.ORDER, foodItemId, quantity, null);
+    }
+
+    /**
+     * Create a quantity of a food item added to a cart.
+     *
+     * @param foodItemId the food item ID
+     * @param quantity the quantity added
+     * @return the event
+     */
+    public static TrackingEvent cartAdd(long foodItemId, long quantity) {
+        return new TrackingEvent(Type.CART_ADD, foodItemId, quantity, null);
+    }
+}
@@ -1,6 +1,7 @@
 package com.foodshop.repository;
 
 import com.foodshop.domain.Cart;
+import com.foodshop.dto.CartTotals;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,7 +13,7 @@ import org.springframework.stereotype.Repository;
  * Repository interface for Cart entity operations.
  */
 @Repository
-public interface CartRepository extends JpaRepository<Cart, Long> {
+public interface CartRepository extends JpaRepository<Cart, Long>, CartRepositoryCustom {
 
   /**
    * Finds a cart by user ID with all cart items and food items eagerly loaded.
@@ -31,4 +32,23 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
    * @return optional containing the cart if found
    */
   Optional<Cart> findByUserId(Long userId);
+
+  /**
+   * Counts the lines in a user's cart without loading it.
+   *
+   * @param userId the user ID
+   * @return the number of distinct food items, 0 if the user has no cart
+   */
+  @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.cart.user.id = :userId")
+  long countItemsByUserId(@Param("userId") Long userId);
+
+  /**
+   * Sums a user's cart at current prices in one aggregate query.
+   *
+   * @param userId the user ID
+   * @return the line count and subtotal, zero if the user has no cart
+   */
+  @Query("SELECT new com.foodshop.dto.CartTotals(COUNT(ci), COALESCE(SUM(f.price * ci.quantity), 0)) "
+      + "FROM CartItem ci JOIN ci.foodItem f WHERE ci.cart.user.id = :userId")
+  CartTotals sumTotalsByUserId(@Param("userId") Long userId);
 }
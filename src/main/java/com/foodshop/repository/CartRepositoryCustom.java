@@ -0,0 +1,65 @@
+package com.foodshop.repository;
+
+import com.foodshop.domain.CartItem;
+import java.util.Map;
+
+/**
+ * Custom bulk operations for carts that bypass loading the cart graph.
+ */
+public interface CartRepositoryCustom {
+
+  /**
+   * Reads the quantities in a user's cart.
+   *
+   * @param userId the user ID
+   * @return quantities keyed by food item ID, in the order the items were added; empty if the user
+   *     has no cart
+   */
+  Map<Long, Integer> findQuantitiesByUserId(Long userId);
+
+  /**
+   * Adds a quantity of a food item to a user's cart in one statement, creating the cart or the line
+   * if needed.
+   *
+   * <p>Concurrent adds of the same item are merged by the {@code uk_cart_food_item} constraint
+   * instead of failing on it. The cart row stays locked until the end of the current transaction.
+   *
+   * @param userId the user ID
+   * @param foodItemId the food item ID
+   * @param quantity the positive quantity to add, at most {@link CartItem#MAX_QUANTITY}
+   * @return the new quantity of the line, or 0 if it would pass {@link CartItem#MAX_QUANTITY}; the
+   *     line is then left unchanged
+   */
+  int addQuantity(Long userId, Long foodItemId, int quantity);
+
+  /**
+   * Adds quantities of several food items to a user's cart in one statement, creating the cart or
+   * the lines if needed.
+   *
+   * <p>Quantities for deleted food items are silently dropped, and lines are capped at {@link
+   * CartItem#MAX_QUANTITY}. The cart row stays locked until the end of the current transaction.
+   *
+   * @param userId the user ID
+   * @param quantities positive quantities to add, keyed by food item ID
+   */
+  void addQuantities(Long userId, Map<Long, Integer> quantities);
+
+  /**
+   * Locks a user's cart row until the end of the current transaction, creating the cart if needed.
+   *
+   * @param userId the user ID
+   * @return the cart ID
+   */
+  Long lockCart(Long userId);
+
+  /**
+   * Replaces the items of a cart with the given quantities in two statements.
+   *
+   * <p>Items not in {@code quantities} are deleted; the others are inserted or updated. Quantities
+   * for deleted food items are silently dropped.
+   *
+   * @param cartId the cart ID
+   * @param quantities positive quantities keyed by food item ID
+   */
+  void replaceItems(Long cartId, Map<Long, Integer> quantities);
+}
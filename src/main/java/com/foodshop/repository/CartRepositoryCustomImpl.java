@@ -0,0 +1,133 @@
+package com.foodshop.repository;
+
+import com.foodshop.domain.CartItem;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JDBC implementation of {@link CartRepositoryCustom}.
+ */
+class CartRepositoryCustomImpl implements CartRepositoryCustom {
+
+  private static final String FIND_QUANTITIES_SQL =
+      "SELECT ci.food_item_id, ci.quantity FROM cart_items ci "
+          + "JOIN carts c ON c.id = ci.cart_id WHERE c.user_id = ? ORDER BY ci.id";
+
+  /** The no-op update on conflict takes the row lock and lets RETURNING report the existing ID. */
+  private static final String LOCK_CART_SQL =
+      "INSERT INTO carts (user_id) VALUES (?) "
+          + "ON CONFLICT (user_id) DO UPDATE SET updated_at = CURRENT_TIMESTAMP RETURNING id";
+
+  /**
+   * Creates or locks the cart as {@code lockCart} does, then upserts the line against it. A line
+   * that would pass the maximum is left as it is and no row is returned.
+   */
+  private static final String ADD_QUANTITY_SQL =
+      "WITH cart AS (" + LOCK_CART_SQL + ") "
+          + "INSERT INTO cart_items (cart_id, food_item_id, quantity) SELECT cart.id, ?, ? FROM cart "
+          + "ON CONFLICT (cart_id, food_item_id) "
+          + "DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity "
+          + "WHERE cart_items.quantity + EXCLUDED.quantity <= " + CartItem.MAX_QUANTITY + " "
+          + "RETURNING quantity";
+
+  /**
+   * Like {@code addQuantity}, with IDs and quantities bound as two parallel arrays; lines that
+   * would pass the maximum are capped at it instead.
+   */
+  private static final String ADD_QUANTITIES_SQL =
+      "WITH cart AS (" + LOCK_CART_SQL + ") "
+          + "INSERT INTO cart_items (cart_id, food_item_id, quantity) "
+          + "SELECT cart.id, f.id, LEAST(d.quantity, " + CartItem.MAX_QUANTITY + ") "
+          + "FROM cart, unnest(?::bigint[], ?::int[]) AS d(food_item_id, quantity) "
+          + "JOIN food_items f ON f.id = d.food_item_id ORDER BY f.id "
+          + "ON CONFLICT (cart_id, food_item_id) "
+          + "DO UPDATE SET quantity = "
+          + "LEAST(cart_items.quantity + EXCLUDED.quantity, " + CartItem.MAX_QUANTITY + ")";
+
+  private static final String DELETE_OTHER_ITEMS_SQL =
+      "DELETE FROM cart_items WHERE cart_id = ? AND NOT (food_item_id = ANY (?::bigint[]))";
+
+  /** IDs and quantities are bound as two parallel arrays and expanded with {@code unnest}. */
+  private static final String UPSERT_ITEMS_SQL =
+      "INSERT INTO cart_items (cart_id, food_item_id, quantity) "
+          + "SELECT ?, f.id, d.quantity "
+          + "FROM unnest(?::bigint[], ?::int[]) AS d(food_item_id, quantity) "
+          + "JOIN food_items f ON f.id = d.food_item_id ORDER BY f.id "
+          + "ON CONFLICT (cart_id, food_item_id) DO UPDATE SET quantity = EXCLUDED.quantity "
+          + "WHERE cart_items.quantity <> EXCLUDED.quantity";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  CartRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public Map<Long, Integer> findQuantitiesByUserId(Long userId) {
+    Map<Long, Integer> quantities = new LinkedHashMap<>();
+    jdbcTemplate.query(
+        FIND_QUANTITIES_SQL,
+        rs -> {
+          quantities.put(rs.getLong(1), rs.getInt(2));
+        },
+        userId);
+    return quantities;
+  }
+
+  @Override
+  public int addQuantity(Long userId, Long foodItemId, int quantity) {
+    List<Integer> lineQuantity =
+        jdbcTemplate.queryForList(ADD_QUANTITY_SQL, Integer.class, userId, foodItemId, quantity);
+    return lineQuantity.isEmpty() ? 0 : lineQuantity.get(0);
+  }
+
+  @Override
+  public void addQuantities(Long userId, Map<Long, Integer> quantities) {
+    Long[] foodItemIds = quantities.keySet().toArray(Long[]::new);
+    Integer[] values = new Integer[foodItemIds.length];
+    for (int i = 0; i < foodItemIds.length; i++) {
+      values[i] = quantities.get(foodItemIds[i]);
+    }
+
+    jdbcTemplate.update(
+        ADD_QUANTITIES_SQL,
+        ps -> {
+          ps.setLong(1, userId);
+          ps.setArray(2, ps.getConnection().createArrayOf("bigint", foodItemIds));
+          ps.setArray(3, ps.getConnection().createArrayOf("integer", values));
+        });
+  }
+
+  @Override
+  public Long lockCart(Long userId) {
+    return jdbcTemplate.queryForObject(LOCK_CART_SQL, Long.class, userId);
+  }
+
+  @Override
+  public void replaceItems(Long cartId, Map<Long, Integer> quantities) {
+    Long[] foodItemIds = quantities.keySet().toArray(Long[]::new);
+    Integer[] values = new Integer[foodItemIds.length];
+    for (int i = 0; i < foodItemIds.length; i++) {
+      values[i] = quantities.get(foodItemIds[i]);
+    }
+
+    jdbcTemplate.update(
+        DELETE_OTHER_ITEMS_SQL,
+        ps -> {
+          ps.setLong(1, cartId);
+          ps.setArray(2, ps.getConnection().createArrayOf("bigint", foodItemIds));
+        });
+    if (foodItemIds.length == 0) {
+      return;
+    }
+    jdbcTemplate.update(
+        UPSERT_ITEMS_SQL,
+        ps -> {
+          ps.setLong(1, cartId);
+          ps.setArray(2, ps.getConnection().createArrayOf("bigint", foodItemIds));
+          ps.setArray(3, ps.getConnection().createArrayOf("integer", values));
+        });
+  }
+}
@@ -3,19 +3,27 @@ package com.foodshop.repository;
 import com.foodshop.domain.FoodAnalytics;
 import com.foodshop.domain.FoodItem;
 import com.foodshop.dto.FoodAnalyticsDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for FoodAnalytics entity.
  * Provides optimized queries for dashboard display and analytics aggregation.
  */
 @Repository
-public interface FoodAnalyticsRepository extends JpaRepository<FoodAnalytics, Long> {
+public interface FoodAnalyticsRepository
+    extends JpaRepository<FoodAnalytics, Long>, FoodAnalyticsRepositoryCustom {
     
     /**
      * Find analytics record by food item ID.
@@ -33,6 +41,57 @@ public interface FoodAnalyticsRepository extends JpaRepository<FoodAnalytics, Lo
      */
     Optional<FoodAnalytics> findByFoodItem(FoodItem foodItem);
     
+    /**
+     * Atomically add to the view count of a food item, creating the analytics row if needed.
+     * Runs as a single INSERT ... ON CONFLICT statement, so concurrent writers never lose updates
+     * and never hit optimistic locking conflicts. The same statement adds the views to the
+     * bucket of {@code bucketDate} in food_analytics_daily.
+     *
+     * @param foodItemId the food item ID
+     * @param delta the number of views to add
+     * @param bucketDate the day to count the views on (today in the application clock's zone)
+     * @return 1 if the row was inserted or updated, 0 if the food item does not exist
+     */
+    @Modifying
+    @Query(value = "WITH item AS (SELECT id FROM food_items WHERE id = :foodItemId), " +
+           "daily AS (INSERT INTO food_analytics_daily (bucket_date, food_item_id, view_count) " +
+           "SELECT CAST(:bucketDate AS date), id, :delta FROM item " +
+           "ON CONFLICT (bucket_date, food_item_id) DO UPDATE " +
+           "SET view_count = food_analytics_daily.view_count + EXCLUDED.view_count) " +
+           "INSERT INTO food_analytics (food_item_id, view_count, order_count) " +
+           "SELECT id, :delta, 0 FROM item " +
+           "ON CONFLICT (food_item_id) DO UPDATE " +
+           "SET view_count = food_analytics.view_count + EXCLUDED.view_count, " +
+           "version = COALESCE(food_analytics.version, 0) + 1, updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    int upsertViewCount(@Param("foodItemId") Long foodItemId, @Param("delta") long delta,
+                        @Param("bucketDate") LocalDate bucketDate);
+    
+    /**
+     * Atomically add to the order count of a food item, creating the analytics row if needed.
+     * The same statement adds the quantity to the bucket of {@code bucketDate} in
+     * food_analytics_daily.
+     *
+     * @param foodItemId the food item ID
+     * @param delta the quantity ordered
+     * @param bucketDate the day to count the orders on (today in the application clock's zone)
+     * @return 1 if the row was inserted or updated, 0 if the food item does not exist
+     */
+    @Modifying
+    @Query(value = "WITH item AS (SELECT id FROM food_items WHERE id = :foodItemId), " +
+           "daily AS (INSERT INTO food_analytics_daily (bucket_date, food_item_id, order_count) " +
+           "SELECT CAST(:bucketDate AS date), id, :delta FROM item " +
+           "ON CONFLICT (bucket_date, food_item_id) DO UPDATE " +
+           "SET order_count = food_analytics_daily.order_count + EXCLUDED.order_count) " +
+           "INSERT INTO food_analytics (food_item_id, view_count, order_count) " +
+           "SELECT id, 0, :delta FROM item " +
+           "ON CONFLICT (food_item_id) DO UPDATE " +
+           "SET order_count = food_analytics.order_count + EXCLUDED.order_count, " +
+           "version = COALESCE(food_analytics.version, 0) + 1, updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    int upsertOrderCount(@Param("foodItemId") Long foodItemId, @Param("delta") long delta,
+                         @Param("bucketDate") LocalDate bucketDate);
+    
     /**
      * Get all food analytics sorted by view count descending.
      * Uses JPA constructor expression to avoid loading full entities.
@@ -78,6 +137,20 @@ public interface FoodAnalyticsRepository extends JpaRepository<FoodAnalytics, Lo
            "ORDER BY a.orderCount ASC NULLS FIRST")
     List<FoodAnalyticsDTO> findAllFoodAnalyticsSortedByOrdersAsc();
     
+    /**
+     * Stream all food analytics in food item ID order, for exports.
+     * Rows are fetched from a database cursor in chunks, so memory use does not grow with the
+     * catalog. Must be consumed (and closed) inside a read-only transaction.
+     *
+     * @return stream of analytics DTOs
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.foodshop.dto.FoodAnalyticsDTO(" +
+           "f.id, f.name, f.imageUrl, COALESCE(a.viewCount, 0), COALESCE(a.orderCount, 0)) " +
+           "FROM FoodItem f LEFT JOIN f.analytics a " +
+           "ORDER BY f.id")
+    Stream<FoodAnalyticsDTO> streamAllFoodAnalytics();
+    
     /**
      * Calculate total view count across all food items.
      *
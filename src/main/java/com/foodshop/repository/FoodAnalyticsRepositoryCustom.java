@@ -0,0 +1,98 @@
+package com.foodshop.repository;
+
+import com.foodshop.dto.AnalyticsSnapshot;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom bulk operations for FoodAnalytics that bypass the entity read-modify-write cycle.
+ */
+public interface FoodAnalyticsRepositoryCustom {
+
+  /**
+   * Applies accumulated view count deltas in a single JDBC batch.
+   *
+   * <p>Each delta is applied as an atomic upsert. Rows that do not exist yet are created, provided
+   * the food item still exists. Deltas for deleted food items are silently dropped.
+   *
+   * @param deltas view count deltas keyed by food item ID
+   * @param bucketDate the day whose daily bucket the deltas are added to
+   * @return number of analytics rows touched
+   */
+  int addViewCounts(Map<Long, Long> deltas, LocalDate bucketDate);
+
+  /**
+   * Applies order count deltas for several food items in one multi-row upsert statement.
+   *
+   * <p>Rows that do not exist yet are created, provided the food item still exists. Deltas for
+   * deleted food items are silently dropped.
+   *
+   * @param deltas ordered quantities keyed by food item ID
+   * @param bucketDate the day whose daily bucket the deltas are added to
+   * @return number of analytics rows touched
+   */
+  int addOrderCounts(Map<Long, Long> deltas, LocalDate bucketDate);
+
+  /**
+   * Applies add-to-cart quantities for several food items in one multi-row upsert statement.
+   *
+   * @param deltas quantities added to carts keyed by food item ID
+   * @param bucketDate the day whose daily bucket the deltas are added to
+   * @return number of analytics rows touched
+   * @see #addOrderCounts(Map, LocalDate)
+   */
+  int addCartAddCounts(Map<Long, Long> deltas, LocalDate bucketDate);
+
+  /**
+   * Sums view and order counts of every food item over a date range from pre-aggregated buckets.
+   *
+   * <p>Months lying entirely inside the range are read from their complete monthly rollup; the
+   * remaining days are read from daily buckets. Raw tracking events are never scanned.
+   *
+   * @param from first day of the range (inclusive)
+   * @param to day after the range (exclusive)
+   * @return one row per food item, unsorted, with zero counts for items without activity
+   */
+  List<FoodAnalyticsDTO> findAnalyticsBetween(LocalDate from, LocalDate to);
+
+  /**
+   * Reads the lifetime analytics of every food item and their totals in a single query.
+   *
+   * <p>Totals are computed by window functions over the same rows, so they always agree with the
+   * list.
+   *
+   * @return all food items sorted by view count descending, with totals
+   */
+  AnalyticsSnapshot findAnalyticsSnapshot();
+
+  /**
+   * Reads the analytics of every food item summed over a date range, and their totals, in a single
+   * query.
+   *
+   * @param from first day of the range (inclusive)
+   * @param to day after the range (exclusive)
+   * @return all food items sorted by view count descending, with totals
+   * @see #findAnalyticsBetween(LocalDate, LocalDate)
+   */
+  AnalyticsSnapshot findAnalyticsSnapshotBetween(LocalDate from, LocalDate to);
+
+  /**
+   * Recomputes the monthly rollup of a month from its daily buckets.
+   *
+   * @param month the month to roll up
+   * @param complete whether the month has ended, so the rollup is final
+   * @return number of monthly rows written
+   */
+  int rollUpMonth(YearMonth month, boolean complete);
+
+  /**
+   * Checks whether a month already has a complete rollup.
+   *
+   * @param month the month
+   * @return true if a complete rollup exists
+   */
+  boolean isMonthRolledUp(YearMonth month);
+}
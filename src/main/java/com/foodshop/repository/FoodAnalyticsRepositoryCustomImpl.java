@@ -0,0 +1,239 @@
+package com.foodshop.repository;
+
+import com.foodshop.dto.AnalyticsSnapshot;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * JDBC implementation of {@link FoodAnalyticsRepositoryCustom}.
+ */
+class FoodAnalyticsRepositoryCustomImpl implements FoodAnalyticsRepositoryCustom {
+
+  /**
+   * Same statement as {@link FoodAnalyticsRepository#upsertViewCount}, positional for batching.
+   * Parameters: delta, food item ID, bucket date.
+   */
+  private static final String UPSERT_VIEW_COUNT_SQL =
+      "WITH item AS (SELECT id, ?::bigint AS delta FROM food_items WHERE id = ?), "
+          + "daily AS (INSERT INTO food_analytics_daily (bucket_date, food_item_id, view_count) "
+          + "SELECT CAST(? AS date), id, delta FROM item "
+          + "ON CONFLICT (bucket_date, food_item_id) DO UPDATE "
+          + "SET view_count = food_analytics_daily.view_count + EXCLUDED.view_count) "
+          + "INSERT INTO food_analytics (food_item_id, view_count, order_count) "
+          + "SELECT id, delta, 0 FROM item "
+          + "ON CONFLICT (food_item_id) DO UPDATE "
+          + "SET view_count = food_analytics.view_count + EXCLUDED.view_count, "
+          + "version = COALESCE(food_analytics.version, 0) + 1, updated_at = CURRENT_TIMESTAMP";
+
+  /**
+   * Multi-row variant of {@link FoodAnalyticsRepository#upsertOrderCount}: IDs and deltas are bound
+   * as two parallel arrays and expanded with {@code unnest}, so any number of items costs one
+   * statement. Parameters: IDs, deltas, bucket date.
+   */
+  private static final String UPSERT_ORDER_COUNTS_SQL =
+      "WITH items AS (SELECT f.id, d.delta "
+          + "FROM unnest(?::bigint[], ?::bigint[]) AS d(food_item_id, delta) "
+          + "JOIN food_items f ON f.id = d.food_item_id), "
+          + "daily AS (INSERT INTO food_analytics_daily (bucket_date, food_item_id, order_count) "
+          + "SELECT CAST(? AS date), id, delta FROM items ORDER BY id "
+          + "ON CONFLICT (bucket_date, food_item_id) DO UPDATE "
+          + "SET order_count = food_analytics_daily.order_count + EXCLUDED.order_count) "
+          + "INSERT INTO food_analytics (food_item_id, view_count, order_count) "
+          + "SELECT id, 0, delta FROM items ORDER BY id "
+          + "ON CONFLICT (food_item_id) DO UPDATE "
+          + "SET order_count = food_analytics.order_count + EXCLUDED.order_count, "
+          + "version = COALESCE(food_analytics.version, 0) + 1, updated_at = CURRENT_TIMESTAMP";
+
+  /** Same shape as {@link #UPSERT_ORDER_COUNTS_SQL}, for add-to-cart quantities. */
+  private static final String UPSERT_CART_ADD_COUNTS_SQL =
+      "WITH items AS (SELECT f.id, d.delta "
+          + "FROM unnest(?::bigint[], ?::bigint[]) AS d(food_item_id, delta) "
+          + "JOIN food_items f ON f.id = d.food_item_id), "
+          + "daily AS (INSERT INTO food_analytics_daily (bucket_date, food_item_id, cart_add_count) "
+          + "SELECT CAST(? AS date), id, delta FROM items ORDER BY id "
+          + "ON CONFLICT (bucket_date, food_item_id) DO UPDATE "
+          + "SET cart_add_count = food_analytics_daily.cart_add_count + EXCLUDED.cart_add_count) "
+          + "INSERT INTO food_analytics (food_item_id, view_count, order_count, cart_add_count) "
+          + "SELECT id, 0, 0, delta FROM items ORDER BY id "
+          + "ON CONFLICT (food_item_id) DO UPDATE "
+          + "SET cart_add_count = food_analytics.cart_add_count + EXCLUDED.cart_add_count, "
+          + "version = COALESCE(food_analytics.version, 0) + 1, updated_at = CURRENT_TIMESTAMP";
+
+  /**
+   * Sums the buckets of [from, to): complete monthly rollups for months lying entirely inside the
+   * range, daily buckets for everything else. Parameters: from, to, from, to.
+   */
+  private static final String RANGE_ANALYTICS_SQL =
+      "WITH complete_months AS (SELECT DISTINCT bucket_month FROM food_analytics_monthly "
+          + "WHERE complete AND bucket_month >= ? AND bucket_month + INTERVAL '1 month' <= ?), "
+          + "buckets AS ("
+          + "SELECT m.food_item_id, m.view_count, m.order_count FROM food_analytics_monthly m "
+          + "JOIN complete_months c ON c.bucket_month = m.bucket_month "
+          + "UNION ALL "
+          + "SELECT d.food_item_id, d.view_count, d.order_count FROM food_analytics_daily d "
+          + "WHERE d.bucket_date >= ? AND d.bucket_date < ? "
+          + "AND CAST(date_trunc('month', d.bucket_date) AS date) "
+          + "NOT IN (SELECT bucket_month FROM complete_months)) "
+          + "SELECT f.id, f.name, f.image_url, "
+          + "COALESCE(SUM(b.view_count), 0) AS view_count, "
+          + "COALESCE(SUM(b.order_count), 0) AS order_count "
+          + "FROM food_items f LEFT JOIN buckets b ON b.food_item_id = f.id "
+          + "GROUP BY f.id, f.name, f.image_url";
+
+  /** Lifetime counts of every food item. */
+  private static final String LIFETIME_ANALYTICS_SQL =
+      "SELECT f.id, f.name, f.image_url, "
+          + "COALESCE(a.view_count, 0) AS view_count, COALESCE(a.order_count, 0) AS order_count "
+          + "FROM food_items f LEFT JOIN food_analytics a ON a.food_item_id = f.id";
+
+  /** Recomputes one month from its daily buckets. Parameters: month, complete, from, to. */
+  private static final String ROLL_UP_MONTH_SQL =
+      "INSERT INTO food_analytics_monthly "
+          + "(bucket_month, food_item_id, view_count, order_count, cart_add_count, complete, "
+          + "rolled_up_at) "
+          + "SELECT CAST(? AS date), food_item_id, SUM(view_count), SUM(order_count), "
+          + "SUM(cart_add_count), ?, CURRENT_TIMESTAMP "
+          + "FROM food_analytics_daily WHERE bucket_date >= ? AND bucket_date < ? "
+          + "GROUP BY food_item_id "
+          + "ON CONFLICT (bucket_month, food_item_id) DO UPDATE "
+          + "SET view_count = EXCLUDED.view_count, order_count = EXCLUDED.order_count, "
+          + "cart_add_count = EXCLUDED.cart_add_count, complete = EXCLUDED.complete, "
+          + "rolled_up_at = EXCLUDED.rolled_up_at";
+
+  private static final String MONTH_COMPLETE_SQL =
+      "SELECT EXISTS (SELECT 1 FROM food_analytics_monthly WHERE bucket_month = ? AND complete)";
+
+  private static final RowMapper<FoodAnalyticsDTO> ANALYTICS_ROW_MAPPER =
+      (rs, rowNum) ->
+          new FoodAnalyticsDTO(
+              rs.getLong("id"),
+              rs.getString("name"),
+              rs.getString("image_url"),
+              rs.getLong("view_count"),
+              rs.getLong("order_count"));
+
+  private static final ResultSetExtractor<AnalyticsSnapshot> SNAPSHOT_EXTRACTOR =
+      rs -> {
+        List<FoodAnalyticsDTO> items = new ArrayList<>();
+        long totalViews = 0;
+        long totalOrders = 0;
+        while (rs.next()) {
+          items.add(ANALYTICS_ROW_MAPPER.mapRow(rs, items.size()));
+          totalViews = rs.getLong("total_views");
+          totalOrders = rs.getLong("total_orders");
+        }
+        return new AnalyticsSnapshot(items, totalViews, totalOrders);
+      };
+
+  private final JdbcTemplate jdbcTemplate;
+
+  FoodAnalyticsRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public int addViewCounts(Map<Long, Long> deltas, LocalDate bucketDate) {
+    if (deltas.isEmpty()) {
+      return 0;
+    }
+
+    Date day = Date.valueOf(bucketDate);
+    List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+    deltas.forEach((foodItemId, delta) -> batchArgs.add(new Object[] {delta, foodItemId, day}));
+
+    int touched = 0;
+    for (int count : jdbcTemplate.batchUpdate(UPSERT_VIEW_COUNT_SQL, batchArgs)) {
+      touched += count;
+    }
+    return touched;
+  }
+
+  @Override
+  public int addOrderCounts(Map<Long, Long> deltas, LocalDate bucketDate) {
+    return upsertAll(UPSERT_ORDER_COUNTS_SQL, deltas, bucketDate);
+  }
+
+  @Override
+  public int addCartAddCounts(Map<Long, Long> deltas, LocalDate bucketDate) {
+    return upsertAll(UPSERT_CART_ADD_COUNTS_SQL, deltas, bucketDate);
+  }
+
+  @Override
+  public List<FoodAnalyticsDTO> findAnalyticsBetween(LocalDate from, LocalDate to) {
+    return jdbcTemplate.query(
+        RANGE_ANALYTICS_SQL, ANALYTICS_ROW_MAPPER, rangeArgs(from, to).toArray());
+  }
+
+  @Override
+  public AnalyticsSnapshot findAnalyticsSnapshot() {
+    return jdbcTemplate.query(snapshotSql(LIFETIME_ANALYTICS_SQL), SNAPSHOT_EXTRACTOR);
+  }
+
+  @Override
+  public AnalyticsSnapshot findAnalyticsSnapshotBetween(LocalDate from, LocalDate to) {
+    return jdbcTemplate.query(
+        snapshotSql(RANGE_ANALYTICS_SQL), SNAPSHOT_EXTRACTOR, rangeArgs(from, to).toArray());
+  }
+
+  @Override
+  public int rollUpMonth(YearMonth month, boolean complete) {
+    Date monthStart = Date.valueOf(month.atDay(1));
+    return jdbcTemplate.update(
+        ROLL_UP_MONTH_SQL,
+        monthStart,
+        complete,
+        monthStart,
+        Date.valueOf(month.plusMonths(1).atDay(1)));
+  }
+
+  @Override
+  public boolean isMonthRolledUp(YearMonth month) {
+    return Boolean.TRUE.equals(
+        jdbcTemplate.queryForObject(
+            MONTH_COMPLETE_SQL, Boolean.class, Date.valueOf(month.atDay(1))));
+  }
+
+  // Runs a multi-row upsert binding the deltas as two parallel arrays (IDs, deltas)
+  private int upsertAll(String sql, Map<Long, Long> deltas, LocalDate bucketDate) {
+    if (deltas.isEmpty()) {
+      return 0;
+    }
+
+    Long[] foodItemIds = deltas.keySet().toArray(Long[]::new);
+    Long[] values = new Long[foodItemIds.length];
+    for (int i = 0; i < foodItemIds.length; i++) {
+      values[i] = deltas.get(foodItemIds[i]);
+    }
+
+    return jdbcTemplate.update(
+        sql,
+        ps -> {
+          ps.setArray(1, ps.getConnection().createArrayOf("bigint", foodItemIds));
+          ps.setArray(2, ps.getConnection().createArrayOf("bigint", values));
+          ps.setDate(3, Date.valueOf(bucketDate));
+        });
+  }
+
+  // Adds the totals of all rows to every row, so the list and its totals come from one scan
+  private static String snapshotSql(String rowsSql) {
+    return "SELECT r.*, SUM(r.view_count) OVER () AS total_views, "
+        + "SUM(r.order_count) OVER () AS total_orders FROM ("
+        + rowsSql
+        + ") r ORDER BY r.view_count DESC, r.id DESC";
+  }
+
+  // Arguments of RANGE_ANALYTICS_SQL
+  private static List<Object> rangeArgs(LocalDate from, LocalDate to) {
+    Date fromDate = Date.valueOf(from);
+    Date toDate = Date.valueOf(to);
+    return List.of(fromDate, toDate, fromDate, toDate);
+  }
+}
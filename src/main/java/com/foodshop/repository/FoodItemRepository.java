@@ -1,11 +1,19 @@
 package com.foodshop.repository;
 
 import com.foodshop.domain.FoodItem;
-import org.springframework.data.domain.Page;
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.dto.FoodItemDetailView;
+import com.foodshop.dto.SuggestionDTO;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -13,54 +21,61 @@ import org.springframework.stereotype.Repository;
  * Repository interface for FoodItem entity operations.
  */
 @Repository
-public interface FoodItemRepository extends JpaRepository<FoodItem, Long> {
+public interface FoodItemRepository
+    extends JpaRepository<FoodItem, Long>, FoodItemRepositoryCustom {
 
   /**
-   * Finds all available food items with their categories.
+   * Finds the cards of the top rated food items, without a count query.
    *
-   * @param pageable pagination information
-   * @return page of available food items
+   * @param minRatingCount minimum number of ratings required
+   * @param pageable pagination information (unsorted: items are ordered by rating)
+   * @return top rated food item cards
    */
-  @EntityGraph(attributePaths = {"category"})
-  @Query("SELECT f FROM FoodItem f WHERE f.available = true")
-  Page<FoodItem> findAllAvailable(Pageable pageable);
+  @Query(FoodItemCardView.JPQL_SELECT + "FROM FoodItem f JOIN f.category c "
+      + "WHERE f.available = true AND f.ratingCount >= :minRatingCount "
+      + "ORDER BY f.avgRating DESC, f.id")
+  List<FoodItemCardView> findTopRated(
+      @Param("minRatingCount") Integer minRatingCount, Pageable pageable);
 
   /**
-   * Finds all food items in a specific category.
+   * Lists the ID and name of every available food item, for the autocomplete index.
+   *
+   * @return suggestions for all available food items
+   */
+  @Query("SELECT new com.foodshop.dto.SuggestionDTO(f.id, f.name) FROM FoodItem f "
+      + "WHERE f.available = true")
+  List<SuggestionDTO> findAllAvailableSuggestions();
+
+  /**
+   * Streams the cards of every available food item in a category, ordered by name and ID.
+   *
+   * <p>Rows are fetched from a database cursor in chunks, so memory use does not grow with the
+   * category. Must be consumed (and closed) inside a read-only transaction.
    *
    * @param categoryId the category ID
-   * @param pageable pagination information
-   * @return page of food items in the category
+   * @return stream of food item cards
    */
-  @EntityGraph(attributePaths = {"category"})
-  @Query("SELECT f FROM FoodItem f WHERE f.category.id = :categoryId AND f.available = true")
-  Page<FoodItem> findByCategoryIdAndAvailable(
-      @Param("categoryId") Long categoryId, Pageable pageable);
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query(FoodItemCardView.JPQL_SELECT + "FROM FoodItem f JOIN f.category c "
+      + "WHERE f.available = true AND c.id = :categoryId ORDER BY f.name, f.id")
+  Stream<FoodItemCardView> streamAvailableByCategoryId(@Param("categoryId") Long categoryId);
 
   /**
-   * Searches food items by name or description.
+   * Finds the cards of the given food items, available or not, in no particular order.
    *
-   * @param searchTerm the search term
-   * @param pageable pagination information
-   * @return page of matching food items
+   * @param ids the food item IDs
+   * @return the cards of the items that exist
    */
-  @EntityGraph(attributePaths = {"category"})
-  @Query("SELECT f FROM FoodItem f WHERE f.available = true "
-      + "AND (LOWER(f.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) "
-      + "OR LOWER(f.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
-  Page<FoodItem> searchByNameOrDescription(
-      @Param("searchTerm") String searchTerm, Pageable pageable);
+  @Query(FoodItemCardView.JPQL_SELECT + "FROM FoodItem f JOIN f.category c WHERE f.id IN :ids")
+  List<FoodItemCardView> findCardsByIdIn(@Param("ids") Collection<Long> ids);
 
   /**
-   * Finds top rated food items.
+   * Finds a food item with its category and the number of ratings per star count, in one query.
    *
-   * @param minRatingCount minimum number of ratings required
-   * @param pageable pagination information
-   * @return page of top rated food items
+   * @param id the food item ID
+   * @return optional containing the detail view if the item exists
    */
-  @EntityGraph(attributePaths = {"category"})
-  @Query("SELECT f FROM FoodItem f WHERE f.available = true "
-      + "AND f.ratingCount >= :minRatingCount ORDER BY f.avgRating DESC")
-  Page<FoodItem> findTopRated(
-      @Param("minRatingCount") Integer minRatingCount, Pageable pageable);
+  @Query(FoodItemDetailView.JPQL_SELECT + "FROM FoodItem f JOIN f.category c "
+      + "LEFT JOIN Rating r ON r.foodItem = f WHERE f.id = :id GROUP BY f.id, c.id")
+  Optional<FoodItemDetailView> findDetailById(@Param("id") Long id);
 }
@@ -0,0 +1,44 @@
+package com.foodshop.repository;
+
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+
+/**
+ * Catalog listings with keyset pagination.
+ *
+ * <p>Pages are read with a row-value comparison against the cursor and {@code LIMIT size + 1}
+ * instead of {@code OFFSET}, and never run a {@code COUNT(*)}, so every page costs the same no
+ * matter how deep it is.
+ */
+public interface FoodItemRepositoryCustom {
+
+  /**
+   * Ranked full-text matches over the stored, weighted {@code search_vector} (GIN-indexed), one
+   * {@code (id, rank)} row per available item. Terms use web search syntax ({@code "quoted
+   * phrase"}, {@code or}, {@code -excluded}). Matches are listed by {@code rank DESC, id DESC}.
+   */
+  String SEARCH_SQL =
+      "SELECT f.id, CAST(ts_rank(f.search_vector, q) AS float8) AS rank "
+          + "FROM food_items f, websearch_to_tsquery('english', :searchTerm) q "
+          + "WHERE f.available = TRUE AND f.search_vector @@ q";
+
+  /**
+   * Finds a page of available food item cards, ordered by name and ID.
+   *
+   * @param categoryId the category filter, or null for all categories
+   * @param cursor the position to read from, or null for the first page
+   * @param size the page size
+   * @return the page with the cursors of its neighbours
+   */
+  CatalogPage findAvailablePage(Long categoryId, CatalogCursor cursor, int size);
+
+  /**
+   * Searches a page of available food item cards by name or description, best matches first.
+   *
+   * @param searchTerm the search term, in web search syntax
+   * @param cursor the position to read from, or null for the first page
+   * @param size the page size
+   * @return the page with the cursors of its neighbours
+   */
+  CatalogPage searchAvailablePage(String searchTerm, CatalogCursor cursor, int size);
+}
@@ -0,0 +1,140 @@
+package com.foodshop.repository;
+
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.FoodItemCardView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * JPA implementation of {@link FoodItemRepositoryCustom}.
+ */
+class FoodItemRepositoryCustomImpl implements FoodItemRepositoryCustom {
+
+  private static final String CARDS_JPQL =
+      FoodItemCardView.JPQL_SELECT + "FROM FoodItem f JOIN f.category c";
+
+  private final EntityManager entityManager;
+
+  FoodItemRepositoryCustomImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public CatalogPage findAvailablePage(Long categoryId, CatalogCursor cursor, int size) {
+    boolean backward = cursor != null && cursor.before();
+    String direction = backward ? "DESC" : "ASC";
+
+    // Served by the partial (name, id) and (category_id, name, id) indexes
+    StringBuilder jpql = new StringBuilder(CARDS_JPQL).append(" WHERE f.available = true");
+    if (categoryId != null) {
+      jpql.append(" AND f.category.id = :categoryId");
+    }
+    if (cursor != null) {
+      jpql.append(" AND (f.name, f.id) ").append(backward ? "<" : ">").append(" (:name, :id)");
+    }
+    jpql.append(" ORDER BY f.name ").append(direction).append(", f.id ").append(direction);
+
+    TypedQuery<FoodItemCardView> query =
+        entityManager.createQuery(jpql.toString(), FoodItemCardView.class);
+    if (categoryId != null) {
+      query.setParameter("categoryId", categoryId);
+    }
+    if (cursor != null) {
+      query.setParameter("name", cursor.sortKey());
+      query.setParameter("id", cursor.foodItemId());
+    }
+    List<Row> rows =
+        query.setMaxResults(size + 1).getResultList().stream()
+            .map(card -> new Row(card.id(), card.name(), card))
+            .toList();
+    return toPage(rows, cursor, size);
+  }
+
+  @Override
+  public CatalogPage searchAvailablePage(String searchTerm, CatalogCursor cursor, int size) {
+    // A cursor from a different listing (e.g. browsing) starts the search from the top
+    Double rank = cursor == null ? null : parseRank(cursor.sortKey());
+    CatalogCursor position = rank == null ? null : cursor;
+    boolean backward = position != null && position.before();
+    String direction = backward ? "ASC" : "DESC";
+
+    StringBuilder sql = new StringBuilder("SELECT r.id, r.rank FROM (").append(SEARCH_SQL)
+        .append(") r");
+    if (position != null) {
+      sql.append(" WHERE (r.rank, r.id) ").append(backward ? ">" : "<").append(" (:rank, :id)");
+    }
+    sql.append(" ORDER BY r.rank ").append(direction).append(", r.id ").append(direction)
+        .append(" LIMIT :limit");
+
+    Query query = entityManager.createNativeQuery(sql.toString());
+    query.setParameter("searchTerm", searchTerm);
+    if (position != null) {
+      query.setParameter("rank", rank);
+      query.setParameter("id", position.foodItemId());
+    }
+    query.setParameter("limit", size + 1);
+    @SuppressWarnings("unchecked")
+    List<Object[]> matches = query.getResultList();
+    if (matches.isEmpty()) {
+      return CatalogPage.EMPTY;
+    }
+
+    // Load the cards of the matches in one query, then restore the rank order
+    List<Long> ids = matches.stream().map(match -> ((Number) match[0]).longValue()).toList();
+    Map<Long, FoodItemCardView> cards =
+        entityManager
+            .createQuery(CARDS_JPQL + " WHERE f.id IN :ids", FoodItemCardView.class)
+            .setParameter("ids", ids)
+            .getResultStream()
+            .collect(Collectors.toMap(FoodItemCardView::id, Function.identity()));
+    List<Row> rows = new ArrayList<>(matches.size());
+    for (Object[] match : matches) {
+      long id = ((Number) match[0]).longValue();
+      if (cards.containsKey(id)) {
+        rows.add(new Row(id, Double.toString(((Number) match[1]).doubleValue()), cards.get(id)));
+      }
+    }
+    return toPage(rows, position, size);
+  }
+
+  // Turns up to size + 1 rows read in the cursor's direction into a page in display order
+  private static CatalogPage toPage(List<Row> rows, CatalogCursor cursor, int size) {
+    boolean backward = cursor != null && cursor.before();
+    boolean more = rows.size() > size;
+    List<Row> page = new ArrayList<>(rows.subList(0, Math.min(size, rows.size())));
+    if (page.isEmpty()) {
+      return CatalogPage.EMPTY;
+    }
+    if (backward) {
+      Collections.reverse(page);
+    }
+
+    Row first = page.get(0);
+    Row last = page.get(page.size() - 1);
+    boolean hasPrevious = backward ? more : cursor != null;
+    boolean hasNext = backward || more;
+    return new CatalogPage(
+        page.stream().map(Row::card).toList(),
+        hasPrevious ? CatalogCursor.before(first.sortKey(), first.id()).token() : null,
+        hasNext ? CatalogCursor.after(last.sortKey(), last.id()).token() : null);
+  }
+
+  private static Double parseRank(String sortKey) {
+    try {
+      return Double.valueOf(sortKey);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private record Row(long id, String sortKey, FoodItemCardView card) {
+  }
+}
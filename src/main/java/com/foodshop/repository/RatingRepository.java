@@ -1,6 +1,8 @@
 package com.foodshop.repository;
 
 import com.foodshop.domain.Rating;
+import com.foodshop.dto.ReviewView;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -61,4 +63,18 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
    */
   @Query("SELECT AVG(r.stars) FROM Rating r WHERE r.foodItem.id = :foodItemId")
   Double calculateAverageRating(@Param("foodItemId") Long foodItemId);
+
+  /**
+   * Finds the newest reviews with text of a food item, with the reviewer's name, without a count
+   * query.
+   *
+   * @param foodItemId the food item ID
+   * @param pageable pagination information (unsorted: reviews are ordered newest first)
+   * @return the newest reviews
+   */
+  @Query("SELECT new com.foodshop.dto.ReviewView(r.id, r.stars, r.reviewText, u.name, "
+      + "r.verifiedPurchase, r.createdAt) FROM Rating r JOIN r.user u "
+      + "WHERE r.foodItem.id = :foodItemId AND r.reviewText IS NOT NULL AND r.reviewText <> '' "
+      + "ORDER BY r.createdAt DESC, r.id DESC")
+  List<ReviewView> findLatestReviews(@Param("foodItemId") Long foodItemId, Pageable pageable);
 }
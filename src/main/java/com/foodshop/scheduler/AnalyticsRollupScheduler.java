@@ -0,0 +1,55 @@
+package com.foodshop.scheduler;
+
+import com.foodshop.service.FoodAnalyticsService;
+import java.time.Clock;
+import java.time.YearMonth;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for rolling up daily analytics buckets into monthly totals.
+ *
+ * <p>Runs every night shortly after midnight. Once a month has ended its daily buckets are rolled
+ * up into a complete monthly row, which range queries then read instead of up to 31 daily rows.
+ * A failed or missed run is retried the next night, because the job only checks whether the
+ * previous month is already complete.
+ *
+ * <p>The cron and the previous month both follow the application {@link Clock}, whose zone also
+ * dates the daily buckets, so a month is never closed while its last day is still being counted.
+ */
+@Component
+public class AnalyticsRollupScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AnalyticsRollupScheduler.class);
+
+  private final FoodAnalyticsService foodAnalyticsService;
+  private final Clock clock;
+
+  public AnalyticsRollupScheduler(FoodAnalyticsService foodAnalyticsService, Clock clock) {
+    this.foodAnalyticsService = foodAnalyticsService;
+    this.clock = clock;
+  }
+
+  /**
+   * Rolls up the previous month if it has no complete rollup yet.
+   */
+  @Scheduled(cron = "${app.analytics.rollup.cron:0 10 0 * * *}", zone = "${app.time-zone:}")
+  public void rollUpPreviousMonth() {
+    YearMonth previousMonth = YearMonth.now(clock).minusMonths(1);
+
+    try {
+      if (foodAnalyticsService.isMonthRolledUp(previousMonth)) {
+        LOGGER.debug("Analytics for {} already rolled up", previousMonth);
+        return;
+      }
+
+      int rows = foodAnalyticsService.rollUpMonth(previousMonth);
+      LOGGER.info("Rolled up analytics for {} ({} food items)", previousMonth, rows);
+    } catch (Exception e) {
+      LOGGER.error("Failed to roll up analytics for {}", previousMonth, e);
+      // Don't rethrow - the next run retries
+    }
+  }
+}
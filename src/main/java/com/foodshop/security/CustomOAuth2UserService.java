@@ -2,26 +2,39 @@ package com.foodshop.security;
 
 import com.foodshop.domain.User;
 import com.foodshop.repository.UserRepository;
+import com.foodshop.service.CartService;
 import java.time.LocalDateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * Custom OAuth2 user service that handles user registration and updates.
  *
  * <p>This service loads OAuth2 user information from the provider and creates or updates the
- * corresponding User entity in the database.
+ * corresponding User entity in the database. A guest cart the visitor built before logging in is
+ * merged into the user's cart.
  */
 @Service
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(CustomOAuth2UserService.class);
+
   private final UserRepository userRepository;
+  private final CartService cartService;
+  private final GuestCartCookie guestCartCookie;
 
-  public CustomOAuth2UserService(UserRepository userRepository) {
+  public CustomOAuth2UserService(
+      UserRepository userRepository, CartService cartService, GuestCartCookie guestCartCookie) {
     this.userRepository = userRepository;
+    this.cartService = cartService;
+    this.guestCartCookie = guestCartCookie;
   }
 
   @Override
@@ -44,10 +57,35 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     // Update user information from OAuth2 provider
     updateUserFromOAuth2(user, oauth2User);
     userRepository.save(user);
+    mergeGuestCart(user);
 
     return new UserPrincipal(user, oauth2User.getAttributes());
   }
 
+  /**
+   * Merges the guest cart named by the login request's cookie, if any, and removes the cookie.
+   *
+   * <p>A failed merge is logged and leaves the guest cart in place; it never fails the login.
+   *
+   * @param user the user who just logged in
+   */
+  private void mergeGuestCart(User user) {
+    if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes request)) {
+      return;
+    }
+    guestCartCookie.read(request.getRequest()).ifPresent(guestId -> {
+      try {
+        int merged = cartService.mergeGuestCart(user.getId(), guestId);
+        if (request.getResponse() != null) {
+          guestCartCookie.clear(request.getRequest(), request.getResponse());
+        }
+        LOGGER.debug("Merged {} guest cart lines into the cart of user {}", merged, user.getId());
+      } catch (RuntimeException e) {
+        LOGGER.warn("Failed to merge a guest cart into the cart of user {}", user.getId(), e);
+      }
+    });
+  }
+
   private User createNewUser(OAuth2User oauth2User, User.OAuthProvider provider,
       String externalId) {
     User user = new User();
@@ -0,0 +1,138 @@
+package com.foodshop.security;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cookie identifying the cart of an anonymous visitor.
+ *
+ * <p>The value is {@code <guestId>.<signature>}, where the guest ID is a random UUID and the
+ * signature its HMAC-SHA256 under {@code app.cart.guest.secret}, so visitors cannot pick another
+ * guest's cart. Without a configured secret a random one is used, and guest carts do not survive a
+ * restart or move between instances.
+ */
+@Component
+public class GuestCartCookie {
+
+  public static final String NAME = "GUEST_CART";
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GuestCartCookie.class);
+
+  private final SecretKeySpec key;
+  private final Duration maxAge;
+
+  public GuestCartCookie(
+      @Value("${app.cart.guest.secret:}") String secret,
+      @Value("${app.cart.guest.ttl:P7D}") Duration maxAge) {
+    byte[] keyBytes;
+    if (secret.isBlank()) {
+      LOGGER.warn("app.cart.guest.secret is not set, guest carts will not survive a restart");
+      keyBytes = new byte[32];
+      new SecureRandom().nextBytes(keyBytes);
+    } else {
+      keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+    }
+    this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    this.maxAge = maxAge;
+  }
+
+  /**
+   * Reads the guest ID from the request's cookie.
+   *
+   * @param request the request
+   * @return the guest ID, empty if there is no cookie or its signature does not match
+   */
+  public Optional<String> read(HttpServletRequest request) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies == null) {
+      return Optional.empty();
+    }
+    for (Cookie cookie : cookies) {
+      if (NAME.equals(cookie.getName())) {
+        return verify(cookie.getValue());
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Reads the guest ID from the request's cookie, or creates a new one, and (re)sets the cookie so
+   * that it expires together with the cart.
+   *
+   * @param request the request
+   * @param response the response
+   * @return the guest ID
+   */
+  public String readOrCreate(HttpServletRequest request, HttpServletResponse response) {
+    String guestId = read(request).orElseGet(() -> UUID.randomUUID().toString());
+    write(request, response, sign(guestId), maxAge);
+    return guestId;
+  }
+
+  /**
+   * Removes the cookie, once the guest cart has been merged.
+   *
+   * @param request the request
+   * @param response the response
+   */
+  public void clear(HttpServletRequest request, HttpServletResponse response) {
+    write(request, response, "", Duration.ZERO);
+  }
+
+  String sign(String guestId) {
+    return guestId + "." + signature(guestId);
+  }
+
+  Optional<String> verify(String value) {
+    int dot = value.lastIndexOf('.');
+    if (dot <= 0) {
+      return Optional.empty();
+    }
+    String guestId = value.substring(0, dot);
+    byte[] expected = signature(guestId).getBytes(StandardCharsets.US_ASCII);
+    byte[] actual = value.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+    return MessageDigest.isEqual(expected, actual) ? Optional.of(guestId) : Optional.empty();
+  }
+
+  private String signature(String guestId) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      byte[] digest = mac.doFinal(guestId.getBytes(StandardCharsets.UTF_8));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to sign the guest cart cookie", e);
+    }
+  }
+
+  private static void write(
+      HttpServletRequest request, HttpServletResponse response, String value, Duration maxAge) {
+    ResponseCookie cookie = ResponseCookie.from(NAME, value)
+        .path("/")
+        .maxAge(maxAge)
+        .httpOnly(true)
+        .secure(request.isSecure())
+        .sameSite("Lax")
+        .build();
+    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+  }
+}
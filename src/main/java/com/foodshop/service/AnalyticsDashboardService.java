@@ -1,8 +1,18 @@
 package com.foodshop.service;
 
+import com.foodshop.dto.AnalyticsCursor;
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsSnapshot;
+import com.foodshop.dto.AnalyticsSort;
+import com.foodshop.dto.AnalyticsTotalsDTO;
 import com.foodshop.dto.FoodAnalyticsDTO;
 import io.micrometer.core.annotation.Timed;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -11,7 +21,9 @@ import org.springframework.transaction.annotation.Transactional;
 /**
  * Service for aggregating and retrieving food analytics data for the dashboard.
  *
- * <p>Provides methods to get analytics with different sort orders and calculate totals.
+ * <p>Provides methods to get analytics with different sort orders and calculate totals. Lifetime
+ * rankings and totals are served from the in-memory {@link AnalyticsLeaderboard}; until it has
+ * loaded, from the cached {@link AnalyticsSnapshot}.
  */
 @Service
 public class AnalyticsDashboardService {
@@ -19,9 +31,22 @@ public class AnalyticsDashboardService {
   private static final Logger logger = LoggerFactory.getLogger(AnalyticsDashboardService.class);
 
   private final FoodAnalyticsService foodAnalyticsService;
+  private final ViewDedupService viewDedupService;
+  private final AnalyticsLeaderboard leaderboard;
+  private final AnalyticsSnapshotCache snapshotCache;
+  private final AnalyticsRangeReportCache rangeReportCache;
 
-  public AnalyticsDashboardService(FoodAnalyticsService foodAnalyticsService) {
+  public AnalyticsDashboardService(
+      FoodAnalyticsService foodAnalyticsService,
+      ViewDedupService viewDedupService,
+      AnalyticsLeaderboard leaderboard,
+      AnalyticsSnapshotCache snapshotCache,
+      AnalyticsRangeReportCache rangeReportCache) {
     this.foodAnalyticsService = foodAnalyticsService;
+    this.viewDedupService = viewDedupService;
+    this.leaderboard = leaderboard;
+    this.snapshotCache = snapshotCache;
+    this.rangeReportCache = rangeReportCache;
   }
 
   /**
@@ -73,14 +98,176 @@ public class AnalyticsDashboardService {
     return result;
   }
 
+  /**
+   * Retrieves one keyset page of lifetime analytics.
+   *
+   * <p>Pages are positioned by the (metric, food item ID) of the previous page's last row, so every
+   * page costs O(limit) regardless of its depth. Served from the in-memory {@link
+   * AnalyticsLeaderboard}; until it has loaded, from the cached {@link AnalyticsSnapshot}. Accepts
+   * the same sort values as {@link #getAllAnalytics(String)}.
+   *
+   * @param sort the sort parameter (can be null)
+   * @param after position of the last row of the previous page, or null for the first page
+   * @param limit maximum number of items to return
+   * @return up to {@code limit} food analytics DTOs in sort order
+   */
+  @Timed(value = "analytics.dashboard.page", description = "Time taken to fetch a dashboard page")
+  public List<FoodAnalyticsDTO> getAnalyticsPage(String sort, AnalyticsCursor after, int limit) {
+    AnalyticsSort order = resolveSort(sort);
+    if (!leaderboard.isReady()) {
+      logger.debug("Leaderboard not ready, falling back to analytics snapshot");
+      return pageOf(snapshotCache.get().items(), order, after, limit);
+    }
+    return leaderboard.page(order, after, limit);
+  }
+
+  /**
+   * Retrieves one keyset page of analytics summed over a date range.
+   *
+   * <p>Paged in memory from the cached report of the range ({@link AnalyticsRangeReportCache}):
+   * summing the buckets costs the same for one page as for all of them, so the range is aggregated
+   * once per report rather than once per page.
+   *
+   * @param sort the sort parameter (can be null)
+   * @param range the date range
+   * @param after position of the last row of the previous page, or null for the first page
+   * @param limit maximum number of items to return
+   * @return up to {@code limit} food analytics DTOs in sort order
+   */
+  @Timed(
+      value = "analytics.dashboard.page.range",
+      description = "Time taken to fetch a dashboard page for a date range")
+  public List<FoodAnalyticsDTO> getAnalyticsPageForRange(
+      String sort, AnalyticsRange range, AnalyticsCursor after, int limit) {
+    return pageOf(rangeReportCache.get(range).items(), resolveSort(sort), after, limit);
+  }
+
+  /**
+   * Calculates item count and totals over a date range.
+   *
+   * <p>Read from the same cached report as {@link #getAnalyticsPageForRange}.
+   *
+   * @param range the date range
+   * @return totals for the range
+   */
+  public AnalyticsTotalsDTO getTotalsForRange(AnalyticsRange range) {
+    AnalyticsSnapshot report = rangeReportCache.get(range);
+    return new AnalyticsTotalsDTO(report.totalItems(), report.totalViews(), report.totalOrders());
+  }
+
+  /**
+   * Writes the lifetime analytics of every food item as CSV.
+   *
+   * <p>Rows are streamed from a database cursor straight to the writer, so memory use stays
+   * constant whatever the catalog size.
+   *
+   * @param writer destination of the CSV document
+   * @throws UncheckedIOException if writing fails
+   */
+  @Timed(value = "analytics.export.csv", description = "Time taken to export analytics as CSV")
+  public void exportCsv(Writer writer) {
+    try {
+      writer.write("food_item_id,food_item_name,view_count,order_count\r\n");
+      foodAnalyticsService.forEachAnalytics(
+          row -> {
+            try {
+              writer.write(
+                  row.foodItemId()
+                      + ","
+                      + csvField(row.foodItemName())
+                      + ","
+                      + row.viewCount()
+                      + ","
+                      + row.orderCount()
+                      + "\r\n");
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Counts all food items shown on the dashboard.
+   *
+   * @return number of food items
+   */
+  public long getTotalItems() {
+    return leaderboard.isReady() ? leaderboard.size() : snapshotCache.get().totalItems();
+  }
+
+  /**
+   * Retrieves view and order counts of all food items within a date range, with their totals.
+   *
+   * <p>Counts come from the daily and monthly bucket tables, so the cost depends on the length of
+   * the range rather than on the amount of tracked activity. The list and the totals are read by a
+   * single query.
+   *
+   * @param range the date range
+   * @return snapshot of the range, sorted by views (highest first)
+   */
+  @Timed(
+      value = "analytics.dashboard.fetch.range",
+      description = "Time taken to fetch dashboard data for a date range")
+  public AnalyticsSnapshot getSnapshotForRange(AnalyticsRange range) {
+    logger.debug("Fetching analytics for {} to {}", range.from(), range.lastDay());
+    return foodAnalyticsService.getAnalyticsSnapshot(range);
+  }
+
+  // Pages an in-memory list the same way the leaderboard pages its skip lists
+  private static List<FoodAnalyticsDTO> pageOf(
+      List<FoodAnalyticsDTO> items, AnalyticsSort sort, AnalyticsCursor after, int limit) {
+    Comparator<FoodAnalyticsDTO> comparator = comparatorFor(sort);
+    FoodAnalyticsDTO last = after == null ? null : after.toRow(sort);
+    return items.stream()
+        .filter(row -> last == null || comparator.compare(row, last) > 0)
+        .sorted(comparator)
+        .limit(Math.max(0, limit))
+        .toList();
+  }
+
+  private static Comparator<FoodAnalyticsDTO> comparatorFor(AnalyticsSort sort) {
+    Comparator<FoodAnalyticsDTO> comparator =
+        Comparator.<FoodAnalyticsDTO>comparingLong(sort::metricOf)
+            .thenComparing(FoodAnalyticsDTO::foodItemId);
+    return sort.descending() ? comparator.reversed() : comparator;
+  }
+
+  private AnalyticsSort resolveSort(String sort) {
+    AnalyticsSort order = AnalyticsSort.fromParam(sort);
+    if (order == null) {
+      logger.warn("Invalid sort parameter: {}, using default views_desc", sort);
+      return AnalyticsSort.VIEWS_DESC;
+    }
+    return order;
+  }
+
+  // Quotes a CSV field and defuses spreadsheet formulas (=, +, -, @ prefixes)
+  private static String csvField(String value) {
+    if (value == null) {
+      return "";
+    }
+    String text = value;
+    if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+      text = "'" + text;
+    }
+    return '"' + text.replace("\"", "\"\"") + '"';
+  }
+
   /**
    * Calculates the total view count across all food items.
    *
+   * <p>Read from the leaderboard once it has loaded, otherwise from the cached snapshot.
+   *
    * @return total view count
    */
   @Transactional(readOnly = true)
   public Long getTotalViews() {
-    Long total = foodAnalyticsService.sumAllViewCounts();
+    Long total =
+        leaderboard.isReady() ? leaderboard.totalViews() : snapshotCache.get().totalViews();
     logger.debug("Total views: {}", total);
     return total;
   }
@@ -88,12 +275,34 @@ public class AnalyticsDashboardService {
   /**
    * Calculates the total order count across all food items.
    *
+   * <p>Read from the leaderboard once it has loaded, otherwise from the cached snapshot.
+   *
    * @return total order count
    */
   @Transactional(readOnly = true)
   public Long getTotalOrders() {
-    Long total = foodAnalyticsService.sumAllOrderCounts();
+    Long total =
+        leaderboard.isReady() ? leaderboard.totalOrders() : snapshotCache.get().totalOrders();
     logger.debug("Total orders: {}", total);
     return total;
   }
+
+  /**
+   * Estimates unique visitors (distinct sessions) for the listed food items.
+   *
+   * <p>Estimates come from Redis HyperLogLogs. If Redis is unavailable an empty map is returned so
+   * the dashboard still renders.
+   *
+   * @param analyticsList the analytics rows shown on the dashboard
+   * @return estimated unique visitors keyed by food item ID
+   */
+  public Map<Long, Long> getUniqueVisitors(List<FoodAnalyticsDTO> analyticsList) {
+    try {
+      return viewDedupService.countUniqueVisitors(
+          analyticsList.stream().map(FoodAnalyticsDTO::foodItemId).toList());
+    } catch (Exception e) {
+      logger.warn("Failed to estimate unique visitors", e);
+      return Map.of();
+    }
+  }
 }
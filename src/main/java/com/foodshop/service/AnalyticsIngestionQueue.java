@@ -0,0 +1,318 @@
+package com.foodshop.service;
+
+import com.foodshop.event.TrackingEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ingestion stage that takes analytics tracking events off request threads.
+ *
+ * <p>Request threads {@link #offer(TrackingEvent) offer} views, orders and add-to-cart events into a
+ * bounded lock-free {@link MpscRingBuffer}; a single dedicated consumer thread drains it in batches
+ * of up to {@code app.analytics.ingest.batch-size} events. Each batch costs one pipelined Redis
+ * round trip for view deduplication and one write per event type, whatever its size, so batches
+ * grow with load instead of the number of round trips. An idle consumer parks until a producer
+ * wakes it; after a failed batch it backs off exponentially, from {@value #MIN_BACKOFF_MILLIS} ms
+ * up to {@value #MAX_BACKOFF_MILLIS} ms, so an outage neither spins the thread nor floods the log.
+ *
+ * <p>When the buffer is full, {@code app.analytics.ingest.overflow-policy} decides: {@code drop}
+ * (default) discards the event immediately; {@code block} waits up to {@code
+ * app.analytics.ingest.block-timeout} for room before discarding it. Either way the caller never
+ * sees an exception.
+ *
+ * <p>Metrics: {@code analytics.ingest.accepted} and {@code analytics.ingest.dropped} counters,
+ * {@code analytics.ingest.failed} for events lost to failed writes, the {@code
+ * analytics.ingest.batch.size} distribution and the {@code analytics.ingest.queue.size} gauge.
+ */
+@Component
+public class AnalyticsIngestionQueue {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AnalyticsIngestionQueue.class);
+
+  // Producers wake an idle consumer; the timeout only bounds the delay if a wake-up is missed
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long MIN_BACKOFF_MILLIS = 10;
+  private static final long MAX_BACKOFF_MILLIS = 5_000;
+  private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  /** What {@link #offer(TrackingEvent)} does when the buffer is full. */
+  public enum OverflowPolicy {
+    DROP,
+    BLOCK
+  }
+
+  private final AnalyticsTrackingService trackingService;
+  private final ViewDedupService viewDedupService;
+  private final MpscRingBuffer<TrackingEvent> buffer;
+  private final int batchSize;
+  private final OverflowPolicy overflowPolicy;
+  private final long blockTimeoutNanos;
+
+  private final Counter accepted;
+  private final Counter dropped;
+  private final Counter failed;
+  private final DistributionSummary batchSizes;
+
+  private volatile boolean running;
+  private volatile Thread consumer;
+  // Set while the consumer is about to park or parked on an empty buffer
+  private volatile boolean consumerIdle;
+  // Whether a write of the last drained batch failed; confined to the draining thread
+  private boolean batchFailed;
+
+  public AnalyticsIngestionQueue(
+      AnalyticsTrackingService trackingService,
+      ViewDedupService viewDedupService,
+      MeterRegistry meterRegistry,
+      @Value("${app.analytics.ingest.capacity:8192}") int capacity,
+      @Value("${app.analytics.ingest.batch-size:256}") int batchSize,
+      @Value("${app.analytics.ingest.overflow-policy:drop}") String overflowPolicy,
+      @Value("${app.analytics.ingest.block-timeout:PT0.05S}") Duration blockTimeout) {
+    this.trackingService = trackingService;
+    this.viewDedupService = viewDedupService;
+    this.buffer = new MpscRingBuffer<>(capacity);
+    this.batchSize = batchSize;
+    this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+    this.blockTimeoutNanos = blockTimeout.toNanos();
+
+    this.accepted =
+        Counter.builder("analytics.ingest.accepted")
+            .description("Tracking events accepted into the ingestion queue")
+            .register(meterRegistry);
+    this.dropped =
+        Counter.builder("analytics.ingest.dropped")
+            .description("Tracking events discarded because the ingestion queue was full")
+            .register(meterRegistry);
+    this.failed =
+        Counter.builder("analytics.ingest.failed")
+            .description("Tracking events lost because their batch could not be written")
+            .register(meterRegistry);
+    this.batchSizes =
+        DistributionSummary.builder("analytics.ingest.batch.size")
+            .description("Tracking events processed per consumer batch")
+            .register(meterRegistry);
+    Gauge.builder("analytics.ingest.queue.size", buffer, MpscRingBuffer::size)
+        .description("Tracking events waiting in the ingestion queue")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Hands a tracking event to the consumer thread without waiting for it to be persisted.
+   *
+   * @param event the event
+   * @return false if the queue was full and the event was discarded
+   */
+  public boolean offer(TrackingEvent event) {
+    boolean queued = buffer.offer(event);
+    if (!queued && overflowPolicy == OverflowPolicy.BLOCK) {
+      queued = offerWithin(event, blockTimeoutNanos);
+    }
+    if (queued) {
+      accepted.increment();
+      if (consumerIdle) {
+        LockSupport.unpark(consumer);
+      }
+    } else {
+      dropped.increment();
+    }
+    return queued;
+  }
+
+  /** Starts the consumer thread. */
+  @PostConstruct
+  public void start() {
+    running = true;
+    consumer = new Thread(this::consume, "analytics-ingest");
+    consumer.setDaemon(true);
+    consumer.start();
+    LOGGER.info(
+        "Started analytics ingestion (capacity {}, batch size {}, overflow policy {})",
+        buffer.capacity(),
+        batchSize,
+        overflowPolicy);
+  }
+
+  /**
+   * Stops the consumer thread and processes the events still queued before the context closes.
+   *
+   * @throws InterruptedException if interrupted while waiting for the consumer to finish
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+      consumer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    LOGGER.info("Processing {} queued tracking events before shutdown", buffer.size());
+    while (drain() > 0) {
+      // keep draining until the buffer is empty
+    }
+  }
+
+  /**
+   * Processes one batch of queued events on the calling thread.
+   *
+   * <p>Only the consumer thread (or a test, while the thread is not running) may call this.
+   *
+   * @return number of events processed
+   */
+  int drain() {
+    List<TrackingEvent> batch = new ArrayList<>(Math.min(batchSize, buffer.size()));
+    int drained = buffer.drainTo(batch, batchSize);
+    batchFailed = false;
+    if (drained > 0) {
+      batchSizes.record(drained);
+      batchFailed = !process(batch);
+    }
+    return drained;
+  }
+
+  private void consume() {
+    long backoffMillis = 0;
+    while (running) {
+      try {
+        int drained = drain();
+        if (batchFailed) {
+          backoffMillis = nextBackoff(backoffMillis);
+          backOff(backoffMillis);
+          continue;
+        }
+        backoffMillis = 0;
+        if (drained == 0) {
+          awaitEvents();
+        }
+      } catch (Exception e) {
+        // process() already contains per-type failures; this guards the thread itself
+        LOGGER.error("Analytics ingestion consumer failed", e);
+        backoffMillis = nextBackoff(backoffMillis);
+        backOff(backoffMillis);
+      }
+    }
+  }
+
+  // Parks until a producer offers an event. Announcing idleness before re-checking the buffer
+  // means a producer either sees the flag and unparks, or its event is seen here
+  private void awaitEvents() {
+    consumerIdle = true;
+    try {
+      if (running && buffer.size() == 0) {
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+      }
+    } finally {
+      consumerIdle = false;
+    }
+  }
+
+  private static long nextBackoff(long backoffMillis) {
+    return backoffMillis == 0
+        ? MIN_BACKOFF_MILLIS
+        : Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+  }
+
+  // Producers do not wake a backing-off consumer; a left-over unpark permit must not cut it short
+  private void backOff(long millis) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    long remaining;
+    while (running && (remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(this, remaining);
+    }
+  }
+
+  private boolean offerWithin(TrackingEvent event, long timeoutNanos) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    while (System.nanoTime() - deadline < 0) {
+      LockSupport.parkNanos(BLOCK_PARK_NANOS);
+      if (buffer.offer(event)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Returns false if any write failed
+  private boolean process(List<TrackingEvent> batch) {
+    List<TrackingEvent> views = new ArrayList<>();
+    List<TrackingEvent> orders = new ArrayList<>();
+    List<TrackingEvent> cartAdds = new ArrayList<>();
+    for (TrackingEvent event : batch) {
+      switch (event.type()) {
+        case VIEW -> views.add(event);
+        case ORDER -> orders.add(event);
+        case CART_ADD -> cartAdds.add(event);
+        default -> throw new IllegalStateException("Unknown tracking event: " + event.type());
+      }
+    }
+
+    // Each type is written independently, so a failing Redis does not lose order counts
+    boolean written = write("views", views, () -> writeFirstViews(views));
+    written &=
+        write("orders", orders, () -> trackingService.incrementOrderCounts(sumByFoodItem(orders)));
+    written &=
+        write(
+            "cart adds",
+            cartAdds,
+            () -> trackingService.incrementCartAddCounts(sumByFoodItem(cartAdds)));
+    return written;
+  }
+
+  private static Map<Long, Long> sumByFoodItem(List<TrackingEvent> events) {
+    Map<Long, Long> quantities = new HashMap<>();
+    events.forEach(event -> quantities.merge(event.foodItemId(), event.quantity(), Long::sum));
+    return quantities;
+  }
+
+  private void writeFirstViews(List<TrackingEvent> views) {
+    boolean[] marked = viewDedupService.markViewed(views);
+    List<TrackingEvent> firstViews = new ArrayList<>();
+    Map<Long, Long> counts = new HashMap<>();
+    for (int i = 0; i < marked.length; i++) {
+      if (marked[i]) {
+        firstViews.add(views.get(i));
+        counts.merge(views.get(i).foodItemId(), 1L, Long::sum);
+      }
+    }
+    try {
+      trackingService.incrementViewCounts(counts);
+    } catch (RuntimeException e) {
+      // The sessions are marked as having viewed the items: unmark them, or their next views
+      // would be taken for repeats and these views would never be counted
+      try {
+        viewDedupService.unmarkViewed(firstViews);
+      } catch (RuntimeException unmarkFailure) {
+        e.addSuppressed(unmarkFailure);
+      }
+      throw e;
+    }
+  }
+
+  private boolean write(String what, List<TrackingEvent> events, Runnable action) {
+    if (events.isEmpty()) {
+      return true;
+    }
+    try {
+      action.run();
+      return true;
+    } catch (Exception e) {
+      failed.increment(events.size());
+      LOGGER.error("Failed to write {} tracked {}", events.size(), what, e);
+      return false;
+    }
+  }
+}
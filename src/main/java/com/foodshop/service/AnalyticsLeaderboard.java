@@ -0,0 +1,257 @@
+package com.foodshop.service;
+
+import com.foodshop.dto.AnalyticsCursor;
+import com.foodshop.dto.AnalyticsSort;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory leaderboard of food item view and order counts.
+ *
+ * <p>Each metric keeps a skip list ordered by (count, food item ID), so top-K and bottom-K queries
+ * walk K entries from either end, and keyset pages start walking at their cursor, without touching
+ * the database. Tracked views and orders update the leaderboard incrementally; an update replaces
+ * the item's entry in both skip lists, so a concurrent reader may briefly miss that one item.
+ *
+ * <p>The leaderboard is loaded from the database when the application is ready and rebuilt
+ * periodically ({@code app.analytics.leaderboard.refresh-interval}). The rebuild picks up new,
+ * renamed and deleted food items and increments recorded by other application instances. Items
+ * created since the last rebuild are ignored until the next one. Buffered views ({@link
+ * ViewCountBuffer}) are flushed before every rebuild, so the reload does not lose them.
+ */
+@Component
+public class AnalyticsLeaderboard {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AnalyticsLeaderboard.class);
+
+  private static final Comparator<FoodAnalyticsDTO> BY_VIEWS =
+      Comparator.comparing(FoodAnalyticsDTO::viewCount).thenComparing(FoodAnalyticsDTO::foodItemId);
+  private static final Comparator<FoodAnalyticsDTO> BY_ORDERS =
+      Comparator.comparing(FoodAnalyticsDTO::orderCount)
+          .thenComparing(FoodAnalyticsDTO::foodItemId);
+
+  private final FoodAnalyticsService foodAnalyticsService;
+  private final ViewCountBuffer viewCountBuffer;
+  private final Timer rebuildTimer;
+
+  // null until the first successful rebuild
+  private volatile Board board;
+
+  public AnalyticsLeaderboard(
+      FoodAnalyticsService foodAnalyticsService,
+      ViewCountBuffer viewCountBuffer,
+      MeterRegistry meterRegistry) {
+    this.foodAnalyticsService = foodAnalyticsService;
+    this.viewCountBuffer = viewCountBuffer;
+    this.rebuildTimer =
+        Timer.builder("analytics.leaderboard.rebuild")
+            .description("Time taken to rebuild the analytics leaderboard")
+            .register(meterRegistry);
+    Gauge.builder("analytics.leaderboard.items", this, AnalyticsLeaderboard::size)
+        .description("Food items held by the analytics leaderboard")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Whether the leaderboard has been loaded and can serve queries.
+   *
+   * @return true once the first rebuild has completed
+   */
+  public boolean isReady() {
+    return board != null;
+  }
+
+  /**
+   * Adds views to a food item.
+   *
+   * @param foodItemId the food item ID
+   * @param delta number of views to add
+   */
+  public void recordViews(Long foodItemId, long delta) {
+    Board current = board;
+    if (current != null) {
+      current.add(foodItemId, delta, 0);
+    }
+  }
+
+  /**
+   * Adds orders to a food item.
+   *
+   * @param foodItemId the food item ID
+   * @param delta quantity ordered
+   */
+  public void recordOrders(Long foodItemId, long delta) {
+    Board current = board;
+    if (current != null) {
+      current.add(foodItemId, 0, delta);
+    }
+  }
+
+  /**
+   * Returns one page of the ranking for a sort order, starting after a keyset cursor.
+   *
+   * <p>Costs O(log n + limit): the skip list is entered at the cursor and walked for {@code
+   * limit} entries. The first page (no cursor) is the plain top-K or bottom-K.
+   *
+   * @param sort the sort order
+   * @param after position of the last row of the previous page, or null for the first page
+   * @param limit maximum number of items (K)
+   * @return up to K items in sort order; empty if the leaderboard is not ready
+   */
+  public List<FoodAnalyticsDTO> page(AnalyticsSort sort, AnalyticsCursor after, int limit) {
+    Board current = board;
+    if (current == null) {
+      return List.of();
+    }
+
+    NavigableSet<FoodAnalyticsDTO> ranking = sort.byOrders() ? current.byOrders : current.byViews;
+    if (after != null) {
+      FoodAnalyticsDTO probe = after.toRow(sort);
+      ranking = sort.descending() ? ranking.headSet(probe, false) : ranking.tailSet(probe, false);
+    }
+    return take(sort.descending() ? ranking.descendingIterator() : ranking.iterator(), limit);
+  }
+
+  /**
+   * Looks up the current counts of one food item.
+   *
+   * @param foodItemId the food item ID
+   * @return the item's counts, or empty if it is not on the leaderboard (yet)
+   */
+  public Optional<FoodAnalyticsDTO> find(Long foodItemId) {
+    Board current = board;
+    return current == null ? Optional.empty() : Optional.ofNullable(current.entries.get(foodItemId));
+  }
+
+  /**
+   * Returns the number of food items on the leaderboard.
+   *
+   * @return item count
+   */
+  public int size() {
+    Board current = board;
+    return current == null ? 0 : current.entries.size();
+  }
+
+  /**
+   * Returns the total view count across all food items on the leaderboard.
+   *
+   * @return total view count
+   */
+  public long totalViews() {
+    Board current = board;
+    return current == null ? 0 : current.totalViews.sum();
+  }
+
+  /**
+   * Returns the total order count across all food items on the leaderboard.
+   *
+   * @return total order count
+   */
+  public long totalOrders() {
+    Board current = board;
+    return current == null ? 0 : current.totalOrders.sum();
+  }
+
+  /**
+   * Reloads the leaderboard from the database and swaps it in atomically.
+   *
+   * <p>Views still waiting in the {@link ViewCountBuffer} are flushed first: the old board counts
+   * them but the database does not yet, so reloading without them would take them off the
+   * leaderboard. If that flush fails they are missing until a later rebuild follows a successful
+   * flush.
+   *
+   * <p>Increments recorded while the new board is loading land on the old one and are dropped; the
+   * database holds them (or will on the next flush), so the next rebuild restores them.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      fixedDelayString = "${app.analytics.leaderboard.refresh-interval:PT5M}",
+      initialDelayString = "${app.analytics.leaderboard.refresh-interval:PT5M}")
+  public void rebuild() {
+    try {
+      rebuildTimer.record(
+          () -> {
+            if (viewCountBuffer.isEnabled()) {
+              viewCountBuffer.flush();
+            }
+            Board fresh = new Board();
+            foodAnalyticsService.findAllAnalyticsSortedByViewsDesc().forEach(fresh::put);
+            board = fresh;
+          });
+      LOGGER.debug("Rebuilt analytics leaderboard with {} items", size());
+    } catch (Exception e) {
+      // Keep serving the previous board (or the database fallback) and retry on the next interval
+      LOGGER.error("Failed to rebuild analytics leaderboard", e);
+    }
+  }
+
+  private static List<FoodAnalyticsDTO> take(Iterator<FoodAnalyticsDTO> iterator, int limit) {
+    List<FoodAnalyticsDTO> result = new ArrayList<>(Math.max(0, limit));
+    while (result.size() < limit && iterator.hasNext()) {
+      result.add(iterator.next());
+    }
+    return result;
+  }
+
+  /** One generation of leaderboard state, replaced wholesale by {@link #rebuild()}. */
+  private static final class Board {
+
+    private final Map<Long, FoodAnalyticsDTO> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<FoodAnalyticsDTO> byViews = new ConcurrentSkipListSet<>(BY_VIEWS);
+    private final NavigableSet<FoodAnalyticsDTO> byOrders = new ConcurrentSkipListSet<>(BY_ORDERS);
+    private final LongAdder totalViews = new LongAdder();
+    private final LongAdder totalOrders = new LongAdder();
+
+    void put(FoodAnalyticsDTO entry) {
+      entries.put(entry.foodItemId(), entry);
+      byViews.add(entry);
+      byOrders.add(entry);
+      totalViews.add(entry.viewCount());
+      totalOrders.add(entry.orderCount());
+    }
+
+    void add(Long foodItemId, long viewDelta, long orderDelta) {
+      // compute() serializes updates per item, so the skip lists never hold two entries for it
+      FoodAnalyticsDTO updated =
+          entries.computeIfPresent(
+              foodItemId,
+              (id, old) -> {
+                FoodAnalyticsDTO next =
+                    new FoodAnalyticsDTO(
+                        id,
+                        old.foodItemName(),
+                        old.imageUrl(),
+                        old.viewCount() + viewDelta,
+                        old.orderCount() + orderDelta);
+                byViews.remove(old);
+                byOrders.remove(old);
+                byViews.add(next);
+                byOrders.add(next);
+                return next;
+              });
+      if (updated != null) {
+        totalViews.add(viewDelta);
+        totalOrders.add(orderDelta);
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.foodshop.service;
+
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local cache of date-range analytics reports keyed by {@link AnalyticsRange}.
+ *
+ * <p>A range report sums the daily and monthly buckets of the whole catalog, which no index can
+ * answer page by page: any page of it costs as much as all of it. The report is therefore read
+ * once, as a single list + totals query, and every page and the totals of that range are served
+ * from it in memory for {@code app.analytics.range-report.ttl}. Concurrent requests for the same
+ * range wait for one load instead of issuing their own.
+ *
+ * <p>Bounded by {@code app.analytics.range-report.max-size} ranges; each entry holds one row per
+ * food item. The TTL bounds how far a report that includes today lags behind new events.
+ *
+ * <p>Metrics: the standard {@code cache.*} meters (gets, evictions, size, ...) tagged {@code
+ * cache=analytics.range-reports}.
+ */
+@Component
+public class AnalyticsRangeReportCache {
+
+  private final FoodAnalyticsService foodAnalyticsService;
+  private final Cache<AnalyticsRange, AnalyticsSnapshot> reports;
+
+  public AnalyticsRangeReportCache(
+      FoodAnalyticsService foodAnalyticsService,
+      MeterRegistry meterRegistry,
+      @Value("${app.analytics.range-report.max-size:16}") long maxSize,
+      @Value("${app.analytics.range-report.ttl:PT1M}") Duration ttl) {
+    this.foodAnalyticsService = foodAnalyticsService;
+    this.reports =
+        Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, reports, "analytics.range-reports");
+  }
+
+  /**
+   * Returns the report of a date range, loading it on a miss.
+   *
+   * @param range the date range
+   * @return analytics of every food item over the range, with their totals
+   */
+  public AnalyticsSnapshot get(AnalyticsRange range) {
+    return reports.get(range, foodAnalyticsService::getAnalyticsSnapshot);
+  }
+}
@@ -0,0 +1,123 @@
+package com.foodshop.service;
+
+import com.foodshop.dto.AnalyticsSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived cache of the lifetime {@link AnalyticsSnapshot}.
+ *
+ * <p>The snapshot is reused for {@code app.analytics.snapshot.ttl}. Refreshes are single-flight:
+ * when the snapshot has expired, the first caller queries the database and every concurrent caller
+ * waits for that same query instead of issuing its own, so a burst of dashboard refreshes costs one
+ * query. A failed refresh is reported to all waiting callers and retried by the next one.
+ *
+ * <p>Metrics: {@code analytics.snapshot.requests} tagged {@code result=hit|miss|shared} and the
+ * {@code analytics.snapshot.refresh} timer.
+ */
+@Component
+public class AnalyticsSnapshotCache {
+
+  private final FoodAnalyticsService foodAnalyticsService;
+  private final long ttlNanos;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter shared;
+  private final Timer refreshTimer;
+
+  private final AtomicReference<CompletableFuture<AnalyticsSnapshot>> inFlight =
+      new AtomicReference<>();
+
+  // null until the first successful refresh
+  private volatile Entry cached;
+
+  public AnalyticsSnapshotCache(
+      FoodAnalyticsService foodAnalyticsService,
+      MeterRegistry meterRegistry,
+      @Value("${app.analytics.snapshot.ttl:PT10S}") Duration ttl) {
+    this.foodAnalyticsService = foodAnalyticsService;
+    this.ttlNanos = ttl.toNanos();
+    this.hits = requests(meterRegistry, "hit");
+    this.misses = requests(meterRegistry, "miss");
+    this.shared = requests(meterRegistry, "shared");
+    this.refreshTimer =
+        Timer.builder("analytics.snapshot.refresh")
+            .description("Time taken to reload the analytics snapshot")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Returns the cached snapshot, reloading it if it has expired.
+   *
+   * @return the lifetime analytics snapshot
+   */
+  public AnalyticsSnapshot get() {
+    Entry entry = cached;
+    if (entry != null && entry.isFresh(ttlNanos)) {
+      hits.increment();
+      return entry.snapshot;
+    }
+
+    CompletableFuture<AnalyticsSnapshot> refresh = new CompletableFuture<>();
+    CompletableFuture<AnalyticsSnapshot> running = inFlight.compareAndExchange(null, refresh);
+    if (running != null) {
+      shared.increment();
+      return await(running);
+    }
+
+    misses.increment();
+    try {
+      Entry latest = cached;
+      // Another caller may have finished a refresh between our freshness check and the CAS
+      AnalyticsSnapshot snapshot =
+          latest != null && latest.isFresh(ttlNanos)
+              ? latest.snapshot
+              : refreshTimer.record(this::load);
+      refresh.complete(snapshot);
+      return snapshot;
+    } catch (RuntimeException e) {
+      refresh.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.set(null);
+    }
+  }
+
+  private AnalyticsSnapshot load() {
+    AnalyticsSnapshot snapshot = foodAnalyticsService.getAnalyticsSnapshot();
+    cached = new Entry(snapshot, System.nanoTime());
+    return snapshot;
+  }
+
+  private static AnalyticsSnapshot await(CompletableFuture<AnalyticsSnapshot> refresh) {
+    try {
+      return refresh.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static Counter requests(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("analytics.snapshot.requests")
+        .description("Analytics snapshot lookups by cache outcome")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private record Entry(AnalyticsSnapshot snapshot, long loadedAtNanos) {
+
+    boolean isFresh(long ttlNanos) {
+      return System.nanoTime() - loadedAtNanos < ttlNanos;
+    }
+  }
+}
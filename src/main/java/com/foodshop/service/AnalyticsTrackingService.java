@@ -1,18 +1,18 @@
 package com.foodshop.service;
 
-import com.foodshop.domain.FoodAnalytics;
-import com.foodshop.domain.FoodItem;
 import com.foodshop.exception.ResourceNotFoundException;
 import io.micrometer.core.annotation.Timed;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for tracking food item analytics (view and order counts).
  *
- * <p>Uses optimistic locking with @Retryable to handle concurrent updates safely.
+ * <p>Counts are incremented with atomic SQL upserts ({@code INSERT ... ON CONFLICT DO UPDATE}), so
+ * concurrent increments on the same item never conflict or get lost, and no entity is loaded.
+ * Every tracked increment is also applied to the in-memory {@link AnalyticsLeaderboard}.
  */
 @Service
 public class AnalyticsTrackingService {
@@ -20,73 +20,116 @@ public class AnalyticsTrackingService {
   private static final Logger logger = LoggerFactory.getLogger(AnalyticsTrackingService.class);
 
   private final FoodAnalyticsService foodAnalyticsService;
-  private final FoodItemService foodItemService;
+  private final ViewCountBuffer viewCountBuffer;
+  private final AnalyticsLeaderboard leaderboard;
 
   public AnalyticsTrackingService(
-      FoodAnalyticsService foodAnalyticsService, FoodItemService foodItemService) {
+      FoodAnalyticsService foodAnalyticsService,
+      ViewCountBuffer viewCountBuffer,
+      AnalyticsLeaderboard leaderboard) {
     this.foodAnalyticsService = foodAnalyticsService;
-    this.foodItemService = foodItemService;
+    this.viewCountBuffer = viewCountBuffer;
+    this.leaderboard = leaderboard;
   }
 
   /**
    * Increments the view count for a food item.
    *
-   * <p>If analytics record doesn't exist, creates a new one. Uses optimistic locking with retry on
-   * conflict.
+   * <p>If analytics record doesn't exist, creates a new one in the same statement.
+   *
+   * <p>In write-behind mode the view is only recorded in {@link ViewCountBuffer} and persisted on
+   * the next flush; views for unknown items are then dropped at flush time instead of raising an
+   * exception.
    *
    * @param foodItemId the ID of the food item
    * @throws ResourceNotFoundException if food item not found
    */
   @Timed(value = "analytics.view.increment", description = "Time taken to increment view count")
-  @Transactional
   public void incrementViewCount(Long foodItemId) {
-    logger.debug("Incrementing view count for food item: {}", foodItemId);
-
-    FoodItem foodItem = foodItemService.findById(foodItemId);
+    if (viewCountBuffer.isEnabled()) {
+      viewCountBuffer.increment(foodItemId);
+      leaderboard.recordViews(foodItemId, 1);
+      return;
+    }
 
-    FoodAnalytics analytics =
-        foodAnalyticsService
-            .findByFoodItemId(foodItemId)
-            .orElseGet(() -> foodAnalyticsService.createNewAnalytics(foodItem));
+    logger.debug("Incrementing view count for food item: {}", foodItemId);
 
-    analytics.setViewCount(analytics.getViewCount() + 1);
-    foodAnalyticsService.save(analytics);
+    if (!foodAnalyticsService.incrementViewCount(foodItemId, 1)) {
+      throw ResourceNotFoundException.forEntity("FoodItem", foodItemId);
+    }
+    leaderboard.recordViews(foodItemId, 1);
+  }
 
-    logger.debug(
-        "View count incremented for food item {}: {} views",
-        foodItemId,
-        analytics.getViewCount());
+  /**
+   * Adds already deduplicated views for several food items.
+   *
+   * <p>In write-behind mode the views go to {@link ViewCountBuffer}; otherwise they are written as
+   * one JDBC batch. Views for unknown items are dropped.
+   *
+   * @param views view counts keyed by food item ID
+   */
+  @Timed(value = "analytics.view.batch", description = "Time taken to increment view counts")
+  public void incrementViewCounts(Map<Long, Long> views) {
+    if (viewCountBuffer.isEnabled()) {
+      views.forEach(viewCountBuffer::add);
+    } else {
+      foodAnalyticsService.addViewCounts(views);
+    }
+    views.forEach(leaderboard::recordViews);
   }
 
   /**
    * Increments the order count for a food item by the specified quantity.
    *
-   * <p>If analytics record doesn't exist, creates a new one. Uses optimistic locking with retry on
-   * conflict.
+   * <p>If analytics record doesn't exist, creates a new one in the same statement.
    *
    * @param foodItemId the ID of the food item
    * @param quantity the quantity ordered
    * @throws ResourceNotFoundException if food item not found
    */
   @Timed(value = "analytics.order.increment", description = "Time taken to increment order count")
-  @Transactional
   public void incrementOrderCount(Long foodItemId, int quantity) {
     logger.debug("Incrementing order count for food item: {} by {}", foodItemId, quantity);
 
-    FoodItem foodItem = foodItemService.findById(foodItemId);
-
-    FoodAnalytics analytics =
-        foodAnalyticsService
-            .findByFoodItemId(foodItemId)
-            .orElseGet(() -> foodAnalyticsService.createNewAnalytics(foodItem));
-
-    analytics.setOrderCount(analytics.getOrderCount() + quantity);
-    foodAnalyticsService.save(analytics);
+    if (!foodAnalyticsService.incrementOrderCount(foodItemId, quantity)) {
+      throw ResourceNotFoundException.forEntity("FoodItem", foodItemId);
+    }
+    leaderboard.recordOrders(foodItemId, quantity);
+  }
 
-    logger.debug(
-        "Order count incremented for food item {}: {} orders",
-        foodItemId,
-        analytics.getOrderCount());
+  /**
+   * Increments the order counts of all items of an order in one statement and transaction.
+   *
+   * <p>Items that no longer exist are skipped rather than failing the whole order.
+   *
+   * @param quantities ordered quantities keyed by food item ID
+   * @return number of analytics records updated or created
+   */
+  @Timed(value = "analytics.order.batch", description = "Time taken to increment order counts")
+  public int incrementOrderCounts(Map<Long, Long> quantities) {
+    logger.debug("Incrementing order counts for {} food items", quantities.size());
+
+    int touched = foodAnalyticsService.addOrderCounts(quantities);
+    // Missing items are not on the leaderboard either, so recording them is a no-op
+    quantities.forEach(leaderboard::recordOrders);
+    if (touched < quantities.size()) {
+      logger.warn(
+          "Skipped order counts for {} missing food items", quantities.size() - touched);
+    }
+    return touched;
   }
 
+  /**
+   * Increments the add-to-cart counts of several food items in one statement.
+   *
+   * <p>Items that no longer exist are skipped.
+   *
+   * @param quantities quantities added to carts keyed by food item ID
+   * @return number of analytics records updated or created
+   */
+  @Timed(value = "analytics.cart.batch", description = "Time taken to increment add-to-cart counts")
+  public int incrementCartAddCounts(Map<Long, Long> quantities) {
+    logger.debug("Incrementing add-to-cart counts for {} food items", quantities.size());
+    return foodAnalyticsService.addCartAddCounts(quantities);
+  }
 }
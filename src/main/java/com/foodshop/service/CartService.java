@@ -2,46 +2,91 @@ package com.foodshop.service;
 
 import com.foodshop.domain.Cart;
 import com.foodshop.domain.CartItem;
-import com.foodshop.domain.FoodItem;
 import com.foodshop.domain.User;
+import com.foodshop.dto.CartLineView;
+import com.foodshop.dto.CartMutationResult;
+import com.foodshop.dto.CartView;
+import com.foodshop.dto.FoodItemCardView;
 import com.foodshop.exception.ResourceNotFoundException;
 import com.foodshop.repository.CartRepository;
-import java.util.Optional;
+import com.foodshop.repository.FoodItemRepository;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Service for managing shopping carts.
+ *
+ * <p>Cart lines are addressed by food item ID. They are kept in {@link DatabaseCartStore}, or in
+ * {@link RedisCartStore} when write-behind mode is enabled ({@code app.cart.redis.enabled}); the
+ * service itself opens no transaction for reads and mutations, so in write-behind mode they cost no
+ * database connection. Mutations return the cart totals read along with the change, so callers
+ * never reload the cart to refresh a badge or subtotal.
+ *
+ * <p>Anonymous visitors get a guest cart in {@link GuestCartStore}, addressed by a guest ID instead
+ * of a user ID, which is merged into the user's cart on login.
+ *
+ * <p>A line holds at most {@link CartItem#MAX_QUANTITY} of its item. Setting a larger quantity is
+ * rejected as invalid; an add that would take a line past it is rejected by the store atomically,
+ * leaving the line as it was.
  */
 @Service
-@Transactional
 public class CartService {
 
+  /** Upper bound on the lines changed by one batch update. */
+  public static final int MAX_BATCH_SIZE = 100;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CartService.class);
+
   private final CartRepository cartRepository;
   private final FoodItemService foodItemService;
+  private final FoodItemRepository foodItemRepository;
+  private final DatabaseCartStore databaseCartStore;
+  private final RedisCartStore redisCartStore;
+  private final GuestCartStore guestCartStore;
 
-  public CartService(CartRepository cartRepository, FoodItemService foodItemService) {
+  public CartService(
+      CartRepository cartRepository,
+      FoodItemService foodItemService,
+      FoodItemRepository foodItemRepository,
+      DatabaseCartStore databaseCartStore,
+      RedisCartStore redisCartStore,
+      GuestCartStore guestCartStore) {
     this.cartRepository = cartRepository;
     this.foodItemService = foodItemService;
+    this.foodItemRepository = foodItemRepository;
+    this.databaseCartStore = databaseCartStore;
+    this.redisCartStore = redisCartStore;
+    this.guestCartStore = guestCartStore;
   }
 
   /**
-   * Gets or creates a cart for the given user.
+   * Gets the read model of a user's cart, with current catalog prices.
    *
-   * @param user the user
-   * @return the user's cart
-   */
-  public Cart getOrCreateCart(User user) {
-    return cartRepository.findByUserId(user.getId())
-        .orElseGet(() -> {
-          Cart cart = new Cart();
-          cart.setUser(user);
-          return cartRepository.save(cart);
-        });
+   * <p>Lines of food items deleted from the catalog are left out.
+   *
+   * @param userId the user ID
+   * @return the cart, empty if the user has none
+   */
+  public CartView getCart(Long userId) {
+    Map<Long, Integer> quantities =
+        redisCartStore.isEnabled()
+            ? redisCartStore.quantities(userId)
+            : databaseCartStore.quantities(userId);
+    return price(quantities);
   }
 
   /**
-   * Gets a cart with all items loaded for the given user.
+   * Gets a cart with all items loaded for the given user, for checkout.
+   *
+   * <p>In write-behind mode, call {@link #flush(Long)} first in the same transaction.
    *
    * @param userId the user ID
    * @return the cart with items
@@ -56,104 +101,302 @@ public class CartService {
   /**
    * Adds an item to the cart or updates quantity if it already exists.
    *
+   * <p>Availability is checked against the cached food item details.
+   *
    * @param user the user
    * @param foodItemId the food item ID
    * @param quantity the quantity to add
-   * @return the updated cart
+   * @return the new quantity of the line and the cart totals after the change
+   * @throws IllegalArgumentException if the quantity is not between 1 and {@link
+   *     CartItem#MAX_QUANTITY}
+   * @throws ResourceNotFoundException if the food item does not exist
+   * @throws IllegalStateException if the food item is not available or the line would hold more
+   *     than {@link CartItem#MAX_QUANTITY}
    */
-  public Cart addItem(User user, Long foodItemId, Integer quantity) {
-    Cart cart = getOrCreateCart(user);
-    FoodItem foodItem = foodItemService.findById(foodItemId);
-
-    if (!foodItem.getAvailable()) {
-      throw new IllegalStateException("Food item is not available");
-    }
-
-    // Check if item already in cart
-    Optional<CartItem> existingItem = cart.getItems().stream()
-        .filter(item -> item.getFoodItem().getId().equals(foodItemId))
-        .findFirst();
-
-    if (existingItem.isPresent()) {
-      // Update quantity
-      CartItem item = existingItem.get();
-      item.setQuantity(item.getQuantity() + quantity);
-    } else {
-      // Add new item
-      CartItem newItem = new CartItem();
-      newItem.setFoodItem(foodItem);
-      newItem.setQuantity(quantity);
-      cart.addItem(newItem);
-    }
+  public CartMutationResult addItem(User user, Long foodItemId, Integer quantity) {
+    checkAddable(foodItemId, quantity);
 
-    return cartRepository.save(cart);
+    return redisCartStore.isEnabled()
+        ? result(redisCartStore.add(user.getId(), foodItemId, quantity))
+        : databaseCartStore.add(user.getId(), foodItemId, quantity);
   }
 
   /**
    * Updates the quantity of an item in the cart.
    *
    * @param userId the user ID
-   * @param cartItemId the cart item ID
-   * @param quantity the new quantity
-   * @return the updated cart
-   */
-  public Cart updateItemQuantity(Long userId, Long cartItemId, Integer quantity) {
-    Cart cart = getCartWithItems(userId);
-
-    CartItem item = cart.getItems().stream()
-        .filter(ci -> ci.getId().equals(cartItemId))
-        .findFirst()
-        .orElseThrow(() -> ResourceNotFoundException.forEntity("CartItem", cartItemId));
-
-    if (quantity <= 0) {
-      cart.removeItem(item);
-    } else {
-      item.setQuantity(quantity);
-    }
-
-    return cartRepository.save(cart);
+   * @param foodItemId the food item ID of the cart line
+   * @param quantity the new quantity; zero or less removes the item
+   * @return the new quantity of the line (0 if it was removed) and the cart totals after the change
+   * @throws IllegalArgumentException if the quantity is above {@link CartItem#MAX_QUANTITY}
+   * @throws ResourceNotFoundException if the item is not in the cart
+   */
+  public CartMutationResult updateItemQuantity(Long userId, Long foodItemId, Integer quantity) {
+    checkQuantity(quantity);
+    return redisCartStore.isEnabled()
+        ? result(redisCartStore.setQuantity(userId, foodItemId, quantity))
+        : databaseCartStore.setQuantity(userId, foodItemId, quantity);
   }
 
   /**
-   * Removes an item from the cart.
+   * Updates the quantities of several items in the cart at once.
+   *
+   * <p>The changes are applied atomically: if one of the items is not in the cart, none is
+   * changed.
    *
    * @param userId the user ID
-   * @param cartItemId the cart item ID
-   * @return the updated cart
+   * @param quantities the new quantities keyed by food item ID; zero or less removes the item
+   * @return the cart after the change, with current catalog prices
+   * @throws IllegalArgumentException if there are no changes, more than {@value #MAX_BATCH_SIZE},
+   *     or a change without a quantity or above {@link CartItem#MAX_QUANTITY}
+   * @throws ResourceNotFoundException if one of the items is not in the cart
    */
-  public Cart removeItem(Long userId, Long cartItemId) {
-    Cart cart = getCartWithItems(userId);
+  public CartView updateItemQuantities(Long userId, Map<Long, Integer> quantities) {
+    checkBatch(quantities);
 
-    CartItem item = cart.getItems().stream()
-        .filter(ci -> ci.getId().equals(cartItemId))
-        .findFirst()
-        .orElseThrow(() -> ResourceNotFoundException.forEntity("CartItem", cartItemId));
+    return price(
+        redisCartStore.isEnabled()
+            ? redisCartStore.setQuantities(userId, quantities)
+            : databaseCartStore.setQuantities(userId, quantities));
+  }
 
-    cart.removeItem(item);
-    return cartRepository.save(cart);
+  /**
+   * Removes an item from the cart.
+   *
+   * @param userId the user ID
+   * @param foodItemId the food item ID of the cart line
+   * @return the cart totals after the change, with a line quantity of 0
+   * @throws ResourceNotFoundException if the item is not in the cart
+   */
+  public CartMutationResult removeItem(Long userId, Long foodItemId) {
+    return redisCartStore.isEnabled()
+        ? result(redisCartStore.remove(userId, foodItemId))
+        : databaseCartStore.remove(userId, foodItemId);
   }
 
   /**
    * Clears all items from the cart.
    *
+   * <p>Always clears the database cart, joining the current transaction. In write-behind mode the
+   * cleared quantities are taken off the Redis copy only after the transaction commits: before
+   * that, a reload would read the lines back from the database. Items added to the Redis cart in
+   * the meantime are kept.
+   *
    * @param userId the user ID
    */
   public void clearCart(Long userId) {
-    Cart cart = getCartWithItems(userId);
-    cart.clear();
-    cartRepository.save(cart);
+    if (!redisCartStore.isEnabled()) {
+      databaseCartStore.clear(userId);
+      return;
+    }
+
+    Map<Long, Integer> cleared = databaseCartStore.quantities(userId);
+    databaseCartStore.clear(userId);
+    afterCommit(() -> {
+      try {
+        redisCartStore.subtract(userId, cleared);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Failed to take checked-out items off the Redis cart of user {}", userId, e);
+      }
+    });
   }
 
   /**
-   * Gets the number of items in the cart.
+   * Gets the number of items in the cart, for the navbar badge.
+   *
+   * <p>Counts the lines without reading or pricing them.
    *
    * @param userId the user ID
    * @return the item count
    */
-  @Transactional(readOnly = true)
   public int getCartItemCount(Long userId) {
-    return cartRepository.findByUserIdWithItems(userId)
-        .map(cart -> cart.getItems().size())
-        .orElse(0);
+    return redisCartStore.isEnabled()
+        ? redisCartStore.count(userId)
+        : databaseCartStore.count(userId);
+  }
+
+  /**
+   * Gets the read model of a guest cart, with current catalog prices.
+   *
+   * @param guestId the guest ID, or null if the visitor has none yet
+   * @return the cart, empty if the guest has none
+   */
+  public CartView getGuestCart(String guestId) {
+    return guestId == null ? CartView.of(List.of()) : price(guestCartStore.quantities(guestId));
+  }
+
+  /**
+   * Adds an item to a guest cart or updates quantity if it already exists.
+   *
+   * @param guestId the guest ID
+   * @param foodItemId the food item ID
+   * @param quantity the quantity to add
+   * @return the new quantity of the line and the cart totals after the change
+   * @throws IllegalArgumentException if the quantity is not between 1 and {@link
+   *     CartItem#MAX_QUANTITY}
+   * @throws ResourceNotFoundException if the food item does not exist
+   * @throws IllegalStateException if the food item is not available, the cart is full or the line
+   *     would hold more than {@link CartItem#MAX_QUANTITY}
+   */
+  public CartMutationResult addGuestItem(String guestId, Long foodItemId, Integer quantity) {
+    checkAddable(foodItemId, quantity);
+    return result(guestCartStore.add(guestId, foodItemId, quantity));
+  }
+
+  /**
+   * Updates the quantity of an item in a guest cart.
+   *
+   * @param guestId the guest ID
+   * @param foodItemId the food item ID of the cart line
+   * @param quantity the new quantity; zero or less removes the item
+   * @return the new quantity of the line (0 if it was removed) and the cart totals after the change
+   * @throws IllegalArgumentException if the quantity is above {@link CartItem#MAX_QUANTITY}
+   * @throws ResourceNotFoundException if the item is not in the cart
+   */
+  public CartMutationResult updateGuestItemQuantity(
+      String guestId, Long foodItemId, Integer quantity) {
+    checkQuantity(quantity);
+    return result(guestCartStore.setQuantity(guestId, foodItemId, quantity));
+  }
+
+  /**
+   * Updates the quantities of several items in a guest cart at once.
+   *
+   * @param guestId the guest ID
+   * @param quantities the new quantities keyed by food item ID; zero or less removes the item
+   * @return the cart after the change, with current catalog prices
+   * @throws IllegalArgumentException if there are no changes, more than {@value #MAX_BATCH_SIZE},
+   *     or a change without a quantity or above {@link CartItem#MAX_QUANTITY}
+   * @throws ResourceNotFoundException if one of the items is not in the cart
+   */
+  public CartView updateGuestItemQuantities(String guestId, Map<Long, Integer> quantities) {
+    checkBatch(quantities);
+    return price(guestCartStore.setQuantities(guestId, quantities));
+  }
+
+  /**
+   * Removes an item from a guest cart.
+   *
+   * @param guestId the guest ID
+   * @param foodItemId the food item ID of the cart line
+   * @return the cart totals after the change, with a line quantity of 0
+   * @throws ResourceNotFoundException if the item is not in the cart
+   */
+  public CartMutationResult removeGuestItem(String guestId, Long foodItemId) {
+    return result(guestCartStore.remove(guestId, foodItemId));
+  }
+
+  /**
+   * Gets the number of items in a guest cart.
+   *
+   * @param guestId the guest ID, or null if the visitor has none yet
+   * @return the item count
+   */
+  public int getGuestCartItemCount(String guestId) {
+    return guestId == null ? 0 : guestCartStore.count(guestId);
+  }
+
+  /**
+   * Moves a guest cart into a user's cart, adding quantities to lines the user already has.
+   *
+   * <p>The guest cart is taken from Redis atomically first, so concurrent logins with the same
+   * cookie merge it once. Its lines are added in one batched upsert, or in one script in
+   * write-behind mode so the next flush does not overwrite them. If adding them fails, they are put
+   * back in the guest cart.
+   *
+   * @param userId the user ID
+   * @param guestId the guest ID
+   * @return the number of lines merged
+   */
+  public int mergeGuestCart(Long userId, String guestId) {
+    Map<Long, Integer> quantities = guestCartStore.take(guestId);
+    if (quantities.isEmpty()) {
+      return 0;
+    }
+    try {
+      if (redisCartStore.isEnabled()) {
+        redisCartStore.addAll(userId, quantities);
+      } else {
+        databaseCartStore.addAll(userId, quantities);
+      }
+    } catch (RuntimeException e) {
+      guestCartStore.restore(guestId, quantities);
+      throw e;
+    }
+    return quantities.size();
+  }
+
+  /**
+   * Writes the user's cart to the database now, joining the current transaction.
+   *
+   * <p>Does nothing unless write-behind mode is enabled.
+   *
+   * @param userId the user ID
+   */
+  public void flush(Long userId) {
+    if (redisCartStore.isEnabled()) {
+      redisCartStore.flush(userId);
+    }
+  }
+
+  // Runs the action once the current transaction commits, or now outside a transaction
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+
+  private void checkAddable(Long foodItemId, Integer quantity) {
+    if (quantity == null || quantity < 1) {
+      throw new IllegalArgumentException("Quantity must be at least 1");
+    }
+    checkQuantity(quantity);
+    if (!Boolean.TRUE.equals(foodItemService.findDetails(foodItemId).item().available())) {
+      throw new IllegalStateException("Food item is not available");
+    }
+  }
+
+  private static void checkBatch(Map<Long, Integer> quantities) {
+    if (quantities.isEmpty() || quantities.size() > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException(
+          "A cart update must change between 1 and " + MAX_BATCH_SIZE + " items");
+    }
+    if (quantities.values().stream().anyMatch(Objects::isNull)) {
+      throw new IllegalArgumentException("Every changed item needs a quantity");
+    }
+    quantities.values().forEach(CartService::checkQuantity);
+  }
+
+  private static void checkQuantity(Integer quantity) {
+    if (quantity != null && quantity > CartItem.MAX_QUANTITY) {
+      throw new IllegalArgumentException("Quantity must be at most " + CartItem.MAX_QUANTITY);
+    }
+  }
+
+  // Prices a Redis mutation with one card query, the way the cart page is priced
+  private CartMutationResult result(RedisCartStore.Mutation mutation) {
+    CartView cart = price(mutation.quantities());
+    return new CartMutationResult(mutation.lineQuantity(), cart.itemCount(), cart.subtotal());
+  }
+
+  private CartView price(Map<Long, Integer> quantities) {
+    if (quantities.isEmpty()) {
+      return CartView.of(List.of());
+    }
+
+    List<CartLineView> lines = foodItemRepository.findCardsByIdIn(quantities.keySet()).stream()
+        .sorted(Comparator.comparing(FoodItemCardView::name).thenComparing(FoodItemCardView::id))
+        .map(card -> new CartLineView(card.id(), card.name(), card.thumbnailUrl(), card.price(),
+            quantities.get(card.id())))
+        .toList();
+    return CartView.of(lines);
   }
 }
@@ -0,0 +1,151 @@
+package com.foodshop.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.FoodItemCardView;
+import io.micrometer.core.annotation.Timed;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the catalog API's item documents straight to the response with a Jackson {@link
+ * JsonGenerator}.
+ *
+ * <p>Items are written field by field from {@link FoodItemCardView} projections, limited to the
+ * fields the client asked for (sparse fieldsets), without building an intermediate tree or map.
+ * Category dumps are written while rows are read from a database cursor, so memory use stays
+ * constant whatever the size of the category.
+ */
+@Component
+public class CatalogJsonWriter {
+
+  // Item fields a client can select, in the order they are written
+  private static final Map<String, Function<FoodItemCardView, Object>> ITEM_FIELDS =
+      itemFields();
+
+  private final JsonFactory jsonFactory;
+  private final FoodItemService foodItemService;
+
+  public CatalogJsonWriter(ObjectMapper objectMapper, FoodItemService foodItemService) {
+    // The mapper's factory keeps its codec, so values are serialized like everywhere else
+    this.jsonFactory = objectMapper.getFactory();
+    this.foodItemService = foodItemService;
+  }
+
+  /**
+   * Resolves a sparse fieldset parameter.
+   *
+   * @param fields comma-separated field names, or null or blank for all fields
+   * @return the selected fields, in the order they are written
+   * @throws IllegalArgumentException if a field is unknown
+   */
+  public List<String> selectFields(String fields) {
+    if (fields == null || fields.isBlank()) {
+      return List.copyOf(ITEM_FIELDS.keySet());
+    }
+    Set<String> requested =
+        Arrays.stream(fields.split(","))
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .collect(Collectors.toSet());
+    List<String> selected = new ArrayList<>(requested.size());
+    for (String name : ITEM_FIELDS.keySet()) {
+      if (requested.remove(name)) {
+        selected.add(name);
+      }
+    }
+    if (!requested.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Unknown fields " + requested + ", expected any of " + ITEM_FIELDS.keySet());
+    }
+    return selected;
+  }
+
+  /**
+   * Writes one page of items with the cursors of its neighbours.
+   *
+   * @param page the page
+   * @param fields the item fields to write, from {@link #selectFields(String)}
+   * @param out destination of the JSON document
+   * @throws UncheckedIOException if writing fails
+   */
+  public void writePage(CatalogPage page, List<String> fields, OutputStream out) {
+    try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+      json.writeStartObject();
+      json.writeArrayFieldStart("items");
+      for (FoodItemCardView item : page.content()) {
+        writeItem(json, item, fields);
+      }
+      json.writeEndArray();
+      json.writeStringField("previousCursor", page.previousCursor());
+      json.writeStringField("nextCursor", page.nextCursor());
+      json.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes every available item of a category as one JSON array, ordered by name.
+   *
+   * <p>Items are streamed from a database cursor straight to the output.
+   *
+   * @param categoryId the category ID
+   * @param fields the item fields to write, from {@link #selectFields(String)}
+   * @param out destination of the JSON document
+   * @throws UncheckedIOException if writing fails
+   */
+  @Timed(value = "catalog.api.export", description = "Time taken to stream a category's items")
+  public void writeCategoryItems(Long categoryId, List<String> fields, OutputStream out) {
+    try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+      json.writeStartArray();
+      foodItemService.forEachAvailableInCategory(
+          categoryId,
+          item -> {
+            try {
+              writeItem(json, item, fields);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+      json.writeEndArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeItem(JsonGenerator json, FoodItemCardView item, List<String> fields)
+      throws IOException {
+    json.writeStartObject();
+    for (String field : fields) {
+      json.writeObjectField(field, ITEM_FIELDS.get(field).apply(item));
+    }
+    json.writeEndObject();
+  }
+
+  private static Map<String, Function<FoodItemCardView, Object>> itemFields() {
+    Map<String, Function<FoodItemCardView, Object>> fields = new LinkedHashMap<>();
+    fields.put("id", FoodItemCardView::id);
+    fields.put("name", FoodItemCardView::name);
+    fields.put("summary", FoodItemCardView::summary);
+    fields.put("price", FoodItemCardView::price);
+    fields.put("thumbnailUrl", FoodItemCardView::thumbnailUrl);
+    fields.put("avgRating", FoodItemCardView::avgRating);
+    fields.put("ratingCount", FoodItemCardView::ratingCount);
+    fields.put("categoryName", FoodItemCardView::categoryName);
+    return Collections.unmodifiableMap(fields);
+  }
+}
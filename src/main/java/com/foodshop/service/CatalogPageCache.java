@@ -0,0 +1,92 @@
+package com.foodshop.service;
+
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.event.CatalogChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Local cache of catalog pages keyed by (category, cursor, size).
+ *
+ * <p>Bounded by {@code app.catalog.page-cache.max-size} entries and expired after {@code
+ * app.catalog.page-cache.ttl}. Every committed {@link CatalogChangedEvent} evicts the pages it can
+ * affect: all-categories pages, pages of the changed category and any page that contains the changed
+ * item (which covers an item moved out of a category). The TTL bounds staleness from writes made by
+ * other application instances or directly in the database.
+ *
+ * <p>Cached pages hold immutable card views and are shared between requests.
+ *
+ * <p>Metrics: the standard {@code cache.*} meters (gets, evictions, size, ...) tagged {@code
+ * cache=catalog.pages}.
+ */
+@Component
+public class CatalogPageCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CatalogPageCache.class);
+
+  private final Cache<Key, CatalogPage> pages;
+
+  public CatalogPageCache(
+      MeterRegistry meterRegistry,
+      @Value("${app.catalog.page-cache.max-size:1000}") long maxSize,
+      @Value("${app.catalog.page-cache.ttl:PT10M}") Duration ttl) {
+    this.pages =
+        Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, pages, "catalog.pages");
+  }
+
+  /**
+   * Returns a cached catalog page, loading it on a miss.
+   *
+   * @param categoryId the category filter, or null for all categories
+   * @param cursor the position of the requested page, or null for the first page
+   * @param size the page size
+   * @param loader queries the page from the database
+   * @return the catalog page
+   */
+  public CatalogPage get(
+      Long categoryId, CatalogCursor cursor, int size, Supplier<CatalogPage> loader) {
+    Key key = new Key(categoryId, cursor, size);
+    return pages.get(key, ignored -> loader.get());
+  }
+
+  /**
+   * Evicts the pages affected by a committed catalog write.
+   *
+   * <p>Also runs for writes outside a transaction.
+   *
+   * @param event the catalog change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    pages.asMap().entrySet().removeIf(entry -> isAffected(entry.getKey(), entry.getValue(), event));
+    LOGGER.debug("Evicted catalog pages for {}", event);
+  }
+
+  /** Evicts every cached page. */
+  public void invalidateAll() {
+    pages.invalidateAll();
+  }
+
+  private static boolean isAffected(Key key, CatalogPage page, CatalogChangedEvent event) {
+    if (key.categoryId() == null || Objects.equals(key.categoryId(), event.categoryId())) {
+      return true;
+    }
+    return event.foodItemId() != null
+        && page.content().stream().anyMatch(item -> event.foodItemId().equals(item.id()));
+  }
+
+  private record Key(Long categoryId, CatalogCursor cursor, int size) {
+  }
+}
@@ -0,0 +1,284 @@
+package com.foodshop.service;
+
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import com.foodshop.dto.SuggestionDTO;
+import com.foodshop.dto.SuggestionsDTO;
+import com.foodshop.event.CatalogChangedEvent;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodItemRepository;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Autocomplete for the catalog search box, answered from memory.
+ *
+ * <p>Names of available food items and active categories are indexed by every word-boundary
+ * suffix, lower-cased and without accents ("Crème Brûlée" under "creme brulee" and "brulee"), in a
+ * skip list. A query is a range scan over the keys starting with it, so "bru", "creme b" and
+ * "brulee" all match. Item matches are ranked by popularity (orders, then views) from the
+ * in-memory {@link AnalyticsLeaderboard} during the scan, keeping only the best ones in a heap
+ * bounded by the limit.
+ *
+ * <p>The index is built when the application is ready and updated for each committed food item or
+ * category write. A full rebuild every {@code app.catalog.suggest.refresh-interval} picks up writes
+ * made by other instances; writes committed while it reads the database are replayed onto the
+ * rebuilt index, so they are not lost with the index they were applied to.
+ */
+@Service
+public class CatalogSuggestService {
+
+  /** Upper bound for the number of suggestions per section. */
+  public static final int MAX_LIMIT = 20;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSuggestService.class);
+
+  // Best first: most orders, then most views, then by name
+  private static final Comparator<Ranked> BY_POPULARITY =
+      Comparator.comparingLong(Ranked::orderCount)
+          .thenComparingLong(Ranked::viewCount)
+          .reversed()
+          .thenComparing(ranked -> ranked.item().name())
+          .thenComparing(ranked -> ranked.item().id());
+
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+  private final FoodItemRepository foodItemRepository;
+  private final CategoryRepository categoryRepository;
+  private final AnalyticsLeaderboard leaderboard;
+
+  // null until the first successful rebuild
+  private volatile Index index;
+
+  // Catalog changes committed while a rebuild runs, replayed onto the rebuilt index; null otherwise
+  private volatile Queue<CatalogChangedEvent> changesDuringRebuild;
+
+  public CatalogSuggestService(
+      FoodItemRepository foodItemRepository,
+      CategoryRepository categoryRepository,
+      AnalyticsLeaderboard leaderboard) {
+    this.foodItemRepository = foodItemRepository;
+    this.categoryRepository = categoryRepository;
+    this.leaderboard = leaderboard;
+  }
+
+  /**
+   * Suggests categories and food items whose names contain a word starting with the query.
+   *
+   * @param query what the user has typed so far
+   * @param limit maximum suggestions per section (capped at {@value #MAX_LIMIT})
+   * @return matching categories and the most popular matching items; empty until the index is built
+   */
+  public SuggestionsDTO suggest(String query, int limit) {
+    Index current = index;
+    String prefix = query == null ? "" : normalize(query);
+    if (current == null || prefix.isEmpty() || limit < 1) {
+      return SuggestionsDTO.EMPTY;
+    }
+    int max = Math.min(limit, MAX_LIMIT);
+
+    List<SuggestionDTO> categories = current.categories().match(prefix, max);
+    return new SuggestionsDTO(categories, mostPopular(current.items(), prefix, max));
+  }
+
+  /**
+   * Rebuilds the index from the database and swaps it in atomically, then replays the catalog
+   * changes committed in the meantime.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      fixedDelayString = "${app.catalog.suggest.refresh-interval:PT10M}",
+      initialDelayString = "${app.catalog.suggest.refresh-interval:PT10M}")
+  public synchronized void rebuild() {
+    Queue<CatalogChangedEvent> changes = new ConcurrentLinkedQueue<>();
+    changesDuringRebuild = changes;
+    try {
+      Index fresh = new Index(new TokenIndex(), new TokenIndex());
+      categoryRepository.findAll().stream()
+          .filter(category -> Boolean.TRUE.equals(category.getActive()))
+          .forEach(category -> fresh.categories().put(category.getId(), suggestionOf(category)));
+      foodItemRepository.findAllAvailableSuggestions()
+          .forEach(item -> fresh.items().put(item.id(), item));
+      index = fresh;
+      // The reads above may predate these changes. Changes seen from here on also find the fresh
+      // index themselves, so re-applying the ones that did is harmless
+      CatalogChangedEvent change;
+      while ((change = changes.poll()) != null) {
+        apply(fresh, change);
+      }
+      LOGGER.debug("Rebuilt suggestion index with {} keys", fresh.items().size());
+    } catch (Exception e) {
+      // Keep serving the previous index and retry on the next interval
+      LOGGER.error("Failed to rebuild suggestion index", e);
+    } finally {
+      changesDuringRebuild = null;
+    }
+  }
+
+  /**
+   * Re-indexes the food item or category of a committed catalog write.
+   *
+   * @param event the catalog change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    // Recorded before reading the index, so a rebuild swapping it in meanwhile replays the change
+    Queue<CatalogChangedEvent> changes = changesDuringRebuild;
+    if (changes != null) {
+      changes.add(event);
+    }
+    Index current = index;
+    if (current != null) {
+      apply(current, event);
+    }
+  }
+
+  // Re-reads the changed food item or category and updates its entry in the index
+  private void apply(Index current, CatalogChangedEvent event) {
+    if (event.foodItemId() != null) {
+      SuggestionDTO item =
+          foodItemRepository.findById(event.foodItemId())
+              .filter(foodItem -> Boolean.TRUE.equals(foodItem.getAvailable()))
+              .map(CatalogSuggestService::suggestionOf)
+              .orElse(null);
+      current.items().put(event.foodItemId(), item);
+    } else if (event.categoryId() != null) {
+      SuggestionDTO category =
+          categoryRepository.findById(event.categoryId())
+              .filter(found -> Boolean.TRUE.equals(found.getActive()))
+              .map(CatalogSuggestService::suggestionOf)
+              .orElse(null);
+      current.categories().put(event.categoryId(), category);
+    }
+  }
+
+  // The max most popular matches, best first
+  private List<SuggestionDTO> mostPopular(TokenIndex items, String prefix, int max) {
+    // The worst of the best so far is at the head, so each match costs at most one O(log max) swap
+    PriorityQueue<Ranked> best = new PriorityQueue<>(max + 1, BY_POPULARITY.reversed());
+    items.forEachMatch(prefix, item -> {
+      Ranked ranked = rank(item);
+      if (best.size() < max) {
+        best.add(ranked);
+      } else if (BY_POPULARITY.compare(ranked, best.peek()) < 0) {
+        best.poll();
+        best.add(ranked);
+      }
+    });
+    List<Ranked> sorted = new ArrayList<>(best);
+    sorted.sort(BY_POPULARITY);
+    return sorted.stream().map(Ranked::item).toList();
+  }
+
+  private Ranked rank(SuggestionDTO item) {
+    FoodAnalyticsDTO counts = leaderboard.find(item.id()).orElse(null);
+    return counts == null
+        ? new Ranked(item, 0, 0)
+        : new Ranked(item, counts.orderCount(), counts.viewCount());
+  }
+
+  private static SuggestionDTO suggestionOf(FoodItem foodItem) {
+    return new SuggestionDTO(foodItem.getId(), foodItem.getName());
+  }
+
+  private static SuggestionDTO suggestionOf(Category category) {
+    return new SuggestionDTO(category.getId(), category.getName());
+  }
+
+  // Lower case, accents stripped, words separated by single spaces
+  static String normalize(String text) {
+    String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+    String plain = DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    return NON_WORD.matcher(plain).replaceAll(" ").strip();
+  }
+
+  private record Index(TokenIndex categories, TokenIndex items) {
+  }
+
+  private record Ranked(SuggestionDTO item, long orderCount, long viewCount) {
+  }
+
+  /** Word-boundary suffixes of names mapped to their suggestion, for prefix range scans. */
+  private static final class TokenIndex {
+
+    // Separates the suffix from the ID, so equal suffixes of different names stay distinct keys
+    private static final char ID_SEPARATOR = '\u0000';
+
+    private final ConcurrentSkipListMap<String, SuggestionDTO> keys = new ConcurrentSkipListMap<>();
+    private final Map<Long, SuggestionDTO> byId = new ConcurrentHashMap<>();
+
+    // Adds, replaces or (with a null suggestion) removes one entry
+    synchronized void put(Long id, SuggestionDTO suggestion) {
+      SuggestionDTO old = suggestion == null ? byId.remove(id) : byId.put(id, suggestion);
+      if (old != null) {
+        keysOf(old).forEach(keys::remove);
+      }
+      if (suggestion != null) {
+        keysOf(suggestion).forEach(key -> keys.put(key, suggestion));
+      }
+    }
+
+    List<SuggestionDTO> match(String prefix, int max) {
+      Map<Long, SuggestionDTO> matches = new LinkedHashMap<>();
+      for (SuggestionDTO suggestion :
+          keys.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+        matches.putIfAbsent(suggestion.id(), suggestion);
+        if (matches.size() >= max) {
+          break;
+        }
+      }
+      return new ArrayList<>(matches.values());
+    }
+
+    // Visits every suggestion with a key starting with the prefix once
+    void forEachMatch(String prefix, Consumer<SuggestionDTO> action) {
+      Set<Long> seen = new HashSet<>();
+      for (SuggestionDTO suggestion :
+          keys.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+        if (seen.add(suggestion.id())) {
+          action.accept(suggestion);
+        }
+      }
+    }
+
+    int size() {
+      return keys.size();
+    }
+
+    private static List<String> keysOf(SuggestionDTO suggestion) {
+      String[] words = normalize(suggestion.name()).split(" ");
+      List<String> keys = new ArrayList<>(words.length);
+      for (int i = 0; i < words.length; i++) {
+        if (!words[i].isEmpty()) {
+          String suffix = String.join(" ", Arrays.copyOfRange(words, i, words.length));
+          keys.add(suffix + ID_SEPARATOR + suggestion.id());
+        }
+      }
+      return keys;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.foodshop.service;
+
+import com.foodshop.event.CatalogChangedEvent;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Version stamp of the catalog, shared by all instances through Redis.
+ *
+ * <p>The stamp is the time of the last catalog change in epoch milliseconds, kept strictly
+ * increasing, so it serves both as the {@code ETag} source and as {@code Last-Modified}. Every
+ * committed food item or category write bumps it (ratings are stored on the food item, so a rating
+ * change is one). Because the stamp lives in Redis ({@value #KEY}), a change committed on one
+ * instance invalidates the ETags of every instance.
+ *
+ * <p>The ETag also names the release ({@code app.catalog.http.release}), so a deployment with new
+ * templates does not answer 304 for pages rendered by the previous one.
+ */
+@Component
+public class CatalogVersion {
+
+  /** Redis key holding the stamp. */
+  public static final String KEY = "catalog:version";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CatalogVersion.class);
+
+  // Sets the stamp to now, or to one past the current stamp if the clocks disagree
+  private static final RedisScript<Long> BUMP_SCRIPT =
+      RedisScript.of(
+          "local now = tonumber(ARGV[1]) "
+              + "local current = tonumber(redis.call('GET', KEYS[1]) or '0') "
+              + "if now <= current then now = current + 1 end "
+              + "redis.call('SET', KEYS[1], now) "
+              + "return now",
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final String release;
+
+  public CatalogVersion(
+      StringRedisTemplate redisTemplate,
+      @Value("${app.catalog.http.release:dev}") String release) {
+    this.redisTemplate = redisTemplate;
+    this.release = release;
+  }
+
+  /**
+   * Returns the current stamp, creating it on first use.
+   *
+   * @return the stamp, or empty if Redis is unavailable
+   */
+  public Optional<Stamp> current() {
+    try {
+      String value = redisTemplate.opsForValue().get(KEY);
+      long version = value != null ? Long.parseLong(value) : bump();
+      return Optional.of(new Stamp(version, release));
+    } catch (Exception e) {
+      // Pages are then rendered without validators rather than risk a wrong 304
+      LOGGER.warn("Failed to read the catalog version", e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Advances the stamp.
+   *
+   * @return the new stamp
+   */
+  public long bump() {
+    Long version =
+        redisTemplate.execute(
+            BUMP_SCRIPT, List.of(KEY), String.valueOf(System.currentTimeMillis()));
+    return version != null ? version : 0L;
+  }
+
+  /**
+   * Advances the stamp after a committed catalog write.
+   *
+   * @param event the catalog change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    try {
+      bump();
+    } catch (Exception e) {
+      LOGGER.error("Failed to bump the catalog version after {}", event, e);
+    }
+  }
+
+  /**
+   * A catalog version stamp.
+   *
+   * @param version time of the last catalog change, in epoch milliseconds
+   * @param release the deployed release
+   */
+  public record Stamp(long version, String release) {
+
+    /**
+     * Returns the strong entity tag for pages rendered from this version.
+     *
+     * @return the quoted ETag value
+     */
+    public String etag() {
+      return "\"" + version + "-" + release + "\"";
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.foodshop.service;
+
+import com.foodshop.domain.Category;
+import com.foodshop.event.CatalogChangedEvent;
+import com.foodshop.repository.CategoryRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Immutable in-memory snapshot of all categories.
+ *
+ * <p>Answers the ordered list of active categories and ID-to-name lookups without a query. The
+ * snapshot is loaded when the application is ready (or on first use) and replaced wholesale when a
+ * category is written. The instance that commits the write reloads right away and announces it on
+ * the {@value #CHANNEL} Redis channel, so other instances reload too. Pub/sub messages can be lost,
+ * so every instance also reloads every {@code app.catalog.categories.refresh-interval}.
+ *
+ * <p>The categories it returns are shared between requests and must be treated as read-only.
+ */
+@Component
+public class CategoryRegistry implements MessageListener {
+
+  /** Redis channel announcing category changes to other instances. */
+  public static final String CHANNEL = "catalog:categories:changed";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CategoryRegistry.class);
+
+  private static final Comparator<Category> BY_DISPLAY_ORDER =
+      Comparator.comparing(Category::getDisplayOrder).thenComparing(Category::getId);
+
+  private final CategoryRepository categoryRepository;
+  private final StringRedisTemplate redisTemplate;
+  // Lets an instance ignore its own announcements
+  private final String instanceId = UUID.randomUUID().toString();
+
+  // null until the first successful reload
+  private volatile Snapshot snapshot;
+
+  public CategoryRegistry(
+      CategoryRepository categoryRepository, StringRedisTemplate redisTemplate) {
+    this.categoryRepository = categoryRepository;
+    this.redisTemplate = redisTemplate;
+  }
+
+  /**
+   * Returns the active categories ordered by display order.
+   *
+   * @return unmodifiable list of active categories
+   */
+  public List<Category> activeCategories() {
+    return current().active();
+  }
+
+  /**
+   * Looks up a category name, including inactive categories.
+   *
+   * @param id the category ID
+   * @return the name, or empty if there is no such category
+   */
+  public Optional<String> findName(Long id) {
+    return Optional.ofNullable(current().names().get(id));
+  }
+
+  /** Reloads all categories from the database and swaps the snapshot in atomically. */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      fixedDelayString = "${app.catalog.categories.refresh-interval:PT10M}",
+      initialDelayString = "${app.catalog.categories.refresh-interval:PT10M}")
+  public void reload() {
+    try {
+      snapshot = load();
+      LOGGER.debug("Reloaded {} categories", snapshot.names().size());
+    } catch (Exception e) {
+      // Keep serving the previous snapshot until the next change or refresh
+      LOGGER.error("Failed to reload categories", e);
+    }
+  }
+
+  /**
+   * Reloads after a committed category write and tells the other instances to do the same.
+   *
+   * @param event the catalog change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    if (event.foodItemId() != null) {
+      return;
+    }
+    reload();
+    try {
+      redisTemplate.convertAndSend(CHANNEL, instanceId);
+    } catch (Exception e) {
+      LOGGER.warn("Failed to announce category change; other instances refresh on schedule", e);
+    }
+  }
+
+  /**
+   * Reloads when another instance announces a category change.
+   *
+   * @param message the announcement, carrying the sender's instance ID
+   * @param pattern the matched pattern (unused)
+   */
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    if (!instanceId.equals(new String(message.getBody(), StandardCharsets.UTF_8))) {
+      reload();
+    }
+  }
+
+  private Snapshot current() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      // Requests that arrive before the application is ready load the first snapshot themselves
+      current = load();
+      snapshot = current;
+    }
+    return current;
+  }
+
+  private Snapshot load() {
+    List<Category> categories = categoryRepository.findAll();
+    List<Category> active =
+        categories.stream()
+            .filter(category -> Boolean.TRUE.equals(category.getActive()))
+            .sorted(BY_DISPLAY_ORDER)
+            .toList();
+    Map<Long, String> names =
+        categories.stream().collect(Collectors.toUnmodifiableMap(Category::getId, Category::getName));
+    return new Snapshot(active, names);
+  }
+
+  private record Snapshot(List<Category> active, Map<Long, String> names) {
+  }
+}
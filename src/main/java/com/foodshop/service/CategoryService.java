@@ -9,15 +9,21 @@ import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for managing categories.
+ *
+ * <p>Active categories and category names are served from {@link CategoryRegistry} without
+ * querying the database.
  */
 @Service
 @Transactional(readOnly = true)
 public class CategoryService {
 
   private final CategoryRepository categoryRepository;
+  private final CategoryRegistry categoryRegistry;
 
-  public CategoryService(CategoryRepository categoryRepository) {
+  public CategoryService(
+      CategoryRepository categoryRepository, CategoryRegistry categoryRegistry) {
     this.categoryRepository = categoryRepository;
+    this.categoryRegistry = categoryRegistry;
   }
 
   /**
@@ -26,7 +32,7 @@ public class CategoryService {
    * @return list of active categories
    */
   public List<Category> findAllActive() {
-    return categoryRepository.findAllActiveOrderedByDisplayOrder();
+    return categoryRegistry.activeCategories();
   }
 
   /**
@@ -49,4 +55,16 @@ public class CategoryService {
     return categoryRepository.findById(id)
         .orElseThrow(() -> ResourceNotFoundException.forEntity("Category", id));
   }
+
+  /**
+   * Finds a category's name by ID.
+   *
+   * @param id the category ID
+   * @return the category name
+   * @throws ResourceNotFoundException if category not found
+   */
+  public String findNameById(Long id) {
+    return categoryRegistry.findName(id)
+        .orElseThrow(() -> ResourceNotFoundException.forEntity("Category", id));
+  }
 }
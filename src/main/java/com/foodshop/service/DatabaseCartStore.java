@@ -0,0 +1,196 @@
+package com.foodshop.service;
+
+import com.foodshop.domain.Cart;
+import com.foodshop.domain.CartItem;
+import com.foodshop.dto.CartMutationResult;
+import com.foodshop.exception.ResourceNotFoundException;
+import com.foodshop.repository.CartRepository;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Cart lines stored in the {@code carts} and {@code cart_items} tables.
+ *
+ * <p>Lines are addressed by food item ID, which is unique within a cart. This is the system of
+ * record for carts; with {@link RedisCartStore} enabled it is only written by the write-behind
+ * flush and at checkout.
+ */
+@Component
+@Transactional
+public class DatabaseCartStore {
+
+  private final CartRepository cartRepository;
+
+  public DatabaseCartStore(CartRepository cartRepository) {
+    this.cartRepository = cartRepository;
+  }
+
+  /**
+   * Reads the quantities in a user's cart.
+   *
+   * @param userId the user ID
+   * @return quantities keyed by food item ID, in the order the items were added
+   */
+  @Transactional(readOnly = true)
+  public Map<Long, Integer> quantities(Long userId) {
+    return cartRepository.findQuantitiesByUserId(userId);
+  }
+
+  /**
+   * Adds a quantity of a food item to a user's cart, creating the cart or the line if needed.
+   *
+   * <p>The line is upserted in one statement without loading the cart, so concurrent adds of the
+   * same item all count.
+   *
+   * @param userId the user ID
+   * @param foodItemId the food item ID
+   * @param quantity the positive quantity to add, at most {@link CartItem#MAX_QUANTITY}
+   * @return the new quantity of the line and the cart totals after the change
+   * @throws IllegalStateException if the line would hold more than {@link CartItem#MAX_QUANTITY};
+   *     it is left unchanged
+   */
+  public CartMutationResult add(Long userId, Long foodItemId, int quantity) {
+    int lineQuantity = cartRepository.addQuantity(userId, foodItemId, quantity);
+    if (lineQuantity == 0) {
+      throw new IllegalStateException(
+          "A cart can hold at most " + CartItem.MAX_QUANTITY + " of each item");
+    }
+    return CartMutationResult.of(lineQuantity, cartRepository.sumTotalsByUserId(userId));
+  }
+
+  /**
+   * Adds quantities of several food items to a user's cart in one upsert, capping lines at {@link
+   * CartItem#MAX_QUANTITY}.
+   *
+   * @param userId the user ID
+   * @param quantities positive quantities to add, keyed by food item ID
+   */
+  public void addAll(Long userId, Map<Long, Integer> quantities) {
+    cartRepository.addQuantities(userId, quantities);
+  }
+
+  /**
+   * Sets the quantity of a line in a user's cart.
+   *
+   * @param userId the user ID
+   * @param foodItemId the food item ID of the line
+   * @param quantity the new quantity; zero or less removes the line
+   * @return the new quantity of the line (0 if it was removed) and the cart totals after the change
+   * @throws ResourceNotFoundException if the cart or the line does not exist
+   */
+  public CartMutationResult setQuantity(Long userId, Long foodItemId, int quantity) {
+    Cart cart = findCart(userId);
+    return setQuantity(cart, findItem(cart, foodItemId), quantity);
+  }
+
+  /**
+   * Sets the quantities of several lines in a user's cart in one transaction.
+   *
+   * <p>The cart row is locked, its quantities read and merged with the changes, and the result
+   * written back with {@link CartRepository#replaceItems}.
+   *
+   * @param userId the user ID
+   * @param quantities the new quantities keyed by food item ID; zero or less removes the line
+   * @return the quantities in the cart after the change, keyed by food item ID
+   * @throws ResourceNotFoundException if one of the lines does not exist; no line is changed
+   */
+  public Map<Long, Integer> setQuantities(Long userId, Map<Long, Integer> quantities) {
+    Long cartId = cartRepository.lockCart(userId);
+    Map<Long, Integer> lines = cartRepository.findQuantitiesByUserId(userId);
+    quantities.forEach(
+        (foodItemId, quantity) -> {
+          if (!lines.containsKey(foodItemId)) {
+            throw ResourceNotFoundException.forField("CartItem", "foodItemId", foodItemId);
+          }
+          if (quantity > 0) {
+            lines.put(foodItemId, quantity);
+          } else {
+            lines.remove(foodItemId);
+          }
+        });
+    cartRepository.replaceItems(cartId, lines);
+    return lines;
+  }
+
+  /**
+   * Removes a line from a user's cart.
+   *
+   * @param userId the user ID
+   * @param foodItemId the food item ID of the line
+   * @return the cart totals after the change, with a line quantity of 0
+   * @throws ResourceNotFoundException if the cart or the line does not exist
+   */
+  public CartMutationResult remove(Long userId, Long foodItemId) {
+    Cart cart = findCart(userId);
+    cart.removeItem(findItem(cart, foodItemId));
+    cartRepository.save(cart);
+    return CartMutationResult.of(0, cartRepository.sumTotalsByUserId(userId));
+  }
+
+  /**
+   * Removes all lines from a user's cart.
+   *
+   * @param userId the user ID
+   * @throws ResourceNotFoundException if the cart does not exist
+   */
+  public void clear(Long userId) {
+    Cart cart = findCart(userId);
+    cart.clear();
+    cartRepository.save(cart);
+  }
+
+  /**
+   * Counts the lines in a user's cart with a count-only query.
+   *
+   * @param userId the user ID
+   * @return the number of distinct food items
+   */
+  @Transactional(readOnly = true)
+  public int count(Long userId) {
+    return Math.toIntExact(cartRepository.countItemsByUserId(userId));
+  }
+
+  /**
+   * Overwrites a user's cart with quantities held elsewhere.
+   *
+   * <p>The cart row is locked before the quantities are read, so concurrent replacements of the
+   * same cart apply in order and the last one writes the latest quantities.
+   *
+   * @param userId the user ID
+   * @param quantities reads the quantities keyed by food item ID once the cart is locked; returns
+   *     null to leave the cart untouched
+   */
+  public void replace(Long userId, Supplier<Map<Long, Integer>> quantities) {
+    Long cartId = cartRepository.lockCart(userId);
+    Map<Long, Integer> lines = quantities.get();
+    if (lines != null) {
+      cartRepository.replaceItems(cartId, lines);
+    }
+  }
+
+  private Cart findCart(Long userId) {
+    return cartRepository.findByUserIdWithItems(userId)
+        .orElseThrow(() -> ResourceNotFoundException.forField("Cart", "userId", userId));
+  }
+
+  private static CartItem findItem(Cart cart, Long foodItemId) {
+    return cart.getItems().stream()
+        .filter(ci -> ci.getFoodItem().getId().equals(foodItemId))
+        .findFirst()
+        .orElseThrow(() -> ResourceNotFoundException.forField("CartItem", "foodItemId", foodItemId));
+  }
+
+  // The totals query flushes the saved cart first, so it sees the change
+  private CartMutationResult setQuantity(Cart cart, CartItem item, int quantity) {
+    if (quantity <= 0) {
+      cart.removeItem(item);
+    } else {
+      item.setQuantity(quantity);
+    }
+    cartRepository.save(cart);
+    return CartMutationResult.of(
+        Math.max(quantity, 0), cartRepository.sumTotalsByUserId(cart.getUser().getId()));
+  }
+}
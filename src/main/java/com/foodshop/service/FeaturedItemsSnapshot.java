@@ -0,0 +1,126 @@
+package com.foodshop.service;
+
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Precomputed list of the home page's featured (top rated) food items.
+ *
+ * <p>The home page reads an immutable list from memory instead of querying on every visit. The
+ * list is recomputed when the application is ready, after committed catalog writes (ratings are
+ * stored on the food item, so a rating change is one) and every {@code
+ * app.catalog.featured.refresh-interval}, which picks up writes made by other instances.
+ *
+ * <p>Catalog writes only mark the list stale; it is recomputed on the async executor, off the
+ * committing thread, by one refresh at a time. Writes committed while a refresh runs are all
+ * covered by a single follow-up refresh.
+ *
+ * <p>Metrics: {@code catalog.featured.snapshot.age} (seconds since the list was computed).
+ */
+@Component
+public class FeaturedItemsSnapshot {
+
+  /** Number of featured items. */
+  public static final int SIZE = 8;
+
+  /** Minimum number of ratings for an item to be featured. */
+  public static final int MIN_RATING_COUNT = 5;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FeaturedItemsSnapshot.class);
+
+  private final FoodItemService foodItemService;
+
+  // null until the first successful refresh
+  private volatile Snapshot snapshot;
+
+  // Set by catalog writes not yet covered by a refresh
+  private final AtomicBoolean stale = new AtomicBoolean();
+
+  // Held by the thread refreshing for catalog writes
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  public FeaturedItemsSnapshot(FoodItemService foodItemService, MeterRegistry meterRegistry) {
+    this.foodItemService = foodItemService;
+    Gauge.builder("catalog.featured.snapshot.age", this, FeaturedItemsSnapshot::ageSeconds)
+        .description("Seconds since the featured items were computed")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the featured items.
+   *
+   * @return unmodifiable list of the top rated item cards, best rated first
+   */
+  public List<FoodItemCardView> items() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      // Requests that arrive before the application is ready compute the first list themselves
+      refresh();
+      current = snapshot;
+    }
+    return current != null ? current.items() : List.of();
+  }
+
+  /** Recomputes the featured items and swaps the list in atomically. */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      fixedDelayString = "${app.catalog.featured.refresh-interval:PT5M}",
+      initialDelayString = "${app.catalog.featured.refresh-interval:PT5M}")
+  public synchronized void refresh() {
+    try {
+      List<FoodItemCardView> items =
+          List.copyOf(foodItemService.findTopRated(MIN_RATING_COUNT, SIZE));
+      snapshot = new Snapshot(items, System.currentTimeMillis());
+      LOGGER.debug("Recomputed {} featured items", items.size());
+    } catch (Exception e) {
+      // Keep serving the previous list until the next change or refresh
+      LOGGER.error("Failed to recompute featured items", e);
+    }
+  }
+
+  /**
+   * Marks the list stale after a committed food item or category write and recomputes it, unless
+   * a refresh for earlier writes is already running, which then recomputes once more.
+   *
+   * @param event the catalog change
+   */
+  @Async
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    stale.set(true);
+    // Re-checked after releasing, so a write marked just before the release is not left stale
+    while (stale.get() && refreshing.compareAndSet(false, true)) {
+      try {
+        while (stale.getAndSet(false)) {
+          refresh();
+        }
+      } finally {
+        refreshing.set(false);
+      }
+    }
+  }
+
+  // NaN until the first successful refresh
+  private double ageSeconds() {
+    Snapshot current = snapshot;
+    return current == null
+        ? Double.NaN
+        : (System.currentTimeMillis() - current.computedAtMillis()) / 1000.0;
+  }
+
+  private record Snapshot(List<FoodItemCardView> items, long computedAtMillis) {
+  }
+}
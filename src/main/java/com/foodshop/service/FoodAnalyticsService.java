@@ -2,11 +2,19 @@ package com.foodshop.service;
 
 import com.foodshop.domain.FoodAnalytics;
 import com.foodshop.domain.FoodItem;
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsSnapshot;
 import com.foodshop.dto.FoodAnalyticsDTO;
 import com.foodshop.repository.FoodAnalyticsRepository;
 import io.micrometer.core.annotation.Timed;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -24,9 +32,11 @@ public class FoodAnalyticsService {
   private static final Logger logger = LoggerFactory.getLogger(FoodAnalyticsService.class);
 
   private final FoodAnalyticsRepository analyticsRepository;
+  private final Clock clock;
 
-  public FoodAnalyticsService(FoodAnalyticsRepository analyticsRepository) {
+  public FoodAnalyticsService(FoodAnalyticsRepository analyticsRepository, Clock clock) {
     this.analyticsRepository = analyticsRepository;
+    this.clock = clock;
   }
 
   /**
@@ -51,6 +61,63 @@ public class FoodAnalyticsService {
     return analyticsRepository.save(analytics);
   }
 
+  /**
+   * Atomically add views to a food item's analytics record, creating it if needed.
+   *
+   * @param foodItemId the food item ID
+   * @param delta number of views to add
+   * @return false if the food item does not exist
+   */
+  @Transactional
+  public boolean incrementViewCount(Long foodItemId, long delta) {
+    return analyticsRepository.upsertViewCount(foodItemId, delta, LocalDate.now(clock)) > 0;
+  }
+
+  /**
+   * Atomically add orders to a food item's analytics record, creating it if needed.
+   *
+   * @param foodItemId the food item ID
+   * @param delta quantity ordered
+   * @return false if the food item does not exist
+   */
+  @Transactional
+  public boolean incrementOrderCount(Long foodItemId, long delta) {
+    return analyticsRepository.upsertOrderCount(foodItemId, delta, LocalDate.now(clock)) > 0;
+  }
+
+  /**
+   * Apply buffered view count deltas in one batch.
+   *
+   * @param deltas view count deltas keyed by food item ID
+   * @return number of analytics rows touched
+   */
+  @Transactional
+  public int addViewCounts(Map<Long, Long> deltas) {
+    return analyticsRepository.addViewCounts(deltas, LocalDate.now(clock));
+  }
+
+  /**
+   * Apply the ordered quantities of several food items in one statement.
+   *
+   * @param deltas ordered quantities keyed by food item ID
+   * @return number of analytics rows touched
+   */
+  @Transactional
+  public int addOrderCounts(Map<Long, Long> deltas) {
+    return analyticsRepository.addOrderCounts(deltas, LocalDate.now(clock));
+  }
+
+  /**
+   * Apply the add-to-cart quantities of several food items in one statement.
+   *
+   * @param deltas quantities added to carts keyed by food item ID
+   * @return number of analytics rows touched
+   */
+  @Transactional
+  public int addCartAddCounts(Map<Long, Long> deltas) {
+    return analyticsRepository.addCartAddCounts(deltas, LocalDate.now(clock));
+  }
+
   /**
    * Create a new FoodAnalytics record with initial counts of zero.
    *
@@ -118,6 +185,90 @@ public class FoodAnalyticsService {
     return analyticsRepository.findAllFoodAnalyticsSortedByOrdersAsc();
   }
 
+  /**
+   * Get view and order counts of all food items within a date range, from pre-aggregated buckets.
+   *
+   * @param from first day of the range (inclusive)
+   * @param to day after the range (exclusive)
+   * @return unsorted list of analytics DTOs, one per food item
+   */
+  @Timed(
+      value = "analytics.query.range",
+      description = "Time taken to query analytics for a date range")
+  @Transactional(readOnly = true)
+  public List<FoodAnalyticsDTO> findAnalyticsBetween(LocalDate from, LocalDate to) {
+    return analyticsRepository.findAnalyticsBetween(from, to);
+  }
+
+  /**
+   * Get the lifetime analytics of every food item and their totals in one query.
+   *
+   * @return snapshot sorted by views (highest first)
+   */
+  @Timed(
+      value = "analytics.query.snapshot",
+      description = "Time taken to query the analytics snapshot")
+  @Transactional(readOnly = true)
+  public AnalyticsSnapshot getAnalyticsSnapshot() {
+    return analyticsRepository.findAnalyticsSnapshot();
+  }
+
+  /**
+   * Get the analytics of every food item over a date range and their totals in one query.
+   *
+   * @param range the date range
+   * @return snapshot sorted by views (highest first)
+   */
+  @Timed(
+      value = "analytics.query.snapshot.range",
+      description = "Time taken to query the analytics snapshot for a date range")
+  @Transactional(readOnly = true)
+  public AnalyticsSnapshot getAnalyticsSnapshot(AnalyticsRange range) {
+    return analyticsRepository.findAnalyticsSnapshotBetween(range.from(), range.to());
+  }
+
+  /**
+   * Pass the analytics of every food item, in ID order, to a consumer without loading them all.
+   *
+   * <p>Rows are read through a database cursor inside this read-only transaction.
+   *
+   * @param consumer receives each row
+   */
+  @Transactional(readOnly = true)
+  public void forEachAnalytics(Consumer<FoodAnalyticsDTO> consumer) {
+    try (Stream<FoodAnalyticsDTO> rows = analyticsRepository.streamAllFoodAnalytics()) {
+      rows.forEach(consumer);
+    }
+  }
+
+  /**
+   * Roll up a month's daily buckets into monthly totals.
+   *
+   * <p>The rollup is marked complete only if the month has already ended in the application
+   * clock's zone, the same zone that dates the daily buckets.
+   *
+   * @param month the month to roll up
+   * @return number of monthly rows written
+   */
+  @Transactional
+  public int rollUpMonth(YearMonth month) {
+    boolean complete = month.isBefore(YearMonth.now(clock));
+    int rows = analyticsRepository.rollUpMonth(month, complete);
+    logger.debug("Rolled up {} analytics rows for {} (complete: {})", rows, month, complete);
+    return rows;
+  }
+
+  /**
+   * Check whether a month already has a complete rollup.
+   *
+   * @param month the month
+   * @return true if the month is rolled up and final
+   */
+  @Transactional(readOnly = true)
+  public boolean isMonthRolledUp(YearMonth month) {
+    return analyticsRepository.isMonthRolledUp(month);
+  }
+
   /**
    * Calculate total view count across all food items.
    *
@@ -0,0 +1,83 @@
+package com.foodshop.service;
+
+import com.foodshop.dto.FoodItemDetails;
+import com.foodshop.event.CatalogChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Local cache of food item detail read models keyed by food item ID.
+ *
+ * <p>Bounded by {@code app.catalog.detail-cache.max-size} entries and expired after {@code
+ * app.catalog.detail-cache.ttl}. Every committed {@link CatalogChangedEvent} evicts what it can
+ * affect: the changed item (an item or rating write) or every item of the changed category (a
+ * category write). The TTL bounds staleness from writes made by other application instances or
+ * directly in the database.
+ *
+ * <p>Metrics: the standard {@code cache.*} meters tagged {@code cache=catalog.details}.
+ */
+@Component
+public class FoodItemDetailCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FoodItemDetailCache.class);
+
+  private final Cache<Long, FoodItemDetails> details;
+
+  public FoodItemDetailCache(
+      MeterRegistry meterRegistry,
+      @Value("${app.catalog.detail-cache.max-size:5000}") long maxSize,
+      @Value("${app.catalog.detail-cache.ttl:PT10M}") Duration ttl) {
+    this.details =
+        Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, details, "catalog.details");
+  }
+
+  /**
+   * Returns the cached details of a food item, loading them on a miss.
+   *
+   * @param foodItemId the food item ID
+   * @param loader queries the details from the database
+   * @return the food item details
+   */
+  public FoodItemDetails get(Long foodItemId, Supplier<FoodItemDetails> loader) {
+    return details.get(foodItemId, ignored -> loader.get());
+  }
+
+  /**
+   * Checks whether a food item's details are cached, without counting a cache hit or miss.
+   *
+   * @param foodItemId the food item ID
+   * @return true if the details are cached
+   */
+  public boolean contains(Long foodItemId) {
+    return details.asMap().containsKey(foodItemId);
+  }
+
+  /**
+   * Evicts the details affected by a committed catalog write.
+   *
+   * <p>Also runs for writes outside a transaction.
+   *
+   * @param event the catalog change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    if (event.foodItemId() != null) {
+      details.invalidate(event.foodItemId());
+    } else {
+      details.asMap().values()
+          .removeIf(cached -> Objects.equals(event.categoryId(), cached.item().categoryId()));
+    }
+    LOGGER.debug("Evicted food item details for {}", event);
+  }
+}
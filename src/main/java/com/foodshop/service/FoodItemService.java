@@ -1,67 +1,117 @@
 package com.foodshop.service;
 
 import com.foodshop.domain.FoodItem;
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.dto.FoodItemDetails;
 import com.foodshop.exception.ResourceNotFoundException;
 import com.foodshop.repository.FoodItemRepository;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.foodshop.repository.RatingRepository;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for managing food items.
+ *
+ * <p>Catalog listings (all available items and per-category pages) are served from {@link
+ * CatalogPageCache} and detail pages from {@link FoodItemDetailCache}; searches and single-item
+ * lookups always query the database.
  */
 @Service
 @Transactional(readOnly = true)
 public class FoodItemService {
 
+  /** Number of reviews shown on a food item's detail page. */
+  public static final int LATEST_REVIEW_COUNT = 5;
+
   private final FoodItemRepository foodItemRepository;
+  private final RatingRepository ratingRepository;
+  private final CatalogPageCache catalogPageCache;
+  private final FoodItemDetailCache foodItemDetailCache;
 
-  public FoodItemService(FoodItemRepository foodItemRepository) {
+  public FoodItemService(
+      FoodItemRepository foodItemRepository,
+      RatingRepository ratingRepository,
+      CatalogPageCache catalogPageCache,
+      FoodItemDetailCache foodItemDetailCache) {
     this.foodItemRepository = foodItemRepository;
+    this.ratingRepository = ratingRepository;
+    this.catalogPageCache = catalogPageCache;
+    this.foodItemDetailCache = foodItemDetailCache;
   }
 
   /**
-   * Finds all available food items with pagination.
+   * Finds a page of available food items, ordered by name.
    *
-   * @param pageable pagination information
+   * @param cursor the position of the page, or null for the first page
+   * @param size the page size
    * @return page of food items
    */
-  public Page<FoodItem> findAllAvailable(Pageable pageable) {
-    return foodItemRepository.findAllAvailable(pageable);
+  public CatalogPage findAllAvailable(CatalogCursor cursor, int size) {
+    return catalogPageCache.get(
+        null, cursor, size, () -> foodItemRepository.findAvailablePage(null, cursor, size));
   }
 
   /**
-   * Finds food items by category with pagination.
+   * Finds a page of available food items in a category, ordered by name.
    *
    * @param categoryId the category ID
-   * @param pageable pagination information
+   * @param cursor the position of the page, or null for the first page
+   * @param size the page size
    * @return page of food items
    */
-  public Page<FoodItem> findByCategoryId(Long categoryId, Pageable pageable) {
-    return foodItemRepository.findByCategoryIdAndAvailable(categoryId, pageable);
+  public CatalogPage findByCategoryId(Long categoryId, CatalogCursor cursor, int size) {
+    return catalogPageCache.get(
+        categoryId,
+        cursor,
+        size,
+        () -> foodItemRepository.findAvailablePage(categoryId, cursor, size));
   }
 
   /**
-   * Searches food items by name or description.
+   * Searches food items by name or description using PostgreSQL full-text search.
+   *
+   * <p>Results are ranked by relevance.
    *
    * @param searchTerm the search term
-   * @param pageable pagination information
+   * @param cursor the position of the page, or null for the first page
+   * @param size the page size
    * @return page of matching food items
    */
-  public Page<FoodItem> search(String searchTerm, Pageable pageable) {
-    return foodItemRepository.searchByNameOrDescription(searchTerm, pageable);
+  public CatalogPage search(String searchTerm, CatalogCursor cursor, int size) {
+    return foodItemRepository.searchAvailablePage(searchTerm.trim(), cursor, size);
+  }
+
+  /**
+   * Passes the card of every available food item in a category, ordered by name, to a consumer
+   * without loading them all.
+   *
+   * <p>Rows are read through a database cursor inside this read-only transaction.
+   *
+   * @param categoryId the category ID
+   * @param consumer receives each card
+   */
+  public void forEachAvailableInCategory(Long categoryId, Consumer<FoodItemCardView> consumer) {
+    try (Stream<FoodItemCardView> items =
+        foodItemRepository.streamAvailableByCategoryId(categoryId)) {
+      items.forEach(consumer);
+    }
   }
 
   /**
-   * Finds top rated food items.
+   * Finds the cards of the top rated food items.
    *
    * @param minRatingCount minimum number of ratings
-   * @param pageable pagination information
-   * @return page of top rated food items
+   * @param limit maximum number of items
+   * @return top rated food item cards, best rated first
    */
-  public Page<FoodItem> findTopRated(Integer minRatingCount, Pageable pageable) {
-    return foodItemRepository.findTopRated(minRatingCount, pageable);
+  public List<FoodItemCardView> findTopRated(Integer minRatingCount, int limit) {
+    return foodItemRepository.findTopRated(minRatingCount, PageRequest.of(0, limit));
   }
 
   /**
@@ -75,4 +125,36 @@ public class FoodItemService {
     return foodItemRepository.findById(id)
         .orElseThrow(() -> ResourceNotFoundException.forEntity("FoodItem", id));
   }
+
+  /**
+   * Checks whether a food item's details are cached, without querying the database.
+   *
+   * <p>A cached item is known to exist; an item that is not cached may exist or not.
+   *
+   * @param id the food item ID
+   * @return true if the details are cached
+   */
+  public boolean isDetailCached(Long id) {
+    return foodItemDetailCache.contains(id);
+  }
+
+  /**
+   * Finds the read model of a food item's detail page.
+   *
+   * <p>On a cache miss, two queries load the item with its category and rating distribution, and
+   * its {@value #LATEST_REVIEW_COUNT} latest reviews.
+   *
+   * @param id the food item ID
+   * @return the food item details
+   * @throws ResourceNotFoundException if food item not found
+   */
+  public FoodItemDetails findDetails(Long id) {
+    return foodItemDetailCache.get(
+        id,
+        () ->
+            new FoodItemDetails(
+                foodItemRepository.findDetailById(id)
+                    .orElseThrow(() -> ResourceNotFoundException.forEntity("FoodItem", id)),
+                ratingRepository.findLatestReviews(id, PageRequest.of(0, LATEST_REVIEW_COUNT))));
+  }
 }
@@ -0,0 +1,278 @@
+package com.foodshop.service;
+
+import com.foodshop.domain.CartItem;
+import com.foodshop.exception.ResourceNotFoundException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carts of anonymous visitors, kept only in Redis.
+ *
+ * <p>Each cart is a hash {@code cart:guest:<guestId>} of quantities keyed by food item ID, created
+ * by the first add and dropped after {@code app.cart.guest.ttl} without activity. Guest carts are
+ * never written to the database; on login they are merged into the user's cart by {@link
+ * CartService#mergeGuestCart(Long, String)}. Mutations are Lua scripts that change the hash and
+ * read it back in one round trip, like those of {@link RedisCartStore}.
+ */
+@Component
+public class GuestCartStore {
+
+  static final String KEY_PREFIX = "cart:guest:";
+
+  // Script replies besides a quantity
+  static final long NOT_IN_CART = -1;
+  static final long FULL = -3;
+  static final long OVER_MAX_QUANTITY = -4;
+
+  // ARGV: operation (add, set or remove), food item ID, quantity, TTL in seconds, maximum lines.
+  // Replies with the new quantity followed by the hash fields and values after the change, or
+  // with a single NOT_IN_CART, FULL or OVER_MAX_QUANTITY (an add past the maximum, not applied).
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> MUTATE_SCRIPT =
+      RedisScript.of(
+          "local quantity "
+              + "if ARGV[1] == 'add' then "
+              + "if redis.call('HEXISTS', KEYS[1], ARGV[2]) == 0 "
+              + "and redis.call('HLEN', KEYS[1]) >= tonumber(ARGV[5]) then return {-3} end "
+              + "quantity = "
+              + "tonumber(redis.call('HGET', KEYS[1], ARGV[2]) or 0) + tonumber(ARGV[3]) "
+              + "if quantity > " + CartItem.MAX_QUANTITY + " then return {-4} end "
+              + "elseif redis.call('HEXISTS', KEYS[1], ARGV[2]) == 0 then return {-1} "
+              + "elseif ARGV[1] == 'set' then quantity = tonumber(ARGV[3]) "
+              + "else quantity = 0 end "
+              + "if quantity > 0 then redis.call('HSET', KEYS[1], ARGV[2], quantity) "
+              + "else redis.call('HDEL', KEYS[1], ARGV[2]) quantity = 0 end "
+              + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+              + "local reply = redis.call('HGETALL', KEYS[1]) "
+              + "table.insert(reply, 1, quantity) "
+              + "return reply",
+          List.class);
+
+  // ARGV: TTL in seconds, then food item ID and quantity pairs. Applies every pair or, if a line
+  // is missing, none; replies like MUTATE_SCRIPT with 0 in place of the quantity, or with
+  // NOT_IN_CART and the missing food item ID.
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> SET_QUANTITIES_SCRIPT =
+      RedisScript.of(
+          "for i = 2, #ARGV, 2 do "
+              + "if redis.call('HEXISTS', KEYS[1], ARGV[i]) == 0 then return {-1, ARGV[i]} end "
+              + "end "
+              + "for i = 2, #ARGV, 2 do "
+              + "if tonumber(ARGV[i + 1]) > 0 then redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) "
+              + "else redis.call('HDEL', KEYS[1], ARGV[i]) end "
+              + "end "
+              + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+              + "local reply = redis.call('HGETALL', KEYS[1]) "
+              + "table.insert(reply, 1, 0) "
+              + "return reply",
+          List.class);
+
+  // Reads and deletes the hash in one step, so that only one caller ever takes a cart. Replies like
+  // MUTATE_SCRIPT with 0 in place of the quantity.
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> TAKE_SCRIPT =
+      RedisScript.of(
+          "local reply = redis.call('HGETALL', KEYS[1]) "
+              + "redis.call('DEL', KEYS[1]) "
+              + "table.insert(reply, 1, 0) "
+              + "return reply",
+          List.class);
+
+  // ARGV: TTL in seconds, then food item ID and quantity pairs to add back, capping lines at the
+  // maximum
+  private static final RedisScript<Long> RESTORE_SCRIPT =
+      RedisScript.of(
+          "for i = 2, #ARGV, 2 do "
+              + "local quantity = "
+              + "tonumber(redis.call('HGET', KEYS[1], ARGV[i]) or 0) + tonumber(ARGV[i + 1]) "
+              + "redis.call('HSET', KEYS[1], ARGV[i], "
+              + "math.min(quantity, " + CartItem.MAX_QUANTITY + ")) "
+              + "end "
+              + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+              + "return 1",
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final Duration ttl;
+  private final int maxLines;
+
+  public GuestCartStore(
+      StringRedisTemplate redisTemplate,
+      @Value("${app.cart.guest.ttl:P7D}") Duration ttl,
+      @Value("${app.cart.guest.max-lines:50}") int maxLines) {
+    this.redisTemplate = redisTemplate;
+    this.ttl = ttl;
+    this.maxLines = maxLines;
+  }
+
+  /**
+   * Reads the quantities in a guest cart.
+   *
+   * @param guestId the guest ID
+   * @return quantities keyed by food item ID, in no particular order; empty if there is no cart
+   */
+  public Map<Long, Integer> quantities(String guestId) {
+    Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(guestId));
+    Map<Long, Integer> quantities = new HashMap<>();
+    entries.forEach(
+        (field, value) ->
+            quantities.put(Long.valueOf((String) field), Integer.valueOf((String) value)));
+    return quantities;
+  }
+
+  /**
+   * Counts the lines in a guest cart without reading them.
+   *
+   * @param guestId the guest ID
+   * @return the number of distinct food items
+   */
+  public int count(String guestId) {
+    Long fields = redisTemplate.opsForHash().size(key(guestId));
+    return fields != null ? fields.intValue() : 0;
+  }
+
+  /**
+   * Adds a quantity of a food item to a guest cart, creating the cart if needed.
+   *
+   * @param guestId the guest ID
+   * @param foodItemId the food item ID
+   * @param quantity the positive quantity to add
+   * @return the new quantity of the line and the cart after the change
+   * @throws IllegalStateException if the cart already holds {@code app.cart.guest.max-lines} other
+   *     lines, or the line would hold more than {@link CartItem#MAX_QUANTITY}
+   */
+  public RedisCartStore.Mutation add(String guestId, Long foodItemId, int quantity) {
+    return mutate("add", guestId, foodItemId, quantity);
+  }
+
+  /**
+   * Sets the quantity of a line in a guest cart.
+   *
+   * @param guestId the guest ID
+   * @param foodItemId the food item ID of the line
+   * @param quantity the new quantity; zero or less removes the line
+   * @return the new quantity of the line (0 if it was removed) and the cart after the change
+   * @throws ResourceNotFoundException if the line does not exist
+   */
+  public RedisCartStore.Mutation setQuantity(String guestId, Long foodItemId, int quantity) {
+    return mutate("set", guestId, foodItemId, quantity);
+  }
+
+  /**
+   * Removes a line from a guest cart.
+   *
+   * @param guestId the guest ID
+   * @param foodItemId the food item ID of the line
+   * @return the cart after the change, with a line quantity of 0
+   * @throws ResourceNotFoundException if the line does not exist
+   */
+  public RedisCartStore.Mutation remove(String guestId, Long foodItemId) {
+    return mutate("remove", guestId, foodItemId, 0);
+  }
+
+  /**
+   * Sets the quantities of several lines in a guest cart in one atomic script.
+   *
+   * @param guestId the guest ID
+   * @param quantities the new quantities keyed by food item ID; zero or less removes the line
+   * @return the quantities in the cart after the change, keyed by food item ID
+   * @throws ResourceNotFoundException if one of the lines does not exist; no line is changed
+   */
+  public Map<Long, Integer> setQuantities(String guestId, Map<Long, Integer> quantities) {
+    List<?> reply =
+        redisTemplate.execute(
+            SET_QUANTITIES_SCRIPT, List.of(key(guestId)), args(quantities).toArray());
+    if (status(reply) == NOT_IN_CART) {
+      throw ResourceNotFoundException.forField("CartItem", "foodItemId", reply.get(1));
+    }
+    return quantities(reply);
+  }
+
+  /**
+   * Removes a guest cart and returns what it held, in one atomic script.
+   *
+   * <p>Of concurrent callers taking the same cart, one gets its lines and the others an empty map,
+   * so a cart is merged at most once; an add after the take starts a new cart.
+   *
+   * @param guestId the guest ID
+   * @return the quantities the cart held, keyed by food item ID; empty if there was no cart
+   */
+  public Map<Long, Integer> take(String guestId) {
+    return quantities(redisTemplate.execute(TAKE_SCRIPT, List.of(key(guestId))));
+  }
+
+  /**
+   * Adds taken quantities back to a guest cart, after merging them failed.
+   *
+   * @param guestId the guest ID
+   * @param quantities the quantities returned by {@link #take(String)}
+   */
+  public void restore(String guestId, Map<Long, Integer> quantities) {
+    redisTemplate.execute(RESTORE_SCRIPT, List.of(key(guestId)), args(quantities).toArray());
+  }
+
+  private RedisCartStore.Mutation mutate(
+      String operation, String guestId, Long foodItemId, int quantity) {
+    List<?> reply =
+        redisTemplate.execute(
+            MUTATE_SCRIPT,
+            List.of(key(guestId)),
+            operation,
+            foodItemId.toString(),
+            Integer.toString(quantity),
+            Long.toString(ttl.toSeconds()),
+            Integer.toString(maxLines));
+    long status = status(reply);
+    if (status == NOT_IN_CART) {
+      throw ResourceNotFoundException.forField("CartItem", "foodItemId", foodItemId);
+    }
+    if (status == FULL) {
+      throw new IllegalStateException("A cart can hold at most " + maxLines + " items");
+    }
+    if (status == OVER_MAX_QUANTITY) {
+      throw new IllegalStateException(
+          "A cart can hold at most " + CartItem.MAX_QUANTITY + " of each item");
+    }
+    return new RedisCartStore.Mutation((int) status, quantities(reply));
+  }
+
+  private static long status(List<?> reply) {
+    if (reply == null || reply.isEmpty()) {
+      throw new IllegalStateException("No reply from the guest cart script");
+    }
+    return ((Number) reply.get(0)).longValue();
+  }
+
+  // The TTL followed by food item ID and quantity pairs
+  private List<String> args(Map<Long, Integer> quantities) {
+    List<String> args = new ArrayList<>(1 + 2 * quantities.size());
+    args.add(Long.toString(ttl.toSeconds()));
+    quantities.forEach(
+        (foodItemId, quantity) -> {
+          args.add(foodItemId.toString());
+          args.add(quantity.toString());
+        });
+    return args;
+  }
+
+  // The hash fields and values following the status of a successful mutation reply
+  private static Map<Long, Integer> quantities(List<?> reply) {
+    Map<Long, Integer> quantities = new HashMap<>();
+    for (int i = 1; reply != null && i + 1 < reply.size(); i += 2) {
+      quantities.put(
+          Long.valueOf((String) reply.get(i)), Integer.valueOf((String) reply.get(i + 1)));
+    }
+    return quantities;
+  }
+
+  private static String key(String guestId) {
+    return KEY_PREFIX + guestId;
+  }
+}
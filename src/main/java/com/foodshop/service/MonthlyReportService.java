@@ -3,7 +3,8 @@ package com.foodshop.service;
 import com.foodshop.domain.MonthlyReport;
 import com.foodshop.domain.ReportStatus;
 import com.foodshop.domain.User;
-import com.foodshop.dto.FoodAnalyticsDTO;
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsSnapshot;
 import com.foodshop.dto.MonthlyReportSummaryDTO;
 import com.foodshop.repository.MonthlyReportRepository;
 import java.time.LocalDate;
@@ -48,7 +49,7 @@ public class MonthlyReportService {
    *
    * <ol>
    *   <li>Check if report already sent (duplicate prevention)
-   *   <li>Fetch analytics data from dashboard service
+   *   <li>Fetch the month's view and order counts from dashboard service
    *   <li>Create report summary DTO
    *   <li>Fetch all admin users
    *   <li>Send email to all admins
@@ -73,24 +74,23 @@ public class MonthlyReportService {
     report.setStatus(ReportStatus.GENERATING);
 
     try {
-      // Fetch analytics data
-      List<FoodAnalyticsDTO> analyticsData = dashboardService.getAllAnalytics(null);
-      Long totalViews = dashboardService.getTotalViews();
-      Long totalOrders = dashboardService.getTotalOrders();
+      // Fetch the month's activity and totals from the pre-aggregated buckets in one query
+      AnalyticsSnapshot snapshot =
+          dashboardService.getSnapshotForRange(AnalyticsRange.ofMonth(reportMonth));
 
       // Create report summary
       MonthlyReportSummaryDTO summary =
           new MonthlyReportSummaryDTO(
               reportMonth,
-              analyticsData.size(),
-              totalViews,
-              totalOrders,
-              analyticsData);
+              snapshot.totalItems(),
+              snapshot.totalViews(),
+              snapshot.totalOrders(),
+              snapshot.items());
 
       // Save statistics to report
-      report.setTotalItems(analyticsData.size());
-      report.setTotalViews(totalViews);
-      report.setTotalOrders(totalOrders);
+      report.setTotalItems(snapshot.totalItems());
+      report.setTotalViews(snapshot.totalViews());
+      report.setTotalOrders(snapshot.totalOrders());
 
       // Fetch admin users
       List<User> admins = userService.findAdminUsers();
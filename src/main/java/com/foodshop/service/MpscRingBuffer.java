@@ -0,0 +1,96 @@
+package com.foodshop.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free multi-producer single-consumer ring buffer.
+ *
+ * <p>Producers claim a slot by advancing the producer index with a CAS and then publish the element
+ * into it; the single consumer takes elements in claim order and frees each slot before advancing
+ * the consumer index. A claimed slot that has not been published yet is treated as empty, so the
+ * consumer simply picks it up on its next drain. {@link #offer(Object)} never blocks: it fails when
+ * the buffer is full.
+ *
+ * @param <E> element type
+ */
+final class MpscRingBuffer<E> {
+
+  private final AtomicReferenceArray<E> slots;
+  private final int mask;
+  private final AtomicLong producerIndex = new AtomicLong();
+  // Written only by the consumer thread
+  private final AtomicLong consumerIndex = new AtomicLong();
+
+  MpscRingBuffer(int requestedCapacity) {
+    if (requestedCapacity < 1 || requestedCapacity > 1 << 30) {
+      throw new IllegalArgumentException("Invalid ring buffer capacity: " + requestedCapacity);
+    }
+    int capacity = Integer.highestOneBit(requestedCapacity);
+    if (capacity < requestedCapacity) {
+      capacity <<= 1;
+    }
+    this.slots = new AtomicReferenceArray<>(capacity);
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Adds an element if there is room. Safe to call from any number of threads.
+   *
+   * @param element the element
+   * @return false if the buffer is full
+   */
+  boolean offer(E element) {
+    if (element == null) {
+      throw new NullPointerException("element");
+    }
+    while (true) {
+      long claim = producerIndex.get();
+      if (claim - consumerIndex.get() > mask) {
+        return false;
+      }
+      if (producerIndex.compareAndSet(claim, claim + 1)) {
+        slots.setRelease((int) (claim & mask), element);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Moves up to {@code max} elements into {@code sink}. Must only be called by the consumer.
+   *
+   * @param sink receives the elements in claim order
+   * @param max maximum number of elements to move
+   * @return number of elements moved
+   */
+  int drainTo(List<E> sink, int max) {
+    long next = consumerIndex.get();
+    int drained = 0;
+    while (drained < max) {
+      int slot = (int) (next & mask);
+      E element = slots.getAcquire(slot);
+      if (element == null) {
+        break;
+      }
+      slots.setRelease(slot, null);
+      consumerIndex.setRelease(++next);
+      sink.add(element);
+      drained++;
+    }
+    return drained;
+  }
+
+  /**
+   * Returns the number of claimed slots not yet consumed (approximate while producers run).
+   *
+   * @return current size
+   */
+  int size() {
+    return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+}
@@ -47,6 +47,8 @@ public class OrderService {
    * @return the Stripe checkout session
    */
   public Session createOrder(User user) {
+    // Carts served from Redis are written behind; persist the latest lines before reading them
+    cartService.flush(user.getId());
     Cart cart = cartService.getCartWithItems(user.getId());
 
     if (cart.getItems().isEmpty()) {
@@ -0,0 +1,449 @@
+package com.foodshop.service;
+
+import com.foodshop.domain.CartItem;
+import com.foodshop.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind store of active carts in Redis.
+ *
+ * <p>Each cart is a hash {@code cart:<userId>} of quantities keyed by food item ID, loaded from
+ * {@link DatabaseCartStore} on first use and dropped after {@code app.cart.redis.ttl} without
+ * activity. A marker field keeps loaded empty carts from being reloaded. Mutations are Lua scripts
+ * that change the hash and add the user to the {@value #DIRTY_KEY} set in one round trip, without
+ * touching the database; dirty carts are copied to the database periodically by {@link
+ * #flushDirty()}, and synchronously by {@link #flush(Long)} at checkout. Once the order commits,
+ * {@link #subtract(Long, Map)} takes the purchased quantities off the cart, keeping lines added
+ * during checkout.
+ *
+ * <p>A cart whose flushes keep failing for longer than the TTL loses its unflushed changes, so the
+ * TTL should stay well above the flush interval.
+ */
+@Component
+public class RedisCartStore {
+
+  static final String KEY_PREFIX = "cart:";
+  static final String DIRTY_KEY = "cart:dirty";
+
+  // Hash field present in every loaded cart, so an empty cart still exists in Redis
+  static final String LOADED_FIELD = "_";
+
+  // Script replies besides a quantity
+  static final long NOT_IN_CART = -1;
+  static final long NOT_LOADED = -2;
+  static final long OVER_MAX_QUANTITY = -4;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RedisCartStore.class);
+
+  // ARGV: operation (add, set or remove), food item ID, quantity, TTL in seconds, user ID. Replies
+  // with the new quantity followed by the hash fields and values after the change, or with a
+  // single NOT_IN_CART, NOT_LOADED or OVER_MAX_QUANTITY (an add past the maximum, not applied).
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> MUTATE_SCRIPT =
+      RedisScript.of(
+          "if redis.call('EXISTS', KEYS[1]) == 0 then return {-2} end "
+              + "local quantity "
+              + "if ARGV[1] == 'add' then "
+              + "quantity = "
+              + "tonumber(redis.call('HGET', KEYS[1], ARGV[2]) or 0) + tonumber(ARGV[3]) "
+              + "if quantity > " + CartItem.MAX_QUANTITY + " then return {-4} end "
+              + "elseif redis.call('HEXISTS', KEYS[1], ARGV[2]) == 0 then return {-1} "
+              + "elseif ARGV[1] == 'set' then quantity = tonumber(ARGV[3]) "
+              + "else quantity = 0 end "
+              + "if quantity > 0 then redis.call('HSET', KEYS[1], ARGV[2], quantity) "
+              + "else redis.call('HDEL', KEYS[1], ARGV[2]) quantity = 0 end "
+              + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+              + "redis.call('SADD', KEYS[2], ARGV[5]) "
+              + "local reply = redis.call('HGETALL', KEYS[1]) "
+              + "table.insert(reply, 1, quantity) "
+              + "return reply",
+          List.class);
+
+  // ARGV: operation (add or set), TTL in seconds, user ID, then food item ID and quantity pairs.
+  // Adds to every line, capping it at the maximum, or sets every line; a set applies every pair or,
+  // if a line is missing, none. Replies like MUTATE_SCRIPT with 0 in place of the quantity, or with
+  // NOT_IN_CART and the missing food item ID.
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> MUTATE_BATCH_SCRIPT =
+      RedisScript.of(
+          "if redis.call('EXISTS', KEYS[1]) == 0 then return {-2} end "
+              + "if ARGV[1] == 'add' then "
+              + "for i = 4, #ARGV, 2 do "
+              + "local quantity = "
+              + "tonumber(redis.call('HGET', KEYS[1], ARGV[i]) or 0) + tonumber(ARGV[i + 1]) "
+              + "redis.call('HSET', KEYS[1], ARGV[i], "
+              + "math.min(quantity, " + CartItem.MAX_QUANTITY + ")) "
+              + "end "
+              + "else "
+              + "for i = 4, #ARGV, 2 do "
+              + "if redis.call('HEXISTS', KEYS[1], ARGV[i]) == 0 then return {-1, ARGV[i]} end "
+              + "end "
+              + "for i = 4, #ARGV, 2 do "
+              + "if tonumber(ARGV[i + 1]) > 0 then redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) "
+              + "else redis.call('HDEL', KEYS[1], ARGV[i]) end "
+              + "end "
+              + "end "
+              + "redis.call('EXPIRE', KEYS[1], ARGV[2]) "
+              + "redis.call('SADD', KEYS[2], ARGV[3]) "
+              + "local reply = redis.call('HGETALL', KEYS[1]) "
+              + "table.insert(reply, 1, 0) "
+              + "return reply",
+          List.class);
+
+  // ARGV: TTL in seconds, then food item ID and quantity pairs; never overwrites a loaded cart
+  private static final RedisScript<Long> LOAD_SCRIPT =
+      RedisScript.of(
+          "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+              + "redis.call('HSET', KEYS[1], '" + LOADED_FIELD + "', '1', unpack(ARGV, 2)) "
+              + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+              + "return 1",
+          Long.class);
+
+  // ARGV: user ID, then food item ID and quantity pairs. Takes the quantities off the lines,
+  // dropping those that reach zero, and marks the cart dirty; leaves a cart not in Redis alone.
+  private static final RedisScript<Long> SUBTRACT_SCRIPT =
+      RedisScript.of(
+          "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+              + "for i = 2, #ARGV, 2 do "
+              + "if redis.call('HINCRBY', KEYS[1], ARGV[i], -ARGV[i + 1]) <= 0 then "
+              + "redis.call('HDEL', KEYS[1], ARGV[i]) end "
+              + "end "
+              + "redis.call('SADD', KEYS[2], ARGV[1]) "
+              + "return 1",
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final DatabaseCartStore databaseCartStore;
+  private final boolean enabled;
+  private final Duration ttl;
+  private final int flushBatchSize;
+  private final Timer flushTimer;
+
+  public RedisCartStore(
+      StringRedisTemplate redisTemplate,
+      DatabaseCartStore databaseCartStore,
+      MeterRegistry meterRegistry,
+      @Value("${app.cart.redis.enabled:false}") boolean enabled,
+      @Value("${app.cart.redis.ttl:PT2H}") Duration ttl,
+      @Value("${app.cart.redis.flush-batch-size:100}") int flushBatchSize) {
+    this.redisTemplate = redisTemplate;
+    this.databaseCartStore = databaseCartStore;
+    this.enabled = enabled;
+    this.ttl = ttl;
+    this.flushBatchSize = flushBatchSize;
+    this.flushTimer =
+        Timer.builder("cart.store.flush")
+            .description("Time taken to write a cart from Redis to the database")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Whether carts should be served from this store.
+   *
+   * @return true if write-behind mode is enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Reads the quantities in a user's cart, loading the cart from the database on a miss.
+   *
+   * @param userId the user ID
+   * @return quantities keyed by food item ID, in no particular order
+   */
+  public Map<Long, Integer> quantities(Long userId) {
+    String key = key(userId);
+    Map<Long, Integer> quantities = read(key);
+    if (quantities == null) {
+      load(userId);
+      quantities = read(key);
+      return quantities != null ? quantities : Map.of();
+    }
+    redisTemplate.expire(key, ttl);
+    return quantities;
+  }
+
+  /**
+   * Adds a quantity of a food item to a user's cart.
+   *
+   * @param userId the user ID
+   * @param foodItemId the food item ID
+   * @param quantity the quantity to add
+   * @return the new quantity of the line (0 if it was removed) and the cart after the change
+   * @throws IllegalStateException if the line would hold more than {@link CartItem#MAX_QUANTITY};
+   *     it is left unchanged
+   */
+  public Mutation add(Long userId, Long foodItemId, int quantity) {
+    return mutate("add", userId, foodItemId, quantity);
+  }
+
+  /**
+   * Sets the quantity of a line in a user's cart.
+   *
+   * @param userId the user ID
+   * @param foodItemId the food item ID of the line
+   * @param quantity the new quantity; zero or less removes the line
+   * @return the new quantity of the line (0 if it was removed) and the cart after the change
+   * @throws ResourceNotFoundException if the line does not exist
+   */
+  public Mutation setQuantity(Long userId, Long foodItemId, int quantity) {
+    return mutate("set", userId, foodItemId, quantity);
+  }
+
+  /**
+   * Removes a line from a user's cart.
+   *
+   * @param userId the user ID
+   * @param foodItemId the food item ID of the line
+   * @return the cart after the change, with a line quantity of 0
+   * @throws ResourceNotFoundException if the line does not exist
+   */
+  public Mutation remove(Long userId, Long foodItemId) {
+    return mutate("remove", userId, foodItemId, 0);
+  }
+
+  /**
+   * Sets the quantities of several lines in a user's cart in one atomic script.
+   *
+   * @param userId the user ID
+   * @param quantities the new quantities keyed by food item ID; zero or less removes the line
+   * @return the quantities in the cart after the change, keyed by food item ID
+   * @throws ResourceNotFoundException if one of the lines does not exist; no line is changed
+   */
+  public Map<Long, Integer> setQuantities(Long userId, Map<Long, Integer> quantities) {
+    List<?> reply = mutateBatch("set", userId, quantities);
+    if (status(reply) == NOT_IN_CART) {
+      throw ResourceNotFoundException.forField("CartItem", "foodItemId", reply.get(1));
+    }
+    return quantities(reply);
+  }
+
+  /**
+   * Adds quantities of several food items to a user's cart in one atomic script, capping lines at
+   * {@link CartItem#MAX_QUANTITY}.
+   *
+   * @param userId the user ID
+   * @param quantities positive quantities to add, keyed by food item ID
+   */
+  public void addAll(Long userId, Map<Long, Integer> quantities) {
+    mutateBatch("add", userId, quantities);
+  }
+
+  /**
+   * Counts the lines in a user's cart without reading them.
+   *
+   * <p>A cart that is not in Redis is counted in the database, which holds it in full.
+   *
+   * @param userId the user ID
+   * @return the number of distinct food items
+   */
+  public int count(Long userId) {
+    Long fields = redisTemplate.opsForHash().size(key(userId));
+    if (fields == null || fields == 0) {
+      return databaseCartStore.count(userId);
+    }
+    return (int) (fields - 1);
+  }
+
+  /**
+   * Takes checked-out quantities off a user's cart, once the order that bought them has committed.
+   *
+   * <p>Lines added during checkout keep what was added, and the cart is marked dirty so that the
+   * next flush overwrites whatever a flush racing the checkout wrote back to the database. A cart
+   * that is not in Redis is left alone; it is reloaded from the cleared database cart.
+   *
+   * @param userId the user ID
+   * @param quantities the checked-out quantities keyed by food item ID
+   */
+  public void subtract(Long userId, Map<Long, Integer> quantities) {
+    List<String> args = new ArrayList<>(1 + 2 * quantities.size());
+    args.add(userId.toString());
+    quantities.forEach(
+        (foodItemId, quantity) -> {
+          args.add(foodItemId.toString());
+          args.add(quantity.toString());
+        });
+    redisTemplate.execute(SUBTRACT_SCRIPT, List.of(key(userId), DIRTY_KEY), args.toArray());
+  }
+
+  /**
+   * Writes a user's cart to the database, joining the current transaction if there is one.
+   *
+   * <p>Does nothing to the items if the cart is not in Redis.
+   *
+   * @param userId the user ID
+   */
+  public void flush(Long userId) {
+    databaseCartStore.replace(userId, () -> read(key(userId)));
+  }
+
+  /**
+   * Writes every dirty cart to the database.
+   *
+   * <p>Runs on a fixed delay configured by {@code app.cart.redis.flush-interval}. A cart changed
+   * during its flush is marked dirty again by the change and written on the next run; a cart that
+   * fails to flush is put back in the dirty set and retried on the next run.
+   */
+  @Scheduled(
+      fixedDelayString = "${app.cart.redis.flush-interval:PT2S}",
+      initialDelayString = "${app.cart.redis.flush-interval:PT2S}")
+  public synchronized void flushDirty() {
+    if (!enabled) {
+      return;
+    }
+
+    List<String> userIds;
+    do {
+      userIds = redisTemplate.opsForSet().pop(DIRTY_KEY, flushBatchSize);
+      if (userIds == null || userIds.isEmpty()) {
+        return;
+      }
+      List<String> failed = new ArrayList<>();
+      for (String userId : userIds) {
+        try {
+          flushTimer.record(() -> flush(Long.valueOf(userId)));
+        } catch (Exception e) {
+          LOGGER.warn("Failed to flush the cart of user {}, will retry", userId, e);
+          failed.add(userId);
+        }
+      }
+      if (!failed.isEmpty()) {
+        redisTemplate.opsForSet().add(DIRTY_KEY, failed.toArray(String[]::new));
+        return;
+      }
+      LOGGER.debug("Flushed {} carts", userIds.size());
+    } while (userIds.size() == flushBatchSize);
+  }
+
+  /**
+   * Flushes dirty carts before the application context closes.
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    if (enabled) {
+      LOGGER.info("Flushing dirty carts before shutdown");
+      flushDirty();
+    }
+  }
+
+  private Mutation mutate(String operation, Long userId, Long foodItemId, int quantity) {
+    List<?> reply =
+        runMutation(
+            MUTATE_SCRIPT,
+            userId,
+            operation,
+            foodItemId.toString(),
+            Integer.toString(quantity),
+            Long.toString(ttl.toSeconds()),
+            userId.toString());
+    long status = status(reply);
+    if (status == NOT_IN_CART) {
+      throw ResourceNotFoundException.forField("CartItem", "foodItemId", foodItemId);
+    }
+    if (status == OVER_MAX_QUANTITY) {
+      throw new IllegalStateException(
+          "A cart can hold at most " + CartItem.MAX_QUANTITY + " of each item");
+    }
+    return new Mutation((int) status, quantities(reply));
+  }
+
+  private List<?> mutateBatch(String operation, Long userId, Map<Long, Integer> quantities) {
+    List<String> args = new ArrayList<>(3 + 2 * quantities.size());
+    args.add(operation);
+    args.add(Long.toString(ttl.toSeconds()));
+    args.add(userId.toString());
+    quantities.forEach(
+        (foodItemId, quantity) -> {
+          args.add(foodItemId.toString());
+          args.add(quantity.toString());
+        });
+    return runMutation(MUTATE_BATCH_SCRIPT, userId, args.toArray());
+  }
+
+  // Runs a mutation script on the cart, loading the cart and running the script again on a miss
+  @SuppressWarnings("rawtypes")
+  private List<?> runMutation(RedisScript<List> script, Long userId, Object... args) {
+    List<String> keys = List.of(key(userId), DIRTY_KEY);
+    List<?> reply = redisTemplate.execute(script, keys, args);
+    if (status(reply) == NOT_LOADED) {
+      load(userId);
+      reply = redisTemplate.execute(script, keys, args);
+    }
+    if (status(reply) == NOT_LOADED) {
+      throw new IllegalStateException("Failed to load the cart of user " + userId);
+    }
+    return reply;
+  }
+
+  // The hash fields and values following the status of a successful mutation reply
+  private static Map<Long, Integer> quantities(List<?> reply) {
+    Map<Long, Integer> quantities = new HashMap<>();
+    for (int i = 1; i + 1 < reply.size(); i += 2) {
+      putQuantity(quantities, reply.get(i), reply.get(i + 1));
+    }
+    return quantities;
+  }
+
+  // The quantity or error code heading a mutation reply; a missing reply counts as NOT_LOADED
+  private static long status(List<?> reply) {
+    return reply == null || reply.isEmpty() ? NOT_LOADED : ((Number) reply.get(0)).longValue();
+  }
+
+  private void load(Long userId) {
+    Map<Long, Integer> quantities = databaseCartStore.quantities(userId);
+    List<String> args = new ArrayList<>(1 + 2 * quantities.size());
+    args.add(Long.toString(ttl.toSeconds()));
+    quantities.forEach(
+        (foodItemId, quantity) -> {
+          args.add(foodItemId.toString());
+          args.add(quantity.toString());
+        });
+    redisTemplate.execute(LOAD_SCRIPT, List.of(key(userId)), args.toArray());
+    LOGGER.debug("Loaded the cart of user {} with {} lines", userId, quantities.size());
+  }
+
+  // Null if the cart is not in Redis
+  private Map<Long, Integer> read(String key) {
+    Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
+    if (entries.isEmpty()) {
+      return null;
+    }
+    Map<Long, Integer> quantities = new HashMap<>();
+    entries.forEach((field, value) -> putQuantity(quantities, field, value));
+    return quantities;
+  }
+
+  private static void putQuantity(Map<Long, Integer> quantities, Object field, Object value) {
+    if (!LOADED_FIELD.equals(field)) {
+      quantities.put(Long.valueOf((String) field), Integer.valueOf((String) value));
+    }
+  }
+
+  private static String key(Long userId) {
+    return KEY_PREFIX + userId;
+  }
+
+  /**
+   * Outcome of a cart mutation, read in the same round trip as the change.
+   *
+   * @param lineQuantity the new quantity of the changed line (0 if it was removed)
+   * @param quantities the quantities in the cart after the change, keyed by food item ID
+   */
+  public record Mutation(int lineQuantity, Map<Long, Integer> quantities) {
+  }
+}
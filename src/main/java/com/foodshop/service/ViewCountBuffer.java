@@ -0,0 +1,142 @@
+package com.foodshop.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind buffer for food item view counts.
+ *
+ * <p>Views are accumulated in memory in striped counters keyed by food item ID and flushed
+ * periodically as one JDBC batch, so a burst of views on a popular item costs no database round
+ * trips on the request thread. Counters are never reset; each flush writes the difference between
+ * the counter and what has already been flushed, which keeps increments racing with a flush from
+ * being lost. A failed flush is simply retried on the next interval.
+ */
+@Component
+public class ViewCountBuffer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ViewCountBuffer.class);
+
+  private final FoodAnalyticsService foodAnalyticsService;
+  private final boolean enabled;
+  private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+  private final Timer flushTimer;
+
+  public ViewCountBuffer(
+      FoodAnalyticsService foodAnalyticsService,
+      MeterRegistry meterRegistry,
+      @Value("${app.analytics.view-buffer.enabled:false}") boolean enabled) {
+    this.foodAnalyticsService = foodAnalyticsService;
+    this.enabled = enabled;
+    this.flushTimer =
+        Timer.builder("analytics.view.buffer.flush")
+            .description("Time taken to flush buffered view counts")
+            .register(meterRegistry);
+    Gauge.builder("analytics.view.buffer.pending", this, ViewCountBuffer::pendingViews)
+        .description("View increments waiting to be flushed")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Whether view tracking should go through this buffer.
+   *
+   * @return true if write-behind mode is enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Records one view for a food item.
+   *
+   * @param foodItemId the food item ID
+   */
+  public void increment(Long foodItemId) {
+    add(foodItemId, 1);
+  }
+
+  /**
+   * Records several views for a food item.
+   *
+   * @param foodItemId the food item ID
+   * @param views number of views
+   */
+  public void add(Long foodItemId, long views) {
+    counters.computeIfAbsent(foodItemId, id -> new Counter()).views.add(views);
+  }
+
+  /**
+   * Returns the number of view increments not yet written to the database.
+   *
+   * @return pending view count across all items
+   */
+  public long pendingViews() {
+    long pending = 0;
+    for (Counter counter : counters.values()) {
+      pending += counter.views.sum() - counter.flushed;
+    }
+    return pending;
+  }
+
+  /**
+   * Writes all pending view deltas to the database.
+   *
+   * <p>Runs on a fixed delay configured by {@code app.analytics.view-buffer.flush-interval}.
+   */
+  @Scheduled(
+      fixedDelayString = "${app.analytics.view-buffer.flush-interval:PT5S}",
+      initialDelayString = "${app.analytics.view-buffer.flush-interval:PT5S}")
+  public synchronized void flush() {
+    Map<Long, Long> deltas = new HashMap<>();
+    Map<Counter, Long> snapshots = new HashMap<>();
+
+    counters.forEach(
+        (foodItemId, counter) -> {
+          long total = counter.views.sum();
+          if (total > counter.flushed) {
+            deltas.put(foodItemId, total - counter.flushed);
+            snapshots.put(counter, total);
+          }
+        });
+
+    if (deltas.isEmpty()) {
+      return;
+    }
+
+    try {
+      flushTimer.record(() -> foodAnalyticsService.addViewCounts(deltas));
+      snapshots.forEach((counter, total) -> counter.flushed = total);
+      LOGGER.debug("Flushed view counts for {} food items", deltas.size());
+    } catch (Exception e) {
+      LOGGER.warn("Failed to flush view counts for {} food items, will retry", deltas.size(), e);
+    }
+  }
+
+  /**
+   * Flushes remaining views before the application context closes.
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    LOGGER.info("Flushing {} pending views before shutdown", pendingViews());
+    flush();
+  }
+
+  /**
+   * Per-item counter; {@code flushed} is only written by the flushing thread.
+   */
+  private static final class Counter {
+    private final LongAdder views = new LongAdder();
+    private volatile long flushed;
+  }
+}
@@ -0,0 +1,148 @@
+package com.foodshop.service;
+
+import com.foodshop.event.TrackingEvent;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deduplicates food item views per session and estimates unique visitors per item in Redis.
+ *
+ * <p>Two Redis structures are kept outside the HTTP session so that Spring Session attributes stay
+ * small:
+ *
+ * <ul>
+ *   <li>{@code analytics:views:seen:<sessionId>} - set of food item IDs already counted for the
+ *       session. Small integer sets use Redis' intset encoding (a few bytes per ID), which stays
+ *       more compact than a bitmap indexed by ID once IDs grow large. Expires together with the
+ *       session.
+ *   <li>{@code analytics:views:visitors:<foodItemId>} - HyperLogLog of session IDs, giving a
+ *       unique visitor estimate (0.81% standard error, at most 12 KB per item).
+ * </ul>
+ */
+@Service
+public class ViewDedupService {
+
+  static final String SEEN_KEY_PREFIX = "analytics:views:seen:";
+  static final String VISITORS_KEY_PREFIX = "analytics:views:visitors:";
+
+  private final StringRedisTemplate redisTemplate;
+  private final Duration seenTtl;
+
+  public ViewDedupService(
+      StringRedisTemplate redisTemplate,
+      @Value("${spring.session.timeout:30m}") Duration seenTtl) {
+    this.redisTemplate = redisTemplate;
+    this.seenTtl = seenTtl;
+  }
+
+  /**
+   * Records views of food items by sessions.
+   *
+   * <p>Each visitor is always added to the item's HyperLogLog; all commands for all views go out in
+   * one pipeline.
+   *
+   * @param views view events, each carrying a session ID and a food item ID
+   * @return for each view, in order, true if it is the first view of the item in its session and
+   *     should be counted
+   */
+  public boolean[] markViewed(List<TrackingEvent> views) {
+    boolean[] firstViews = new boolean[views.size()];
+    if (views.isEmpty()) {
+      return firstViews;
+    }
+
+    List<Object> results =
+        redisTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  views.forEach(view -> markViewed(connection, view));
+                  return null;
+                });
+
+    // Three replies per view: SADD, EXPIRE, PFADD
+    for (int i = 0; i < firstViews.length; i++) {
+      firstViews[i] = results.get(3 * i) instanceof Long count && count > 0;
+    }
+    return firstViews;
+  }
+
+  /**
+   * Forgets that sessions viewed food items, so that their next views are counted again.
+   *
+   * <p>Used when first views reported by {@link #markViewed(List)} could not be counted; otherwise
+   * the marks would turn every later view of those sessions into a repeat and the views would never
+   * be counted. The unique visitor estimate keeps them. All commands go out in one pipeline.
+   *
+   * @param views view events previously reported as first views
+   */
+  public void unmarkViewed(List<TrackingEvent> views) {
+    if (views.isEmpty()) {
+      return;
+    }
+    redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              views.forEach(
+                  view ->
+                      connection.setCommands().sRem(
+                          bytes(SEEN_KEY_PREFIX + view.sessionId()),
+                          bytes(Long.toString(view.foodItemId()))));
+              return null;
+            });
+  }
+
+  /**
+   * Estimates unique visitors for the given food items.
+   *
+   * @param foodItemIds the food item IDs
+   * @return estimated unique visitors keyed by food item ID
+   */
+  public Map<Long, Long> countUniqueVisitors(Collection<Long> foodItemIds) {
+    Map<Long, Long> counts = new HashMap<>();
+    if (foodItemIds.isEmpty()) {
+      return counts;
+    }
+
+    List<Long> ids = List.copyOf(foodItemIds);
+    List<Object> results =
+        redisTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  countAll(connection, ids);
+                  return null;
+                });
+
+    for (int i = 0; i < ids.size(); i++) {
+      Object count = results.get(i);
+      counts.put(ids.get(i), count instanceof Long value ? value : 0L);
+    }
+    return counts;
+  }
+
+  private void markViewed(RedisConnection connection, TrackingEvent view) {
+    byte[] seenKey = bytes(SEEN_KEY_PREFIX + view.sessionId());
+    connection.setCommands().sAdd(seenKey, bytes(Long.toString(view.foodItemId())));
+    connection.keyCommands().expire(seenKey, seenTtl.toSeconds());
+    connection.hyperLogLogCommands()
+        .pfAdd(bytes(VISITORS_KEY_PREFIX + view.foodItemId()), bytes(view.sessionId()));
+  }
+
+  private static void countAll(RedisConnection connection, List<Long> ids) {
+    for (Long id : ids) {
+      connection.hyperLogLogCommands().pfCount(bytes(VISITORS_KEY_PREFIX + id));
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,38 @@
+-- V011: Create daily and monthly analytics bucket tables for time-windowed reports
+-- Feature: Food Analytics Dashboard and Monthly Reporting
+
+CREATE TABLE food_analytics_daily (
+    bucket_date DATE NOT NULL,
+    food_item_id BIGINT NOT NULL,
+    view_count BIGINT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_date, food_item_id),
+    CONSTRAINT fk_food_analytics_daily_food_item
+        FOREIGN KEY (food_item_id)
+        REFERENCES food_items(id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_food_analytics_daily_food_item ON food_analytics_daily(food_item_id);
+
+CREATE TABLE food_analytics_monthly (
+    bucket_month DATE NOT NULL,
+    food_item_id BIGINT NOT NULL,
+    view_count BIGINT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    complete BOOLEAN NOT NULL DEFAULT FALSE,
+    rolled_up_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (bucket_month, food_item_id),
+    CONSTRAINT fk_food_analytics_monthly_food_item
+        FOREIGN KEY (food_item_id)
+        REFERENCES food_items(id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_food_analytics_monthly_food_item ON food_analytics_monthly(food_item_id);
+
+COMMENT ON TABLE food_analytics_daily IS 'Per-day view and order counts, incremented together with food_analytics';
+COMMENT ON COLUMN food_analytics_daily.bucket_date IS 'Day the activity was recorded (database time zone)';
+COMMENT ON TABLE food_analytics_monthly IS 'Per-month totals rolled up from food_analytics_daily';
+COMMENT ON COLUMN food_analytics_monthly.bucket_month IS 'First day of the month (e.g., 2026-02-01 for February 2026)';
+COMMENT ON COLUMN food_analytics_monthly.complete IS 'True once the month had ended when it was rolled up; only complete months replace daily rows in range queries';
@@ -0,0 +1,8 @@
+-- V012: Track add-to-cart events alongside views and orders
+-- Feature: Food Analytics Dashboard and Monthly Reporting
+
+ALTER TABLE food_analytics ADD COLUMN cart_add_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE food_analytics_daily ADD COLUMN cart_add_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE food_analytics_monthly ADD COLUMN cart_add_count BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN food_analytics.cart_add_count IS 'Cumulative quantity of this food item added to carts';
@@ -0,0 +1,16 @@
+-- V013: Full-text search on a stored tsvector column
+-- Feature: Catalog search
+
+-- Name matches weigh more than description matches in ts_rank
+ALTER TABLE food_items ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', name), 'A') ||
+        setweight(to_tsvector('english', description), 'B')
+    ) STORED;
+
+CREATE INDEX idx_food_items_search_vector ON food_items USING gin(search_vector);
+
+-- Superseded: no query used the expression index, and it only slowed down writes
+DROP INDEX IF EXISTS idx_food_items_name_search;
+
+COMMENT ON COLUMN food_items.search_vector IS 'Weighted full-text document (name A, description B), maintained by PostgreSQL';
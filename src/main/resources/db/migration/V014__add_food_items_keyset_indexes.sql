@@ -0,0 +1,9 @@
+-- V014: Composite indexes for keyset pagination of the catalog
+-- Feature: Catalog browsing
+
+-- Catalog pages read available items in (name, id) order, starting after the cursor:
+--   WHERE available AND (name, id) > (:name, :id) ORDER BY name, id LIMIT :size
+-- so each page is a short range scan instead of an OFFSET scan plus COUNT(*)
+CREATE INDEX idx_food_items_available_name_id ON food_items (name, id) WHERE available = TRUE;
+
+CREATE INDEX idx_food_items_category_name_id ON food_items (category_id, name, id) WHERE available = TRUE;
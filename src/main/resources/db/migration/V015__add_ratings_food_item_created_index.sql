@@ -0,0 +1,7 @@
+-- V015: Index for the latest reviews of a food item
+-- Feature: Food item detail page
+
+-- The detail page reads the newest reviews of one item:
+--   WHERE food_item_id = :id AND review_text IS NOT NULL ORDER BY created_at DESC, id DESC LIMIT :n
+-- so it is a short index range scan instead of sorting every rating of the item
+CREATE INDEX idx_ratings_food_item_created ON ratings (food_item_id, created_at DESC, id DESC);
@@ -0,0 +1,7 @@
+-- V016: Upper bound on the quantity of a cart line
+-- Feature: Shopping cart
+
+-- Adds past CartItem.MAX_QUANTITY are rejected by the upsert, so repeated adds can no longer
+-- overflow the line; the constraint keeps every other writer within the same bound
+UPDATE cart_items SET quantity = 99 WHERE quantity > 99;
+ALTER TABLE cart_items ADD CONSTRAINT ck_cart_item_quantity_max CHECK (quantity <= 99);
@@ -1,64 +1,178 @@
 // Cart operations with AJAX
 
-async function updateQuantity(itemId, newQuantity) {
+// Quantity clicks are collected per line and sent as one PATCH /cart once they pause
+const CART_UPDATE_DELAY_MS = 400;
+// Largest quantity of a line (CartItem.MAX_QUANTITY); the server rejects more
+const MAX_LINE_QUANTITY = 99;
+
+const pendingQuantities = new Map();
+let updateTimer = null;
+// Updates are sent one at a time, so they reach the server in click order; resolves to false
+// once one of them failed
+let updateChain = Promise.resolve(true);
+
+function findLine(foodItemId) {
+    return document.querySelector(`.cart-line[data-food-item-id="${foodItemId}"]`);
+}
+
+function currentQuantity(foodItemId) {
+    if (pendingQuantities.has(foodItemId)) {
+        return pendingQuantities.get(foodItemId);
+    }
+    const input = findLine(foodItemId)?.querySelector('.line-quantity');
+    return input ? parseInt(input.value, 10) : 0;
+}
+
+function changeQuantity(foodItemId, delta) {
+    const newQuantity = currentQuantity(foodItemId) + delta;
     if (newQuantity < 1) {
-        if (!confirm('Remove this item from cart?')) {
-            return;
-        }
-        return removeItem(itemId);
+        return removeItem(foodItemId);
+    }
+    if (newQuantity > MAX_LINE_QUANTITY) {
+        return;
+    }
+    queueQuantity(foodItemId, newQuantity);
+}
+
+function removeItem(foodItemId) {
+    if (!confirm('Remove this item from cart?')) {
+        return;
+    }
+    queueQuantity(foodItemId, 0);
+}
+
+function queueQuantity(foodItemId, quantity) {
+    pendingQuantities.set(foodItemId, quantity);
+
+    const line = findLine(foodItemId);
+    if (line) {
+        line.querySelector('.line-quantity').value = quantity;
+        line.classList.toggle('opacity-50', quantity === 0);
+    }
+
+    clearTimeout(updateTimer);
+    updateTimer = setTimeout(sendPendingQuantities, CART_UPDATE_DELAY_MS);
+}
+
+// Send the collected changes; resolves to true once they, and every change before them, are saved
+function sendPendingQuantities() {
+    // After a failure the page reloads with the saved cart, so later changes are not sent
+    updateChain = updateChain.then(saved => saved && patchCart());
+    return updateChain;
+}
+
+async function patchCart() {
+    if (pendingQuantities.size === 0) {
+        return true;
     }
+    const changes = Object.fromEntries(pendingQuantities);
+    pendingQuantities.clear();
 
     try {
-        const response = await fetch(`/cart/items/${itemId}?quantity=${newQuantity}`, {
-            method: 'PUT',
-            headers: {
-                'Content-Type': 'application/x-www-form-urlencoded',
-            }
+        const response = await fetch('/cart', {
+            method: 'PATCH',
+            headers: await jsonHeaders(),
+            body: JSON.stringify(changes)
         });
 
-        const result = await response.json();
+        // Rejected changes come back as JSON with the reason
+        const result = await response.json().catch(() => null);
 
-        if (result.success) {
-            // Reload page to update cart
-            window.location.reload();
-        } else {
-            alert('Failed to update cart. Please try again.');
+        if (response.ok && result && result.success) {
+            renderCart(result);
+            return true;
         }
+        alert(result?.message || 'Failed to update cart. Please try again.');
     } catch (error) {
         console.error('Error updating cart:', error);
         alert('Failed to update cart. Please try again.');
     }
+    window.location.reload();
+    return false;
 }
 
-async function removeItem(itemId) {
-    try {
-        const response = await fetch(`/cart/items/${itemId}`, {
-            method: 'DELETE'
-        });
-
-        const result = await response.json();
+// Headers for a JSON request, with the CSRF token (see csrf.js)
+async function jsonHeaders() {
+    return {
+        'Content-Type': 'application/json',
+        ...await csrfHeader()
+    };
+}
 
-        if (result.success) {
-            // Update cart count in navbar
-            const cartBadge = document.querySelector('.navbar .badge');
-            if (cartBadge) {
-                cartBadge.textContent = result.cartItemCount;
-            }
+function renderCart(result) {
+    if (result.lines.length === 0) {
+        // Show the empty cart page
+        window.location.reload();
+        return;
+    }
 
-            // Reload page to update cart
-            window.location.reload();
-        } else {
-            alert('Failed to remove item. Please try again.');
+    const lines = new Map(result.lines.map(line => [String(line.foodItemId), line]));
+    document.querySelectorAll('.cart-line').forEach(element => {
+        const foodItemId = element.dataset.foodItemId;
+        const line = lines.get(foodItemId);
+        if (!line) {
+            element.remove();
+        } else if (!pendingQuantities.has(Number(foodItemId))) {
+            // Lines clicked again while this update was in flight keep their newer quantity
+            element.querySelector('.line-quantity').value = line.quantity;
+            element.querySelector('.line-total').textContent = formatPrice(line.lineTotal);
         }
-    } catch (error) {
-        console.error('Error removing item:', error);
-        alert('Failed to remove item. Please try again.');
+    });
+
+    document.getElementById('subtotal').textContent = formatPrice(result.subtotal);
+    document.getElementById('total').textContent = formatPrice(result.subtotal);
+    document.getElementById('itemCount').textContent = result.cartItemCount;
+
+    updateCartBadge(result.cartItemCount);
+}
+
+// Update cart count in navbar
+function updateCartBadge(count) {
+    const cartBadge = document.getElementById('cartBadge');
+    if (cartBadge) {
+        cartBadge.textContent = count;
+        cartBadge.classList.toggle('d-none', count === 0);
     }
 }
 
+function formatPrice(value) {
+    return Number(value).toFixed(2);
+}
+
+// Fetch the CSRF token now, so leaving the page does not have to wait for it
+csrfHeader();
+
+// Send changes still waiting for the debounce when leaving the page
+window.addEventListener('pagehide', function() {
+    if (pendingQuantities.size > 0) {
+        const changes = JSON.stringify(Object.fromEntries(pendingQuantities));
+        pendingQuantities.clear();
+        jsonHeaders().then(headers => fetch('/cart', {
+            method: 'PATCH',
+            headers: headers,
+            body: changes,
+            keepalive: true
+        }));
+    }
+});
+
 // Show loading state on checkout
-document.querySelector('form[action*="/orders/create"]')?.addEventListener('submit', function(e) {
+document.querySelector('form[action*="/orders/create"]')?.addEventListener('submit', async function(e) {
     const submitBtn = this.querySelector('button[type="submit"]');
+    const originalText = submitBtn.innerHTML;
     submitBtn.disabled = true;
     submitBtn.innerHTML = '<span class="spinner-border spinner-border-sm"></span> Processing...';
+
+    if (pendingQuantities.size > 0) {
+        // Check out the quantities on screen, not the ones before the last clicks
+        e.preventDefault();
+        clearTimeout(updateTimer);
+        if (await sendPendingQuantities()) {
+            this.submit();
+        } else {
+            // The cart on screen was not saved: let the shopper check the reloaded cart first
+            submitBtn.disabled = false;
+            submitBtn.innerHTML = originalText;
+        }
+    }
 });
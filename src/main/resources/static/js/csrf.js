@@ -0,0 +1,22 @@
+// CSRF header for requests sent with fetch
+
+// Catalog pages may come from a shared cache, so they never carry the session's CSRF token;
+// it is fetched once per page from the uncached /csrf endpoint instead
+let csrfHeaderRequest = null;
+
+// Resolves to the header to add to a state-changing request, or to no header if the token could
+// not be fetched (the request is then rejected and reported like any other failure)
+function csrfHeader() {
+    if (!csrfHeaderRequest) {
+        csrfHeaderRequest = fetch('/csrf', { cache: 'no-store' })
+            .then(response => response.ok ? response.json() : Promise.reject(response.status))
+            .then(csrf => ({ [csrf.headerName]: csrf.token }))
+            .catch(error => {
+                console.error('Error fetching CSRF token:', error);
+                // Try again with the next request
+                csrfHeaderRequest = null;
+                return {};
+            });
+    }
+    return csrfHeaderRequest;
+}
@@ -1,14 +1,26 @@
 package com.foodshop.controller;
 
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import com.foodshop.dto.AnalyticsCursor;
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsTotalsDTO;
 import com.foodshop.dto.FoodAnalyticsDTO;
+import com.foodshop.security.GuestCartCookie;
 import com.foodshop.service.AnalyticsDashboardService;
+import com.foodshop.service.CartService;
+import java.io.Writer;
+import java.time.LocalDate;
 import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -31,6 +43,11 @@ class AdminAnalyticsControllerTest {
 
   @MockBean private AnalyticsDashboardService dashboardService;
 
+  // Navbar badge count, added to every page by CartBadgeAdvice
+  @MockBean private CartService cartService;
+
+  @MockBean private GuestCartCookie guestCartCookie;
+
   @Test
   @DisplayName("GET /admin/analytics should return 401 for unauthenticated user")
   void testShowDashboard_Unauthenticated() throws Exception {
@@ -54,7 +71,8 @@ class AdminAnalyticsControllerTest {
             new FoodAnalyticsDTO(1L, "Pizza", "/images/pizza.jpg", 100L, 50L),
             new FoodAnalyticsDTO(2L, "Burger", "/images/burger.jpg", 80L, 40L));
 
-    when(dashboardService.getAllAnalytics(null)).thenReturn(analyticsData);
+    when(dashboardService.getAnalyticsPage(null, null, 51)).thenReturn(analyticsData);
+    when(dashboardService.getTotalItems()).thenReturn(2L);
     when(dashboardService.getTotalViews()).thenReturn(180L);
     when(dashboardService.getTotalOrders()).thenReturn(90L);
 
@@ -65,6 +83,7 @@ class AdminAnalyticsControllerTest {
         .andExpect(view().name("admin/analytics"))
         .andExpect(model().attributeExists("analyticsList"))
         .andExpect(model().attribute("analyticsList", analyticsData))
+        .andExpect(model().attribute("totalItems", 2L))
         .andExpect(model().attribute("totalViews", 180L))
         .andExpect(model().attribute("totalOrders", 90L))
         .andExpect(model().attribute("currentSort", "views_desc"));
@@ -78,7 +97,8 @@ class AdminAnalyticsControllerTest {
     List<FoodAnalyticsDTO> sortedData =
         List.of(new FoodAnalyticsDTO(2L, "Burger", "/images/burger.jpg", 80L, 40L));
 
-    when(dashboardService.getAllAnalytics("orders_desc")).thenReturn(sortedData);
+    when(dashboardService.getAnalyticsPage("orders_desc", null, 51)).thenReturn(sortedData);
+    when(dashboardService.getTotalItems()).thenReturn(1L);
     when(dashboardService.getTotalViews()).thenReturn(80L);
     when(dashboardService.getTotalOrders()).thenReturn(40L);
 
@@ -96,7 +116,7 @@ class AdminAnalyticsControllerTest {
   @WithMockUser(roles = "ADMIN")
   void testShowDashboard_EmptyList() throws Exception {
     // Given
-    when(dashboardService.getAllAnalytics(null)).thenReturn(List.of());
+    when(dashboardService.getAnalyticsPage(null, null, 51)).thenReturn(List.of());
     when(dashboardService.getTotalViews()).thenReturn(0L);
     when(dashboardService.getTotalOrders()).thenReturn(0L);
 
@@ -109,4 +129,83 @@ class AdminAnalyticsControllerTest {
         .andExpect(model().attribute("totalViews", 0L))
         .andExpect(model().attribute("totalOrders", 0L));
   }
+
+  @Test
+  @DisplayName("GET /admin/analytics with range=7d should sum the last 7 days")
+  @WithMockUser(roles = "ADMIN")
+  void testShowDashboard_LastSevenDays() throws Exception {
+    // Given
+    AnalyticsRange lastWeek = AnalyticsRange.lastDays(7, LocalDate.now());
+    List<FoodAnalyticsDTO> weekData =
+        List.of(
+            new FoodAnalyticsDTO(1L, "Pizza", "/images/pizza.jpg", 12L, 4L),
+            new FoodAnalyticsDTO(2L, "Burger", "/images/burger.jpg", 8L, 1L));
+
+    when(dashboardService.getAnalyticsPageForRange(null, lastWeek, null, 51)).thenReturn(weekData);
+    when(dashboardService.getTotalsForRange(lastWeek)).thenReturn(new AnalyticsTotalsDTO(2, 20, 5));
+
+    // When & Then
+    mockMvc
+        .perform(get("/admin/analytics").param("range", "7d").with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(view().name("admin/analytics"))
+        .andExpect(model().attribute("analyticsList", weekData))
+        .andExpect(model().attribute("totalItems", 2L))
+        .andExpect(model().attribute("totalViews", 20L))
+        .andExpect(model().attribute("totalOrders", 5L))
+        .andExpect(model().attribute("currentRange", "7d"))
+        .andExpect(model().attribute("rangeFrom", lastWeek.from()));
+  }
+
+  @Test
+  @DisplayName("GET /admin/analytics should link the next page with a keyset cursor")
+  @WithMockUser(roles = "ADMIN")
+  void testShowDashboard_NextPageCursor() throws Exception {
+    // Given - one row more than the page size means there is a next page
+    List<FoodAnalyticsDTO> pageData =
+        List.of(
+            new FoodAnalyticsDTO(7L, "Pizza", "/images/pizza.jpg", 100L, 50L),
+            new FoodAnalyticsDTO(3L, "Burger", "/images/burger.jpg", 80L, 40L),
+            new FoodAnalyticsDTO(9L, "Pasta", "/images/pasta.jpg", 60L, 30L));
+    AnalyticsCursor cursor = new AnalyticsCursor(120L, 4L);
+
+    when(dashboardService.getAnalyticsPage(null, cursor, 3)).thenReturn(pageData);
+    when(dashboardService.getTotalItems()).thenReturn(10L);
+
+    // When & Then
+    mockMvc
+        .perform(
+            get("/admin/analytics")
+                .param("limit", "2")
+                .param("after", cursor.token())
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(model().attribute("analyticsList", pageData.subList(0, 2)))
+        .andExpect(model().attribute("nextCursor", "80_3"))
+        .andExpect(model().attribute("firstPage", false));
+  }
+
+  @Test
+  @DisplayName("GET /admin/analytics/export.csv should stream a CSV attachment")
+  @WithMockUser(roles = "ADMIN")
+  void testExportCsv() throws Exception {
+    // Given
+    doAnswer(
+            invocation -> {
+              Writer writer = invocation.getArgument(0);
+              writer.write("food_item_id,food_item_name,view_count,order_count\r\n");
+              return null;
+            })
+        .when(dashboardService)
+        .exportCsv(any(Writer.class));
+
+    // When & Then
+    mockMvc
+        .perform(get("/admin/analytics/export.csv").with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/csv;charset=UTF-8"))
+        .andExpect(
+            header().string("Content-Disposition", "attachment; filename=\"food-analytics.csv\""))
+        .andExpect(content().string(startsWith("food_item_id,")));
+  }
 }
@@ -0,0 +1,86 @@
+package com.foodshop.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.emptyString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodshop.config.SecurityConfig;
+import com.foodshop.security.CustomOAuth2UserService;
+import com.foodshop.security.CustomUserDetailsService;
+import com.foodshop.security.GuestCartCookie;
+import com.foodshop.service.CartService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * MVC tests for AuthController.
+ *
+ * <p>Tests that scripts can fetch a usable CSRF token that no cache may keep.
+ */
+@WebMvcTest(AuthController.class)
+@Import(SecurityConfig.class)
+@DisplayName("AuthController MVC Tests")
+class AuthControllerTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @MockBean private CustomOAuth2UserService customOAuth2UserService;
+
+  @MockBean private CustomUserDetailsService customUserDetailsService;
+
+  // Navbar badge count, added to every page by CartBadgeAdvice
+  @MockBean private CartService cartService;
+
+  @MockBean private GuestCartCookie guestCartCookie;
+
+  @Test
+  @DisplayName("anonymous GET /csrf should return the token without letting caches store it")
+  void testCsrf_Anonymous() throws Exception {
+    mockMvc
+        .perform(get("/csrf"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.headerName").value("X-CSRF-TOKEN"))
+        .andExpect(jsonPath("$.token", not(emptyString())))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-store")))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, not(containsString("public"))));
+  }
+
+  @Test
+  @DisplayName("the token from GET /csrf should be accepted in its header for the same session")
+  void testCsrf_TokenAccepted() throws Exception {
+    // Given
+    MockHttpSession session = new MockHttpSession();
+    String body = mockMvc
+        .perform(get("/csrf").session(session))
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    JsonNode csrf = objectMapper.readTree(body);
+
+    // When & Then: logout is a POST guarded by CSRF
+    mockMvc
+        .perform(post("/logout").session(session))
+        .andExpect(status().isForbidden());
+    mockMvc
+        .perform(post("/logout")
+            .session(session)
+            .header(csrf.get("headerName").asText(), csrf.get("token").asText()))
+        .andExpect(status().is3xxRedirection());
+  }
+}
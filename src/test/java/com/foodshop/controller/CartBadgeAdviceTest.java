@@ -0,0 +1,87 @@
+package com.foodshop.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.domain.User;
+import com.foodshop.security.GuestCartCookie;
+import com.foodshop.security.UserPrincipal;
+import com.foodshop.service.CartService;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.thymeleaf.context.LazyContextVariable;
+
+/**
+ * Unit tests for CartBadgeAdvice.
+ *
+ * <p>Tests that the navbar count is only read when rendered, and from the right cart.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CartBadgeAdvice Unit Tests")
+class CartBadgeAdviceTest {
+
+  @Mock private CartService cartService;
+
+  @Mock private GuestCartCookie guestCartCookie;
+
+  @InjectMocks private CartBadgeAdvice cartBadgeAdvice;
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+  @Test
+  @DisplayName("a user's count should be read only when the badge is rendered")
+  void testCartItemCount_User() {
+    // Given
+    User user = new User();
+    user.setId(1L);
+    when(cartService.getCartItemCount(1L)).thenReturn(3);
+
+    // When
+    LazyContextVariable<Integer> count =
+        cartBadgeAdvice.cartItemCount(new UserPrincipal(user, Map.of()), request);
+
+    // Then
+    verifyNoInteractions(cartService);
+    assertEquals(3, count.getValue());
+  }
+
+  @Test
+  @DisplayName("a guest's count should be read from the guest cart named by the cookie")
+  void testCartItemCount_Guest() {
+    // Given
+    when(guestCartCookie.read(request)).thenReturn(Optional.of("guest-1"));
+    when(cartService.getGuestCartItemCount("guest-1")).thenReturn(2);
+
+    // When
+    Integer count = cartBadgeAdvice.cartItemCount(null, request).getValue();
+
+    // Then
+    assertEquals(2, count);
+  }
+
+  @Test
+  @DisplayName("a failed count should hide the badge instead of failing the page")
+  void testCartItemCount_Fails() {
+    // Given
+    when(guestCartCookie.read(request)).thenReturn(Optional.of("guest-1"));
+    when(cartService.getGuestCartItemCount("guest-1"))
+        .thenThrow(new IllegalStateException("redis down"));
+
+    // When
+    Integer count = cartBadgeAdvice.cartItemCount(null, request).getValue();
+
+    // Then
+    assertNull(count);
+    verify(cartService).getGuestCartItemCount("guest-1");
+  }
+}
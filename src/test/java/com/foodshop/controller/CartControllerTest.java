@@ -2,30 +2,48 @@ package com.foodshop.controller;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.foodshop.config.SecurityConfig;
 import com.foodshop.domain.*;
+import com.foodshop.dto.CartLineView;
+import com.foodshop.dto.CartMutationResult;
+import com.foodshop.dto.CartView;
+import com.foodshop.exception.ResourceNotFoundException;
+import com.foodshop.security.CustomOAuth2UserService;
+import com.foodshop.security.CustomUserDetailsService;
+import com.foodshop.security.GuestCartCookie;
 import com.foodshop.security.UserPrincipal;
+import com.foodshop.service.AnalyticsIngestionQueue;
 import com.foodshop.service.CartService;
 import com.foodshop.service.FoodItemService;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 /**
  * Contract tests for CartController API endpoints.
  *
  * <p>Tests verify HTTP request/response contracts for cart operations including adding items,
- * updating quantities, and removing items. Uses MockMvc for isolated controller testing.
+ * updating quantities, and removing items. Uses MockMvc for isolated controller testing, behind the
+ * application's security rules: signed-in users are {@link UserPrincipal}s, and anonymous callers
+ * use a guest cart.
  */
 @WebMvcTest(CartController.class)
+@Import(SecurityConfig.class)
 class CartControllerTest {
 
   @Autowired private MockMvc mockMvc;
@@ -34,7 +52,16 @@ class CartControllerTest {
 
   @MockBean private FoodItemService foodItemService;
 
+  @MockBean private AnalyticsIngestionQueue analyticsIngestionQueue;
+
+  @MockBean private GuestCartCookie guestCartCookie;
+
+  @MockBean private CustomOAuth2UserService customOAuth2UserService;
+
+  @MockBean private CustomUserDetailsService customUserDetailsService;
+
   private User testUser;
+  private UserPrincipal principal;
   private Cart testCart;
   private FoodItem testFoodItem;
 
@@ -44,6 +71,7 @@ class CartControllerTest {
     testUser.setId(1L);
     testUser.setEmail("test@example.com");
     testUser.setName("Test User");
+    principal = new UserPrincipal(testUser, Map.of());
 
     Category category = new Category();
     category.setId(1L);
@@ -70,50 +98,52 @@ class CartControllerTest {
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
   void viewCart_shouldReturnCartView() throws Exception {
     // Arrange
-    when(cartService.getCartWithItems(anyLong())).thenReturn(testCart);
+    when(cartService.getCart(anyLong())).thenReturn(CartView.of(List.of(
+        new CartLineView(1L, "Margherita Pizza", null, new BigDecimal("12.99"), 2))));
 
     // Act & Assert
     mockMvc
-        .perform(get("/cart"))
+        .perform(get("/cart").with(user(principal)))
         .andExpect(status().isOk())
         .andExpect(view().name("cart/view"))
         .andExpect(model().attributeExists("cart"));
 
-    verify(cartService).getCartWithItems(anyLong());
+    verify(cartService).getCart(anyLong());
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
   void addItem_shouldReturnSuccessJson() throws Exception {
     // Arrange
-    when(cartService.addItem(any(User.class), eq(1L), eq(2))).thenReturn(testCart);
-    when(cartService.getCartItemCount(anyLong())).thenReturn(4);
+    when(cartService.addItem(any(User.class), eq(1L), eq(2)))
+        .thenReturn(new CartMutationResult(2, 4, new BigDecimal("40.50")));
 
     // Act & Assert
     mockMvc
-        .perform(post("/cart/add").param("foodItemId", "1").param("quantity", "2"))
+        .perform(post("/cart/add").param("foodItemId", "1").param("quantity", "2")
+            .with(user(principal)).with(csrf()))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.success").value(true))
-        .andExpect(jsonPath("$.cartItemCount").value(4));
+        .andExpect(jsonPath("$.lineQuantity").value(2))
+        .andExpect(jsonPath("$.cartItemCount").value(4))
+        .andExpect(jsonPath("$.subtotal").value(40.50));
 
     verify(cartService).addItem(any(User.class), eq(1L), eq(2));
-    verify(cartService).getCartItemCount(anyLong());
+    verify(cartService, never()).getCartItemCount(anyLong());
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
   void addItem_shouldReturnErrorJson_whenServiceFails() throws Exception {
     // Arrange
-    when(cartService.addItem(any(User.class), eq(1L), eq(2)))
-        .thenThrow(new IllegalStateException("Item not available"));
+    doThrow(new IllegalStateException("Item not available"))
+        .when(cartService).addItem(any(User.class), eq(1L), eq(2));
 
     // Act & Assert
     mockMvc
-        .perform(post("/cart/add").param("foodItemId", "1").param("quantity", "2"))
-        .andExpect(status().isOk())
+        .perform(post("/cart/add").param("foodItemId", "1").param("quantity", "2")
+            .with(user(principal)).with(csrf()))
+        .andExpect(status().isConflict())
         .andExpect(jsonPath("$.success").value(false))
         .andExpect(jsonPath("$.message").value("Item not available"));
 
@@ -121,48 +151,120 @@ class CartControllerTest {
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
   void updateItem_shouldReturnSuccessJson() throws Exception {
     // Arrange
-    when(cartService.updateItemQuantity(anyLong(), eq(1L), eq(3))).thenReturn(testCart);
-    when(cartService.getCartItemCount(anyLong())).thenReturn(3);
+    when(cartService.updateItemQuantity(anyLong(), eq(1L), eq(3)))
+        .thenReturn(new CartMutationResult(3, 3, new BigDecimal("38.97")));
 
     // Act & Assert
     mockMvc
-        .perform(put("/cart/items/1").param("quantity", "3"))
+        .perform(put("/cart/items/1").param("quantity", "3").with(user(principal)).with(csrf()))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.success").value(true))
+        .andExpect(jsonPath("$.lineQuantity").value(3))
         .andExpect(jsonPath("$.cartItemCount").value(3));
 
     verify(cartService).updateItemQuantity(anyLong(), eq(1L), eq(3));
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
   void updateItem_shouldReturnErrorJson_whenServiceFails() throws Exception {
     // Arrange
-    when(cartService.updateItemQuantity(anyLong(), eq(1L), eq(3)))
-        .thenThrow(new IllegalStateException("Invalid quantity"));
+    doThrow(new IllegalStateException("Invalid quantity"))
+        .when(cartService).updateItemQuantity(anyLong(), eq(1L), eq(3));
 
     // Act & Assert
     mockMvc
-        .perform(put("/cart/items/1").param("quantity", "3"))
-        .andExpect(status().isOk())
+        .perform(put("/cart/items/1").param("quantity", "3").with(user(principal)).with(csrf()))
+        .andExpect(status().isConflict())
         .andExpect(jsonPath("$.success").value(false))
         .andExpect(jsonPath("$.message").value("Invalid quantity"));
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
+  void updateItems_shouldApplyBatchAndReturnTotals() throws Exception {
+    // Arrange
+    when(cartService.updateItemQuantities(anyLong(), eq(Map.of(1L, 3, 2L, 0))))
+        .thenReturn(CartView.of(List.of(
+            new CartLineView(1L, "Margherita Pizza", null, new BigDecimal("12.99"), 3))));
+
+    // Act & Assert
+    mockMvc
+        .perform(patch("/cart")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"1\": 3, \"2\": 0}")
+            .with(user(principal)).with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.success").value(true))
+        .andExpect(jsonPath("$.cartItemCount").value(1))
+        .andExpect(jsonPath("$.subtotal").value(38.97))
+        .andExpect(jsonPath("$.lines[0].foodItemId").value(1))
+        .andExpect(jsonPath("$.lines[0].quantity").value(3))
+        .andExpect(jsonPath("$.lines[0].lineTotal").value(38.97));
+
+    verify(cartService).updateItemQuantities(anyLong(), eq(Map.of(1L, 3, 2L, 0)));
+  }
+
+  @Test
+  void updateItems_shouldReturnBadRequestJson_whenBatchIsInvalid() throws Exception {
+    // Arrange
+    doThrow(new IllegalArgumentException("Every changed item needs a quantity"))
+        .when(cartService).updateItemQuantities(anyLong(), anyMap());
+
+    // Act & Assert
+    mockMvc
+        .perform(patch("/cart")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"1\": null}")
+            .with(user(principal)).with(csrf()))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.success").value(false))
+        .andExpect(jsonPath("$.message").value("Every changed item needs a quantity"));
+  }
+
+  @Test
+  void updateItems_shouldReturnBadRequestJson_whenBodyIsMalformed() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(patch("/cart")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"pizza\": 3}")
+            .with(user(principal)).with(csrf()))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.success").value(false))
+        .andExpect(jsonPath("$.message").value("Invalid cart request"));
+
+    verify(cartService, never()).updateItemQuantities(anyLong(), anyMap());
+  }
+
+  @Test
+  void updateItems_shouldReturnNotFoundJson_whenItemIsNotInCart() throws Exception {
+    // Arrange
+    doThrow(new ResourceNotFoundException("Cart item not found"))
+        .when(cartService).updateItemQuantities(anyLong(), anyMap());
+
+    // Act & Assert
+    mockMvc
+        .perform(patch("/cart")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"9\": 1}")
+            .with(user(principal)).with(csrf()))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.success").value(false))
+        .andExpect(jsonPath("$.message").value("Cart item not found"));
+  }
+
+  @Test
   void removeItem_shouldReturnSuccessJson() throws Exception {
     // Arrange
     testCart.getItems().clear();
-    when(cartService.removeItem(anyLong(), eq(1L))).thenReturn(testCart);
-    when(cartService.getCartItemCount(anyLong())).thenReturn(0);
+    when(cartService.removeItem(anyLong(), eq(1L)))
+        .thenReturn(new CartMutationResult(0, 0, BigDecimal.ZERO));
 
     // Act & Assert
     mockMvc
-        .perform(delete("/cart/items/1"))
+        .perform(delete("/cart/items/1").with(user(principal)).with(csrf()))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.success").value(true))
         .andExpect(jsonPath("$.cartItemCount").value(0));
@@ -171,50 +273,102 @@ class CartControllerTest {
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
   void removeItem_shouldReturnErrorJson_whenServiceFails() throws Exception {
     // Arrange
-    when(cartService.removeItem(anyLong(), eq(1L)))
-        .thenThrow(new IllegalStateException("Item not found"));
+    doThrow(new IllegalStateException("Item not found"))
+        .when(cartService).removeItem(anyLong(), eq(1L));
 
     // Act & Assert
     mockMvc
-        .perform(delete("/cart/items/1"))
-        .andExpect(status().isOk())
+        .perform(delete("/cart/items/1").with(user(principal)).with(csrf()))
+        .andExpect(status().isConflict())
         .andExpect(jsonPath("$.success").value(false))
         .andExpect(jsonPath("$.message").value("Item not found"));
   }
 
   @Test
-  void viewCart_shouldRedirectToLogin_whenNotAuthenticated() throws Exception {
+  void viewCart_shouldShowGuestCart_whenNotAuthenticated() throws Exception {
+    // Arrange
+    when(guestCartCookie.read(any())).thenReturn(Optional.of("guest-1"));
+    when(cartService.getGuestCart("guest-1")).thenReturn(CartView.of(List.of(
+        new CartLineView(1L, "Margherita Pizza", null, new BigDecimal("12.99"), 2))));
+
     // Act & Assert
-    mockMvc.perform(get("/cart")).andExpect(status().is3xxRedirection());
+    mockMvc
+        .perform(get("/cart"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("cart/view"))
+        .andExpect(model().attributeExists("cart"));
+
+    verify(cartService, never()).getCart(anyLong());
+    verify(guestCartCookie, never()).readOrCreate(any(), any());
   }
 
   @Test
-  void addItem_shouldReturnUnauthorized_whenNotAuthenticated() throws Exception {
+  void addItem_shouldAddToGuestCart_whenNotAuthenticated() throws Exception {
+    // Arrange
+    when(guestCartCookie.readOrCreate(any(), any())).thenReturn("guest-1");
+    when(cartService.addGuestItem("guest-1", 1L, 2))
+        .thenReturn(new CartMutationResult(2, 1, new BigDecimal("25.98")));
+
+    // Act & Assert
+    mockMvc
+        .perform(post("/cart/add").param("foodItemId", "1").param("quantity", "2").with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.success").value(true))
+        .andExpect(jsonPath("$.lineQuantity").value(2))
+        .andExpect(jsonPath("$.cartItemCount").value(1));
+
+    verify(cartService, never()).addItem(any(User.class), anyLong(), anyInt());
+  }
+
+  @Test
+  void updateItems_shouldApplyBatchToGuestCart_whenNotAuthenticated() throws Exception {
+    // Arrange
+    when(guestCartCookie.readOrCreate(any(), any())).thenReturn("guest-1");
+    when(cartService.updateGuestItemQuantities("guest-1", Map.of(1L, 0)))
+        .thenReturn(CartView.of(List.of()));
+
+    // Act & Assert
+    mockMvc
+        .perform(patch("/cart")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"1\": 0}")
+            .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.cartItemCount").value(0));
+
+    verify(cartService, never()).updateItemQuantities(anyLong(), anyMap());
+  }
+
+  @Test
+  void addItem_shouldBeRejected_withoutCsrfToken() throws Exception {
     // Act & Assert
     mockMvc
         .perform(post("/cart/add").param("foodItemId", "1").param("quantity", "2"))
-        .andExpect(status().is3xxRedirection());
+        .andExpect(status().isForbidden());
+
+    verifyNoInteractions(cartService);
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
   void addItem_shouldValidateRequiredParameters() throws Exception {
     // Act & Assert - Missing foodItemId
     mockMvc
-        .perform(post("/cart/add").param("quantity", "2"))
+        .perform(post("/cart/add").param("quantity", "2").with(user(principal)).with(csrf()))
         .andExpect(status().isBadRequest());
 
     // Act & Assert - Missing quantity
-    mockMvc.perform(post("/cart/add").param("foodItemId", "1")).andExpect(status().isBadRequest());
+    mockMvc
+        .perform(post("/cart/add").param("foodItemId", "1").with(user(principal)).with(csrf()))
+        .andExpect(status().isBadRequest());
   }
 
   @Test
-  @WithMockUser(username = "test@example.com")
   void updateItem_shouldValidateQuantityParameter() throws Exception {
     // Act & Assert - Missing quantity
-    mockMvc.perform(put("/cart/items/1")).andExpect(status().isBadRequest());
+    mockMvc
+        .perform(put("/cart/items/1").with(user(principal)).with(csrf()))
+        .andExpect(status().isBadRequest());
   }
 }
@@ -0,0 +1,168 @@
+package com.foodshop.controller;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.foodshop.config.SecurityConfig;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.exception.ResourceNotFoundException;
+import com.foodshop.security.CustomOAuth2UserService;
+import com.foodshop.security.CustomUserDetailsService;
+import com.foodshop.security.GuestCartCookie;
+import com.foodshop.service.CartService;
+import com.foodshop.service.CatalogJsonWriter;
+import com.foodshop.service.CatalogVersion;
+import com.foodshop.service.CategoryService;
+import com.foodshop.service.FoodItemService;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * MVC tests for CatalogApiController.
+ *
+ * <p>Tests sparse fieldsets, cursor pages, streamed category dumps and JSON errors.
+ */
+@WebMvcTest(CatalogApiController.class)
+@Import({SecurityConfig.class, CatalogConditionalGet.class, CatalogJsonWriter.class})
+@DisplayName("CatalogApiController MVC Tests")
+class CatalogApiControllerTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @MockBean private FoodItemService foodItemService;
+
+  @MockBean private CategoryService categoryService;
+
+  @MockBean private CatalogVersion catalogVersion;
+
+  @MockBean private CustomOAuth2UserService customOAuth2UserService;
+
+  @MockBean private CustomUserDetailsService customUserDetailsService;
+
+  // Navbar badge count, added to every page by CartBadgeAdvice
+  @MockBean private CartService cartService;
+
+  @MockBean private GuestCartCookie guestCartCookie;
+
+  @BeforeEach
+  void setUp() {
+    when(catalogVersion.current()).thenReturn(Optional.empty());
+  }
+
+  private static FoodItemCardView card(long id, String name) {
+    return new FoodItemCardView(
+        id, name, "Tasty", new BigDecimal("9.50"), null, new BigDecimal("4.20"), 3, "Pizza");
+  }
+
+  @Test
+  @DisplayName("GET /items should write only the requested fields and the cursors")
+  void testItems_SparseFieldset() throws Exception {
+    // Given
+    when(foodItemService.findAllAvailable(null, 2))
+        .thenReturn(new CatalogPage(List.of(card(1L, "Calzone"), card(2L, "Margherita")),
+            null, "next-token"));
+
+    // When & Then
+    mockMvc
+        .perform(get("/api/v1/catalog/items").param("size", "2").param("fields", "price, id"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.items", hasSize(2)))
+        .andExpect(jsonPath("$.items[0].id").value(1))
+        .andExpect(jsonPath("$.items[0].price").value(9.5))
+        .andExpect(jsonPath("$.items[0].name").doesNotExist())
+        .andExpect(jsonPath("$.items[0].summary").doesNotExist())
+        .andExpect(jsonPath("$.previousCursor").doesNotExist())
+        .andExpect(jsonPath("$.nextCursor").value("next-token"));
+  }
+
+  @Test
+  @DisplayName("an unknown field should be rejected with 400 before any query")
+  void testItems_UnknownField() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/catalog/items").param("fields", "id,secret"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.status").value(400));
+
+    verifyNoInteractions(foodItemService);
+  }
+
+  @Test
+  @DisplayName("GET /search should page through the ranked matches")
+  void testSearch() throws Exception {
+    // Given
+    when(foodItemService.search("pizza", null, 12))
+        .thenReturn(new CatalogPage(List.of(card(7L, "Pizza Diavola")), null, null));
+
+    // When & Then
+    mockMvc
+        .perform(get("/api/v1/catalog/search").param("q", "pizza"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[0].name").value("Pizza Diavola"))
+        .andExpect(jsonPath("$.items[0].categoryName").value("Pizza"));
+  }
+
+  @Test
+  @DisplayName("GET /categories/{id}/items should stream every item of the category")
+  void testCategoryItems_Streamed() throws Exception {
+    // Given
+    when(categoryService.findNameById(3L)).thenReturn("Pizza");
+    doAnswer(
+            invocation -> {
+              Consumer<FoodItemCardView> consumer = invocation.getArgument(1);
+              for (long id = 1; id <= 250; id++) {
+                consumer.accept(card(id, "Item " + id));
+              }
+              return null;
+            })
+        .when(foodItemService)
+        .forEachAvailableInCategory(eq(3L), any());
+
+    // When & Then
+    mockMvc
+        .perform(get("/api/v1/catalog/categories/3/items").param("fields", "id,name"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(250)))
+        .andExpect(jsonPath("$[249].id").value(250))
+        .andExpect(jsonPath("$[249].name").value("Item 250"))
+        .andExpect(jsonPath("$[249].price").doesNotExist());
+  }
+
+  @Test
+  @DisplayName("an unknown category should be answered with a JSON 404")
+  void testCategoryItems_UnknownCategory() throws Exception {
+    // Given
+    when(categoryService.findNameById(99L))
+        .thenThrow(new ResourceNotFoundException("Category not found with id: 99"));
+
+    // When & Then
+    mockMvc
+        .perform(get("/api/v1/catalog/categories/99/items"))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.detail").value("Category not found with id: 99"));
+
+    verify(foodItemService, never()).forEachAvailableInCategory(any(), any());
+  }
+}
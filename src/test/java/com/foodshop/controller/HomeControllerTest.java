@@ -0,0 +1,142 @@
+package com.foodshop.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import com.foodshop.config.SecurityConfig;
+import com.foodshop.security.CustomOAuth2UserService;
+import com.foodshop.security.CustomUserDetailsService;
+import com.foodshop.security.GuestCartCookie;
+import com.foodshop.service.CartService;
+import com.foodshop.service.CatalogVersion;
+import com.foodshop.service.CategoryService;
+import com.foodshop.service.FeaturedItemsSnapshot;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * MVC tests for HomeController.
+ *
+ * <p>Tests conditional GET on the catalog version for anonymous visitors, guests with a cart and
+ * signed-in visitors.
+ */
+@WebMvcTest(HomeController.class)
+@Import({SecurityConfig.class, CatalogConditionalGet.class})
+@DisplayName("HomeController MVC Tests")
+class HomeControllerTest {
+
+  private static final String ETAG = "\"1700000000000-test\"";
+
+  @Autowired private MockMvc mockMvc;
+
+  @MockBean private FeaturedItemsSnapshot featuredItemsSnapshot;
+
+  @MockBean private CategoryService categoryService;
+
+  @MockBean private CatalogVersion catalogVersion;
+
+  @MockBean private CustomOAuth2UserService customOAuth2UserService;
+
+  @MockBean private CustomUserDetailsService customUserDetailsService;
+
+  // Navbar badge count, added to every page by CartBadgeAdvice
+  @MockBean private CartService cartService;
+
+  @MockBean private GuestCartCookie guestCartCookie;
+
+  @BeforeEach
+  void setUp() {
+    when(catalogVersion.current())
+        .thenReturn(Optional.of(new CatalogVersion.Stamp(1_700_000_000_000L, "test")));
+    when(featuredItemsSnapshot.items()).thenReturn(List.of());
+    when(categoryService.findAllActive()).thenReturn(List.of());
+  }
+
+  @Test
+  @DisplayName("anonymous GET / should carry the catalog ETag and CDN caching headers")
+  void testIndex_AnonymousValidators() throws Exception {
+    mockMvc
+        .perform(get("/"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("index"))
+        .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+        .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("public")))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("s-maxage=60")));
+  }
+
+  @Test
+  @DisplayName("anonymous GET / with a matching If-None-Match should return 304 without rendering")
+  void testIndex_NotModified() throws Exception {
+    mockMvc
+        .perform(get("/").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+
+    verify(featuredItemsSnapshot, never()).items();
+    verify(categoryService, never()).findAllActive();
+  }
+
+  @Test
+  @DisplayName("GET / with a stale If-None-Match should render the page")
+  void testIndex_StaleEtag() throws Exception {
+    mockMvc
+        .perform(get("/").header(HttpHeaders.IF_NONE_MATCH, "\"1699999999999-test\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+  }
+
+  @Test
+  @DisplayName("guest GET / with a cart should always render without validators or public caching")
+  void testIndex_GuestWithCart() throws Exception {
+    // Given: the navbar badge shows this guest's cart
+    when(guestCartCookie.read(any(HttpServletRequest.class))).thenReturn(Optional.of("guest-1"));
+    when(cartService.getGuestCartItemCount("guest-1")).thenReturn(3);
+
+    // When & Then
+    mockMvc
+        .perform(get("/")
+            .cookie(new Cookie(GuestCartCookie.NAME, "guest-1.signature"))
+            .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+        .andExpect(status().isOk())
+        .andExpect(view().name("index"))
+        .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-store")))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, not(containsString("public"))));
+
+    verifyNoInteractions(catalogVersion);
+  }
+
+  @Test
+  @DisplayName("signed-in GET / should always render without validators")
+  @WithMockUser
+  void testIndex_SignedIn() throws Exception {
+    mockMvc
+        .perform(get("/").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+
+    verifyNoInteractions(catalogVersion);
+  }
+}
@@ -6,6 +6,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.foodshop.domain.*;
+import com.foodshop.security.GuestCartCookie;
+import com.foodshop.service.CartService;
 import com.foodshop.service.OrderService;
 import com.stripe.model.checkout.Session;
 import java.math.BigDecimal;
@@ -34,6 +36,11 @@ class OrderControllerTest {
 
   @MockBean private OrderService orderService;
 
+  // Navbar badge count, added to every page by CartBadgeAdvice
+  @MockBean private CartService cartService;
+
+  @MockBean private GuestCartCookie guestCartCookie;
+
   private User testUser;
   private Order testOrder;
 
@@ -0,0 +1,96 @@
+package com.foodshop.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for CatalogCursor.
+ *
+ * <p>Tests that tokens round-trip and that altered or malformed tokens are rejected instead of
+ * failing the request.
+ */
+@DisplayName("CatalogCursor Unit Tests")
+class CatalogCursorTest {
+
+  @Test
+  @DisplayName("a next-page cursor should survive encoding and parsing")
+  void testToken_After() {
+    // Given
+    CatalogCursor cursor = CatalogCursor.after("Bao", 42L);
+
+    // When
+    CatalogCursor parsed = CatalogCursor.parse(cursor.token());
+
+    // Then
+    assertEquals(cursor, parsed);
+  }
+
+  @Test
+  @DisplayName("a previous-page cursor with separators and non-ASCII text should round-trip")
+  void testToken_BeforeWithSeparators() {
+    // Given
+    CatalogCursor cursor = CatalogCursor.before("Crème brûlée: 2 pots / 5€?", 7L);
+
+    // When
+    String token = cursor.token();
+
+    // Then
+    assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    assertEquals(cursor, CatalogCursor.parse(token));
+  }
+
+  @Test
+  @DisplayName("a search rank should round-trip to the same double")
+  void testToken_Rank() {
+    // Given
+    double rank = 0.0607927106320858;
+    CatalogCursor cursor = CatalogCursor.after(Double.toString(rank), 3L);
+
+    // When
+    CatalogCursor parsed = CatalogCursor.parse(cursor.token());
+
+    // Then
+    assertEquals(rank, Double.parseDouble(parsed.sortKey()));
+  }
+
+  @Test
+  @DisplayName("a missing token should mean the first page")
+  void testParse_Missing() {
+    assertNull(CatalogCursor.parse(null));
+    assertNull(CatalogCursor.parse(""));
+  }
+
+  @Test
+  @DisplayName("a token that is not URL-safe Base64 should be rejected")
+  void testParse_NotBase64() {
+    assertNull(CatalogCursor.parse("not base64!"));
+    assertNull(CatalogCursor.parse("a%3A1"));
+  }
+
+  @Test
+  @DisplayName("a tampered token should be rejected")
+  void testParse_Tampered() {
+    // Unknown direction, missing or non-numeric ID, missing separator
+    String[] tampered = {"x42:Bao", "42:Bao", "a:Bao", "a4x2:Bao", "aBao", "b:", "a"};
+    for (String plain : tampered) {
+      assertNull(CatalogCursor.parse(encode(plain)), plain);
+    }
+  }
+
+  @Test
+  @DisplayName("a token for an ID past the range of a long should be rejected")
+  void testParse_IdOverflow() {
+    assertNull(CatalogCursor.parse(encode("a99999999999999999999:Bao")));
+  }
+
+  private static String encode(String plain) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+  }
+}
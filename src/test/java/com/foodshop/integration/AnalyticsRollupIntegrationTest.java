@@ -0,0 +1,161 @@
+package com.foodshop.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodAnalyticsRepository;
+import com.foodshop.repository.FoodItemRepository;
+import com.foodshop.service.AnalyticsTrackingService;
+import com.foodshop.service.FoodAnalyticsService;
+import io.minio.MinioClient;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Integration tests for daily analytics buckets, monthly rollups and range queries.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Analytics Rollup Integration Tests")
+class AnalyticsRollupIntegrationTest {
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16-alpine")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Container
+  static GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.data.redis.host", redis::getHost);
+    registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379).toString());
+  }
+
+  @MockBean private MinioClient minioClient;
+
+  @Autowired private AnalyticsTrackingService trackingService;
+
+  @Autowired private FoodAnalyticsService foodAnalyticsService;
+
+  @Autowired private FoodAnalyticsRepository analyticsRepository;
+
+  @Autowired private FoodItemRepository foodItemRepository;
+
+  @Autowired private CategoryRepository categoryRepository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private Clock clock;
+
+  private FoodItem item;
+
+  @BeforeEach
+  void setUp() {
+    Category category = new Category();
+    category.setName("Mains");
+    category.setActive(true);
+    category.setDisplayOrder(1);
+    category = categoryRepository.save(category);
+
+    item = new FoodItem();
+    item.setName("Ramen");
+    item.setDescription("Tonkotsu");
+    item.setPrice(new BigDecimal("12.50"));
+    item.setCategory(category);
+    item.setAvailable(true);
+    item = foodItemRepository.save(item);
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.update("DELETE FROM food_analytics_monthly");
+    jdbcTemplate.update("DELETE FROM food_analytics_daily");
+    analyticsRepository.deleteAll();
+    foodItemRepository.deleteAll();
+    categoryRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("tracking should increment today's daily bucket")
+  void testTracking_IncrementsTodaysBucket() {
+    // When
+    trackingService.incrementViewCount(item.getId());
+    trackingService.incrementViewCount(item.getId());
+    trackingService.incrementOrderCount(item.getId(), 3);
+
+    // Then
+    LocalDate today = LocalDate.now(clock);
+    FoodAnalyticsDTO todays = findItem(today, today.plusDays(1));
+    assertEquals(2L, todays.viewCount());
+    assertEquals(3L, todays.orderCount());
+  }
+
+  @Test
+  @DisplayName("range query should combine complete months with daily buckets at the edges")
+  void testRangeQuery_UsesMonthlyRollup() {
+    // Given - 10 views on each of Jan 15, Feb 10 and Mar 5
+    YearMonth february = YearMonth.of(2026, 2);
+    insertDaily(LocalDate.of(2026, 1, 15), 10);
+    insertDaily(LocalDate.of(2026, 2, 10), 10);
+    insertDaily(LocalDate.of(2026, 3, 5), 10);
+    assertFalse(foodAnalyticsService.isMonthRolledUp(february));
+
+    foodAnalyticsService.rollUpMonth(february);
+    // A stale daily bucket proves February is now served from the monthly row
+    jdbcTemplate.update("DELETE FROM food_analytics_daily WHERE bucket_date = ?",
+        Date.valueOf(LocalDate.of(2026, 2, 10)));
+
+    // When
+    FoodAnalyticsDTO range = findItem(LocalDate.of(2026, 1, 10), LocalDate.of(2026, 3, 10));
+
+    // Then
+    assertTrue(foodAnalyticsService.isMonthRolledUp(february));
+    assertEquals(30L, range.viewCount());
+  }
+
+  private FoodAnalyticsDTO findItem(LocalDate from, LocalDate to) {
+    List<FoodAnalyticsDTO> rows = foodAnalyticsService.findAnalyticsBetween(from, to);
+    return rows.stream().filter(r -> r.foodItemId().equals(item.getId())).findFirst().orElseThrow();
+  }
+
+  private void insertDaily(LocalDate day, long views) {
+    jdbcTemplate.update(
+        "INSERT INTO food_analytics_daily (bucket_date, food_item_id, view_count) VALUES (?, ?, ?)",
+        Date.valueOf(day),
+        item.getId(),
+        views);
+  }
+}
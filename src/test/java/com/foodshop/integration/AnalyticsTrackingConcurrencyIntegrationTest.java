@@ -0,0 +1,175 @@
+package com.foodshop.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodAnalytics;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodAnalyticsRepository;
+import com.foodshop.repository.FoodItemRepository;
+import com.foodshop.service.AnalyticsTrackingService;
+import io.minio.MinioClient;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Contention and batching tests for analytics tracking against a real PostgreSQL database.
+ *
+ * <p>Not transactional: every writer thread commits on its own, exactly like concurrent requests.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Analytics Tracking Concurrency Integration Tests")
+class AnalyticsTrackingConcurrencyIntegrationTest {
+
+  private static final int WRITERS = 64;
+  private static final int INCREMENTS_PER_WRITER = 50;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16-alpine")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Container
+  static GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.data.redis.host", redis::getHost);
+    registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379).toString());
+    registry.add("spring.datasource.hikari.maximum-pool-size", () -> WRITERS);
+  }
+
+  @MockBean private MinioClient minioClient;
+
+  @Autowired private AnalyticsTrackingService trackingService;
+
+  @Autowired private FoodAnalyticsRepository analyticsRepository;
+
+  @Autowired private FoodItemRepository foodItemRepository;
+
+  @Autowired private CategoryRepository categoryRepository;
+
+  private FoodItem hotItem;
+
+  @BeforeEach
+  void setUp() {
+    Category category = new Category();
+    category.setName("Promo");
+    category.setActive(true);
+    category.setDisplayOrder(1);
+    category = categoryRepository.save(category);
+
+    hotItem = new FoodItem();
+    hotItem.setName("Promo Pizza");
+    hotItem.setDescription("Everybody wants this one");
+    hotItem.setPrice(new BigDecimal("9.99"));
+    hotItem.setCategory(category);
+    hotItem.setAvailable(true);
+    hotItem = foodItemRepository.save(hotItem);
+  }
+
+  @AfterEach
+  void tearDown() {
+    analyticsRepository.deleteAll();
+    foodItemRepository.deleteAll();
+    categoryRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("64 concurrent view writers on one item should lose no updates")
+  void testConcurrentViewIncrements_NoLostUpdates() throws Exception {
+    // When
+    runConcurrently(() -> trackingService.incrementViewCount(hotItem.getId()));
+
+    // Then
+    FoodAnalytics analytics = analyticsRepository.findByFoodItemId(hotItem.getId()).orElseThrow();
+    assertEquals((long) WRITERS * INCREMENTS_PER_WRITER, analytics.getViewCount());
+    assertEquals(0L, analytics.getOrderCount());
+  }
+
+  @Test
+  @DisplayName("64 concurrent order writers on one item should lose no updates")
+  void testConcurrentOrderIncrements_NoLostUpdates() throws Exception {
+    // When
+    runConcurrently(() -> trackingService.incrementOrderCount(hotItem.getId(), 2));
+
+    // Then
+    FoodAnalytics analytics = analyticsRepository.findByFoodItemId(hotItem.getId()).orElseThrow();
+    assertEquals(2L * WRITERS * INCREMENTS_PER_WRITER, analytics.getOrderCount());
+  }
+
+  @Test
+  @DisplayName("batched order counts should upsert existing items and skip missing ones")
+  void testIncrementOrderCounts_Batch() {
+    // Given
+    trackingService.incrementOrderCount(hotItem.getId(), 1);
+
+    // When
+    int touched = trackingService.incrementOrderCounts(Map.of(hotItem.getId(), 4L, -1L, 2L));
+
+    // Then
+    assertEquals(1, touched);
+    FoodAnalytics analytics = analyticsRepository.findByFoodItemId(hotItem.getId()).orElseThrow();
+    assertEquals(5L, analytics.getOrderCount());
+  }
+
+  /**
+   * Starts all writers at the same moment (the analytics row does not exist yet, so the first
+   * writers also race on the insert) and fails if any increment throws.
+   */
+  private void runConcurrently(Runnable increment) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int i = 0; i < WRITERS; i++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                for (int j = 0; j < INCREMENTS_PER_WRITER; j++) {
+                  increment.run();
+                }
+                return null;
+              }));
+    }
+
+    start.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "writers did not finish in time");
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.foodshop.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.domain.User;
+import com.foodshop.repository.CartRepository;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodItemRepository;
+import com.foodshop.repository.UserRepository;
+import com.foodshop.service.CartService;
+import io.minio.MinioClient;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Contention tests for adding to a database cart against a real PostgreSQL database.
+ *
+ * <p>Not transactional: every writer thread commits on its own, exactly like concurrent requests.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Cart Concurrency Integration Tests")
+class CartConcurrencyIntegrationTest {
+
+  private static final int WRITERS = 32;
+  private static final int ADDS_PER_WRITER = 20;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16-alpine")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Container
+  static GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.data.redis.host", redis::getHost);
+    registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379).toString());
+    registry.add("spring.datasource.hikari.maximum-pool-size", () -> WRITERS);
+    registry.add("app.cart.redis.enabled", () -> "false");
+  }
+
+  @MockBean private MinioClient minioClient;
+
+  @Autowired private CartService cartService;
+
+  @Autowired private CartRepository cartRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private FoodItemRepository foodItemRepository;
+
+  @Autowired private CategoryRepository categoryRepository;
+
+  private User user;
+  private FoodItem firstItem;
+  private FoodItem secondItem;
+
+  @BeforeEach
+  void setUp() {
+    user = new User();
+    user.setEmail("shopper@example.com");
+    user.setName("Shopper");
+    user.setRole(User.UserRole.CUSTOMER);
+    user.setProvider(User.OAuthProvider.GOOGLE);
+    user.setExternalId("google-shopper");
+    user = userRepository.save(user);
+
+    Category category = new Category();
+    category.setName("Promo");
+    category.setActive(true);
+    category.setDisplayOrder(1);
+    category = categoryRepository.save(category);
+
+    firstItem = foodItem(category, "Promo Pizza");
+    secondItem = foodItem(category, "Promo Calzone");
+  }
+
+  @AfterEach
+  void tearDown() {
+    cartRepository.deleteAll();
+    foodItemRepository.deleteAll();
+    categoryRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("32 concurrent adds of the same item to a new cart should neither fail nor be lost")
+  void testConcurrentAdds_SameItem() throws Exception {
+    // When
+    runConcurrently(writer -> cartService.addItem(user, firstItem.getId(), 1));
+
+    // Then
+    assertEquals(
+        Map.of(firstItem.getId(), WRITERS * ADDS_PER_WRITER),
+        cartRepository.findQuantitiesByUserId(user.getId()));
+  }
+
+  @Test
+  @DisplayName("concurrent adds of two items to a new cart should create one cart with both lines")
+  void testConcurrentAdds_TwoItems() throws Exception {
+    // When
+    runConcurrently(
+        writer ->
+            cartService.addItem(user, (writer % 2 == 0 ? firstItem : secondItem).getId(), 2));
+
+    // Then
+    assertEquals(1, cartRepository.count());
+    int perItem = WRITERS / 2 * ADDS_PER_WRITER * 2;
+    assertEquals(
+        Map.of(firstItem.getId(), perItem, secondItem.getId(), perItem),
+        cartRepository.findQuantitiesByUserId(user.getId()));
+    assertEquals(2, cartService.getCartItemCount(user.getId()));
+  }
+
+  private FoodItem foodItem(Category category, String name) {
+    FoodItem item = new FoodItem();
+    item.setName(name);
+    item.setDescription("Everybody wants this one");
+    item.setPrice(new BigDecimal("9.99"));
+    item.setCategory(category);
+    item.setAvailable(true);
+    return foodItemRepository.save(item);
+  }
+
+  /**
+   * Starts all writers at the same moment (the cart does not exist yet, so the first writers also
+   * race on creating it) and fails if any add throws.
+   */
+  private void runConcurrently(IntConsumer add) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int i = 0; i < WRITERS; i++) {
+      int writer = i;
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                for (int j = 0; j < ADDS_PER_WRITER; j++) {
+                  add.accept(writer);
+                }
+                return null;
+              }));
+    }
+
+    start.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "writers did not finish in time");
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+}
@@ -3,6 +3,8 @@ package com.foodshop.integration;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.foodshop.domain.*;
+import com.foodshop.dto.CartMutationResult;
+import com.foodshop.dto.CartView;
 import com.foodshop.repository.*;
 import com.foodshop.service.CartService;
 import com.foodshop.service.FoodItemService;
@@ -103,36 +105,35 @@ class CartIntegrationTest {
   }
 
   @Test
-  void shouldCreateCartForNewUser() {
+  void shouldReturnEmptyCartForNewUser() {
     // Act
-    Cart cart = cartService.getOrCreateCart(testUser);
+    CartView cart = cartService.getCart(testUser.getId());
 
     // Assert
-    assertNotNull(cart);
-    assertNotNull(cart.getId());
-    assertEquals(testUser.getId(), cart.getUser().getId());
-    assertTrue(cart.getItems().isEmpty());
+    assertTrue(cart.isEmpty());
+    assertTrue(cartRepository.findByUserId(testUser.getId()).isEmpty());
   }
 
   @Test
-  void shouldReturnExistingCartForUser() {
-    // Arrange
-    Cart firstCart = cartService.getOrCreateCart(testUser);
-
+  void shouldCreateCartOnFirstAdd() {
     // Act
-    Cart secondCart = cartService.getOrCreateCart(testUser);
+    cartService.addItem(testUser, testFoodItem.getId(), 1);
+    cartService.addItem(testUser, testFoodItem.getId(), 1);
 
     // Assert
-    assertEquals(firstCart.getId(), secondCart.getId());
+    Cart cart = cartService.getCartWithItems(testUser.getId());
+    assertNotNull(cart.getId());
+    assertEquals(testUser.getId(), cart.getUser().getId());
+    assertEquals(1, cartRepository.count());
   }
 
   @Test
   void shouldAddItemToCart() {
     // Act
-    Cart cart = cartService.addItem(testUser, testFoodItem.getId(), 2);
+    cartService.addItem(testUser, testFoodItem.getId(), 2);
 
     // Assert
-    assertNotNull(cart);
+    Cart cart = cartService.getCartWithItems(testUser.getId());
     assertEquals(1, cart.getItems().size());
     CartItem item = cart.getItems().get(0);
     assertEquals(testFoodItem.getId(), item.getFoodItem().getId());
@@ -145,9 +146,10 @@ class CartIntegrationTest {
     cartService.addItem(testUser, testFoodItem.getId(), 2);
 
     // Act
-    Cart cart = cartService.addItem(testUser, testFoodItem.getId(), 3);
+    cartService.addItem(testUser, testFoodItem.getId(), 3);
 
     // Assert
+    Cart cart = cartService.getCartWithItems(testUser.getId());
     assertEquals(1, cart.getItems().size());
     CartItem item = cart.getItems().get(0);
     assertEquals(5, item.getQuantity()); // 2 + 3
@@ -157,13 +159,12 @@ class CartIntegrationTest {
   void shouldUpdateItemQuantity() {
     // Arrange
     cartService.addItem(testUser, testFoodItem.getId(), 2);
-    Cart cart = cartService.getCartWithItems(testUser.getId());
-    Long itemId = cart.getItems().get(0).getId();
 
     // Act
-    Cart updatedCart = cartService.updateItemQuantity(testUser.getId(), itemId, 5);
+    cartService.updateItemQuantity(testUser.getId(), testFoodItem.getId(), 5);
 
     // Assert
+    Cart updatedCart = cartService.getCartWithItems(testUser.getId());
     assertEquals(1, updatedCart.getItems().size());
     assertEquals(5, updatedCart.getItems().get(0).getQuantity());
   }
@@ -172,28 +173,24 @@ class CartIntegrationTest {
   void shouldRemoveItemWhenQuantitySetToZero() {
     // Arrange
     cartService.addItem(testUser, testFoodItem.getId(), 2);
-    Cart cart = cartService.getCartWithItems(testUser.getId());
-    Long itemId = cart.getItems().get(0).getId();
 
     // Act
-    Cart updatedCart = cartService.updateItemQuantity(testUser.getId(), itemId, 0);
+    cartService.updateItemQuantity(testUser.getId(), testFoodItem.getId(), 0);
 
     // Assert
-    assertTrue(updatedCart.getItems().isEmpty());
+    assertTrue(cartService.getCartWithItems(testUser.getId()).getItems().isEmpty());
   }
 
   @Test
   void shouldRemoveItemFromCart() {
     // Arrange
     cartService.addItem(testUser, testFoodItem.getId(), 2);
-    Cart cart = cartService.getCartWithItems(testUser.getId());
-    Long itemId = cart.getItems().get(0).getId();
 
     // Act
-    Cart updatedCart = cartService.removeItem(testUser.getId(), itemId);
+    cartService.removeItem(testUser.getId(), testFoodItem.getId());
 
     // Assert
-    assertTrue(updatedCart.getItems().isEmpty());
+    assertTrue(cartService.getCartWithItems(testUser.getId()).getItems().isEmpty());
   }
 
   @Test
@@ -221,6 +218,20 @@ class CartIntegrationTest {
     assertEquals(3, count);
   }
 
+  @Test
+  void shouldReturnCartTotalsFromMutations() {
+    // Act
+    cartService.addItem(testUser, testFoodItem.getId(), 1);
+    CartMutationResult added = cartService.addItem(testUser, testFoodItem.getId(), 2);
+    CartMutationResult removed = cartService.removeItem(testUser.getId(), testFoodItem.getId());
+
+    // Assert
+    assertEquals(new CartMutationResult(3, 1, new BigDecimal("32.97")), added);
+    assertEquals(0, removed.lineQuantity());
+    assertEquals(0, removed.itemCount());
+    assertEquals(0, removed.subtotal().signum());
+  }
+
   @Test
   void shouldPersistCartAcrossSessions() {
     // Arrange
@@ -251,10 +262,12 @@ class CartIntegrationTest {
 
     // Act
     cartService.addItem(testUser, testFoodItem.getId(), 2);
-    Cart cart = cartService.addItem(testUser, secondItem.getId(), 1);
+    cartService.addItem(testUser, secondItem.getId(), 1);
 
     // Assert
-    assertEquals(2, cart.getItems().size());
+    CartView cart = cartService.getCart(testUser.getId());
+    assertEquals(2, cart.itemCount());
+    assertEquals(new BigDecimal("37.97"), cart.subtotal()); // 2 x 10.99 + 15.99
     int totalCount = cartService.getCartItemCount(testUser.getId());
     assertEquals(3, totalCount); // 2 + 1
   }
@@ -0,0 +1,290 @@
+package com.foodshop.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.domain.Order;
+import com.foodshop.domain.User;
+import com.foodshop.dto.CartMutationResult;
+import com.foodshop.dto.CartView;
+import com.foodshop.repository.CartRepository;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodItemRepository;
+import com.foodshop.repository.OrderRepository;
+import com.foodshop.repository.UserRepository;
+import com.foodshop.service.CartService;
+import com.foodshop.service.EmailService;
+import com.foodshop.service.OrderService;
+import com.foodshop.service.PaymentService;
+import com.foodshop.service.RedisCartStore;
+import com.stripe.model.checkout.Session;
+import io.minio.MinioClient;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Integration tests for write-behind carts against real Redis and PostgreSQL.
+ *
+ * <p>Runs the load, mutation and subtract scripts on Redis, and lets the scheduled flush write
+ * dirty carts to the database on a short interval. Not transactional, so checkout commits and its
+ * after-commit work runs as in production.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Cart Write-Behind Integration Tests")
+class CartWriteBehindIntegrationTest {
+
+  private static final String DIRTY_KEY = "cart:dirty";
+  private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16-alpine")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Container
+  static GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.data.redis.host", redis::getHost);
+    registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379).toString());
+    registry.add("app.cart.redis.enabled", () -> "true");
+    registry.add("app.cart.redis.flush-interval", () -> "PT0.2S");
+  }
+
+  @MockBean private MinioClient minioClient;
+
+  @MockBean private PaymentService paymentService;
+
+  @MockBean private EmailService emailService;
+
+  @Autowired private CartService cartService;
+
+  @Autowired private OrderService orderService;
+
+  @Autowired private RedisCartStore redisCartStore;
+
+  @Autowired private StringRedisTemplate redisTemplate;
+
+  @Autowired private CartRepository cartRepository;
+
+  @Autowired private OrderRepository orderRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private FoodItemRepository foodItemRepository;
+
+  @Autowired private CategoryRepository categoryRepository;
+
+  private User user;
+  private FoodItem pizza;
+  private FoodItem salad;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    user = new User();
+    user.setEmail("writer@example.com");
+    user.setName("Writer");
+    user.setRole(User.UserRole.CUSTOMER);
+    user.setProvider(User.OAuthProvider.GOOGLE);
+    user.setExternalId("google-writer");
+    user = userRepository.save(user);
+
+    Category category = new Category();
+    category.setName("Mains");
+    category.setActive(true);
+    category.setDisplayOrder(1);
+    category = categoryRepository.save(category);
+
+    pizza = foodItem(category, "Margherita", "12.50");
+    salad = foodItem(category, "Caesar Salad", "8.00");
+
+    Session session = mock(Session.class);
+    when(session.getId()).thenReturn("cs_write_behind");
+    when(paymentService.createCheckoutSession(anyLong(), anyLong(), anyString()))
+        .thenReturn(session);
+  }
+
+  @AfterEach
+  void tearDown() {
+    Set<String> keys = redisTemplate.keys("cart:*");
+    if (keys != null && !keys.isEmpty()) {
+      redisTemplate.delete(keys);
+    }
+    orderRepository.deleteAll();
+    cartRepository.deleteAll();
+    foodItemRepository.deleteAll();
+    categoryRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("a cart missing from Redis should be loaded from the database on first read")
+  void testLoadOnMiss() {
+    // Given
+    cartRepository.addQuantity(user.getId(), pizza.getId(), 3);
+
+    // When
+    CartView cart = cartService.getCart(user.getId());
+
+    // Then
+    assertEquals(1, cart.lines().size());
+    assertEquals(3, cart.lines().get(0).quantity());
+    assertEquals(Map.of("_", "1", pizza.getId().toString(), "3"), hash());
+  }
+
+  @Test
+  @DisplayName("add, set and remove should change the Redis hash and report the new totals")
+  void testMutations() {
+    // When
+    CartMutationResult added = cartService.addItem(user, pizza.getId(), 2);
+    cartService.addItem(user, salad.getId(), 1);
+    CartMutationResult updated = cartService.updateItemQuantity(user.getId(), pizza.getId(), 5);
+    CartMutationResult removed = cartService.removeItem(user.getId(), salad.getId());
+
+    // Then
+    assertEquals(new CartMutationResult(2, 1, new BigDecimal("25.00")), added);
+    assertEquals(new CartMutationResult(5, 2, new BigDecimal("70.50")), updated);
+    assertEquals(new CartMutationResult(0, 1, new BigDecimal("62.50")), removed);
+    assertEquals(Map.of("_", "1", pizza.getId().toString(), "5"), hash());
+    assertEquals(1, cartService.getCartItemCount(user.getId()));
+  }
+
+  @Test
+  @DisplayName("the scheduled flush should copy dirty carts to the database and clear the mark")
+  void testScheduledFlush() {
+    // Given
+    cartService.addItem(user, pizza.getId(), 2);
+    cartService.addItem(user, salad.getId(), 4);
+    cartService.updateItemQuantity(user.getId(), pizza.getId(), 1);
+
+    // When & Then
+    awaitFlushed(Map.of(pizza.getId(), 1, salad.getId(), 4));
+
+    // When
+    cartService.removeItem(user.getId(), pizza.getId());
+
+    // Then
+    awaitFlushed(Map.of(salad.getId(), 4));
+  }
+
+  @Test
+  @DisplayName("checkout should order the Redis lines and leave an empty cart in both stores")
+  void testCheckout() throws Exception {
+    // Given
+    cartService.addItem(user, pizza.getId(), 2);
+    cartService.addItem(user, salad.getId(), 1);
+
+    // When
+    orderService.createOrder(user);
+
+    // Then
+    Order order = orderRepository.findByStripeSessionId("cs_write_behind").orElseThrow();
+    assertEquals(0, new BigDecimal("33.00").compareTo(order.getTotalAmount()));
+    assertTrue(cartService.getCart(user.getId()).isEmpty());
+    assertEquals(Map.of("_", "1"), hash());
+    awaitFlushed(Map.of());
+
+    // When the Redis copy expires, the reload must not bring the ordered lines back
+    redisTemplate.delete("cart:" + user.getId());
+
+    // Then
+    assertTrue(cartService.getCart(user.getId()).isEmpty());
+  }
+
+  @Test
+  @DisplayName("subtracting checked-out quantities should keep lines added during checkout")
+  void testSubtract_KeepsLaterAdds() {
+    // Given: two of these pizzas and the salad were checked out, the third pizza came later
+    cartService.addItem(user, pizza.getId(), 3);
+    cartService.addItem(user, salad.getId(), 1);
+
+    // When
+    redisCartStore.subtract(user.getId(), Map.of(pizza.getId(), 2, salad.getId(), 1));
+
+    // Then
+    assertEquals(Map.of("_", "1", pizza.getId().toString(), "1"), hash());
+    awaitFlushed(Map.of(pizza.getId(), 1));
+  }
+
+  @Test
+  @DisplayName("subtracting from a cart that is not in Redis should leave Redis untouched")
+  void testSubtract_NotLoaded() {
+    // When
+    redisCartStore.subtract(user.getId(), Map.of(pizza.getId(), 2));
+
+    // Then
+    assertTrue(hash().isEmpty());
+    assertFalse(
+        Boolean.TRUE.equals(
+            redisTemplate.opsForSet().isMember(DIRTY_KEY, user.getId().toString())));
+  }
+
+  private FoodItem foodItem(Category category, String name, String price) {
+    FoodItem item = new FoodItem();
+    item.setName(name);
+    item.setDescription("Write-behind test item");
+    item.setPrice(new BigDecimal(price));
+    item.setCategory(category);
+    item.setAvailable(true);
+    return foodItemRepository.save(item);
+  }
+
+  private Map<Object, Object> hash() {
+    return redisTemplate.opsForHash().entries("cart:" + user.getId());
+  }
+
+  /**
+   * Waits for the scheduled flush to write the expected lines and drop the cart from the dirty set.
+   */
+  private void awaitFlushed(Map<Long, Integer> expected) {
+    Supplier<Boolean> flushed =
+        () ->
+            expected.equals(cartRepository.findQuantitiesByUserId(user.getId()))
+                && !Boolean.TRUE.equals(
+                    redisTemplate.opsForSet().isMember(DIRTY_KEY, user.getId().toString()));
+    long deadline = System.nanoTime() + FLUSH_TIMEOUT.toNanos();
+    while (!flushed.get()) {
+      assertFalse(System.nanoTime() > deadline, "cart was not flushed in time");
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package com.foodshop.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodItemRepository;
+import io.minio.MinioClient;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Integration tests for the keyset-paginated catalog queries against real PostgreSQL.
+ *
+ * <p>Pages forward and back through listings whose sort keys repeat (equal names when browsing,
+ * equal ranks when searching), so only the ID tie breaker keeps rows from being skipped or shown
+ * twice.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Catalog Keyset Pagination Integration Tests")
+class CatalogKeysetPaginationIntegrationTest {
+
+  private static final int PAGE_SIZE = 2;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16-alpine")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Container
+  static GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.data.redis.host", redis::getHost);
+    registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379).toString());
+  }
+
+  @MockBean private MinioClient minioClient;
+
+  @Autowired private FoodItemRepository foodItemRepository;
+
+  @Autowired private CategoryRepository categoryRepository;
+
+  private final List<Long> foodItemIds = new ArrayList<>();
+  private Category category;
+
+  @BeforeEach
+  void setUp() {
+    category = new Category();
+    category.setName("Keyset Test");
+    category.setActive(true);
+    category.setDisplayOrder(99);
+    category = categoryRepository.save(category);
+  }
+
+  @AfterEach
+  void tearDown() {
+    foodItemRepository.deleteAllById(foodItemIds);
+    categoryRepository.delete(category);
+  }
+
+  @Test
+  @DisplayName("browsing should page forward and back across equal names in (name, id) order")
+  void testFindAvailablePage_DuplicateNames() {
+    // Given: saved out of name order, so IDs alone do not give the listing order; the sold out
+    // bao sits between listed rows and must not be counted in a page
+    Long dumpling1 = foodItem("Dumpling", "Steamed").getId();
+    Long bao1 = foodItem("Bao", "Steamed").getId();
+    Long bao2 = foodItem("Bao", "Steamed").getId();
+    FoodItem hidden = foodItem("Bao", "Sold out");
+    hidden.setAvailable(false);
+    foodItemRepository.save(hidden);
+    Long dumpling2 = foodItem("Dumpling", "Steamed").getId();
+    Long bao3 = foodItem("Bao", "Steamed").getId();
+
+    // When & Then: forward
+    CatalogPage first = browse(null);
+    assertEquals(List.of(bao1, bao2), ids(first));
+    assertNull(first.previousCursor());
+
+    CatalogPage second = browse(first.nextCursor());
+    assertEquals(List.of(bao3, dumpling1), ids(second));
+
+    CatalogPage third = browse(second.nextCursor());
+    assertEquals(List.of(dumpling2), ids(third));
+    assertNull(third.nextCursor());
+
+    // When & Then: back, in display order and ending on the first page
+    CatalogPage back = browse(third.previousCursor());
+    assertEquals(List.of(bao3, dumpling1), ids(back));
+    assertNotNull(back.nextCursor());
+
+    CatalogPage start = browse(back.previousCursor());
+    assertEquals(List.of(bao1, bao2), ids(start));
+    assertNull(start.previousCursor());
+    assertNotNull(start.nextCursor());
+  }
+
+  @Test
+  @DisplayName("searching should page forward and back across equal ranks in (rank, id) order")
+  void testSearchAvailablePage_EqualRanks() {
+    // Given: the platter outranks the three identical bowls, which tie on rank
+    Long bowl1 = foodItem("Zorblax Bowl", "A plain bowl").getId();
+    Long platter = foodItem("Zorblax Platter", "Zorblax with more zorblax").getId();
+    Long bowl2 = foodItem("Zorblax Bowl", "A plain bowl").getId();
+    Long bowl3 = foodItem("Zorblax Bowl", "A plain bowl").getId();
+
+    // When & Then: forward, ties broken by ID descending
+    CatalogPage first = search(null);
+    assertEquals(List.of(platter, bowl3), ids(first));
+    assertNull(first.previousCursor());
+
+    CatalogPage second = search(first.nextCursor());
+    assertEquals(List.of(bowl2, bowl1), ids(second));
+    assertNull(second.nextCursor());
+
+    // When & Then: back
+    CatalogPage start = search(second.previousCursor());
+    assertEquals(List.of(platter, bowl3), ids(start));
+    assertNull(start.previousCursor());
+    assertEquals(first.nextCursor(), start.nextCursor());
+  }
+
+  @Test
+  @DisplayName("a browsing cursor should restart a search from its first page")
+  void testSearchAvailablePage_BrowsingCursor() {
+    // Given
+    Long bowl = foodItem("Zorblax Bowl", "A plain bowl").getId();
+    String browsingCursor = CatalogCursor.after("Bao", bowl).token();
+
+    // When
+    CatalogPage page = search(browsingCursor);
+
+    // Then
+    assertEquals(List.of(bowl), ids(page));
+    assertNull(page.previousCursor());
+  }
+
+  private CatalogPage browse(String token) {
+    return foodItemRepository.findAvailablePage(
+        category.getId(), CatalogCursor.parse(token), PAGE_SIZE);
+  }
+
+  private CatalogPage search(String token) {
+    return foodItemRepository.searchAvailablePage(
+        "zorblax", CatalogCursor.parse(token), PAGE_SIZE);
+  }
+
+  private static List<Long> ids(CatalogPage page) {
+    return page.content().stream().map(FoodItemCardView::id).toList();
+  }
+
+  private FoodItem foodItem(String name, String description) {
+    FoodItem item = new FoodItem();
+    item.setName(name);
+    item.setDescription(description);
+    item.setPrice(new BigDecimal("5.00"));
+    item.setCategory(category);
+    item.setAvailable(true);
+    item = foodItemRepository.save(item);
+    foodItemIds.add(item.getId());
+    return item;
+  }
+}
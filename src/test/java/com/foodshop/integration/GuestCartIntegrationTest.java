@@ -0,0 +1,353 @@
+package com.foodshop.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.foodshop.domain.CartItem;
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.domain.User;
+import com.foodshop.exception.ResourceNotFoundException;
+import com.foodshop.repository.CartRepository;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodItemRepository;
+import com.foodshop.repository.UserRepository;
+import com.foodshop.security.CustomOAuth2UserService;
+import com.foodshop.security.GuestCartCookie;
+import com.foodshop.service.GuestCartStore;
+import io.minio.MinioClient;
+import jakarta.servlet.http.Cookie;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Integration tests for guest carts against real Redis and PostgreSQL.
+ *
+ * <p>Runs the guest cart scripts on Redis, the multi-row merge upsert on PostgreSQL, and the whole
+ * path from an anonymous add to the merge on OAuth2 login, with the provider's user info endpoint
+ * stubbed.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Guest Cart Integration Tests")
+class GuestCartIntegrationTest {
+
+  private static final String GUEST_KEY_PREFIX = "cart:guest:";
+  private static final int MAX_LINES = 2;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16-alpine")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Container
+  static GenericContainer<?> redis =
+      new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.data.redis.host", redis::getHost);
+    registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379).toString());
+    registry.add("app.cart.redis.enabled", () -> "false");
+    registry.add("app.cart.guest.secret", () -> "integration-secret");
+    registry.add("app.cart.guest.max-lines", () -> MAX_LINES);
+  }
+
+  @MockBean private MinioClient minioClient;
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private GuestCartStore guestCartStore;
+
+  @Autowired private CustomOAuth2UserService customOAuth2UserService;
+
+  @Autowired private StringRedisTemplate redisTemplate;
+
+  @Autowired private CartRepository cartRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private FoodItemRepository foodItemRepository;
+
+  @Autowired private CategoryRepository categoryRepository;
+
+  private User user;
+  private Category category;
+  private FoodItem pizza;
+  private FoodItem salad;
+  private FoodItem soup;
+
+  @BeforeEach
+  void setUp() {
+    user = new User();
+    user.setEmail("guest@example.com");
+    user.setName("Former Guest");
+    user.setRole(User.UserRole.CUSTOMER);
+    user.setProvider(User.OAuthProvider.GOOGLE);
+    user.setExternalId("google-guest");
+    user = userRepository.save(user);
+
+    category = new Category();
+    category.setName("Mains");
+    category.setActive(true);
+    category.setDisplayOrder(1);
+    category = categoryRepository.save(category);
+
+    pizza = foodItem(category, "Margherita");
+    salad = foodItem(category, "Caesar Salad");
+    soup = foodItem(category, "Tomato Soup");
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+    Set<String> keys = redisTemplate.keys(GUEST_KEY_PREFIX + "*");
+    if (keys != null && !keys.isEmpty()) {
+      redisTemplate.delete(keys);
+    }
+    cartRepository.deleteAll();
+    foodItemRepository.deleteAll();
+    categoryRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("guest adds, updates and removals should change the hash and refresh its TTL")
+  void testGuestScripts() {
+    // When
+    guestCartStore.add("guest-1", pizza.getId(), 2);
+    guestCartStore.add("guest-1", pizza.getId(), 1);
+    guestCartStore.add("guest-1", salad.getId(), 1);
+    guestCartStore.setQuantity("guest-1", salad.getId(), 4);
+    guestCartStore.remove("guest-1", pizza.getId());
+
+    // Then
+    assertEquals(Map.of(salad.getId(), 4), guestCartStore.quantities("guest-1"));
+    assertEquals(1, guestCartStore.count("guest-1"));
+    Long ttl = redisTemplate.getExpire(GUEST_KEY_PREFIX + "guest-1");
+    assertNotNull(ttl);
+    assertTrue(ttl > 0);
+  }
+
+  @Test
+  @DisplayName("a full guest cart should reject new lines but still take more of its lines")
+  void testGuestScripts_Full() {
+    // Given
+    guestCartStore.add("guest-1", pizza.getId(), 1);
+    guestCartStore.add("guest-1", salad.getId(), 1);
+
+    // When & Then
+    assertThrows(
+        IllegalStateException.class, () -> guestCartStore.add("guest-1", soup.getId(), 1));
+    assertEquals(2, guestCartStore.add("guest-1", pizza.getId(), 1).lineQuantity());
+    assertEquals(MAX_LINES, guestCartStore.count("guest-1"));
+  }
+
+  @Test
+  @DisplayName("a guest batch naming a missing line should change no line")
+  void testGuestScripts_BatchIsAtomic() {
+    // Given
+    guestCartStore.add("guest-1", pizza.getId(), 1);
+
+    // When & Then
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> guestCartStore.setQuantities("guest-1", Map.of(pizza.getId(), 5, soup.getId(), 1)));
+    assertEquals(Map.of(pizza.getId(), 1), guestCartStore.quantities("guest-1"));
+  }
+
+  @Test
+  @DisplayName("a guest cart should be taken once, and restored lines should add to later adds")
+  void testGuestScripts_TakeAndRestore() {
+    // Given
+    guestCartStore.add("guest-1", pizza.getId(), 2);
+
+    // When
+    Map<Long, Integer> taken = guestCartStore.take("guest-1");
+    Map<Long, Integer> takenAgain = guestCartStore.take("guest-1");
+    guestCartStore.add("guest-1", pizza.getId(), 1);
+    guestCartStore.restore("guest-1", taken);
+
+    // Then
+    assertEquals(Map.of(pizza.getId(), 2), taken);
+    assertTrue(takenAgain.isEmpty());
+    assertEquals(Map.of(pizza.getId(), 3), guestCartStore.quantities("guest-1"));
+  }
+
+  @Test
+  @DisplayName("the merge upsert should add to lines, create new ones and skip deleted items")
+  void testAddQuantities() {
+    // Given
+    cartRepository.addQuantity(user.getId(), pizza.getId(), 1);
+    FoodItem deleted = foodItem(category, "Discontinued");
+    foodItemRepository.delete(deleted);
+
+    // When
+    cartRepository.addQuantities(
+        user.getId(), Map.of(pizza.getId(), 2, salad.getId(), 1, deleted.getId(), 5));
+
+    // Then
+    assertEquals(
+        Map.of(pizza.getId(), 3, salad.getId(), 1),
+        cartRepository.findQuantitiesByUserId(user.getId()));
+    assertEquals(1, cartRepository.count());
+  }
+
+  @Test
+  @DisplayName("adds past the line maximum should be rejected and merges capped, in both stores")
+  void testMaxQuantity() {
+    // Given
+    int max = CartItem.MAX_QUANTITY;
+    guestCartStore.add("guest-1", pizza.getId(), max - 1);
+    cartRepository.addQuantity(user.getId(), pizza.getId(), max - 1);
+
+    // When & Then: an add past the maximum leaves the line unchanged
+    assertThrows(
+        IllegalStateException.class, () -> guestCartStore.add("guest-1", pizza.getId(), 2));
+    assertEquals(Map.of(pizza.getId(), max - 1), guestCartStore.quantities("guest-1"));
+    assertEquals(0, cartRepository.addQuantity(user.getId(), pizza.getId(), 2));
+    assertEquals(max, cartRepository.addQuantity(user.getId(), pizza.getId(), 1));
+
+    // When & Then: merging and restoring cap the line instead
+    cartRepository.addQuantities(user.getId(), Map.of(pizza.getId(), max));
+    assertEquals(
+        Map.of(pizza.getId(), max), cartRepository.findQuantitiesByUserId(user.getId()));
+    guestCartStore.restore("guest-1", Map.of(pizza.getId(), max));
+    assertEquals(Map.of(pizza.getId(), max), guestCartStore.quantities("guest-1"));
+  }
+
+  @Test
+  @DisplayName("an anonymous cart should be merged into the database cart on OAuth2 login")
+  void testAnonymousAddThenLogin() throws Exception {
+    // Given: the user already has a pizza in their cart from an earlier visit
+    cartRepository.addQuantity(user.getId(), pizza.getId(), 1);
+
+    // When: adding anonymously
+    MockHttpServletResponse first = mockMvc
+        .perform(post("/cart/add")
+            .param("foodItemId", pizza.getId().toString())
+            .param("quantity", "2")
+            .with(csrf()))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+    Cookie cookie = first.getCookie(GuestCartCookie.NAME);
+    assertNotNull(cookie);
+    mockMvc
+        .perform(post("/cart/add")
+            .param("foodItemId", salad.getId().toString())
+            .param("quantity", "1")
+            .cookie(cookie)
+            .with(csrf()))
+        .andExpect(status().isOk());
+
+    String guestId = cookie.getValue().substring(0, cookie.getValue().lastIndexOf('.'));
+    assertEquals(
+        Map.of(pizza.getId(), 2, salad.getId(), 1), guestCartStore.quantities(guestId));
+    assertEquals(
+        Map.of(pizza.getId(), 1), cartRepository.findQuantitiesByUserId(user.getId()));
+
+    // When: logging in with the cookie
+    MockHttpServletRequest loginRequest = new MockHttpServletRequest();
+    loginRequest.setCookies(cookie);
+    MockHttpServletResponse loginResponse = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(loginRequest, loginResponse));
+    customOAuth2UserService.setRestOperations(userInfoEndpoint());
+    customOAuth2UserService.loadUser(userRequest());
+
+    // Then
+    assertEquals(
+        Map.of(pizza.getId(), 3, salad.getId(), 1),
+        cartRepository.findQuantitiesByUserId(user.getId()));
+    assertFalse(Boolean.TRUE.equals(redisTemplate.hasKey(GUEST_KEY_PREFIX + guestId)));
+    String cleared = loginResponse.getHeader(HttpHeaders.SET_COOKIE);
+    assertNotNull(cleared);
+    assertTrue(cleared.startsWith(GuestCartCookie.NAME + "=;"));
+    assertTrue(cleared.contains("Max-Age=0"));
+  }
+
+  private FoodItem foodItem(Category category, String name) {
+    FoodItem item = new FoodItem();
+    item.setName(name);
+    item.setDescription("Guest cart test item");
+    item.setPrice(new BigDecimal("9.50"));
+    item.setCategory(category);
+    item.setAvailable(true);
+    return foodItemRepository.save(item);
+  }
+
+  private RestOperations userInfoEndpoint() {
+    RestOperations restOperations = mock(RestOperations.class);
+    doReturn(ResponseEntity.ok(Map.of("sub", user.getExternalId(), "email", user.getEmail())))
+        .when(restOperations)
+        .exchange(any(RequestEntity.class), any(ParameterizedTypeReference.class));
+    return restOperations;
+  }
+
+  private static OAuth2UserRequest userRequest() {
+    ClientRegistration registration = ClientRegistration.withRegistrationId("google")
+        .clientId("client")
+        .clientSecret("secret")
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+        .authorizationUri("https://accounts.example.com/auth")
+        .tokenUri("https://accounts.example.com/token")
+        .userInfoUri("https://accounts.example.com/userinfo")
+        .userNameAttributeName("sub")
+        .build();
+    OAuth2AccessToken token =
+        new OAuth2AccessToken(
+            OAuth2AccessToken.TokenType.BEARER, "token", Instant.now(),
+            Instant.now().plusSeconds(60));
+    return new OAuth2UserRequest(registration, token);
+  }
+}
@@ -0,0 +1,172 @@
+package com.foodshop.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.domain.User;
+import com.foodshop.repository.UserRepository;
+import com.foodshop.service.CartService;
+import jakarta.servlet.http.Cookie;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Unit tests for CustomOAuth2UserService.
+ *
+ * <p>The provider's user info endpoint is stubbed, so {@code loadUser} runs as on a real login;
+ * tests cover merging the guest cart named by the login request's cookie.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CustomOAuth2UserService Unit Tests")
+class CustomOAuth2UserServiceTest {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private CartService cartService;
+
+  @Mock private RestOperations restOperations;
+
+  private final GuestCartCookie guestCartCookie =
+      new GuestCartCookie("test-secret", Duration.ofDays(7));
+
+  private CustomOAuth2UserService service;
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    service = new CustomOAuth2UserService(userRepository, cartService, guestCartCookie);
+    service.setRestOperations(restOperations);
+    doReturn(ResponseEntity.ok(Map.of("sub", "google-7", "email", "shopper@example.com")))
+        .when(restOperations)
+        .exchange(any(RequestEntity.class), any(ParameterizedTypeReference.class));
+
+    user = new User();
+    user.setId(7L);
+    user.setProvider(User.OAuthProvider.GOOGLE);
+    user.setExternalId("google-7");
+    when(userRepository.findByProviderAndExternalId(User.OAuthProvider.GOOGLE, "google-7"))
+        .thenReturn(Optional.of(user));
+
+    request = new MockHttpServletRequest();
+    response = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  @DisplayName("a login with a guest cart cookie should merge the cart and clear the cookie")
+  void testLoadUser_MergesGuestCart() {
+    // Given
+    request.setCookies(new Cookie(GuestCartCookie.NAME, guestCartCookie.sign("guest-1")));
+    when(cartService.mergeGuestCart(7L, "guest-1")).thenReturn(2);
+
+    // When
+    OAuth2User principal = service.loadUser(userRequest());
+
+    // Then
+    assertEquals(user, ((UserPrincipal) principal).getUser());
+    verify(cartService).mergeGuestCart(7L, "guest-1");
+    String cookie = response.getHeader(HttpHeaders.SET_COOKIE);
+    assertTrue(cookie.startsWith(GuestCartCookie.NAME + "=;"));
+    assertTrue(cookie.contains("Max-Age=0"));
+  }
+
+  @Test
+  @DisplayName("a failed merge should not fail the login and should keep the cookie")
+  void testLoadUser_MergeFails() {
+    // Given
+    request.setCookies(new Cookie(GuestCartCookie.NAME, guestCartCookie.sign("guest-1")));
+    when(cartService.mergeGuestCart(7L, "guest-1"))
+        .thenThrow(new IllegalStateException("database down"));
+
+    // When
+    OAuth2User principal = service.loadUser(userRequest());
+
+    // Then
+    assertEquals(user, ((UserPrincipal) principal).getUser());
+    assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+  }
+
+  @Test
+  @DisplayName("a login without a valid guest cart cookie should merge nothing")
+  void testLoadUser_NoGuestCart() {
+    // Given
+    request.setCookies(new Cookie(GuestCartCookie.NAME, "guest-1.forged"));
+
+    // When
+    service.loadUser(userRequest());
+
+    // Then
+    verify(cartService, never()).mergeGuestCart(anyLong(), anyString());
+    assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+  }
+
+  @Test
+  @DisplayName("a login outside a servlet request should merge nothing")
+  void testLoadUser_NoRequest() {
+    // Given
+    RequestContextHolder.resetRequestAttributes();
+
+    // When
+    service.loadUser(userRequest());
+
+    // Then
+    verify(userRepository).save(user);
+    verify(cartService, never()).mergeGuestCart(anyLong(), anyString());
+  }
+
+  private static OAuth2UserRequest userRequest() {
+    ClientRegistration registration = ClientRegistration.withRegistrationId("google")
+        .clientId("client")
+        .clientSecret("secret")
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+        .authorizationUri("https://accounts.example.com/auth")
+        .tokenUri("https://accounts.example.com/token")
+        .userInfoUri("https://accounts.example.com/userinfo")
+        .userNameAttributeName("sub")
+        .build();
+    OAuth2AccessToken token =
+        new OAuth2AccessToken(
+            OAuth2AccessToken.TokenType.BEARER, "token", Instant.now(),
+            Instant.now().plusSeconds(60));
+    return new OAuth2UserRequest(registration, token);
+  }
+}
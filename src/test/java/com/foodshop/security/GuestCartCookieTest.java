@@ -0,0 +1,84 @@
+package com.foodshop.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.http.Cookie;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit tests for GuestCartCookie.
+ *
+ * <p>Tests signing and verifying guest IDs and the cookie attributes.
+ */
+@DisplayName("GuestCartCookie Unit Tests")
+class GuestCartCookieTest {
+
+  private final GuestCartCookie guestCartCookie =
+      new GuestCartCookie("test-secret", Duration.ofDays(7));
+
+  @Test
+  @DisplayName("a signed guest ID should be read back from the request")
+  void testRead_Signed() {
+    // Given
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(GuestCartCookie.NAME, guestCartCookie.sign("guest-1")));
+
+    // When
+    Optional<String> guestId = guestCartCookie.read(request);
+
+    // Then
+    assertEquals(Optional.of("guest-1"), guestId);
+  }
+
+  @Test
+  @DisplayName("a tampered or foreign signature should be ignored")
+  void testRead_Tampered() {
+    // Given
+    String signature = guestCartCookie.sign("guest-1").substring("guest-1".length());
+    GuestCartCookie otherSecret = new GuestCartCookie("other-secret", Duration.ofDays(7));
+
+    // Then
+    assertEquals(Optional.empty(), guestCartCookie.verify("guest-2" + signature));
+    assertEquals(Optional.empty(), guestCartCookie.verify(otherSecret.sign("guest-1")));
+    assertEquals(Optional.empty(), guestCartCookie.verify("guest-1"));
+  }
+
+  @Test
+  @DisplayName("a visitor without a cookie should get a new guest ID in an HttpOnly cookie")
+  void testReadOrCreate_New() {
+    // Given
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // When
+    String guestId = guestCartCookie.readOrCreate(request, response);
+
+    // Then
+    String header = response.getHeader(HttpHeaders.SET_COOKIE);
+    assertTrue(header.startsWith(GuestCartCookie.NAME + "=" + guestCartCookie.sign(guestId)));
+    assertTrue(header.contains("Max-Age=604800"));
+    assertTrue(header.contains("HttpOnly"));
+    assertTrue(header.contains("SameSite=Lax"));
+  }
+
+  @Test
+  @DisplayName("a visitor with a cookie should keep the guest ID")
+  void testReadOrCreate_Existing() {
+    // Given
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(GuestCartCookie.NAME, guestCartCookie.sign("guest-1")));
+
+    // When
+    String guestId = guestCartCookie.readOrCreate(request, new MockHttpServletResponse());
+
+    // Then
+    assertEquals("guest-1", guestId);
+  }
+}
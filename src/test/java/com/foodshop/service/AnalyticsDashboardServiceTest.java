@@ -2,11 +2,24 @@ package com.foodshop.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.foodshop.dto.AnalyticsCursor;
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsSnapshot;
+import com.foodshop.dto.AnalyticsSort;
+import com.foodshop.dto.AnalyticsTotalsDTO;
 import com.foodshop.dto.FoodAnalyticsDTO;
+import java.io.StringWriter;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -26,6 +39,14 @@ class AnalyticsDashboardServiceTest {
 
   @Mock private FoodAnalyticsService foodAnalyticsService;
 
+  @Mock private ViewDedupService viewDedupService;
+
+  @Mock private AnalyticsLeaderboard leaderboard;
+
+  @Mock private AnalyticsSnapshotCache snapshotCache;
+
+  @Mock private AnalyticsRangeReportCache rangeReportCache;
+
   @InjectMocks private AnalyticsDashboardService dashboardService;
 
   private List<FoodAnalyticsDTO> testAnalyticsList;
@@ -137,30 +158,174 @@ class AnalyticsDashboardServiceTest {
   }
 
   @Test
-  @DisplayName("getTotalViews should sum all view counts")
+  @DisplayName("getTotalViews should read the snapshot until the leaderboard is ready")
   void testGetTotalViews() {
     // Given
-    when(foodAnalyticsService.sumAllViewCounts()).thenReturn(240L);
+    when(snapshotCache.get()).thenReturn(new AnalyticsSnapshot(testAnalyticsList, 240L, 120L));
 
     // When
     Long totalViews = dashboardService.getTotalViews();
 
     // Then
     assertEquals(240L, totalViews);
-    verify(foodAnalyticsService).sumAllViewCounts();
+    verify(foodAnalyticsService, never()).sumAllViewCounts();
   }
 
   @Test
-  @DisplayName("getTotalOrders should sum all order counts")
+  @DisplayName("getTotalOrders should read the snapshot until the leaderboard is ready")
   void testGetTotalOrders() {
     // Given
-    when(foodAnalyticsService.sumAllOrderCounts()).thenReturn(120L);
+    when(snapshotCache.get()).thenReturn(new AnalyticsSnapshot(testAnalyticsList, 240L, 120L));
 
     // When
     Long totalOrders = dashboardService.getTotalOrders();
 
     // Then
     assertEquals(120L, totalOrders);
-    verify(foodAnalyticsService).sumAllOrderCounts();
+    verify(foodAnalyticsService, never()).sumAllOrderCounts();
+  }
+
+  @Test
+  @DisplayName("getAnalyticsPage should serve least ordered items from the leaderboard")
+  void testGetAnalyticsPage_FromLeaderboard() {
+    // Given
+    AnalyticsCursor cursor = new AnalyticsCursor(30L, 3L);
+    when(leaderboard.isReady()).thenReturn(true);
+    when(leaderboard.page(AnalyticsSort.ORDERS_ASC, cursor, 2))
+        .thenReturn(testAnalyticsList.subList(0, 2));
+
+    // When
+    List<FoodAnalyticsDTO> result = dashboardService.getAnalyticsPage("orders_asc", cursor, 2);
+
+    // Then
+    assertEquals(2, result.size());
+    verify(snapshotCache, never()).get();
+  }
+
+  @Test
+  @DisplayName("getAnalyticsPage should page the snapshot until the leaderboard is ready")
+  void testGetAnalyticsPage_LeaderboardNotReady() {
+    // Given
+    when(snapshotCache.get()).thenReturn(new AnalyticsSnapshot(testAnalyticsList, 240L, 120L));
+
+    // When
+    List<FoodAnalyticsDTO> firstPage = dashboardService.getAnalyticsPage("bogus", null, 2);
+    List<FoodAnalyticsDTO> nextPage =
+        dashboardService.getAnalyticsPage("orders_asc", new AnalyticsCursor(30L, 3L), 5);
+
+    // Then
+    assertEquals(List.of(testAnalyticsList.get(0), testAnalyticsList.get(1)), firstPage);
+    assertEquals(List.of(testAnalyticsList.get(1), testAnalyticsList.get(0)), nextPage);
+  }
+
+  @Test
+  @DisplayName("range pages and totals should all come from the range's cached report")
+  void testGetAnalyticsPageForRange_FromReport() {
+    // Given
+    AnalyticsRange january = AnalyticsRange.ofMonth(YearMonth.of(2026, 1));
+    when(rangeReportCache.get(january))
+        .thenReturn(new AnalyticsSnapshot(testAnalyticsList, 240L, 120L));
+
+    // When
+    List<FoodAnalyticsDTO> firstPage =
+        dashboardService.getAnalyticsPageForRange("views_desc", january, null, 2);
+    List<FoodAnalyticsDTO> nextPage =
+        dashboardService.getAnalyticsPageForRange(
+            "views_desc", january, new AnalyticsCursor(80L, 2L), 2);
+    AnalyticsTotalsDTO totals = dashboardService.getTotalsForRange(january);
+
+    // Then
+    assertEquals(List.of(testAnalyticsList.get(0), testAnalyticsList.get(1)), firstPage);
+    assertEquals(List.of(testAnalyticsList.get(2)), nextPage);
+    assertEquals(new AnalyticsTotalsDTO(3L, 240L, 120L), totals);
+    verify(foodAnalyticsService, never()).getAnalyticsSnapshot(january);
+  }
+
+  @Test
+  @DisplayName("exportCsv should write a header and one quoted row per item")
+  void testExportCsv() {
+    // Given
+    doAnswer(
+            invocation -> {
+              Consumer<FoodAnalyticsDTO> consumer = invocation.getArgument(0);
+              consumer.accept(new FoodAnalyticsDTO(1L, "Pizza \"XL\", hot", null, 100L, 50L));
+              consumer.accept(new FoodAnalyticsDTO(2L, "=cmd()", null, 0L, 0L));
+              return null;
+            })
+        .when(foodAnalyticsService)
+        .forEachAnalytics(any());
+    StringWriter writer = new StringWriter();
+
+    // When
+    dashboardService.exportCsv(writer);
+
+    // Then
+    assertEquals(
+        "food_item_id,food_item_name,view_count,order_count\r\n"
+            + "1,\"Pizza \"\"XL\"\", hot\",100,50\r\n"
+            + "2,\"'=cmd()\",0,0\r\n",
+        writer.toString());
+  }
+
+  @Test
+  @DisplayName("getTotalViews should read the leaderboard once it is ready")
+  void testGetTotalViews_FromLeaderboard() {
+    // Given
+    when(leaderboard.isReady()).thenReturn(true);
+    when(leaderboard.totalViews()).thenReturn(240L);
+
+    // When
+    Long totalViews = dashboardService.getTotalViews();
+
+    // Then
+    assertEquals(240L, totalViews);
+    verify(foodAnalyticsService, never()).sumAllViewCounts();
+  }
+
+  @Test
+  @DisplayName("getSnapshotForRange should read the range's list and totals in one query")
+  void testGetSnapshotForRange() {
+    // Given
+    AnalyticsRange january = AnalyticsRange.ofMonth(YearMonth.of(2026, 1));
+    when(foodAnalyticsService.getAnalyticsSnapshot(january))
+        .thenReturn(new AnalyticsSnapshot(testAnalyticsList, 240L, 120L));
+
+    // When
+    AnalyticsSnapshot result = dashboardService.getSnapshotForRange(january);
+
+    // Then
+    assertEquals(3, result.totalItems());
+    assertEquals(240L, result.totalViews());
+    assertEquals(120L, result.totalOrders());
+    verify(snapshotCache, never()).get();
+  }
+
+  @Test
+  @DisplayName("getUniqueVisitors should estimate visitors for the listed items")
+  void testGetUniqueVisitors() {
+    // Given
+    when(viewDedupService.countUniqueVisitors(List.of(1L, 2L, 3L)))
+        .thenReturn(Map.of(1L, 70L, 2L, 55L, 3L, 41L));
+
+    // When
+    Map<Long, Long> visitors = dashboardService.getUniqueVisitors(testAnalyticsList);
+
+    // Then
+    assertEquals(70L, visitors.get(1L));
+    assertEquals(3, visitors.size());
+  }
+
+  @Test
+  @DisplayName("getUniqueVisitors should return empty map when Redis fails")
+  void testGetUniqueVisitors_RedisFailure() {
+    // Given
+    when(viewDedupService.countUniqueVisitors(List.of(1L, 2L, 3L)))
+        .thenThrow(new IllegalStateException("connection refused"));
+
+    // When
+    Map<Long, Long> visitors = dashboardService.getUniqueVisitors(testAnalyticsList);
+
+    // Then
+    assertTrue(visitors.isEmpty());
   }
 }
@@ -0,0 +1,233 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.event.TrackingEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for AnalyticsIngestionQueue.
+ *
+ * <p>Unless a test starts the consumer thread, tests drain the queue on the test thread.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnalyticsIngestionQueue Unit Tests")
+class AnalyticsIngestionQueueTest {
+
+  @Mock private AnalyticsTrackingService trackingService;
+
+  @Mock private ViewDedupService viewDedupService;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  private AnalyticsIngestionQueue queue(int capacity, String policy) {
+    return new AnalyticsIngestionQueue(
+        trackingService,
+        viewDedupService,
+        meterRegistry,
+        capacity,
+        256,
+        policy,
+        Duration.ofMillis(5));
+  }
+
+  private double count(String name) {
+    return meterRegistry.get(name).counter().count();
+  }
+
+  @Test
+  @DisplayName("drain should write one batch per event type")
+  void testDrain_BatchesByType() {
+    // Given - the second view of item 1 in session s1 is a repeat
+    AnalyticsIngestionQueue queue = queue(16, "drop");
+    List<TrackingEvent> views =
+        List.of(
+            TrackingEvent.view("s1", 1L), TrackingEvent.view("s1", 1L), TrackingEvent.view("s2", 1L));
+    views.forEach(queue::offer);
+    queue.offer(TrackingEvent.order(2L, 3));
+    queue.offer(TrackingEvent.order(2L, 1));
+    queue.offer(TrackingEvent.cartAdd(3L, 2));
+    when(viewDedupService.markViewed(views)).thenReturn(new boolean[] {true, false, true});
+
+    // When
+    int drained = queue.drain();
+
+    // Then
+    assertEquals(6, drained);
+    verify(trackingService).incrementViewCounts(Map.of(1L, 2L));
+    verify(trackingService).incrementOrderCounts(Map.of(2L, 4L));
+    verify(trackingService).incrementCartAddCounts(Map.of(3L, 2L));
+    assertEquals(6.0, count("analytics.ingest.accepted"));
+    assertEquals(6.0, meterRegistry.get("analytics.ingest.batch.size").summary().totalAmount());
+  }
+
+  @Test
+  @DisplayName("offer should drop events when the queue is full under the drop policy")
+  void testOffer_DropWhenFull() {
+    // Given
+    AnalyticsIngestionQueue queue = queue(2, "drop");
+
+    // When
+    boolean first = queue.offer(TrackingEvent.cartAdd(1L, 1));
+    boolean second = queue.offer(TrackingEvent.cartAdd(1L, 1));
+    boolean third = queue.offer(TrackingEvent.cartAdd(1L, 1));
+
+    // Then
+    assertTrue(first && second);
+    assertFalse(third);
+    assertEquals(2.0, count("analytics.ingest.accepted"));
+    assertEquals(1.0, count("analytics.ingest.dropped"));
+  }
+
+  @Test
+  @DisplayName("offer should wait for room and then give up under the block policy")
+  void testOffer_BlockTimesOut() {
+    // Given
+    AnalyticsIngestionQueue queue = queue(1, "block");
+    queue.offer(TrackingEvent.cartAdd(1L, 1));
+
+    // When
+    long started = System.nanoTime();
+    boolean accepted = queue.offer(TrackingEvent.cartAdd(1L, 1));
+
+    // Then
+    assertFalse(accepted);
+    assertTrue(System.nanoTime() - started >= Duration.ofMillis(5).toNanos());
+    assertEquals(1.0, count("analytics.ingest.dropped"));
+  }
+
+  @Test
+  @DisplayName("a failing view write should not prevent order counts from being written")
+  void testDrain_IsolatesFailures() {
+    // Given
+    AnalyticsIngestionQueue queue = queue(16, "drop");
+    queue.offer(TrackingEvent.view("s1", 1L));
+    queue.offer(TrackingEvent.order(2L, 1));
+    when(viewDedupService.markViewed(anyList())).thenThrow(new IllegalStateException("redis down"));
+
+    // When
+    queue.drain();
+
+    // Then
+    verify(trackingService, never()).incrementViewCounts(anyMap());
+    verify(trackingService).incrementOrderCounts(Map.of(2L, 1L));
+    assertEquals(1.0, count("analytics.ingest.failed"));
+  }
+
+  @Test
+  @DisplayName("a failed view count write should unmark the first views so they count next time")
+  void testDrain_UnmarksViewsWhenWriteFails() {
+    // Given - the second view of item 1 in session s1 is a repeat
+    AnalyticsIngestionQueue queue = queue(16, "drop");
+    List<TrackingEvent> views =
+        List.of(
+            TrackingEvent.view("s1", 1L), TrackingEvent.view("s1", 1L), TrackingEvent.view("s2", 2L));
+    views.forEach(queue::offer);
+    when(viewDedupService.markViewed(views)).thenReturn(new boolean[] {true, false, true});
+    doThrow(new IllegalStateException("database down"))
+        .when(trackingService).incrementViewCounts(anyMap());
+
+    // When
+    queue.drain();
+
+    // Then
+    verify(viewDedupService).unmarkViewed(List.of(views.get(0), views.get(2)));
+    assertEquals(3.0, count("analytics.ingest.failed"));
+  }
+
+  @Test
+  @DisplayName("a failed unmark should still count the views as failed")
+  void testDrain_UnmarkFails() {
+    // Given
+    AnalyticsIngestionQueue queue = queue(16, "drop");
+    TrackingEvent view = TrackingEvent.view("s1", 1L);
+    queue.offer(view);
+    when(viewDedupService.markViewed(List.of(view))).thenReturn(new boolean[] {true});
+    doThrow(new IllegalStateException("database down"))
+        .when(trackingService).incrementViewCounts(anyMap());
+    doThrow(new IllegalStateException("redis down"))
+        .when(viewDedupService).unmarkViewed(anyList());
+
+    // When
+    queue.drain();
+
+    // Then
+    assertEquals(1.0, count("analytics.ingest.failed"));
+  }
+
+  @Test
+  @DisplayName("an idle consumer thread should be woken up by a new event")
+  void testConsumer_WakesOnOffer() throws Exception {
+    // Given - the consumer has found the queue empty and parked
+    AnalyticsIngestionQueue queue = queue(16, "drop");
+    queue.start();
+    try {
+      Thread.sleep(20);
+
+      // When
+      queue.offer(TrackingEvent.order(2L, 1));
+
+      // Then
+      verify(trackingService, timeout(1000)).incrementOrderCounts(Map.of(2L, 1L));
+    } finally {
+      queue.stop();
+    }
+  }
+
+  @Test
+  @DisplayName("a failed write should make the consumer thread back off before the next batch")
+  void testConsumer_BacksOffAfterFailure() throws Exception {
+    // Given
+    AnalyticsIngestionQueue queue = queue(16, "drop");
+    List<Long> writes = new CopyOnWriteArrayList<>();
+    CountDownLatch firstWrite = new CountDownLatch(1);
+    CountDownLatch secondWrite = new CountDownLatch(2);
+    doAnswer(invocation -> {
+      writes.add(System.nanoTime());
+      firstWrite.countDown();
+      secondWrite.countDown();
+      throw new IllegalStateException("database down");
+    }).when(trackingService).incrementOrderCounts(anyMap());
+    queue.start();
+    try {
+      queue.offer(TrackingEvent.order(2L, 1));
+      assertTrue(firstWrite.await(1, TimeUnit.SECONDS));
+
+      // When - the next event arrives while the consumer backs off
+      queue.offer(TrackingEvent.order(2L, 1));
+
+      // Then
+      assertTrue(secondWrite.await(1, TimeUnit.SECONDS));
+      assertTrue(writes.get(1) - writes.get(0) >= Duration.ofMillis(10).toNanos());
+    } finally {
+      queue.stop();
+    }
+  }
+}
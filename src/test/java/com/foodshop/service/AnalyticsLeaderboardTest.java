@@ -0,0 +1,154 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.dto.AnalyticsCursor;
+import com.foodshop.dto.AnalyticsSort;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for AnalyticsLeaderboard.
+ *
+ * <p>Tests rebuilding from the database, incremental updates and keyset page queries.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnalyticsLeaderboard Unit Tests")
+class AnalyticsLeaderboardTest {
+
+  @Mock private FoodAnalyticsService foodAnalyticsService;
+
+  @Mock private ViewCountBuffer viewCountBuffer;
+
+  private AnalyticsLeaderboard leaderboard;
+
+  @BeforeEach
+  void setUp() {
+    leaderboard =
+        new AnalyticsLeaderboard(foodAnalyticsService, viewCountBuffer, new SimpleMeterRegistry());
+  }
+
+  private void loadDefaultBoard() {
+    when(foodAnalyticsService.findAllAnalyticsSortedByViewsDesc())
+        .thenReturn(
+            List.of(
+                new FoodAnalyticsDTO(1L, "Pizza", "/images/pizza.jpg", 100L, 50L),
+                new FoodAnalyticsDTO(2L, "Burger", "/images/burger.jpg", 80L, 40L),
+                new FoodAnalyticsDTO(3L, "Pasta", "/images/pasta.jpg", 60L, 30L)));
+    leaderboard.rebuild();
+  }
+
+  @Test
+  @DisplayName("leaderboard should not be ready before the first rebuild")
+  void testNotReadyBeforeRebuild() {
+    // When & Then
+    assertFalse(leaderboard.isReady());
+    assertTrue(leaderboard.page(AnalyticsSort.VIEWS_DESC, null, 10).isEmpty());
+  }
+
+  @Test
+  @DisplayName("rebuild should load items and totals from the database")
+  void testRebuild() {
+    // When
+    loadDefaultBoard();
+
+    // Then
+    assertTrue(leaderboard.isReady());
+    assertEquals(3, leaderboard.size());
+    assertEquals(240L, leaderboard.totalViews());
+    assertEquals(120L, leaderboard.totalOrders());
+  }
+
+  @Test
+  @DisplayName("rebuild should flush buffered views before reading the database")
+  void testRebuild_FlushesViewBufferFirst() {
+    // Given
+    when(viewCountBuffer.isEnabled()).thenReturn(true);
+
+    // When
+    loadDefaultBoard();
+
+    // Then
+    InOrder inOrder = inOrder(viewCountBuffer, foodAnalyticsService);
+    inOrder.verify(viewCountBuffer).flush();
+    inOrder.verify(foodAnalyticsService).findAllAnalyticsSortedByViewsDesc();
+  }
+
+  @Test
+  @DisplayName("top and bottom should return K items from either end")
+  void testTopAndBottom() {
+    // Given
+    loadDefaultBoard();
+
+    // When
+    List<FoodAnalyticsDTO> top = leaderboard.page(AnalyticsSort.VIEWS_DESC, null, 2);
+    List<FoodAnalyticsDTO> bottom = leaderboard.page(AnalyticsSort.ORDERS_ASC, null, 1);
+
+    // Then
+    assertEquals(List.of(1L, 2L), top.stream().map(FoodAnalyticsDTO::foodItemId).toList());
+    assertEquals(3L, bottom.get(0).foodItemId());
+  }
+
+  @Test
+  @DisplayName("page should continue strictly after the keyset cursor")
+  void testPageAfterCursor() {
+    // Given
+    loadDefaultBoard();
+    List<FoodAnalyticsDTO> firstPage = leaderboard.page(AnalyticsSort.VIEWS_DESC, null, 1);
+    AnalyticsCursor cursor = AnalyticsCursor.after(AnalyticsSort.VIEWS_DESC, firstPage.get(0));
+
+    // When
+    List<FoodAnalyticsDTO> secondPage = leaderboard.page(AnalyticsSort.VIEWS_DESC, cursor, 5);
+    List<FoodAnalyticsDTO> ascending =
+        leaderboard.page(AnalyticsSort.ORDERS_ASC, new AnalyticsCursor(30L, 3L), 5);
+
+    // Then
+    assertEquals(List.of(2L, 3L), secondPage.stream().map(FoodAnalyticsDTO::foodItemId).toList());
+    assertEquals(List.of(2L, 1L), ascending.stream().map(FoodAnalyticsDTO::foodItemId).toList());
+  }
+
+  @Test
+  @DisplayName("recorded increments should re-rank items and update totals")
+  void testRecordReranks() {
+    // Given
+    loadDefaultBoard();
+
+    // When
+    leaderboard.recordViews(3L, 50);
+    leaderboard.recordOrders(2L, 15);
+
+    // Then
+    assertEquals(3L, leaderboard.page(AnalyticsSort.VIEWS_DESC, null, 1).get(0).foodItemId());
+    assertEquals(110L, leaderboard.page(AnalyticsSort.VIEWS_DESC, null, 1).get(0).viewCount());
+    assertEquals(2L, leaderboard.page(AnalyticsSort.ORDERS_DESC, null, 1).get(0).foodItemId());
+    assertEquals(3, leaderboard.size());
+    assertEquals(290L, leaderboard.totalViews());
+    assertEquals(135L, leaderboard.totalOrders());
+  }
+
+  @Test
+  @DisplayName("increments for unknown items should be ignored until the next rebuild")
+  void testRecordUnknownItem() {
+    // Given
+    loadDefaultBoard();
+
+    // When
+    leaderboard.recordViews(99L, 5);
+
+    // Then
+    assertEquals(3, leaderboard.size());
+    assertEquals(240L, leaderboard.totalViews());
+  }
+}
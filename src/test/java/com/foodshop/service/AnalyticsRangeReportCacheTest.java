@@ -0,0 +1,59 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsSnapshot;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for AnalyticsRangeReportCache.
+ *
+ * <p>Tests that each range is aggregated once and that ranges are cached separately.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnalyticsRangeReportCache Unit Tests")
+class AnalyticsRangeReportCacheTest {
+
+  @Mock private FoodAnalyticsService foodAnalyticsService;
+
+  @Test
+  @DisplayName("get should aggregate each range once and serve repeats from memory")
+  void testGet_OneQueryPerRange() {
+    // Given
+    AnalyticsRangeReportCache cache =
+        new AnalyticsRangeReportCache(
+            foodAnalyticsService, new SimpleMeterRegistry(), 16, Duration.ofMinutes(1));
+    AnalyticsRange january = AnalyticsRange.ofMonth(YearMonth.of(2026, 1));
+    AnalyticsRange february = AnalyticsRange.ofMonth(YearMonth.of(2026, 2));
+    AnalyticsSnapshot januaryReport =
+        new AnalyticsSnapshot(
+            List.of(new FoodAnalyticsDTO(1L, "Pizza", "/images/pizza.jpg", 100L, 50L)), 100L, 50L);
+    AnalyticsSnapshot februaryReport = new AnalyticsSnapshot(List.of(), 0L, 0L);
+    when(foodAnalyticsService.getAnalyticsSnapshot(january)).thenReturn(januaryReport);
+    when(foodAnalyticsService.getAnalyticsSnapshot(february)).thenReturn(februaryReport);
+
+    // When
+    cache.get(january);
+    AnalyticsSnapshot january2 = cache.get(AnalyticsRange.ofMonth(YearMonth.of(2026, 1)));
+    AnalyticsSnapshot february1 = cache.get(february);
+
+    // Then
+    assertSame(januaryReport, january2);
+    assertSame(februaryReport, february1);
+    verify(foodAnalyticsService, times(1)).getAnalyticsSnapshot(january);
+    verify(foodAnalyticsService, times(1)).getAnalyticsSnapshot(february);
+  }
+}
@@ -0,0 +1,150 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.dto.AnalyticsSnapshot;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for AnalyticsSnapshotCache.
+ *
+ * <p>Tests TTL reuse, single-flight refresh under concurrent callers and failure handling.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnalyticsSnapshotCache Unit Tests")
+class AnalyticsSnapshotCacheTest {
+
+  @Mock private FoodAnalyticsService foodAnalyticsService;
+
+  private SimpleMeterRegistry meterRegistry;
+  private AnalyticsSnapshot snapshot;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    snapshot =
+        new AnalyticsSnapshot(
+            List.of(new FoodAnalyticsDTO(1L, "Pizza", "/images/pizza.jpg", 100L, 50L)), 100L, 50L);
+  }
+
+  private double requests(String result) {
+    return meterRegistry.get("analytics.snapshot.requests").tag("result", result).counter().count();
+  }
+
+  @Test
+  @DisplayName("get should query once and serve hits within the TTL")
+  void testGet_HitWithinTtl() {
+    // Given
+    AnalyticsSnapshotCache cache =
+        new AnalyticsSnapshotCache(foodAnalyticsService, meterRegistry, Duration.ofMinutes(1));
+    when(foodAnalyticsService.getAnalyticsSnapshot()).thenReturn(snapshot);
+
+    // When
+    cache.get();
+    AnalyticsSnapshot result = cache.get();
+
+    // Then
+    assertSame(snapshot, result);
+    verify(foodAnalyticsService, times(1)).getAnalyticsSnapshot();
+    assertEquals(1.0, requests("miss"));
+    assertEquals(1.0, requests("hit"));
+    assertEquals(1L, meterRegistry.get("analytics.snapshot.refresh").timer().count());
+  }
+
+  @Test
+  @DisplayName("get should reload the snapshot once it has expired")
+  void testGet_ReloadsAfterTtl() {
+    // Given
+    AnalyticsSnapshotCache cache =
+        new AnalyticsSnapshotCache(foodAnalyticsService, meterRegistry, Duration.ZERO);
+    when(foodAnalyticsService.getAnalyticsSnapshot()).thenReturn(snapshot);
+
+    // When
+    cache.get();
+    cache.get();
+
+    // Then
+    verify(foodAnalyticsService, times(2)).getAnalyticsSnapshot();
+    assertEquals(2.0, requests("miss"));
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("concurrent callers should share a single refresh query")
+  void testGet_SingleFlight() throws Exception {
+    // Given - the first query blocks until every caller has arrived
+    AnalyticsSnapshotCache cache =
+        new AnalyticsSnapshotCache(foodAnalyticsService, meterRegistry, Duration.ofMinutes(1));
+    int callers = 20;
+    CountDownLatch queryStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(foodAnalyticsService.getAnalyticsSnapshot())
+        .thenAnswer(
+            invocation -> {
+              queryStarted.countDown();
+              assertTrue(release.await(5, TimeUnit.SECONDS));
+              return snapshot;
+            });
+
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      // When
+      List<Future<AnalyticsSnapshot>> results = new ArrayList<>();
+      results.add(executor.submit(cache::get));
+      assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+      for (int i = 1; i < callers; i++) {
+        results.add(executor.submit(cache::get));
+      }
+      while (requests("shared") < callers - 1) {
+        Thread.onSpinWait();
+      }
+      release.countDown();
+
+      // Then
+      for (Future<AnalyticsSnapshot> result : results) {
+        assertSame(snapshot, result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(foodAnalyticsService, times(1)).getAnalyticsSnapshot();
+    assertEquals(1.0, requests("miss"));
+  }
+
+  @Test
+  @DisplayName("a failed refresh should propagate and be retried by the next caller")
+  void testGet_RetriesAfterFailure() {
+    // Given
+    AnalyticsSnapshotCache cache =
+        new AnalyticsSnapshotCache(foodAnalyticsService, meterRegistry, Duration.ofMinutes(1));
+    when(foodAnalyticsService.getAnalyticsSnapshot())
+        .thenThrow(new IllegalStateException("database down"))
+        .thenReturn(snapshot);
+
+    // When & Then
+    assertThrows(IllegalStateException.class, cache::get);
+    assertSame(snapshot, cache.get());
+  }
+}
@@ -2,28 +2,24 @@ package com.foodshop.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.times;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.foodshop.domain.FoodAnalytics;
-import com.foodshop.domain.FoodItem;
 import com.foodshop.exception.ResourceNotFoundException;
-import java.util.Optional;
-import org.junit.jupiter.api.BeforeEach;
+import java.util.Map;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 /**
  * Unit tests for AnalyticsTrackingService.
  *
- * <p>Tests view and order count increment logic with optimistic locking retry behavior.
+ * <p>Tests that view and order increments are delegated to the atomic upsert path.
  */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("AnalyticsTrackingService Unit Tests")
@@ -31,146 +27,71 @@ class AnalyticsTrackingServiceTest {
 
   @Mock private FoodAnalyticsService foodAnalyticsService;
 
-  @Mock private FoodItemService foodItemService;
+  @Mock private ViewCountBuffer viewCountBuffer;
 
-  @InjectMocks private AnalyticsTrackingService trackingService;
+  @Mock private AnalyticsLeaderboard leaderboard;
 
-  private FoodItem testFoodItem;
-  private FoodAnalytics testAnalytics;
-
-  @BeforeEach
-  void setUp() {
-    testFoodItem = new FoodItem();
-    testFoodItem.setId(1L);
-    testFoodItem.setName("Test Food");
-
-    testAnalytics = new FoodAnalytics();
-    testAnalytics.setId(1L);
-    testAnalytics.setFoodItem(testFoodItem);
-    testAnalytics.setViewCount(10L);
-    testAnalytics.setOrderCount(5L);
-    testAnalytics.setVersion(0L);
-  }
+  @InjectMocks private AnalyticsTrackingService trackingService;
 
   @Test
-  @DisplayName("incrementViewCount should increment view count by 1")
+  @DisplayName("incrementViewCount should upsert a single view")
   void testIncrementViewCount_Success() {
     // Given
-    when(foodItemService.findById(1L)).thenReturn(testFoodItem);
-    when(foodAnalyticsService.findByFoodItemId(1L))
-        .thenReturn(Optional.of(testAnalytics));
-    when(foodAnalyticsService.save(any(FoodAnalytics.class))).thenReturn(testAnalytics);
-
-    // When
-    trackingService.incrementViewCount(1L);
-
-    // Then
-    verify(foodAnalyticsService).save(testAnalytics);
-    assertEquals(11L, testAnalytics.getViewCount());
-    assertEquals(5L, testAnalytics.getOrderCount()); // Order count unchanged
-  }
-
-  @Test
-  @DisplayName("incrementViewCount should create analytics record if not exists")
-  void testIncrementViewCount_CreateNewRecord() {
-    // Given
-    when(foodItemService.findById(1L)).thenReturn(testFoodItem);
-    when(foodAnalyticsService.findByFoodItemId(1L)).thenReturn(Optional.empty());
-    when(foodAnalyticsService.createNewAnalytics(testFoodItem))
-        .thenAnswer(invocation -> {
-          FoodAnalytics analytics = new FoodAnalytics();
-          analytics.setFoodItem(testFoodItem);
-          analytics.setViewCount(0L);
-          analytics.setOrderCount(0L);
-          return analytics;
-        });
-    when(foodAnalyticsService.save(any(FoodAnalytics.class)))
-        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(foodAnalyticsService.incrementViewCount(1L, 1)).thenReturn(true);
 
     // When
     trackingService.incrementViewCount(1L);
 
     // Then
-    verify(foodAnalyticsService).save(any(FoodAnalytics.class));
+    verify(foodAnalyticsService).incrementViewCount(1L, 1);
+    verify(leaderboard).recordViews(1L, 1);
   }
 
   @Test
   @DisplayName("incrementViewCount should throw exception if food item not found")
   void testIncrementViewCount_FoodItemNotFound() {
     // Given
-    when(foodItemService.findById(999L)).thenThrow(new ResourceNotFoundException("Food item not found with id: 999"));
+    when(foodAnalyticsService.incrementViewCount(999L, 1)).thenReturn(false);
 
     // When & Then
     assertThrows(
         ResourceNotFoundException.class, () -> trackingService.incrementViewCount(999L));
+    verify(leaderboard, never()).recordViews(anyLong(), anyLong());
   }
 
   @Test
-  @DisplayName("incrementViewCount should retry on optimistic locking failure")
-  void testIncrementViewCount_OptimisticLockRetry() {
+  @DisplayName("incrementViewCount should only buffer the view in write-behind mode")
+  void testIncrementViewCount_WriteBehind() {
     // Given
-    when(foodItemService.findById(1L)).thenReturn(testFoodItem);
-    when(foodAnalyticsService.findByFoodItemId(1L))
-        .thenReturn(Optional.of(testAnalytics));
-    when(foodAnalyticsService.save(any(FoodAnalytics.class)))
-        .thenThrow(new ObjectOptimisticLockingFailureException(FoodAnalytics.class, 1L))
-        .thenReturn(testAnalytics); // Succeed on second attempt
+    when(viewCountBuffer.isEnabled()).thenReturn(true);
 
     // When
     trackingService.incrementViewCount(1L);
 
     // Then
-    verify(foodAnalyticsService, times(2)).save(any(FoodAnalytics.class));
+    verify(viewCountBuffer).increment(1L);
+    verify(foodAnalyticsService, never()).incrementViewCount(anyLong(), anyLong());
   }
 
   @Test
-  @DisplayName("incrementOrderCount should increment order count by specified quantity")
+  @DisplayName("incrementOrderCount should upsert the ordered quantity")
   void testIncrementOrderCount_Success() {
     // Given
-    int quantity = 3;
-    when(foodItemService.findById(1L)).thenReturn(testFoodItem);
-    when(foodAnalyticsService.findByFoodItemId(1L))
-        .thenReturn(Optional.of(testAnalytics));
-    when(foodAnalyticsService.save(any(FoodAnalytics.class))).thenReturn(testAnalytics);
-
-    // When
-    trackingService.incrementOrderCount(1L, quantity);
-
-    // Then
-    verify(foodAnalyticsService).save(testAnalytics);
-    assertEquals(8L, testAnalytics.getOrderCount()); // 5 + 3
-    assertEquals(10L, testAnalytics.getViewCount()); // View count unchanged
-  }
-
-  @Test
-  @DisplayName("incrementOrderCount should create analytics record if not exists")
-  void testIncrementOrderCount_CreateNewRecord() {
-    // Given
-    when(foodItemService.findById(1L)).thenReturn(testFoodItem);
-    when(foodAnalyticsService.findByFoodItemId(1L)).thenReturn(Optional.empty());
-    when(foodAnalyticsService.createNewAnalytics(testFoodItem))
-        .thenAnswer(invocation -> {
-          FoodAnalytics analytics = new FoodAnalytics();
-          analytics.setFoodItem(testFoodItem);
-          analytics.setViewCount(0L);
-          analytics.setOrderCount(0L);
-          return analytics;
-        });
-    when(foodAnalyticsService.save(any(FoodAnalytics.class)))
-        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(foodAnalyticsService.incrementOrderCount(1L, 3)).thenReturn(true);
 
     // When
-    trackingService.incrementOrderCount(1L, 2);
+    trackingService.incrementOrderCount(1L, 3);
 
     // Then
-    verify(foodAnalyticsService).save(any(FoodAnalytics.class));
+    verify(foodAnalyticsService).incrementOrderCount(1L, 3);
+    verify(leaderboard).recordOrders(1L, 3);
   }
 
   @Test
   @DisplayName("incrementOrderCount should throw exception if food item not found")
   void testIncrementOrderCount_FoodItemNotFound() {
     // Given
-    when(foodItemService.findById(999L)).thenThrow(new ResourceNotFoundException("Food item not found with id: 999"));
+    when(foodAnalyticsService.incrementOrderCount(999L, 1)).thenReturn(false);
 
     // When & Then
     assertThrows(
@@ -178,20 +99,18 @@ class AnalyticsTrackingServiceTest {
   }
 
   @Test
-  @DisplayName("incrementOrderCount should retry on optimistic locking failure")
-  void testIncrementOrderCount_OptimisticLockRetry() {
+  @DisplayName("incrementOrderCounts should apply all quantities in one batch")
+  void testIncrementOrderCounts_Batch() {
     // Given
-    when(foodItemService.findById(1L)).thenReturn(testFoodItem);
-    when(foodAnalyticsService.findByFoodItemId(1L))
-        .thenReturn(Optional.of(testAnalytics));
-    when(foodAnalyticsService.save(any(FoodAnalytics.class)))
-        .thenThrow(new ObjectOptimisticLockingFailureException(FoodAnalytics.class, 1L))
-        .thenReturn(testAnalytics); // Succeed on second attempt
+    Map<Long, Long> quantities = Map.of(1L, 3L, 2L, 1L, 999L, 2L);
+    when(foodAnalyticsService.addOrderCounts(quantities)).thenReturn(2);
 
     // When
-    trackingService.incrementOrderCount(1L, 2);
+    int touched = trackingService.incrementOrderCounts(quantities);
 
     // Then
-    verify(foodAnalyticsService, times(2)).save(any(FoodAnalytics.class));
+    assertEquals(2, touched);
+    verify(foodAnalyticsService).addOrderCounts(quantities);
+    verify(foodAnalyticsService, never()).incrementOrderCount(anyLong(), anyLong());
   }
 }
@@ -5,14 +5,25 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import com.foodshop.domain.*;
+import com.foodshop.dto.CartMutationResult;
+import com.foodshop.dto.CartView;
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.dto.FoodItemDetailView;
+import com.foodshop.dto.FoodItemDetails;
 import com.foodshop.exception.ResourceNotFoundException;
 import com.foodshop.repository.CartRepository;
+import com.foodshop.repository.FoodItemRepository;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -20,8 +31,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 /**
  * Unit tests for CartService.
  *
- * <p>Tests verify cart operations including creation, item management (add, update, remove),
- * and cart state retrieval.
+ * <p>Tests verify the cart read model, availability checks, and that reads and mutations go to
+ * the database store or, in write-behind mode, to the Redis store.
  */
 @ExtendWith(MockitoExtension.class)
 class CartServiceTest {
@@ -30,6 +41,14 @@ class CartServiceTest {
 
   @Mock private FoodItemService foodItemService;
 
+  @Mock private FoodItemRepository foodItemRepository;
+
+  @Mock private DatabaseCartStore databaseCartStore;
+
+  @Mock private RedisCartStore redisCartStore;
+
+  @Mock private GuestCartStore guestCartStore;
+
   @InjectMocks private CartService cartService;
 
   private User testUser;
@@ -68,34 +87,55 @@ class CartServiceTest {
   }
 
   @Test
-  void getOrCreateCart_shouldReturnExistingCart_whenExists() {
+  void getCart_shouldBuildLinesSortedByName() {
     // Arrange
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
+    Map<Long, Integer> quantities = new LinkedHashMap<>();
+    quantities.put(1L, 2);
+    quantities.put(2L, 1);
+    when(databaseCartStore.quantities(testUser.getId())).thenReturn(quantities);
+    when(foodItemRepository.findCardsByIdIn(quantities.keySet()))
+        .thenReturn(List.of(card(1L, "Margherita Pizza", "12.99"), card(2L, "Calzone", "9.50")));
 
     // Act
-    Cart result = cartService.getOrCreateCart(testUser);
+    CartView result = cartService.getCart(testUser.getId());
 
     // Assert
-    assertNotNull(result);
-    assertEquals(testCart.getId(), result.getId());
-    assertEquals(testUser.getId(), result.getUser().getId());
-    verify(cartRepository).findByUserId(testUser.getId());
-    verify(cartRepository, never()).save(any(Cart.class));
+    assertEquals(2, result.itemCount());
+    assertEquals("Calzone", result.lines().get(0).name());
+    assertEquals(2, result.lines().get(1).quantity());
+    assertEquals(new BigDecimal("25.98"), result.lines().get(1).lineTotal());
+    assertEquals(new BigDecimal("35.48"), result.subtotal());
+    verify(redisCartStore, never()).quantities(anyLong());
   }
 
   @Test
-  void getOrCreateCart_shouldCreateNewCart_whenNotExists() {
+  void getCart_shouldSkipCatalogQuery_whenCartIsEmpty() {
     // Arrange
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.empty());
-    when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+    when(databaseCartStore.quantities(testUser.getId())).thenReturn(Map.of());
 
     // Act
-    Cart result = cartService.getOrCreateCart(testUser);
+    CartView result = cartService.getCart(testUser.getId());
 
     // Assert
-    assertNotNull(result);
-    verify(cartRepository).findByUserId(testUser.getId());
-    verify(cartRepository).save(any(Cart.class));
+    assertTrue(result.isEmpty());
+    assertEquals(BigDecimal.ZERO, result.subtotal());
+    verifyNoInteractions(foodItemRepository);
+  }
+
+  @Test
+  void getCart_shouldReadRedisStore_whenWriteBehindEnabled() {
+    // Arrange
+    when(redisCartStore.isEnabled()).thenReturn(true);
+    when(redisCartStore.quantities(testUser.getId())).thenReturn(Map.of(1L, 3));
+    when(foodItemRepository.findCardsByIdIn(Set.of(1L)))
+        .thenReturn(List.of(card(1L, "Margherita Pizza", "12.99")));
+
+    // Act
+    CartView result = cartService.getCart(testUser.getId());
+
+    // Assert
+    assertEquals(3, result.lines().get(0).quantity());
+    verify(databaseCartStore, never()).quantities(anyLong());
   }
 
   @Test
@@ -115,169 +155,352 @@ class CartServiceTest {
   }
 
   @Test
-  void addItem_shouldAddNewItem_whenNotInCart() {
+  void getCartWithItems_shouldThrowException_whenCartNotFound() {
     // Arrange
-    Long foodItemId = 1L;
-    int quantity = 2;
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
-    when(foodItemService.findById(foodItemId)).thenReturn(testFoodItem);
-    when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+    Long userId = 999L;
+    when(cartRepository.findByUserIdWithItems(userId)).thenReturn(Optional.empty());
+
+    // Act & Assert
+    ResourceNotFoundException exception =
+        assertThrows(ResourceNotFoundException.class, () -> cartService.getCartWithItems(userId));
+
+    assertTrue(exception.getMessage().contains("Cart not found"));
+    verify(cartRepository).findByUserIdWithItems(userId);
+  }
+
+  @Test
+  void addItem_shouldAddToDatabaseStore() {
+    // Arrange
+    CartMutationResult totals = new CartMutationResult(2, 1, new BigDecimal("25.98"));
+    when(foodItemService.findDetails(1L)).thenReturn(details(true));
+    when(databaseCartStore.add(testUser.getId(), 1L, 2)).thenReturn(totals);
 
     // Act
-    Cart result = cartService.addItem(testUser, foodItemId, quantity);
+    CartMutationResult result = cartService.addItem(testUser, 1L, 2);
 
     // Assert
-    assertNotNull(result);
-    verify(foodItemService).findById(foodItemId);
-    verify(cartRepository).save(any(Cart.class));
+    assertEquals(totals, result);
+    verify(redisCartStore, never()).add(anyLong(), anyLong(), anyInt());
   }
 
   @Test
-  void addItem_shouldUpdateQuantity_whenItemExistsInCart() {
+  void addItem_shouldAddToRedisStore_whenWriteBehindEnabled() {
     // Arrange
-    Long foodItemId = 1L;
-    int additionalQuantity = 3;
-    testCart.getItems().add(testCartItem);
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
-    when(foodItemService.findById(foodItemId)).thenReturn(testFoodItem);
-    when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+    when(foodItemService.findDetails(1L)).thenReturn(details(true));
+    when(redisCartStore.isEnabled()).thenReturn(true);
+    when(redisCartStore.add(testUser.getId(), 1L, 3))
+        .thenReturn(new RedisCartStore.Mutation(3, Map.of(1L, 3, 2L, 1)));
+    when(foodItemRepository.findCardsByIdIn(Set.of(1L, 2L)))
+        .thenReturn(List.of(card(1L, "Margherita Pizza", "12.99"), card(2L, "Calzone", "9.50")));
 
     // Act
-    Cart result = cartService.addItem(testUser, foodItemId, additionalQuantity);
+    CartMutationResult result = cartService.addItem(testUser, 1L, 3);
 
     // Assert
-    assertNotNull(result);
-    assertEquals(5, testCartItem.getQuantity()); // 2 + 3
-    verify(cartRepository).save(any(Cart.class));
+    assertEquals(3, result.lineQuantity());
+    assertEquals(2, result.itemCount());
+    assertEquals(new BigDecimal("48.47"), result.subtotal());
+    verifyNoInteractions(databaseCartStore);
   }
 
   @Test
   void addItem_shouldThrowException_whenFoodItemNotAvailable() {
     // Arrange
-    Long foodItemId = 1L;
-    int quantity = 2;
-    testFoodItem.setAvailable(false);
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
-    when(foodItemService.findById(foodItemId)).thenReturn(testFoodItem);
+    when(foodItemService.findDetails(1L)).thenReturn(details(false));
 
     // Act & Assert
     IllegalStateException exception =
-        assertThrows(
-            IllegalStateException.class, () -> cartService.addItem(testUser, foodItemId, quantity));
+        assertThrows(IllegalStateException.class, () -> cartService.addItem(testUser, 1L, 2));
 
     assertTrue(exception.getMessage().contains("not available"));
-    verify(cartRepository, never()).save(any(Cart.class));
+    verifyNoInteractions(databaseCartStore);
+    verify(redisCartStore, never()).add(anyLong(), anyLong(), anyInt());
   }
 
   @Test
-  void updateItemQuantity_shouldUpdateQuantity() {
+  void addItem_shouldRejectNonPositiveQuantity() {
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> cartService.addItem(testUser, 1L, 0));
+
+    verifyNoInteractions(foodItemService, databaseCartStore);
+    verify(redisCartStore, never()).add(anyLong(), anyLong(), anyInt());
+  }
+
+  @Test
+  void addItem_shouldRejectQuantityAboveLineMaximum() {
+    // Act & Assert
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> cartService.addItem(testUser, 1L, CartItem.MAX_QUANTITY + 1));
+
+    verifyNoInteractions(foodItemService, databaseCartStore);
+    verify(redisCartStore, never()).add(anyLong(), anyLong(), anyInt());
+  }
+
+  @Test
+  void updateItemQuantity_shouldUseRedisStore_whenWriteBehindEnabled() {
     // Arrange
-    Long itemId = 1L;
-    int newQuantity = 5;
-    testCart.getItems().add(testCartItem);
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
-    when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+    when(redisCartStore.isEnabled()).thenReturn(true);
+    when(redisCartStore.setQuantity(testUser.getId(), 1L, 5))
+        .thenReturn(new RedisCartStore.Mutation(5, Map.of(1L, 5)));
+    when(foodItemRepository.findCardsByIdIn(Set.of(1L)))
+        .thenReturn(List.of(card(1L, "Margherita Pizza", "12.99")));
 
     // Act
-    Cart result = cartService.updateItemQuantity(testUser.getId(), itemId, newQuantity);
+    CartMutationResult result = cartService.updateItemQuantity(testUser.getId(), 1L, 5);
 
     // Assert
-    assertNotNull(result);
-    assertEquals(newQuantity, testCartItem.getQuantity());
-    verify(cartRepository).save(testCart);
+    assertEquals(new CartMutationResult(5, 1, new BigDecimal("64.95")), result);
+    verifyNoInteractions(databaseCartStore);
   }
 
   @Test
-  void updateItemQuantity_shouldRemoveItem_whenQuantityIsZeroOrNegative() {
+  void updateItemQuantities_shouldPriceDatabaseCartAfterBatch() {
     // Arrange
-    Long itemId = 1L;
-    int newQuantity = 0;
-    testCart.getItems().add(testCartItem);
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
-    when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+    Map<Long, Integer> changes = Map.of(1L, 4, 2L, 0);
+    when(databaseCartStore.setQuantities(testUser.getId(), changes)).thenReturn(Map.of(1L, 4));
+    when(foodItemRepository.findCardsByIdIn(Set.of(1L)))
+        .thenReturn(List.of(card(1L, "Margherita Pizza", "12.99")));
 
     // Act
-    Cart result = cartService.updateItemQuantity(testUser.getId(), itemId, newQuantity);
+    CartView result = cartService.updateItemQuantities(testUser.getId(), changes);
 
     // Assert
-    assertNotNull(result);
-    assertTrue(testCart.getItems().isEmpty());
-    verify(cartRepository).save(testCart);
+    assertEquals(1, result.itemCount());
+    assertEquals(new BigDecimal("51.96"), result.subtotal());
+    verify(redisCartStore, never()).setQuantities(anyLong(), anyMap());
   }
 
   @Test
-  void removeItem_shouldRemoveItemFromCart() {
+  void updateItemQuantities_shouldUseRedisStore_whenWriteBehindEnabled() {
     // Arrange
-    Long itemId = 1L;
-    testCart.getItems().add(testCartItem);
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
-    when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+    when(redisCartStore.isEnabled()).thenReturn(true);
+    when(redisCartStore.setQuantities(testUser.getId(), Map.of(1L, 0))).thenReturn(Map.of());
 
     // Act
-    Cart result = cartService.removeItem(testUser.getId(), itemId);
+    CartView result = cartService.updateItemQuantities(testUser.getId(), Map.of(1L, 0));
 
     // Assert
-    assertNotNull(result);
-    assertTrue(testCart.getItems().isEmpty());
-    verify(cartRepository).save(testCart);
+    assertTrue(result.isEmpty());
+    verifyNoInteractions(databaseCartStore, foodItemRepository);
+  }
+
+  @Test
+  void updateItemQuantities_shouldRejectEmptyBatch() {
+    // Act & Assert
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> cartService.updateItemQuantities(testUser.getId(), Map.of()));
+
+    verifyNoInteractions(databaseCartStore);
   }
 
   @Test
-  void clearCart_shouldRemoveAllItems() {
+  void updateItemQuantities_shouldRejectQuantityAboveLineMaximum() {
+    // Act & Assert
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> cartService.updateItemQuantities(
+            testUser.getId(), Map.of(1L, 2, 2L, Integer.MAX_VALUE)));
+
+    verifyNoInteractions(databaseCartStore);
+    verify(redisCartStore, never()).setQuantities(anyLong(), anyMap());
+  }
+
+  @Test
+  void removeItem_shouldUseDatabaseStore() {
     // Arrange
-    testCart.getItems().add(testCartItem);
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
-    when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+    when(databaseCartStore.remove(testUser.getId(), 1L))
+        .thenReturn(new CartMutationResult(0, 0, BigDecimal.ZERO));
+
+    // Act
+    CartMutationResult result = cartService.removeItem(testUser.getId(), 1L);
+
+    // Assert
+    assertEquals(0, result.itemCount());
+    verify(redisCartStore, never()).remove(anyLong(), anyLong());
+  }
+
+  @Test
+  void removeItem_shouldSkipCatalogQuery_whenRedisCartBecomesEmpty() {
+    // Arrange
+    when(redisCartStore.isEnabled()).thenReturn(true);
+    when(redisCartStore.remove(testUser.getId(), 1L))
+        .thenReturn(new RedisCartStore.Mutation(0, Map.of()));
+
+    // Act
+    CartMutationResult result = cartService.removeItem(testUser.getId(), 1L);
+
+    // Assert
+    assertEquals(new CartMutationResult(0, 0, BigDecimal.ZERO), result);
+    verifyNoInteractions(foodItemRepository);
+  }
+
+  @Test
+  void clearCart_shouldClearDatabaseAndSubtractFromRedis_whenWriteBehindEnabled() {
+    // Arrange
+    when(redisCartStore.isEnabled()).thenReturn(true);
+    when(databaseCartStore.quantities(testUser.getId())).thenReturn(Map.of(1L, 2));
 
     // Act
     cartService.clearCart(testUser.getId());
 
     // Assert
-    assertTrue(testCart.getItems().isEmpty());
-    verify(cartRepository).save(testCart);
+    InOrder order = inOrder(databaseCartStore, redisCartStore);
+    order.verify(databaseCartStore).quantities(testUser.getId());
+    order.verify(databaseCartStore).clear(testUser.getId());
+    order.verify(redisCartStore).subtract(testUser.getId(), Map.of(1L, 2));
   }
 
   @Test
-  void getCartItemCount_shouldReturnTotalQuantity() {
+  void clearCart_shouldNotTouchRedis_whenWriteBehindDisabled() {
     // Arrange
-    CartItem item2 = new CartItem();
-    item2.setQuantity(3);
-    testCart.getItems().add(testCartItem); // quantity: 2
-    testCart.getItems().add(item2); // quantity: 3
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
+    when(redisCartStore.isEnabled()).thenReturn(false);
 
     // Act
-    int result = cartService.getCartItemCount(testUser.getId());
+    cartService.clearCart(testUser.getId());
 
     // Assert
-    assertEquals(5, result); // 2 + 3
-    verify(cartRepository).findByUserId(testUser.getId());
+    verify(databaseCartStore).clear(testUser.getId());
+    verify(databaseCartStore, never()).quantities(anyLong());
+    verify(redisCartStore, never()).subtract(anyLong(), any());
   }
 
   @Test
-  void getCartItemCount_shouldReturnZero_whenCartIsEmpty() {
+  void getCartItemCount_shouldCountRedisLines_whenWriteBehindEnabled() {
     // Arrange
-    when(cartRepository.findByUserId(testUser.getId())).thenReturn(Optional.of(testCart));
+    when(redisCartStore.isEnabled()).thenReturn(true);
+    when(redisCartStore.count(testUser.getId())).thenReturn(2);
 
     // Act
     int result = cartService.getCartItemCount(testUser.getId());
 
     // Assert
-    assertEquals(0, result);
-    verify(cartRepository).findByUserId(testUser.getId());
+    assertEquals(2, result);
+    verify(redisCartStore, never()).quantities(anyLong());
+    verifyNoInteractions(databaseCartStore);
   }
 
   @Test
-  void getCartWithItems_shouldThrowException_whenCartNotFound() {
+  void getGuestCart_shouldBeEmpty_whenVisitorHasNoGuestId() {
+    // Act
+    CartView result = cartService.getGuestCart(null);
+
+    // Assert
+    assertTrue(result.isEmpty());
+    verifyNoInteractions(guestCartStore, foodItemRepository);
+  }
+
+  @Test
+  void addGuestItem_shouldAddToGuestStoreOnly() {
     // Arrange
-    Long userId = 999L;
-    when(cartRepository.findByUserIdWithItems(userId)).thenReturn(Optional.empty());
+    when(foodItemService.findDetails(1L)).thenReturn(details(true));
+    when(guestCartStore.add("guest-1", 1L, 2))
+        .thenReturn(new RedisCartStore.Mutation(2, Map.of(1L, 2)));
+    when(foodItemRepository.findCardsByIdIn(Set.of(1L)))
+        .thenReturn(List.of(card(1L, "Margherita Pizza", "12.99")));
+
+    // Act
+    CartMutationResult result = cartService.addGuestItem("guest-1", 1L, 2);
+
+    // Assert
+    assertEquals(new CartMutationResult(2, 1, new BigDecimal("25.98")), result);
+    verifyNoInteractions(databaseCartStore, cartRepository);
+    verify(redisCartStore, never()).add(anyLong(), anyLong(), anyInt());
+  }
+
+  @Test
+  void mergeGuestCart_shouldTakeGuestCartAndUpsertIntoDatabaseCart() {
+    // Arrange
+    Map<Long, Integer> guestLines = Map.of(1L, 2, 2L, 1);
+    when(guestCartStore.take("guest-1")).thenReturn(guestLines);
+
+    // Act
+    int merged = cartService.mergeGuestCart(testUser.getId(), "guest-1");
+
+    // Assert
+    assertEquals(2, merged);
+    InOrder order = inOrder(guestCartStore, databaseCartStore);
+    order.verify(guestCartStore).take("guest-1");
+    order.verify(databaseCartStore).addAll(testUser.getId(), guestLines);
+    verify(guestCartStore, never()).quantities(anyString());
+    verify(guestCartStore, never()).restore(anyString(), anyMap());
+    verify(redisCartStore, never()).addAll(anyLong(), anyMap());
+  }
+
+  @Test
+  void mergeGuestCart_shouldPutLinesBack_whenUpsertFails() {
+    // Arrange
+    Map<Long, Integer> guestLines = Map.of(1L, 2);
+    when(guestCartStore.take("guest-1")).thenReturn(guestLines);
+    doThrow(new IllegalStateException("database down"))
+        .when(databaseCartStore).addAll(testUser.getId(), guestLines);
 
     // Act & Assert
-    ResourceNotFoundException exception =
-        assertThrows(ResourceNotFoundException.class, () -> cartService.getCartWithItems(userId));
+    assertThrows(
+        IllegalStateException.class,
+        () -> cartService.mergeGuestCart(testUser.getId(), "guest-1"));
+    verify(guestCartStore).restore("guest-1", guestLines);
+  }
 
-    assertTrue(exception.getMessage().contains("Cart not found"));
-    verify(cartRepository).findByUserIdWithItems(userId);
+  @Test
+  void mergeGuestCart_shouldAddToRedisCart_whenWriteBehindEnabled() {
+    // Arrange
+    when(redisCartStore.isEnabled()).thenReturn(true);
+    when(guestCartStore.take("guest-1")).thenReturn(Map.of(1L, 2));
+
+    // Act
+    cartService.mergeGuestCart(testUser.getId(), "guest-1");
+
+    // Assert
+    verify(redisCartStore).addAll(testUser.getId(), Map.of(1L, 2));
+    verifyNoInteractions(databaseCartStore);
+  }
+
+  @Test
+  void mergeGuestCart_shouldMergeNothing_whenGuestCartIsEmptyOrAlreadyTaken() {
+    // Arrange
+    when(guestCartStore.take("guest-1")).thenReturn(Map.of());
+
+    // Act
+    int merged = cartService.mergeGuestCart(testUser.getId(), "guest-1");
+
+    // Assert
+    assertEquals(0, merged);
+    verifyNoInteractions(databaseCartStore);
+  }
+
+  @Test
+  void flush_shouldDoNothing_whenWriteBehindDisabled() {
+    // Act
+    cartService.flush(testUser.getId());
+
+    // Assert
+    verify(redisCartStore, never()).flush(anyLong());
+  }
+
+  @Test
+  void flush_shouldWriteRedisCart_whenWriteBehindEnabled() {
+    // Arrange
+    when(redisCartStore.isEnabled()).thenReturn(true);
+
+    // Act
+    cartService.flush(testUser.getId());
+
+    // Assert
+    verify(redisCartStore).flush(testUser.getId());
+  }
+
+  private static FoodItemCardView card(Long id, String name, String price) {
+    return new FoodItemCardView(
+        id, name, "Tasty", new BigDecimal(price), null, BigDecimal.ZERO, 0, "Pizza");
+  }
+
+  private FoodItemDetails details(boolean available) {
+    return new FoodItemDetails(
+        new FoodItemDetailView(
+            testFoodItem.getId(), testFoodItem.getName(), "Tasty", testFoodItem.getPrice(), null,
+            available, BigDecimal.ZERO, 0, 1L, "Pizza", 0L, 0L, 0L, 0L, 0L),
+        List.of());
   }
 }
@@ -0,0 +1,132 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for CatalogPageCache.
+ *
+ * <p>Tests keying by cursor and size, targeted eviction on catalog changes and exported metrics.
+ */
+@DisplayName("CatalogPageCache Unit Tests")
+class CatalogPageCacheTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private CatalogPageCache cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new CatalogPageCache(meterRegistry, 100, Duration.ofMinutes(10));
+    loads = new AtomicInteger();
+  }
+
+  private CatalogPage load(Long categoryId, CatalogCursor cursor, Long... itemIds) {
+    return cache.get(
+        categoryId,
+        cursor,
+        12,
+        () -> {
+          loads.incrementAndGet();
+          List<FoodItemCardView> items =
+              List.of(itemIds).stream()
+                  .map(id -> new FoodItemCardView(id, "Item " + id, "", null, null, null, 0, ""))
+                  .toList();
+          return new CatalogPage(items, null, null);
+        });
+  }
+
+  @Test
+  @DisplayName("pages should be cached per category, cursor and size")
+  void testGet_KeyedByCursor() {
+    // Given
+    CatalogCursor after = CatalogCursor.after("Pizza", 10L);
+
+    // When
+    CatalogPage first = load(1L, after, 11L);
+    CatalogPage again = load(1L, CatalogCursor.parse(after.token()), 11L);
+    load(1L, null, 10L);
+    load(1L, CatalogCursor.before("Pizza", 10L));
+    load(2L, after, 21L);
+    cache.get(1L, after, 24, () -> {
+      loads.incrementAndGet();
+      return CatalogPage.EMPTY;
+    });
+
+    // Then
+    assertSame(first, again);
+    assertEquals(5, loads.get());
+  }
+
+  @Test
+  @DisplayName("food item change should evict only pages that can contain the item")
+  void testOnCatalogChanged_FoodItem() {
+    // Given
+    load(null, null, 10L, 20L);
+    load(1L, null, 10L);
+    load(2L, null, 20L);
+    load(3L, null, 30L);
+
+    // When: item 20 moved from category 2 to category 1
+    cache.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 20L));
+    loads.set(0);
+    load(null, null, 10L, 20L);
+    load(1L, null, 10L, 20L);
+    load(2L, null);
+    load(3L, null, 30L);
+
+    // Then: all-categories, category 1 and the page still holding item 20 reloaded
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  @DisplayName("category change should evict that category and all-categories pages")
+  void testOnCatalogChanged_Category() {
+    // Given
+    load(null, null, 10L);
+    load(1L, null, 10L);
+    load(2L, null, 20L);
+
+    // When
+    cache.onCatalogChanged(CatalogChangedEvent.category(1L));
+    loads.set(0);
+    load(null, null, 10L);
+    load(1L, null, 10L);
+    load(2L, null, 20L);
+
+    // Then
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  @DisplayName("hits and misses should be exported as cache metrics")
+  void testMetrics() {
+    // When
+    load(1L, null, 10L);
+    load(1L, null, 10L);
+    load(1L, null, 10L);
+
+    // Then
+    assertEquals(
+        2.0,
+        meterRegistry.get("cache.gets").tag("cache", "catalog.pages").tag("result", "hit")
+            .functionCounter().count());
+    assertEquals(
+        1.0,
+        meterRegistry.get("cache.gets").tag("cache", "catalog.pages").tag("result", "miss")
+            .functionCounter().count());
+  }
+}
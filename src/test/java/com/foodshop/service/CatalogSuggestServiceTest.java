@@ -0,0 +1,172 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.domain.Category;
+import com.foodshop.domain.FoodItem;
+import com.foodshop.dto.FoodAnalyticsDTO;
+import com.foodshop.dto.SuggestionDTO;
+import com.foodshop.dto.SuggestionsDTO;
+import com.foodshop.event.CatalogChangedEvent;
+import com.foodshop.repository.CategoryRepository;
+import com.foodshop.repository.FoodItemRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for CatalogSuggestService.
+ *
+ * <p>Tests prefix matching, popularity ranking and incremental index updates.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogSuggestService Unit Tests")
+class CatalogSuggestServiceTest {
+
+  @Mock private FoodItemRepository foodItemRepository;
+
+  @Mock private CategoryRepository categoryRepository;
+
+  @Mock private AnalyticsLeaderboard leaderboard;
+
+  private CatalogSuggestService suggestService;
+
+  @BeforeEach
+  void setUp() {
+    suggestService =
+        new CatalogSuggestService(foodItemRepository, categoryRepository, leaderboard);
+
+    Category desserts = new Category();
+    desserts.setId(1L);
+    desserts.setName("Desserts");
+    desserts.setActive(true);
+    when(categoryRepository.findAll()).thenReturn(List.of(desserts));
+    when(foodItemRepository.findAllAvailableSuggestions())
+        .thenReturn(
+            List.of(
+                new SuggestionDTO(10L, "Crème Brûlée"),
+                new SuggestionDTO(11L, "Margherita Pizza"),
+                new SuggestionDTO(12L, "Pepperoni Pizza")));
+    lenient().when(leaderboard.find(any())).thenReturn(Optional.empty());
+    suggestService.rebuild();
+  }
+
+  private static List<Long> ids(List<SuggestionDTO> suggestions) {
+    return suggestions.stream().map(SuggestionDTO::id).toList();
+  }
+
+  @Test
+  @DisplayName("any word of a name should match by prefix, ignoring case and accents")
+  void testSuggest_WordPrefixes() {
+    // When & Then
+    assertEquals(List.of(10L), ids(suggestService.suggest("brul", 8).items()));
+    assertEquals(List.of(10L), ids(suggestService.suggest("CREME b", 8).items()));
+    assertEquals(List.of(1L), ids(suggestService.suggest("dess", 8).categories()));
+    assertTrue(suggestService.suggest("burger", 8).items().isEmpty());
+  }
+
+  @Test
+  @DisplayName("matching items should be ranked by orders, then views")
+  void testSuggest_RankedByPopularity() {
+    // Given
+    when(leaderboard.find(11L))
+        .thenReturn(Optional.of(new FoodAnalyticsDTO(11L, "Margherita Pizza", null, 500L, 10L)));
+    when(leaderboard.find(12L))
+        .thenReturn(Optional.of(new FoodAnalyticsDTO(12L, "Pepperoni Pizza", null, 100L, 40L)));
+
+    // When
+    SuggestionsDTO suggestions = suggestService.suggest("piz", 8);
+
+    // Then
+    assertEquals(List.of(12L, 11L), ids(suggestions.items()));
+    assertEquals(List.of(12L), ids(suggestService.suggest("piz", 1).items()));
+  }
+
+  @Test
+  @DisplayName("the most popular match should win however many names sort before it")
+  void testSuggest_RanksEveryMatch() {
+    // Given: 600 pizzas, the most ordered one last by name
+    List<SuggestionDTO> pizzas = new ArrayList<>();
+    for (long i = 0; i < 600; i++) {
+      pizzas.add(new SuggestionDTO(100L + i, String.format("Pizza %03d", i)));
+    }
+    when(foodItemRepository.findAllAvailableSuggestions()).thenReturn(pizzas);
+    when(leaderboard.find(699L))
+        .thenReturn(Optional.of(new FoodAnalyticsDTO(699L, "Pizza 599", null, 10L, 90L)));
+    when(leaderboard.find(650L))
+        .thenReturn(Optional.of(new FoodAnalyticsDTO(650L, "Pizza 550", null, 80L, 3L)));
+    suggestService.rebuild();
+
+    // When
+    List<SuggestionDTO> items = suggestService.suggest("p", 3).items();
+
+    // Then: the ties after the two ranked items are broken by name
+    assertEquals(List.of(699L, 650L, 100L), ids(items));
+  }
+
+  @Test
+  @DisplayName("a change committed during a rebuild should survive the swap")
+  void testRebuild_ReplaysConcurrentChanges() {
+    // Given: the rebuild reads the old name, then the rename commits before the swap
+    FoodItem renamed = new FoodItem();
+    renamed.setId(11L);
+    renamed.setName("Margherita Flatbread");
+    renamed.setAvailable(true);
+    when(foodItemRepository.findById(11L)).thenReturn(Optional.of(renamed));
+    when(foodItemRepository.findAllAvailableSuggestions())
+        .thenAnswer(invocation -> {
+          List<SuggestionDTO> snapshot = List.of(new SuggestionDTO(11L, "Margherita Pizza"));
+          suggestService.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 11L));
+          return snapshot;
+        });
+
+    // When
+    suggestService.rebuild();
+
+    // Then
+    assertTrue(suggestService.suggest("pizza", 8).items().isEmpty());
+    assertEquals(List.of(11L), ids(suggestService.suggest("flat", 8).items()));
+  }
+
+  @Test
+  @DisplayName("committed item changes should update the index in place")
+  void testOnCatalogChanged_FoodItem() {
+    // Given
+    FoodItem renamed = new FoodItem();
+    renamed.setId(11L);
+    renamed.setName("Margherita Flatbread");
+    renamed.setAvailable(true);
+    FoodItem withdrawn = new FoodItem();
+    withdrawn.setId(12L);
+    withdrawn.setName("Pepperoni Pizza");
+    withdrawn.setAvailable(false);
+    when(foodItemRepository.findById(11L)).thenReturn(Optional.of(renamed));
+    when(foodItemRepository.findById(12L)).thenReturn(Optional.of(withdrawn));
+
+    // When
+    suggestService.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 11L));
+    suggestService.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 12L));
+
+    // Then
+    assertTrue(suggestService.suggest("pizza", 8).items().isEmpty());
+    assertEquals(List.of(11L), ids(suggestService.suggest("flat", 8).items()));
+  }
+
+  @Test
+  @DisplayName("blank queries should return no suggestions")
+  void testSuggest_BlankQuery() {
+    // When & Then
+    assertEquals(SuggestionsDTO.EMPTY, suggestService.suggest("  ", 8));
+    assertEquals(SuggestionsDTO.EMPTY, suggestService.suggest(null, 8));
+  }
+}
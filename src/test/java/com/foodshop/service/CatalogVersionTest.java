@@ -0,0 +1,95 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.event.CatalogChangedEvent;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Unit tests for CatalogVersion.
+ *
+ * <p>Tests reading, creating and bumping the shared version stamp.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogVersion Unit Tests")
+class CatalogVersionTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+
+  @Mock private ValueOperations<String, String> valueOperations;
+
+  private CatalogVersion catalogVersion;
+
+  @BeforeEach
+  void setUp() {
+    catalogVersion = new CatalogVersion(redisTemplate, "1.0.0");
+  }
+
+  @Test
+  @DisplayName("current stamp should be read from Redis and name the release in its ETag")
+  void testCurrent_ReadsStamp() {
+    // Given
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(CatalogVersion.KEY)).thenReturn("1700000000000");
+
+    // When
+    Optional<CatalogVersion.Stamp> stamp = catalogVersion.current();
+
+    // Then
+    assertEquals(1_700_000_000_000L, stamp.orElseThrow().version());
+    assertEquals("\"1700000000000-1.0.0\"", stamp.orElseThrow().etag());
+    verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), anyString());
+  }
+
+  @Test
+  @DisplayName("missing stamp should be created on first use")
+  void testCurrent_CreatesStamp() {
+    // Given
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(CatalogVersion.KEY)).thenReturn(null);
+    when(redisTemplate.execute(any(RedisScript.class), eq(List.of(CatalogVersion.KEY)), anyString()))
+        .thenReturn(1_700_000_000_001L);
+
+    // When & Then
+    assertEquals(1_700_000_000_001L, catalogVersion.current().orElseThrow().version());
+  }
+
+  @Test
+  @DisplayName("Redis outage should yield no stamp instead of a stale one")
+  void testCurrent_RedisDown() {
+    // Given
+    when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+    // When & Then
+    assertTrue(catalogVersion.current().isEmpty());
+  }
+
+  @Test
+  @DisplayName("committed catalog change should bump the stamp")
+  void testOnCatalogChanged_Bumps() {
+    // When
+    catalogVersion.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 2L));
+
+    // Then
+    verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(CatalogVersion.KEY)), anyString());
+  }
+}
@@ -0,0 +1,134 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.domain.Category;
+import com.foodshop.event.CatalogChangedEvent;
+import com.foodshop.repository.CategoryRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Unit tests for CategoryRegistry.
+ *
+ * <p>Tests snapshot lookups, reloads on local category writes and cross-instance notifications.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CategoryRegistry Unit Tests")
+class CategoryRegistryTest {
+
+  @Mock private CategoryRepository categoryRepository;
+
+  @Mock private StringRedisTemplate redisTemplate;
+
+  private CategoryRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    registry = new CategoryRegistry(categoryRepository, redisTemplate);
+  }
+
+  private static Category category(Long id, String name, int displayOrder, boolean active) {
+    Category category = new Category();
+    category.setId(id);
+    category.setName(name);
+    category.setDisplayOrder(displayOrder);
+    category.setActive(active);
+    return category;
+  }
+
+  @Test
+  @DisplayName("lookups should be answered from one snapshot query")
+  void testLookupsFromSnapshot() {
+    // Given
+    when(categoryRepository.findAll())
+        .thenReturn(
+            List.of(
+                category(1L, "Pizza", 2, true),
+                category(2L, "Drinks", 1, true),
+                category(3L, "Seasonal", 0, false)));
+
+    // When
+    List<Category> active = registry.activeCategories();
+    Optional<String> inactiveName = registry.findName(3L);
+    Optional<String> missingName = registry.findName(99L);
+
+    // Then
+    assertEquals(List.of(2L, 1L), active.stream().map(Category::getId).toList());
+    assertEquals(Optional.of("Seasonal"), inactiveName);
+    assertTrue(missingName.isEmpty());
+    verify(categoryRepository, times(1)).findAll();
+  }
+
+  @Test
+  @DisplayName("category change should reload and notify other instances")
+  void testOnCatalogChanged_Category() {
+    // Given
+    when(categoryRepository.findAll())
+        .thenReturn(List.of(category(1L, "Pizza", 1, true)))
+        .thenReturn(List.of(category(1L, "Pizzas", 1, true)));
+    registry.reload();
+
+    // When
+    registry.onCatalogChanged(CatalogChangedEvent.category(1L));
+
+    // Then
+    assertEquals(Optional.of("Pizzas"), registry.findName(1L));
+    verify(redisTemplate).convertAndSend(eq(CategoryRegistry.CHANNEL), anyString());
+  }
+
+  @Test
+  @DisplayName("food item change should leave the snapshot alone")
+  void testOnCatalogChanged_FoodItem() {
+    // Given
+    when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Pizza", 1, true)));
+    registry.reload();
+
+    // When
+    registry.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 10L));
+
+    // Then
+    verify(categoryRepository, times(1)).findAll();
+    verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+  }
+
+  @Test
+  @DisplayName("announcements from other instances should reload, own ones should not")
+  void testOnMessage() {
+    // Given
+    when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Pizza", 1, true)));
+    registry.onCatalogChanged(CatalogChangedEvent.category(1L));
+    ArgumentCaptor<String> ownId = ArgumentCaptor.forClass(String.class);
+    verify(redisTemplate).convertAndSend(eq(CategoryRegistry.CHANNEL), ownId.capture());
+
+    // When
+    registry.onMessage(message(ownId.getValue()), null);
+    registry.onMessage(message("another-instance"), null);
+
+    // Then: one reload for the local change, one for the other instance
+    verify(categoryRepository, times(2)).findAll();
+  }
+
+  private static DefaultMessage message(String body) {
+    return new DefaultMessage(
+        CategoryRegistry.CHANNEL.getBytes(StandardCharsets.UTF_8),
+        body.getBytes(StandardCharsets.UTF_8));
+  }
+}
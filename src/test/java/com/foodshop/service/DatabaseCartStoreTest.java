@@ -0,0 +1,246 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.foodshop.domain.*;
+import com.foodshop.dto.CartMutationResult;
+import com.foodshop.dto.CartTotals;
+import com.foodshop.exception.ResourceNotFoundException;
+import com.foodshop.repository.CartRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for DatabaseCartStore.
+ *
+ * <p>Tests verify line management (add, update, remove, clear) by food item ID, and replacing a
+ * cart's lines.
+ */
+@ExtendWith(MockitoExtension.class)
+class DatabaseCartStoreTest {
+
+  @Mock private CartRepository cartRepository;
+
+  @InjectMocks private DatabaseCartStore databaseCartStore;
+
+  private User testUser;
+  private Cart testCart;
+  private FoodItem testFoodItem;
+  private CartItem testCartItem;
+
+  @BeforeEach
+  void setUp() {
+    testUser = new User();
+    testUser.setId(1L);
+    testUser.setEmail("test@example.com");
+
+    testCart = new Cart();
+    testCart.setId(1L);
+    testCart.setUser(testUser);
+    testCart.setItems(new ArrayList<>());
+
+    testFoodItem = new FoodItem();
+    testFoodItem.setId(1L);
+    testFoodItem.setName("Margherita Pizza");
+    testFoodItem.setPrice(new BigDecimal("12.99"));
+    testFoodItem.setAvailable(true);
+
+    testCartItem = new CartItem();
+    testCartItem.setId(1L);
+    testCartItem.setCart(testCart);
+    testCartItem.setFoodItem(testFoodItem);
+    testCartItem.setQuantity(2);
+  }
+
+  @Test
+  void add_shouldUpsertLineWithoutLoadingCart() {
+    // Arrange
+    when(cartRepository.addQuantity(testUser.getId(), 1L, 3)).thenReturn(5);
+    when(cartRepository.sumTotalsByUserId(testUser.getId()))
+        .thenReturn(new CartTotals(1, new BigDecimal("64.95")));
+
+    // Act
+    CartMutationResult result = databaseCartStore.add(testUser.getId(), 1L, 3);
+
+    // Assert
+    assertEquals(new CartMutationResult(5, 1, new BigDecimal("64.95")), result);
+    verify(cartRepository, never()).findByUserIdWithItems(anyLong());
+    verify(cartRepository, never()).save(any(Cart.class));
+  }
+
+  @Test
+  void add_shouldReject_whenLineWouldPassMaximum() {
+    // Arrange: the upsert leaves the line alone and returns no quantity
+    when(cartRepository.addQuantity(testUser.getId(), 1L, 3)).thenReturn(0);
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class, () -> databaseCartStore.add(testUser.getId(), 1L, 3));
+
+    verify(cartRepository, never()).sumTotalsByUserId(anyLong());
+  }
+
+  @Test
+  void setQuantity_shouldUpdateQuantity() {
+    // Arrange
+    testCart.getItems().add(testCartItem);
+    when(cartRepository.findByUserIdWithItems(testUser.getId())).thenReturn(Optional.of(testCart));
+    when(cartRepository.sumTotalsByUserId(testUser.getId()))
+        .thenReturn(new CartTotals(1, new BigDecimal("64.95")));
+
+    // Act
+    CartMutationResult result = databaseCartStore.setQuantity(testUser.getId(), 1L, 5);
+
+    // Assert
+    assertEquals(5, result.lineQuantity());
+    assertEquals(new BigDecimal("64.95"), result.subtotal());
+    assertEquals(5, testCartItem.getQuantity());
+    verify(cartRepository).save(testCart);
+  }
+
+  @Test
+  void setQuantity_shouldRemoveItem_whenQuantityIsZeroOrNegative() {
+    // Arrange
+    testCart.getItems().add(testCartItem);
+    when(cartRepository.findByUserIdWithItems(testUser.getId())).thenReturn(Optional.of(testCart));
+    when(cartRepository.sumTotalsByUserId(testUser.getId()))
+        .thenReturn(new CartTotals(0, BigDecimal.ZERO));
+
+    // Act
+    CartMutationResult result = databaseCartStore.setQuantity(testUser.getId(), 1L, 0);
+
+    // Assert
+    assertEquals(0, result.lineQuantity());
+    assertTrue(testCart.getItems().isEmpty());
+    verify(cartRepository).save(testCart);
+  }
+
+  @Test
+  void setQuantity_shouldThrowException_whenItemNotInCart() {
+    // Arrange
+    when(cartRepository.findByUserIdWithItems(testUser.getId())).thenReturn(Optional.of(testCart));
+
+    // Act & Assert
+    assertThrows(
+        ResourceNotFoundException.class, () -> databaseCartStore.setQuantity(testUser.getId(), 9L, 1));
+    verify(cartRepository, never()).save(any(Cart.class));
+  }
+
+  @Test
+  void setQuantities_shouldMergeChangesUnderCartLock() {
+    // Arrange
+    Map<Long, Integer> lines = new LinkedHashMap<>();
+    lines.put(1L, 2);
+    lines.put(2L, 1);
+    when(cartRepository.lockCart(testUser.getId())).thenReturn(7L);
+    when(cartRepository.findQuantitiesByUserId(testUser.getId())).thenReturn(lines);
+
+    // Act
+    Map<Long, Integer> result =
+        databaseCartStore.setQuantities(testUser.getId(), Map.of(1L, 5, 2L, 0));
+
+    // Assert
+    assertEquals(Map.of(1L, 5), result);
+    InOrder order = inOrder(cartRepository);
+    order.verify(cartRepository).lockCart(testUser.getId());
+    order.verify(cartRepository).replaceItems(7L, Map.of(1L, 5));
+  }
+
+  @Test
+  void setQuantities_shouldChangeNothing_whenALineIsMissing() {
+    // Arrange
+    Map<Long, Integer> lines = new LinkedHashMap<>();
+    lines.put(1L, 2);
+    when(cartRepository.lockCart(testUser.getId())).thenReturn(7L);
+    when(cartRepository.findQuantitiesByUserId(testUser.getId())).thenReturn(lines);
+
+    // Act & Assert
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> databaseCartStore.setQuantities(testUser.getId(), Map.of(9L, 1)));
+    verify(cartRepository, never()).replaceItems(anyLong(), anyMap());
+  }
+
+  @Test
+  void remove_shouldRemoveItemFromCart() {
+    // Arrange
+    testCart.getItems().add(testCartItem);
+    when(cartRepository.findByUserIdWithItems(testUser.getId())).thenReturn(Optional.of(testCart));
+    when(cartRepository.sumTotalsByUserId(testUser.getId()))
+        .thenReturn(new CartTotals(0, BigDecimal.ZERO));
+
+    // Act
+    CartMutationResult result = databaseCartStore.remove(testUser.getId(), 1L);
+
+    // Assert
+    assertTrue(testCart.getItems().isEmpty());
+    assertEquals(0, result.itemCount());
+    verify(cartRepository).save(testCart);
+  }
+
+  @Test
+  void clear_shouldRemoveAllItems() {
+    // Arrange
+    testCart.getItems().add(testCartItem);
+    when(cartRepository.findByUserIdWithItems(testUser.getId())).thenReturn(Optional.of(testCart));
+
+    // Act
+    databaseCartStore.clear(testUser.getId());
+
+    // Assert
+    assertTrue(testCart.getItems().isEmpty());
+    verify(cartRepository).save(testCart);
+  }
+
+  @Test
+  void count_shouldUseCountQuery() {
+    // Arrange
+    when(cartRepository.countItemsByUserId(testUser.getId())).thenReturn(3L);
+
+    // Act
+    int result = databaseCartStore.count(testUser.getId());
+
+    // Assert
+    assertEquals(3, result);
+    verify(cartRepository, never()).findByUserIdWithItems(anyLong());
+  }
+
+  @Test
+  void replace_shouldReadQuantitiesAfterLockingCart() {
+    // Arrange
+    Map<Long, Integer> quantities = Map.of(1L, 4);
+    when(cartRepository.lockCart(testUser.getId())).thenReturn(7L);
+
+    // Act
+    databaseCartStore.replace(testUser.getId(), () -> {
+      verify(cartRepository).lockCart(testUser.getId());
+      return quantities;
+    });
+
+    // Assert
+    verify(cartRepository).replaceItems(7L, quantities);
+  }
+
+  @Test
+  void replace_shouldLeaveItems_whenQuantitiesAreGone() {
+    // Arrange
+    when(cartRepository.lockCart(testUser.getId())).thenReturn(7L);
+
+    // Act
+    databaseCartStore.replace(testUser.getId(), () -> null);
+
+    // Assert
+    verify(cartRepository, never()).replaceItems(anyLong(), anyMap());
+  }
+}
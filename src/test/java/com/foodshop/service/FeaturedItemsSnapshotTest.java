@@ -0,0 +1,147 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for FeaturedItemsSnapshot.
+ *
+ * <p>Tests serving from memory, recomputing on catalog changes and the snapshot age metric.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FeaturedItemsSnapshot Unit Tests")
+class FeaturedItemsSnapshotTest {
+
+  @Mock private FoodItemService foodItemService;
+
+  private SimpleMeterRegistry meterRegistry;
+  private FeaturedItemsSnapshot featuredItems;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    featuredItems = new FeaturedItemsSnapshot(foodItemService, meterRegistry);
+  }
+
+  private static FoodItemCardView card(long id, String rating) {
+    return new FoodItemCardView(
+        id, "Item " + id, "", BigDecimal.TEN, null, new BigDecimal(rating), 10, "Pizza");
+  }
+
+  private double age() {
+    return meterRegistry.get("catalog.featured.snapshot.age").gauge().value();
+  }
+
+  @Test
+  @DisplayName("featured items should be computed once and then served from memory")
+  void testItems_ServedFromMemory() {
+    // Given
+    List<FoodItemCardView> topRated = List.of(card(1L, "4.9"), card(2L, "4.5"));
+    when(foodItemService.findTopRated(
+            FeaturedItemsSnapshot.MIN_RATING_COUNT, FeaturedItemsSnapshot.SIZE))
+        .thenReturn(topRated);
+    featuredItems.refresh();
+
+    // When
+    List<FoodItemCardView> first = featuredItems.items();
+    List<FoodItemCardView> second = featuredItems.items();
+
+    // Then
+    assertEquals(topRated, first);
+    assertEquals(topRated, second);
+    verify(foodItemService, times(1)).findTopRated(5, 8);
+  }
+
+  @Test
+  @DisplayName("a committed catalog change should recompute the list")
+  void testOnCatalogChanged() {
+    // Given
+    when(foodItemService.findTopRated(5, 8))
+        .thenReturn(List.of(card(1L, "4.9")))
+        .thenReturn(List.of(card(2L, "5.0"), card(1L, "4.9")));
+    featuredItems.refresh();
+
+    // When: item 2 received a rating
+    featuredItems.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 2L));
+
+    // Then
+    assertEquals(List.of(2L, 1L), featuredItems.items().stream().map(FoodItemCardView::id).toList());
+  }
+
+  @Test
+  @DisplayName("catalog changes during a refresh should be covered by one more refresh")
+  void testOnCatalogChanged_CoalescesWhileRefreshing() throws Exception {
+    // Given: the refresh for the first change blocks until released
+    CountDownLatch refreshing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(foodItemService.findTopRated(5, 8))
+        .thenAnswer(invocation -> {
+          refreshing.countDown();
+          assertTrue(release.await(5, TimeUnit.SECONDS));
+          return List.of(card(1L, "4.9"));
+        })
+        .thenReturn(List.of(card(2L, "5.0"), card(1L, "4.9")));
+    Thread first = new Thread(
+        () -> featuredItems.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 1L)));
+    first.start();
+    assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+
+    // When: a rating write publishes two changes while the refresh runs
+    featuredItems.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 2L));
+    featuredItems.onCatalogChanged(CatalogChangedEvent.foodItem(1L, 2L));
+    release.countDown();
+    first.join(5000);
+
+    // Then: the later calls returned at once and the running refresh recomputed once more
+    assertEquals(List.of(2L, 1L), featuredItems.items().stream().map(FoodItemCardView::id).toList());
+    verify(foodItemService, times(2)).findTopRated(5, 8);
+  }
+
+  @Test
+  @DisplayName("a failed recompute should keep serving the previous list")
+  void testRefresh_FailureKeepsPreviousList() {
+    // Given
+    List<FoodItemCardView> topRated = List.of(card(1L, "4.9"));
+    when(foodItemService.findTopRated(5, 8))
+        .thenReturn(topRated)
+        .thenThrow(new IllegalStateException("database down"));
+    featuredItems.refresh();
+
+    // When
+    featuredItems.refresh();
+
+    // Then
+    assertEquals(topRated, featuredItems.items());
+  }
+
+  @Test
+  @DisplayName("snapshot age should be exported once the list has been computed")
+  void testAgeMetric() {
+    // Given
+    when(foodItemService.findTopRated(5, 8)).thenReturn(List.of());
+    assertTrue(Double.isNaN(age()));
+
+    // When
+    featuredItems.refresh();
+
+    // Then
+    assertTrue(age() >= 0 && age() < 60);
+  }
+}
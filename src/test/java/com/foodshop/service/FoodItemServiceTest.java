@@ -6,21 +6,28 @@ import static org.mockito.Mockito.*;
 
 import com.foodshop.domain.Category;
 import com.foodshop.domain.FoodItem;
+import com.foodshop.dto.CatalogCursor;
+import com.foodshop.dto.CatalogPage;
+import com.foodshop.dto.FoodItemCardView;
+import com.foodshop.dto.FoodItemDetailView;
+import com.foodshop.dto.FoodItemDetails;
+import com.foodshop.dto.ReviewView;
+import com.foodshop.event.CatalogChangedEvent;
 import com.foodshop.exception.ResourceNotFoundException;
 import com.foodshop.repository.FoodItemRepository;
+import com.foodshop.repository.RatingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
-import java.util.Arrays;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 
 /**
  * Unit tests for FoodItemService.
@@ -33,14 +40,25 @@ class FoodItemServiceTest {
 
   @Mock private FoodItemRepository foodItemRepository;
 
-  @InjectMocks private FoodItemService foodItemService;
+  @Mock private RatingRepository ratingRepository;
+
+  private FoodItemService foodItemService;
+  private FoodItemDetailCache detailCache;
 
   private FoodItem testFoodItem;
+  private FoodItemCardView testCard;
   private Category testCategory;
-  private Pageable pageable;
 
   @BeforeEach
   void setUp() {
+    detailCache = new FoodItemDetailCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    foodItemService =
+        new FoodItemService(
+            foodItemRepository,
+            ratingRepository,
+            new CatalogPageCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10)),
+            detailCache);
+
     testCategory = new Category();
     testCategory.setId(1L);
     testCategory.setName("Pizza");
@@ -56,77 +74,116 @@ class FoodItemServiceTest {
     testFoodItem.setAvgRating(BigDecimal.valueOf(4.5));
     testFoodItem.setRatingCount(127);
 
-    pageable = PageRequest.of(0, 12);
+    testCard =
+        new FoodItemCardView(
+            1L,
+            "Margherita Pizza",
+            "Classic pizza with tomato and mozzarella",
+            new BigDecimal("12.99"),
+            null,
+            BigDecimal.valueOf(4.5),
+            127,
+            "Pizza");
   }
 
   @Test
   void findAllAvailable_shouldReturnAvailableItems() {
     // Arrange
-    Page<FoodItem> expectedPage = new PageImpl<>(Arrays.asList(testFoodItem));
-    when(foodItemRepository.findAllAvailable(pageable)).thenReturn(expectedPage);
+    CatalogPage expectedPage = new CatalogPage(List.of(testCard), null, null);
+    when(foodItemRepository.findAvailablePage(null, null, 12)).thenReturn(expectedPage);
 
     // Act
-    Page<FoodItem> result = foodItemService.findAllAvailable(pageable);
+    CatalogPage result = foodItemService.findAllAvailable(null, 12);
 
     // Assert
     assertNotNull(result);
-    assertEquals(1, result.getTotalElements());
-    assertEquals(testFoodItem.getName(), result.getContent().get(0).getName());
-    verify(foodItemRepository).findAllAvailable(pageable);
+    assertEquals(1, result.content().size());
+    assertEquals(testFoodItem.getName(), result.content().get(0).name());
+    verify(foodItemRepository).findAvailablePage(null, null, 12);
+  }
+
+  @Test
+  void findAllAvailable_shouldServeRepeatedRequestsFromCache() {
+    // Arrange
+    CatalogCursor cursor = CatalogCursor.after("Margherita Pizza", 1L);
+    CatalogPage expectedPage = new CatalogPage(List.of(testCard), cursor.token(), null);
+    when(foodItemRepository.findAvailablePage(null, cursor, 12)).thenReturn(expectedPage);
+
+    // Act
+    CatalogPage first = foodItemService.findAllAvailable(cursor, 12);
+    CatalogPage second =
+        foodItemService.findAllAvailable(CatalogCursor.parse(cursor.token()), 12);
+
+    // Assert
+    assertSame(first, second);
+    verify(foodItemRepository, times(1)).findAvailablePage(null, cursor, 12);
   }
 
   @Test
   void findByCategoryId_shouldReturnItemsInCategory() {
     // Arrange
     Long categoryId = 1L;
-    Page<FoodItem> expectedPage = new PageImpl<>(Arrays.asList(testFoodItem));
-    when(foodItemRepository.findByCategoryIdAndAvailable(categoryId, pageable))
-        .thenReturn(expectedPage);
+    CatalogPage expectedPage = new CatalogPage(List.of(testCard), null, null);
+    when(foodItemRepository.findAvailablePage(categoryId, null, 12)).thenReturn(expectedPage);
 
     // Act
-    Page<FoodItem> result = foodItemService.findByCategoryId(categoryId, pageable);
+    CatalogPage result = foodItemService.findByCategoryId(categoryId, null, 12);
 
     // Assert
     assertNotNull(result);
-    assertEquals(1, result.getTotalElements());
+    assertEquals(1, result.content().size());
     assertEquals(testFoodItem.getCategory().getId(), categoryId);
-    verify(foodItemRepository).findByCategoryIdAndAvailable(categoryId, pageable);
+    verify(foodItemRepository).findAvailablePage(categoryId, null, 12);
   }
 
   @Test
   void search_shouldReturnMatchingItems() {
     // Arrange
     String searchTerm = "pizza";
-    Page<FoodItem> expectedPage = new PageImpl<>(Arrays.asList(testFoodItem));
-    when(foodItemRepository.searchByNameOrDescription(searchTerm, pageable)).thenReturn(expectedPage);
+    CatalogPage expectedPage = new CatalogPage(List.of(testCard), null, null);
+    when(foodItemRepository.searchAvailablePage(searchTerm, null, 12)).thenReturn(expectedPage);
 
     // Act
-    Page<FoodItem> result = foodItemService.search(searchTerm, pageable);
+    CatalogPage result = foodItemService.search(searchTerm, null, 12);
 
     // Assert
     assertNotNull(result);
-    assertEquals(1, result.getTotalElements());
-    assertTrue(result.getContent().get(0).getName().toLowerCase().contains("pizza"));
-    verify(foodItemRepository).searchByNameOrDescription(searchTerm, pageable);
+    assertEquals(1, result.content().size());
+    assertTrue(result.content().get(0).name().toLowerCase().contains("pizza"));
+    verify(foodItemRepository).searchAvailablePage(searchTerm, null, 12);
+  }
+
+  @Test
+  void search_shouldTrimTermAndPassCursor() {
+    // Arrange
+    CatalogCursor cursor = CatalogCursor.after("0.0607927", 1L);
+    CatalogPage expectedPage = new CatalogPage(List.of(testCard), null, null);
+    when(foodItemRepository.searchAvailablePage("pizza", cursor, 12)).thenReturn(expectedPage);
+
+    // Act
+    CatalogPage result = foodItemService.search("  pizza ", cursor, 12);
+
+    // Assert
+    assertSame(expectedPage, result);
+    verify(foodItemRepository).searchAvailablePage("pizza", cursor, 12);
   }
 
   @Test
   void findTopRated_shouldReturnHighRatedItems() {
     // Arrange
     int minRatingCount = 5;
-    Page<FoodItem> expectedPage = new PageImpl<>(Arrays.asList(testFoodItem));
-    when(foodItemRepository.findTopRated(minRatingCount, pageable)).thenReturn(expectedPage);
+    when(foodItemRepository.findTopRated(minRatingCount, PageRequest.of(0, 8)))
+        .thenReturn(List.of(testCard));
 
     // Act
-    Page<FoodItem> result = foodItemService.findTopRated(minRatingCount, pageable);
+    List<FoodItemCardView> result = foodItemService.findTopRated(minRatingCount, 8);
 
     // Assert
-    assertNotNull(result);
-    assertEquals(1, result.getTotalElements());
-    FoodItem item = result.getContent().get(0);
-    assertTrue(item.getRatingCount() >= minRatingCount);
-    assertTrue(item.getAvgRating().compareTo(BigDecimal.ZERO) > 0);
-    verify(foodItemRepository).findTopRated(minRatingCount, pageable);
+    assertEquals(1, result.size());
+    FoodItemCardView item = result.get(0);
+    assertTrue(item.ratingCount() >= minRatingCount);
+    assertTrue(item.avgRating().compareTo(BigDecimal.ZERO) > 0);
+    verify(foodItemRepository).findTopRated(minRatingCount, PageRequest.of(0, 8));
   }
 
   @Test
@@ -159,35 +216,114 @@ class FoodItemServiceTest {
     verify(foodItemRepository).findById(id);
   }
 
+  @Test
+  void findDetails_shouldAssembleItemAndLatestReviewsOnce() {
+    // Arrange
+    FoodItemDetailView detail = detailView(1L);
+    ReviewView review =
+        new ReviewView(7L, 5, "Best crust in town", "Ana", true, LocalDateTime.now());
+    when(foodItemRepository.findDetailById(1L)).thenReturn(Optional.of(detail));
+    when(ratingRepository.findLatestReviews(1L, PageRequest.of(0, 5)))
+        .thenReturn(List.of(review));
+
+    // Act
+    FoodItemDetails first = foodItemService.findDetails(1L);
+    FoodItemDetails second = foodItemService.findDetails(1L);
+
+    // Assert
+    assertSame(first, second);
+    assertEquals(detail, first.item());
+    assertEquals(List.of(review), first.latestReviews());
+    assertEquals(80, first.item().starPercent(5));
+    verify(foodItemRepository, times(1)).findDetailById(1L);
+    verify(ratingRepository, times(1)).findLatestReviews(1L, PageRequest.of(0, 5));
+    verify(foodItemRepository, never()).findById(any());
+  }
+
+  @Test
+  void findDetails_shouldReloadAfterRatingChange() {
+    // Arrange
+    when(foodItemRepository.findDetailById(1L)).thenReturn(Optional.of(detailView(1L)));
+    when(ratingRepository.findLatestReviews(eq(1L), any())).thenReturn(List.of());
+    foodItemService.findDetails(1L);
+
+    // Act
+    detailCache.onCatalogChanged(CatalogChangedEvent.rating(1L));
+    foodItemService.findDetails(1L);
+
+    // Assert
+    verify(foodItemRepository, times(2)).findDetailById(1L);
+  }
+
+  @Test
+  void findDetails_shouldThrowException_whenNotExists() {
+    // Arrange
+    when(foodItemRepository.findDetailById(999L)).thenReturn(Optional.empty());
+
+    // Act & Assert
+    assertThrows(ResourceNotFoundException.class, () -> foodItemService.findDetails(999L));
+    verify(ratingRepository, never()).findLatestReviews(any(), any());
+  }
+
+  @Test
+  void isDetailCached_shouldAnswerFromDetailCacheWithoutQuerying() {
+    // Arrange
+    when(foodItemRepository.findDetailById(1L)).thenReturn(Optional.of(detailView(1L)));
+    foodItemService.findDetails(1L);
+
+    // Act & Assert
+    assertTrue(foodItemService.isDetailCached(1L));
+    assertFalse(foodItemService.isDetailCached(999L));
+    verify(foodItemRepository, never()).existsById(any());
+    verify(foodItemRepository, never()).findDetailById(999L);
+  }
+
   @Test
   void findAllAvailable_shouldReturnEmptyPage_whenNoItems() {
     // Arrange
-    Page<FoodItem> emptyPage = Page.empty();
-    when(foodItemRepository.findAllAvailable(pageable)).thenReturn(emptyPage);
+    when(foodItemRepository.findAvailablePage(null, null, 12)).thenReturn(CatalogPage.EMPTY);
 
     // Act
-    Page<FoodItem> result = foodItemService.findAllAvailable(pageable);
+    CatalogPage result = foodItemService.findAllAvailable(null, 12);
 
     // Assert
     assertNotNull(result);
     assertTrue(result.isEmpty());
-    assertEquals(0, result.getTotalElements());
-    verify(foodItemRepository).findAllAvailable(pageable);
+    assertNull(result.nextCursor());
+    verify(foodItemRepository).findAvailablePage(null, null, 12);
   }
 
   @Test
   void search_shouldHandleEmptySearchTerm() {
     // Arrange
     String emptySearch = "";
-    Page<FoodItem> expectedPage = new PageImpl<>(Arrays.asList(testFoodItem));
-    when(foodItemRepository.searchByNameOrDescription(emptySearch, pageable))
-        .thenReturn(expectedPage);
+    CatalogPage expectedPage = new CatalogPage(List.of(testCard), null, null);
+    when(foodItemRepository.searchAvailablePage(emptySearch, null, 12)).thenReturn(expectedPage);
 
     // Act
-    Page<FoodItem> result = foodItemService.search(emptySearch, pageable);
+    CatalogPage result = foodItemService.search(emptySearch, null, 12);
 
     // Assert
     assertNotNull(result);
-    verify(foodItemRepository).searchByNameOrDescription(emptySearch, pageable);
+    verify(foodItemRepository).searchAvailablePage(emptySearch, null, 12);
+  }
+
+  private static FoodItemDetailView detailView(Long id) {
+    return new FoodItemDetailView(
+        id,
+        "Margherita Pizza",
+        "Classic pizza with tomato and mozzarella",
+        new BigDecimal("12.99"),
+        null,
+        true,
+        BigDecimal.valueOf(4.6),
+        10,
+        1L,
+        "Pizza",
+        8L,
+        1L,
+        0L,
+        1L,
+        0L);
   }
 }
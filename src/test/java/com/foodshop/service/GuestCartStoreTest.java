@@ -0,0 +1,136 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.exception.ResourceNotFoundException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Unit tests for GuestCartStore.
+ *
+ * <p>Tests script arguments and replies for mutations and for taking a cart at login.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GuestCartStore Unit Tests")
+class GuestCartStoreTest {
+
+  private static final String CART_KEY = GuestCartStore.KEY_PREFIX + "guest-1";
+
+  @Mock private StringRedisTemplate redisTemplate;
+
+  private GuestCartStore guestCartStore;
+
+  @BeforeEach
+  void setUp() {
+    guestCartStore = new GuestCartStore(redisTemplate, Duration.ofDays(7), 50);
+  }
+
+  @Test
+  @DisplayName("an add should read the new quantity and the whole cart from the reply")
+  void testAdd() {
+    // Given
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY)), eq("add"), eq("5"), eq("2"),
+            eq("604800"), eq("50")))
+        .thenReturn(List.of(2L, "5", "2", "7", "1"));
+
+    // When
+    RedisCartStore.Mutation mutation = guestCartStore.add("guest-1", 5L, 2);
+
+    // Then
+    assertEquals(2, mutation.lineQuantity());
+    assertEquals(Map.of(5L, 2, 7L, 1), mutation.quantities());
+  }
+
+  @Test
+  @DisplayName("adding a new line to a full cart should be rejected")
+  void testAdd_Full() {
+    // Given
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY)), eq("add"), eq("5"), eq("1"),
+            eq("604800"), eq("50")))
+        .thenReturn(List.of(GuestCartStore.FULL));
+
+    // When & Then
+    assertThrows(IllegalStateException.class, () -> guestCartStore.add("guest-1", 5L, 1));
+  }
+
+  @Test
+  @DisplayName("an add taking a line past the maximum quantity should be rejected")
+  void testAdd_OverMaxQuantity() {
+    // Given
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY)), eq("add"), eq("5"), eq("2"),
+            eq("604800"), eq("50")))
+        .thenReturn(List.of(GuestCartStore.OVER_MAX_QUANTITY));
+
+    // When & Then
+    assertThrows(IllegalStateException.class, () -> guestCartStore.add("guest-1", 5L, 2));
+  }
+
+  @Test
+  @DisplayName("a batch update naming a line that is not in the cart should be rejected")
+  void testSetQuantities_NotInCart() {
+    // Given
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY)), eq("604800"), eq("9"), eq("2")))
+        .thenReturn(List.of(GuestCartStore.NOT_IN_CART, "9"));
+
+    // When & Then
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> guestCartStore.setQuantities("guest-1", Map.of(9L, 2)));
+  }
+
+  @Test
+  @DisplayName("taking a cart should read its lines from the script reply")
+  void testTake() {
+    // Given
+    when(redisTemplate.execute(any(RedisScript.class), eq(List.of(CART_KEY))))
+        .thenReturn(List.of(0L, "5", "2", "7", "1"));
+
+    // When
+    Map<Long, Integer> taken = guestCartStore.take("guest-1");
+
+    // Then
+    assertEquals(Map.of(5L, 2, 7L, 1), taken);
+  }
+
+  @Test
+  @DisplayName("taking a cart that is gone should return no lines")
+  void testTake_Gone() {
+    // Given
+    when(redisTemplate.execute(any(RedisScript.class), eq(List.of(CART_KEY))))
+        .thenReturn(List.of(0L));
+
+    // When & Then
+    assertTrue(guestCartStore.take("guest-1").isEmpty());
+  }
+
+  @Test
+  @DisplayName("restoring a cart should add every pair back with a fresh TTL")
+  void testRestore() {
+    // When
+    guestCartStore.restore("guest-1", Map.of(5L, 2));
+
+    // Then
+    verify(redisTemplate).execute(
+        any(RedisScript.class), eq(List.of(CART_KEY)), eq("604800"), eq("5"), eq("2"));
+  }
+}
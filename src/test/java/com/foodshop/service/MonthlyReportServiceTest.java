@@ -14,6 +14,8 @@ import static org.mockito.Mockito.when;
 import com.foodshop.domain.MonthlyReport;
 import com.foodshop.domain.ReportStatus;
 import com.foodshop.domain.User;
+import com.foodshop.dto.AnalyticsRange;
+import com.foodshop.dto.AnalyticsSnapshot;
 import com.foodshop.dto.FoodAnalyticsDTO;
 import com.foodshop.dto.MonthlyReportSummaryDTO;
 import com.foodshop.repository.MonthlyReportRepository;
@@ -81,9 +83,8 @@ class MonthlyReportServiceTest {
     // Given
     when(reportRepository.existsByReportDateAndStatus(any(), eq(ReportStatus.SENT)))
         .thenReturn(false);
-    when(dashboardService.getAllAnalytics(null)).thenReturn(testAnalytics);
-    when(dashboardService.getTotalViews()).thenReturn(240L);
-    when(dashboardService.getTotalOrders()).thenReturn(120L);
+    when(dashboardService.getSnapshotForRange(AnalyticsRange.ofMonth(testReportMonth)))
+        .thenReturn(new AnalyticsSnapshot(testAnalytics, 240L, 120L));
     when(userService.findAdminUsers()).thenReturn(testAdmins);
     when(reportRepository.save(any(MonthlyReport.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
@@ -117,9 +118,8 @@ class MonthlyReportServiceTest {
     // Given
     when(reportRepository.existsByReportDateAndStatus(any(), eq(ReportStatus.SENT)))
         .thenReturn(false);
-    when(dashboardService.getAllAnalytics(null)).thenReturn(testAnalytics);
-    when(dashboardService.getTotalViews()).thenReturn(240L);
-    when(dashboardService.getTotalOrders()).thenReturn(120L);
+    when(dashboardService.getSnapshotForRange(AnalyticsRange.ofMonth(testReportMonth)))
+        .thenReturn(new AnalyticsSnapshot(testAnalytics, 240L, 120L));
     when(userService.findAdminUsers()).thenReturn(testAdmins);
     when(reportRepository.save(any(MonthlyReport.class)))
         .thenAnswer(
@@ -146,9 +146,8 @@ class MonthlyReportServiceTest {
     // Given
     when(reportRepository.existsByReportDateAndStatus(any(), eq(ReportStatus.SENT)))
         .thenReturn(false);
-    when(dashboardService.getAllAnalytics(null)).thenReturn(testAnalytics);
-    when(dashboardService.getTotalViews()).thenReturn(240L);
-    when(dashboardService.getTotalOrders()).thenReturn(120L);
+    when(dashboardService.getSnapshotForRange(AnalyticsRange.ofMonth(testReportMonth)))
+        .thenReturn(new AnalyticsSnapshot(testAnalytics, 240L, 120L));
     when(userService.findAdminUsers()).thenReturn(testAdmins);
     doThrow(new RuntimeException("Email service failure"))
         .when(emailService).sendMonthlyAnalyticsReport(anyList(), any());
@@ -169,9 +168,8 @@ class MonthlyReportServiceTest {
     // Given
     when(reportRepository.existsByReportDateAndStatus(any(), eq(ReportStatus.SENT)))
         .thenReturn(false);
-    when(dashboardService.getAllAnalytics(null)).thenReturn(testAnalytics);
-    when(dashboardService.getTotalViews()).thenReturn(240L);
-    when(dashboardService.getTotalOrders()).thenReturn(120L);
+    when(dashboardService.getSnapshotForRange(AnalyticsRange.ofMonth(testReportMonth)))
+        .thenReturn(new AnalyticsSnapshot(testAnalytics, 240L, 120L));
     when(userService.findAdminUsers()).thenReturn(List.of());
     when(reportRepository.save(any(MonthlyReport.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
@@ -0,0 +1,91 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Unit tests for MpscRingBuffer.
+ *
+ * <p>Tests capacity bounds, FIFO draining and element hand-off between concurrent producers and
+ * the single consumer.
+ */
+@DisplayName("MpscRingBuffer Unit Tests")
+class MpscRingBufferTest {
+
+  @Test
+  @DisplayName("offer should fail once the buffer is full and succeed after draining")
+  void testOffer_Bounded() {
+    // Given - capacity is rounded up to a power of two
+    MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+
+    // When
+    for (int i = 0; i < 4; i++) {
+      assertTrue(buffer.offer(i));
+    }
+    boolean overflow = buffer.offer(4);
+    List<Integer> drained = new ArrayList<>();
+    buffer.drainTo(drained, 2);
+
+    // Then
+    assertFalse(overflow);
+    assertEquals(List.of(0, 1), drained);
+    assertEquals(2, buffer.size());
+    assertTrue(buffer.offer(4));
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("concurrent producers should hand every element to the consumer exactly once")
+  void testConcurrentProducers() throws Exception {
+    // Given
+    int producers = 4;
+    int perProducer = 10_000;
+    MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    CountDownLatch start = new CountDownLatch(1);
+
+    // When
+    for (int p = 0; p < producers; p++) {
+      int base = p * perProducer;
+      executor.submit(
+          () -> {
+            start.await();
+            for (int i = 0; i < perProducer; i++) {
+              while (!buffer.offer(base + i)) {
+                Thread.yield();
+              }
+            }
+            return null;
+          });
+    }
+    start.countDown();
+
+    Set<Integer> seen = new HashSet<>();
+    List<Integer> batch = new ArrayList<>();
+    while (seen.size() < producers * perProducer) {
+      batch.clear();
+      buffer.drainTo(batch, 256);
+      for (Integer element : batch) {
+        assertTrue(seen.add(element), "duplicate element " + element);
+      }
+    }
+    executor.shutdown();
+
+    // Then
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(0, buffer.size());
+  }
+}
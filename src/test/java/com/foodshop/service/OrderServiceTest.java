@@ -15,6 +15,7 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -125,6 +126,9 @@ class OrderServiceTest {
         assertThrows(IllegalStateException.class, () -> orderService.createOrder(testUser));
 
     assertTrue(exception.getMessage().contains("empty"));
+    InOrder cartCalls = inOrder(cartService);
+    cartCalls.verify(cartService).flush(testUser.getId());
+    cartCalls.verify(cartService).getCartWithItems(testUser.getId());
     verify(orderRepository, never()).save(any(Order.class));
     verify(paymentService, never()).createCheckoutSession(anyLong(), anyLong(), anyString());
   }
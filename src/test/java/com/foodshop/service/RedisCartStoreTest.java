@@ -0,0 +1,288 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Unit tests for RedisCartStore.
+ *
+ * <p>Tests loading carts on a miss, mutation script replies, and the write-behind flush.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RedisCartStore Unit Tests")
+class RedisCartStoreTest {
+
+  private static final String CART_KEY = RedisCartStore.KEY_PREFIX + "1";
+
+  @Mock private StringRedisTemplate redisTemplate;
+
+  @Mock private HashOperations<String, Object, Object> hashOperations;
+
+  @Mock private SetOperations<String, String> setOperations;
+
+  @Mock private DatabaseCartStore databaseCartStore;
+
+  private RedisCartStore redisCartStore;
+
+  @BeforeEach
+  void setUp() {
+    redisCartStore = store(true);
+  }
+
+  private RedisCartStore store(boolean enabled) {
+    return new RedisCartStore(
+        redisTemplate, databaseCartStore, new SimpleMeterRegistry(), enabled,
+        Duration.ofHours(2), 100);
+  }
+
+  @Test
+  @DisplayName("a loaded cart should be read from its hash without the marker field")
+  void testQuantities_Loaded() {
+    // Given
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(CART_KEY))
+        .thenReturn(Map.of(RedisCartStore.LOADED_FIELD, "1", "5", "2", "7", "1"));
+
+    // When
+    Map<Long, Integer> quantities = redisCartStore.quantities(1L);
+
+    // Then
+    assertEquals(Map.of(5L, 2, 7L, 1), quantities);
+    verify(redisTemplate).expire(CART_KEY, Duration.ofHours(2));
+    verifyNoInteractions(databaseCartStore);
+  }
+
+  @Test
+  @DisplayName("a missing cart should be loaded from the database once")
+  void testQuantities_LoadsOnMiss() {
+    // Given
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(CART_KEY))
+        .thenReturn(Map.of())
+        .thenReturn(Map.of(RedisCartStore.LOADED_FIELD, "1", "5", "2"));
+    when(databaseCartStore.quantities(1L)).thenReturn(Map.of(5L, 2));
+
+    // When
+    Map<Long, Integer> quantities = redisCartStore.quantities(1L);
+
+    // Then
+    assertEquals(Map.of(5L, 2), quantities);
+    verify(redisTemplate)
+        .execute(any(RedisScript.class), eq(List.of(CART_KEY)), eq("7200"), eq("5"), eq("2"));
+  }
+
+  @Test
+  @DisplayName("a mutation on an unloaded cart should load it and run again")
+  void testAdd_LoadsAndRetries() {
+    // Given
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY, RedisCartStore.DIRTY_KEY)), eq("add"),
+            eq("5"), eq("3"), eq("7200"), eq("1")))
+        .thenReturn(List.of(RedisCartStore.NOT_LOADED))
+        .thenReturn(List.of(3L, RedisCartStore.LOADED_FIELD, "1", "5", "3", "7", "1"));
+    when(databaseCartStore.quantities(1L)).thenReturn(Map.of());
+
+    // When
+    RedisCartStore.Mutation mutation = redisCartStore.add(1L, 5L, 3);
+
+    // Then
+    assertEquals(3, mutation.lineQuantity());
+    assertEquals(Map.of(5L, 3, 7L, 1), mutation.quantities());
+    verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(CART_KEY)), eq("7200"));
+    verify(databaseCartStore, never()).add(anyLong(), anyLong(), anyInt());
+  }
+
+  @Test
+  @DisplayName("updating a line that is not in the cart should be rejected")
+  void testSetQuantity_NotInCart() {
+    // Given
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY, RedisCartStore.DIRTY_KEY)), eq("set"),
+            eq("5"), eq("4"), eq("7200"), eq("1")))
+        .thenReturn(List.of(RedisCartStore.NOT_IN_CART));
+
+    // When & Then
+    assertThrows(ResourceNotFoundException.class, () -> redisCartStore.setQuantity(1L, 5L, 4));
+  }
+
+  @Test
+  @DisplayName("an add taking a line past the maximum quantity should be rejected")
+  void testAdd_OverMaxQuantity() {
+    // Given
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY, RedisCartStore.DIRTY_KEY)), eq("add"),
+            eq("5"), eq("3"), eq("7200"), eq("1")))
+        .thenReturn(List.of(RedisCartStore.OVER_MAX_QUANTITY));
+
+    // When & Then
+    assertThrows(IllegalStateException.class, () -> redisCartStore.add(1L, 5L, 3));
+    verify(databaseCartStore, never()).quantities(anyLong());
+  }
+
+  @Test
+  @DisplayName("a batch update should send every pair and read the cart from the reply")
+  void testSetQuantities() {
+    // Given
+    Map<Long, Integer> changes = new LinkedHashMap<>();
+    changes.put(5L, 4);
+    changes.put(7L, 0);
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY, RedisCartStore.DIRTY_KEY)), eq("set"),
+            eq("7200"), eq("1"), eq("5"), eq("4"), eq("7"), eq("0")))
+        .thenReturn(List.of(0L, RedisCartStore.LOADED_FIELD, "1", "5", "4"));
+
+    // When
+    Map<Long, Integer> quantities = redisCartStore.setQuantities(1L, changes);
+
+    // Then
+    assertEquals(Map.of(5L, 4), quantities);
+  }
+
+  @Test
+  @DisplayName("a batch update naming a line that is not in the cart should be rejected")
+  void testSetQuantities_NotInCart() {
+    // Given
+    when(redisTemplate.execute(
+            any(RedisScript.class), eq(List.of(CART_KEY, RedisCartStore.DIRTY_KEY)), eq("set"),
+            eq("7200"), eq("1"), eq("9"), eq("2")))
+        .thenReturn(List.of(RedisCartStore.NOT_IN_CART, "9"));
+
+    // When & Then
+    ResourceNotFoundException exception =
+        assertThrows(
+            ResourceNotFoundException.class,
+            () -> redisCartStore.setQuantities(1L, Map.of(9L, 2)));
+    assertTrue(exception.getMessage().contains("9"));
+  }
+
+  @Test
+  @DisplayName("a loaded cart should be counted from its hash size without the marker field")
+  void testCount_Loaded() {
+    // Given
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.size(CART_KEY)).thenReturn(3L);
+
+    // When
+    int count = redisCartStore.count(1L);
+
+    // Then
+    assertEquals(2, count);
+    verifyNoInteractions(databaseCartStore);
+  }
+
+  @Test
+  @DisplayName("a cart that is not in Redis should be counted in the database without loading it")
+  void testCount_Missing() {
+    // Given
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.size(CART_KEY)).thenReturn(0L);
+    when(databaseCartStore.count(1L)).thenReturn(4);
+
+    // When
+    int count = redisCartStore.count(1L);
+
+    // Then
+    assertEquals(4, count);
+    verify(hashOperations, never()).entries(CART_KEY);
+  }
+
+  @Test
+  @DisplayName("subtracting checked-out quantities should send every pair and the dirty set")
+  void testSubtract() {
+    // Given
+    Map<Long, Integer> purchased = new LinkedHashMap<>();
+    purchased.put(5L, 2);
+    purchased.put(7L, 1);
+
+    // When
+    redisCartStore.subtract(1L, purchased);
+
+    // Then
+    verify(redisTemplate).execute(
+        any(RedisScript.class), eq(List.of(CART_KEY, RedisCartStore.DIRTY_KEY)), eq("1"),
+        eq("5"), eq("2"), eq("7"), eq("1"));
+    verifyNoInteractions(databaseCartStore);
+  }
+
+  @Test
+  @DisplayName("flush should write the hash read once the database cart is locked")
+  @SuppressWarnings("unchecked")
+  void testFlush_ReadsInsideReplace() {
+    // Given
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(CART_KEY)).thenReturn(Map.of());
+    ArgumentCaptor<Supplier<Map<Long, Integer>>> quantities =
+        ArgumentCaptor.forClass(Supplier.class);
+
+    // When
+    redisCartStore.flush(1L);
+
+    // Then
+    verify(databaseCartStore).replace(eq(1L), quantities.capture());
+    verifyNoInteractions(hashOperations);
+    assertNull(quantities.getValue().get());
+  }
+
+  @Test
+  @DisplayName("carts that fail to flush should be marked dirty again")
+  void testFlushDirty_RetriesFailures() {
+    // Given
+    when(redisTemplate.opsForSet()).thenReturn(setOperations);
+    when(setOperations.pop(RedisCartStore.DIRTY_KEY, 100)).thenReturn(List.of("1", "2"));
+    doNothing().when(databaseCartStore).replace(eq(1L), any());
+    doThrow(new IllegalStateException("database down"))
+        .when(databaseCartStore).replace(eq(2L), any());
+
+    // When
+    redisCartStore.flushDirty();
+
+    // Then
+    InOrder order = inOrder(databaseCartStore, setOperations);
+    order.verify(databaseCartStore).replace(eq(1L), any());
+    order.verify(databaseCartStore).replace(eq(2L), any());
+    order.verify(setOperations).add(RedisCartStore.DIRTY_KEY, "2");
+  }
+
+  @Test
+  @DisplayName("flushDirty should do nothing when write-behind mode is disabled")
+  void testFlushDirty_Disabled() {
+    // When
+    store(false).flushDirty();
+
+    // Then
+    verifyNoInteractions(redisTemplate, databaseCartStore);
+  }
+}
@@ -0,0 +1,110 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for ViewCountBuffer.
+ *
+ * <p>Tests delta accumulation, batched flushing and retry after a failed flush.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ViewCountBuffer Unit Tests")
+class ViewCountBufferTest {
+
+  @Mock private FoodAnalyticsService foodAnalyticsService;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ViewCountBuffer buffer;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    buffer = new ViewCountBuffer(foodAnalyticsService, meterRegistry, true);
+  }
+
+  @Test
+  @DisplayName("flush should write accumulated deltas in one batch")
+  void testFlush_WritesDeltas() {
+    // Given
+    buffer.increment(1L);
+    buffer.increment(1L);
+    buffer.increment(2L);
+
+    // When
+    buffer.flush();
+
+    // Then
+    verify(foodAnalyticsService).addViewCounts(Map.of(1L, 2L, 2L, 1L));
+    assertEquals(0L, buffer.pendingViews());
+  }
+
+  @Test
+  @DisplayName("flush should only write views recorded since the previous flush")
+  void testFlush_OnlyWritesNewViews() {
+    // Given
+    buffer.increment(1L);
+    buffer.flush();
+    buffer.increment(1L);
+
+    // When
+    buffer.flush();
+
+    // Then
+    verify(foodAnalyticsService, times(2)).addViewCounts(Map.of(1L, 1L));
+  }
+
+  @Test
+  @DisplayName("flush should skip the database when nothing is pending")
+  void testFlush_NothingPending() {
+    // When
+    buffer.flush();
+
+    // Then
+    verify(foodAnalyticsService, never()).addViewCounts(anyMap());
+  }
+
+  @Test
+  @DisplayName("flush should keep deltas pending when the database write fails")
+  void testFlush_RetriesAfterFailure() {
+    // Given
+    buffer.increment(1L);
+    when(foodAnalyticsService.addViewCounts(anyMap()))
+        .thenThrow(new IllegalStateException("database unavailable"))
+        .thenReturn(1);
+
+    // When
+    buffer.flush();
+
+    // Then
+    assertEquals(1L, buffer.pendingViews());
+    buffer.flush();
+    verify(foodAnalyticsService, times(2)).addViewCounts(Map.of(1L, 1L));
+    assertEquals(0L, buffer.pendingViews());
+  }
+
+  @Test
+  @DisplayName("pending gauge and flush timer should be registered")
+  void testMetricsRegistered() {
+    // Given
+    buffer.increment(3L);
+
+    // Then
+    assertEquals(1.0, meterRegistry.get("analytics.view.buffer.pending").gauge().value());
+    buffer.flush();
+    assertEquals(1L, meterRegistry.get("analytics.view.buffer.flush").timer().count());
+  }
+}
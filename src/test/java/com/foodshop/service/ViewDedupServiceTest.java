@@ -0,0 +1,137 @@
+package com.foodshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.foodshop.event.TrackingEvent;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisSetCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Unit tests for ViewDedupService.
+ *
+ * <p>Tests interpretation of pipelined Redis replies; the commands themselves are covered against a
+ * real Redis by the integration tests.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ViewDedupService Unit Tests")
+class ViewDedupServiceTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+
+  private ViewDedupService viewDedupService;
+
+  @BeforeEach
+  void setUp() {
+    viewDedupService = new ViewDedupService(redisTemplate, Duration.ofMinutes(30));
+  }
+
+  @Test
+  @DisplayName("markViewed should return true on first view in session")
+  void testMarkViewed_FirstView() {
+    // Given (SADD, EXPIRE, PFADD replies)
+    when(redisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenReturn(List.of(1L, true, 1L));
+
+    // When & Then
+    assertTrue(viewDedupService.markViewed(List.of(TrackingEvent.view("session-1", 1L)))[0]);
+  }
+
+  @Test
+  @DisplayName("markViewed should return false on repeat view in session")
+  void testMarkViewed_RepeatView() {
+    // Given - a first view of item 1 and a repeat view of item 2 in one pipeline
+    when(redisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenReturn(List.of(1L, true, 1L, 0L, true, 0L));
+
+    // When
+    boolean[] firstViews =
+        viewDedupService.markViewed(
+            List.of(TrackingEvent.view("session-1", 1L), TrackingEvent.view("session-1", 2L)));
+
+    // Then
+    assertTrue(firstViews[0]);
+    assertFalse(firstViews[1]);
+  }
+
+  @Test
+  @DisplayName("unmarkViewed should remove each view from its session's seen set in one pipeline")
+  @SuppressWarnings("unchecked")
+  void testUnmarkViewed() {
+    // Given
+    RedisConnection connection = mock(RedisConnection.class);
+    RedisSetCommands setCommands = mock(RedisSetCommands.class);
+    when(connection.setCommands()).thenReturn(setCommands);
+    ArgumentCaptor<RedisCallback<Object>> callback = ArgumentCaptor.forClass(RedisCallback.class);
+
+    // When
+    viewDedupService.unmarkViewed(
+        List.of(TrackingEvent.view("session-1", 1L), TrackingEvent.view("session-2", 7L)));
+
+    // Then
+    verify(redisTemplate).executePipelined(callback.capture());
+    callback.getValue().doInRedis(connection);
+    verify(setCommands).sRem(bytes("analytics:views:seen:session-1"), bytes("1"));
+    verify(setCommands).sRem(bytes("analytics:views:seen:session-2"), bytes("7"));
+  }
+
+  @Test
+  @DisplayName("unmarkViewed should not call Redis for no views")
+  void testUnmarkViewed_Empty() {
+    // When
+    viewDedupService.unmarkViewed(List.of());
+
+    // Then
+    verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  @DisplayName("countUniqueVisitors should map PFCOUNT replies to item IDs")
+  void testCountUniqueVisitors() {
+    // Given
+    when(redisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenReturn(Arrays.asList(12L, null));
+
+    // When
+    Map<Long, Long> visitors = viewDedupService.countUniqueVisitors(List.of(1L, 2L));
+
+    // Then
+    assertEquals(12L, visitors.get(1L));
+    assertEquals(0L, visitors.get(2L));
+  }
+
+  @Test
+  @DisplayName("countUniqueVisitors should not call Redis for no items")
+  void testCountUniqueVisitors_Empty() {
+    // When
+    Map<Long, Long> visitors = viewDedupService.countUniqueVisitors(List.of());
+
+    // Then
+    assertTrue(visitors.isEmpty());
+    verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+  }
+}